@@ -0,0 +1,52 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Run the Collique benchmarks with the GC profiler enabled, so that the
+ * allocation rate per operation ({@code gc.alloc.rate.norm}) is reported next
+ * to the throughput. Any standard JMH command line option may be given, e.g.
+ * a regular expression restricting the benchmarks to run.
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public final class BenchmarkRunner {
+
+	private BenchmarkRunner() {
+	}
+
+	public static void main(String[] args) throws RunnerException,
+			CommandLineOptionException {
+		CommandLineOptions cmd = new CommandLineOptions(args);
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(cmd)
+				.addProfiler(GCProfiler.class);
+		if (cmd.getIncludes().isEmpty())
+			options.include(BenchmarkRunner.class.getPackage().getName()
+					+ ".*");
+		new Runner(options.build()).run();
+	}
+
+}
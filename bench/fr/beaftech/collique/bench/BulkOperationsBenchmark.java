@@ -0,0 +1,174 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique.bench;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.beaftech.collique.SingleElementList;
+import fr.beaftech.collique.SingleElementSet;
+
+/**
+ * Measure the bulk operations of {@link SingleElementSet} against the kinds of
+ * argument collections they have a fast path for. Run with
+ * {@link BenchmarkRunner} to check that {@code gc.alloc.rate.norm} stays at
+ * zero.
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BulkOperationsBenchmark {
+
+	static final int LARGE_SIZE = 10000;
+
+	public enum Argument {
+		EMPTY {
+			@Override
+			Collection<String> create(String element) {
+				return Collections.emptySet();
+			}
+		},
+		COLLIQUE_LIST {
+			@Override
+			Collection<String> create(String element) {
+				return new SingleElementList<String>(element);
+			}
+		},
+		HASH_SET_OF_ONE {
+			@Override
+			Collection<String> create(String element) {
+				return new HashSet<String>(Collections.singleton(element));
+			}
+		},
+		LARGE_HASH_SET {
+			@Override
+			Collection<String> create(String element) {
+				Collection<String> set = new HashSet<String>();
+				for (int i = 0; i < LARGE_SIZE; i++)
+					set.add("key" + i);
+				set.add(element);
+				return set;
+			}
+		},
+		ARRAY_LIST_OF_COPIES {
+			@Override
+			Collection<String> create(String element) {
+				return new ArrayList<String>(Collections.nCopies(16, element));
+			}
+		},
+		LINKED_LIST_OF_COPIES {
+			@Override
+			Collection<String> create(String element) {
+				return new LinkedList<String>(Collections.nCopies(16, element));
+			}
+		};
+
+		abstract Collection<String> create(String element);
+	}
+
+	/**
+	 * A set holding one element and an argument collection containing an equal
+	 * element.
+	 */
+	@State(Scope.Thread)
+	public static class Operands {
+
+		@Param
+		public Argument argument;
+
+		String element;
+
+		SingleElementSet<String> set;
+
+		Collection<String> collection;
+
+		@Setup
+		public void setup() {
+			element = new String("element");
+			set = new SingleElementSet<String>(element);
+			collection = argument.create(new String(element));
+		}
+
+	}
+
+	/**
+	 * Same as {@link Operands} restricted to the arguments which can be added
+	 * to a single element set, i.e. which hold no other element.
+	 */
+	@State(Scope.Thread)
+	public static class AddOperands extends Operands {
+
+		@Param({ "EMPTY", "COLLIQUE_LIST", "HASH_SET_OF_ONE",
+				"ARRAY_LIST_OF_COPIES", "LINKED_LIST_OF_COPIES" })
+		public Argument argument;
+
+		@Override
+		@Setup
+		public void setup() {
+			super.argument = argument;
+			super.setup();
+		}
+
+	}
+
+	@Benchmark
+	public boolean containsAll(Operands o) {
+		return o.set.containsAll(o.collection);
+	}
+
+	@Benchmark
+	public boolean removeAll(Operands o) {
+		boolean changed = o.set.removeAll(o.collection);
+		o.set.add(o.element);
+		return changed;
+	}
+
+	@Benchmark
+	public boolean retainAll(Operands o) {
+		boolean changed = o.set.retainAll(o.collection);
+		o.set.add(o.element);
+		return changed;
+	}
+
+	@Benchmark
+	public boolean addAll(AddOperands o) {
+		o.set.clear();
+		return o.set.addAll(o.collection);
+	}
+
+}
@@ -0,0 +1,137 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique.bench;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.beaftech.collique.SingleSlotBlockingQueue;
+import fr.beaftech.collique.WaitStrategy;
+
+/**
+ * Measure the round trip of a request handed over to an echo thread through
+ * a queue and of its response handed back through another one. The sample
+ * time mode reports the distribution of the round trip times: JMH prints
+ * their percentiles and histogram. The spinning strategies need at least two
+ * free cores to give meaningful figures.
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandoffBenchmark {
+
+	public enum Factory {
+		SINGLE_SLOT {
+			@Override
+			BlockingQueue<Object> create() {
+				return new SingleSlotBlockingQueue<Object>();
+			}
+		},
+		SINGLE_SLOT_BUSY_SPIN {
+			@Override
+			BlockingQueue<Object> create() {
+				return new SingleSlotBlockingQueue<Object>(
+						WaitStrategy.busySpin());
+			}
+		},
+		SINGLE_SLOT_PARK {
+			@Override
+			BlockingQueue<Object> create() {
+				return new SingleSlotBlockingQueue<Object>(WaitStrategy.park());
+			}
+		},
+		ARRAY_BLOCKING_QUEUE {
+			@Override
+			BlockingQueue<Object> create() {
+				return new ArrayBlockingQueue<Object>(1);
+			}
+		},
+		SYNCHRONOUS_QUEUE {
+			@Override
+			BlockingQueue<Object> create() {
+				return new SynchronousQueue<Object>();
+			}
+		};
+
+		abstract BlockingQueue<Object> create();
+	}
+
+	@Param
+	public Factory factory;
+
+	private final Object request = new Object();
+
+	private BlockingQueue<Object> requests;
+
+	private BlockingQueue<Object> responses;
+
+	private Thread echo;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		requests = factory.create();
+		responses = factory.create();
+		echo = new Thread("echo") {
+			@Override
+			public void run() {
+				try {
+					for (;;)
+						responses.put(requests.take());
+				} catch (InterruptedException e) {
+					// stopped by the tear down
+				}
+			}
+		};
+		echo.setDaemon(true);
+		echo.start();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws InterruptedException {
+		echo.interrupt();
+		echo.join();
+	}
+
+	@Benchmark
+	public Object roundTrip() throws InterruptedException {
+		requests.put(request);
+		return responses.take();
+	}
+
+}
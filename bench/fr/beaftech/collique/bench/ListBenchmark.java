@@ -0,0 +1,150 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique.bench;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import fr.beaftech.collique.SingleElementList;
+
+/**
+ * Compare {@link SingleElementList} with the JDK lists able to hold a single
+ * element.
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListBenchmark {
+
+	public enum Factory {
+		SINGLE_ELEMENT_LIST {
+			@Override
+			List<String> create(String element) {
+				return new SingleElementList<String>(element);
+			}
+		},
+		SINGLETON_LIST {
+			@Override
+			List<String> create(String element) {
+				return Collections.singletonList(element);
+			}
+		},
+		ARRAY_LIST {
+			@Override
+			List<String> create(String element) {
+				List<String> list = new ArrayList<String>(1);
+				list.add(element);
+				return list;
+			}
+		},
+		LIST_OF {
+			@Override
+			List<String> create(String element) {
+				return List.of(element);
+			}
+		};
+
+		abstract List<String> create(String element);
+	}
+
+	@Param
+	public Factory factory;
+
+	private String element;
+
+	private String absent;
+
+	private List<String> list;
+
+	private List<String> equalList;
+
+	@Setup
+	public void setup() {
+		element = new String("element");
+		absent = new String("absent");
+		list = factory.create(element);
+		equalList = factory.create(new String(element));
+	}
+
+	@Benchmark
+	public List<String> construct() {
+		return factory.create(element);
+	}
+
+	@Benchmark
+	public String get() {
+		return list.get(0);
+	}
+
+	@Benchmark
+	public boolean containsPresent() {
+		return list.contains(element);
+	}
+
+	@Benchmark
+	public boolean containsAbsent() {
+		return list.contains(absent);
+	}
+
+	@Benchmark
+	public void iterate(Blackhole bh) {
+		for (String e : list)
+			bh.consume(e);
+	}
+
+	@Benchmark
+	public void forEach(Blackhole bh) {
+		list.forEach(bh::consume);
+	}
+
+	@Benchmark
+	public long streamCount() {
+		return list.stream().filter(e -> e.length() > 0).count();
+	}
+
+	@Benchmark
+	public boolean equalsEqual() {
+		return list.equals(equalList);
+	}
+
+	@Benchmark
+	public int hashCodeOf() {
+		return list.hashCode();
+	}
+
+}
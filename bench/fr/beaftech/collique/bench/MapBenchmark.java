@@ -0,0 +1,161 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique.bench;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import fr.beaftech.collique.SingleElementMap;
+
+/**
+ * Compare {@link SingleElementMap} with the JDK maps able to hold a single
+ * mapping.
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapBenchmark {
+
+	public enum Factory {
+		SINGLE_ELEMENT_MAP {
+			@Override
+			Map<String, String> create(String key, String value) {
+				return new SingleElementMap<String, String>(key, value);
+			}
+		},
+		SINGLETON_MAP {
+			@Override
+			Map<String, String> create(String key, String value) {
+				return Collections.singletonMap(key, value);
+			}
+		},
+		HASH_MAP {
+			@Override
+			Map<String, String> create(String key, String value) {
+				Map<String, String> map = new HashMap<String, String>();
+				map.put(key, value);
+				return map;
+			}
+		},
+		MAP_OF {
+			@Override
+			Map<String, String> create(String key, String value) {
+				return Map.of(key, value);
+			}
+		};
+
+		abstract Map<String, String> create(String key, String value);
+	}
+
+	@Param
+	public Factory factory;
+
+	private String key;
+
+	private String value;
+
+	private String absent;
+
+	private Map<String, String> map;
+
+	private Map<String, String> equalMap;
+
+	@Setup
+	public void setup() {
+		key = new String("key");
+		value = new String("value");
+		absent = new String("absent");
+		map = factory.create(key, value);
+		equalMap = factory.create(new String(key), new String(value));
+	}
+
+	@Benchmark
+	public Map<String, String> construct() {
+		return factory.create(key, value);
+	}
+
+	@Benchmark
+	public String getPresent() {
+		return map.get(key);
+	}
+
+	@Benchmark
+	public String getAbsent() {
+		return map.get(absent);
+	}
+
+	@Benchmark
+	public boolean containsKey() {
+		return map.containsKey(key);
+	}
+
+	@Benchmark
+	public void iterateEntrySet(Blackhole bh) {
+		for (Map.Entry<String, String> e : map.entrySet()) {
+			bh.consume(e.getKey());
+			bh.consume(e.getValue());
+		}
+	}
+
+	@Benchmark
+	public void iterateKeySet(Blackhole bh) {
+		for (String k : map.keySet())
+			bh.consume(k);
+	}
+
+	@Benchmark
+	public Object keySet() {
+		return map.keySet();
+	}
+
+	@Benchmark
+	public Object entrySet() {
+		return map.entrySet();
+	}
+
+	@Benchmark
+	public boolean equalsEqual() {
+		return map.equals(equalMap);
+	}
+
+	@Benchmark
+	public int hashCodeOf() {
+		return map.hashCode();
+	}
+
+}
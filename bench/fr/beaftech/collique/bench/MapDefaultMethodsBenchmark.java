@@ -0,0 +1,153 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique.bench;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import fr.beaftech.collique.SingleElementMap;
+
+/**
+ * Measure the {@code Map} default methods overridden by
+ * {@link SingleElementMap} against the {@code Map} interface implementations
+ * running on the same map, and against {@code HashMap}. All the benchmarks
+ * leave the map unchanged.
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapDefaultMethodsBenchmark {
+
+	public enum Factory {
+		SINGLE_ELEMENT_MAP {
+			@Override
+			Map<String, String> create(String key, String value) {
+				return new SingleElementMap<String, String>(key, value);
+			}
+		},
+		INTERFACE_DEFAULTS {
+			@Override
+			Map<String, String> create(String key, String value) {
+				return new InterfaceDefaultsMap<String, String>(
+						new SingleElementMap<String, String>(key, value));
+			}
+		},
+		HASH_MAP {
+			@Override
+			Map<String, String> create(String key, String value) {
+				Map<String, String> map = new HashMap<String, String>();
+				map.put(key, value);
+				return map;
+			}
+		};
+
+		abstract Map<String, String> create(String key, String value);
+	}
+
+	private static final BiFunction<String, String, String> FIRST = new BiFunction<String, String, String>() {
+		@Override
+		public String apply(String v1, String v2) {
+			return v1;
+		}
+	};
+
+	private static final BiFunction<String, String, String> KEEP = new BiFunction<String, String, String>() {
+		@Override
+		public String apply(String k, String v) {
+			return v;
+		}
+	};
+
+	@Param
+	public Factory factory;
+
+	private String key;
+
+	private String value;
+
+	private String absent;
+
+	private Map<String, String> map;
+
+	@Setup
+	public void setup() {
+		key = new String("key");
+		value = new String("value");
+		absent = new String("absent");
+		map = factory.create(key, value);
+	}
+
+	@Benchmark
+	public void forEach(final Blackhole bh) {
+		map.forEach((k, v) -> {
+			bh.consume(k);
+			bh.consume(v);
+		});
+	}
+
+	@Benchmark
+	public String getOrDefaultPresent() {
+		return map.getOrDefault(key, absent);
+	}
+
+	@Benchmark
+	public String getOrDefaultAbsent() {
+		return map.getOrDefault(absent, value);
+	}
+
+	@Benchmark
+	public String putIfAbsentPresent() {
+		return map.putIfAbsent(key, absent);
+	}
+
+	@Benchmark
+	public String computeIfPresent() {
+		return map.computeIfPresent(key, KEEP);
+	}
+
+	@Benchmark
+	public String merge() {
+		return map.merge(key, absent, FIRST);
+	}
+
+	@Benchmark
+	public void replaceAll() {
+		map.replaceAll(KEEP);
+	}
+
+}
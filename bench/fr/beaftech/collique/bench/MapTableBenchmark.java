@@ -0,0 +1,124 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import fr.beaftech.collique.SingleElementMap;
+import fr.beaftech.collique.SingleElementMapTable;
+import fr.beaftech.collique.SingleIntKeyMap;
+import fr.beaftech.collique.SingleIntKeyMapTable;
+
+/**
+ * Compare scanning an array of single entry maps with scanning the columns of
+ * the equivalent tables: looking for an absent key, which reads every key, and
+ * projecting all the values.
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapTableBenchmark {
+
+	@Param({ "1000", "1000000" })
+	public int rows;
+
+	private SingleElementMap<?, ?>[] maps;
+
+	private SingleIntKeyMap<?>[] intMaps;
+
+	private SingleElementMapTable<String, Integer> table;
+
+	private SingleIntKeyMapTable<Integer> intTable;
+
+	private String absent;
+
+	@Setup
+	public void setup() {
+		maps = new SingleElementMap<?, ?>[rows];
+		intMaps = new SingleIntKeyMap<?>[rows];
+		table = new SingleElementMapTable<String, Integer>(rows);
+		intTable = new SingleIntKeyMapTable<Integer>(rows);
+		for (int i = 0; i < rows; i++) {
+			String key = "key" + i;
+			maps[i] = new SingleElementMap<String, Integer>(key, i);
+			intMaps[i] = new SingleIntKeyMap<Integer>(i, i);
+			table.add(key, i);
+			intTable.add(i, i);
+		}
+		absent = "absent";
+	}
+
+	@Benchmark
+	public int scanMaps() {
+		for (int i = 0; i < maps.length; i++)
+			if (maps[i].containsKey(absent))
+				return i;
+		return -1;
+	}
+
+	@Benchmark
+	public int scanTable() {
+		return table.indexOf(absent);
+	}
+
+	@Benchmark
+	public int scanIntMaps() {
+		for (int i = 0; i < intMaps.length; i++)
+			if (intMaps[i].containsKey(-1))
+				return i;
+		return -1;
+	}
+
+	@Benchmark
+	public int scanIntTable() {
+		return intTable.indexOf(-1);
+	}
+
+	@Benchmark
+	public void projectMaps(Blackhole bh) {
+		for (SingleElementMap<?, ?> map : maps)
+			bh.consume(map.get(map.keySet().iterator().next()));
+	}
+
+	@Benchmark
+	public void projectTable(Blackhole bh) {
+		List<Integer> values = table.values();
+		for (int i = 0; i < values.size(); i++)
+			bh.consume(values.get(i));
+	}
+
+}
@@ -0,0 +1,138 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.beaftech.collique.SingleElementList;
+import fr.beaftech.collique.SingleElementMap;
+
+/**
+ * Compare the serialization throughput of single-element collections with
+ * {@code ArrayList} and {@code HashMap} holding one element. Each operation
+ * writes or reads a batch of {@link #BATCH} distinct instances in a single
+ * stream, as a cache or a replicated session would. The serialized size of a
+ * batch is printed during setup.
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+	static final int BATCH = 100;
+
+	public enum Factory {
+		SINGLE_ELEMENT_LIST {
+			@Override
+			Object create(int i) {
+				return new SingleElementList<Integer>(i);
+			}
+		},
+		ARRAY_LIST {
+			@Override
+			Object create(int i) {
+				List<Integer> list = new ArrayList<Integer>(1);
+				list.add(i);
+				return list;
+			}
+		},
+		SINGLE_ELEMENT_MAP {
+			@Override
+			Object create(int i) {
+				return new SingleElementMap<Integer, Integer>(i, i);
+			}
+		},
+		HASH_MAP {
+			@Override
+			Object create(int i) {
+				Map<Integer, Integer> map = new HashMap<Integer, Integer>();
+				map.put(i, i);
+				return map;
+			}
+		};
+
+		abstract Object create(int i);
+	}
+
+	@Param
+	public Factory factory;
+
+	private Object[] batch;
+
+	private byte[] serialized;
+
+	private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+	@Setup
+	public void setup() throws IOException {
+		batch = new Object[BATCH];
+		for (int i = 0; i < BATCH; i++)
+			batch[i] = factory.create(i);
+		serialized = serialize();
+		System.out.println(factory + ": " + serialized.length + " bytes for "
+				+ BATCH + " instances");
+	}
+
+	@Benchmark
+	public byte[] serialize() throws IOException {
+		buffer.reset();
+		ObjectOutputStream out = new ObjectOutputStream(buffer);
+		for (Object o : batch)
+			out.writeObject(o);
+		out.close();
+		return buffer.toByteArray();
+	}
+
+	@Benchmark
+	public Object deserialize() throws IOException, ClassNotFoundException {
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(
+				serialized));
+		Object last = null;
+		for (int i = 0; i < BATCH; i++)
+			last = in.readObject();
+		in.close();
+		return last;
+	}
+
+}
@@ -0,0 +1,316 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * {@code List} implementation optimized for lists that usually hold a single
+ * element. Like {@link SingleElementList}, zero or one element is stored
+ * inline in the list itself, but adding a second element does not throw:
+ * the list is then promoted to an array sized to its content, and is demoted
+ * back to inline storage once it shrinks to a single element. Permits all
+ * elements, including {@code null}, and implements all optional list
+ * operations.
+ * 
+ * @param <E>
+ *            the type of the elements to store
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class AdaptiveList<E> extends AbstractList<E> implements RandomAccess,
+		Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The storage of the list: unused when the list is empty, the element
+	 * itself when the list holds a single element, or an {@code Object[]}
+	 * whose first {@link #size} slots are the elements otherwise.
+	 */
+	private transient Object data;
+
+	private transient int size;
+
+	public AdaptiveList() {
+		data = null;
+		size = 0;
+	}
+
+	public AdaptiveList(E element) {
+		data = element;
+		size = 1;
+	}
+
+	public AdaptiveList(Collection<? extends E> c) {
+		Object[] a = c.toArray();
+		size = a.length;
+		if (size == 0) {
+			data = null;
+		} else if (size == 1) {
+			data = a[0];
+		} else {
+			data = a.getClass() == Object[].class ? a : Arrays.copyOf(a, size,
+					Object[].class);
+		}
+	}
+
+	/**
+	 * Save the state of the list to a stream.
+	 * 
+	 * @serialData the size of the list ({@code int}), followed by its elements
+	 *             in order
+	 */
+	private void writeObject(ObjectOutputStream s) throws IOException {
+		s.defaultWriteObject();
+		s.writeInt(size);
+		for (int i = 0; i < size; i++)
+			s.writeObject(get(i));
+	}
+
+	private void readObject(ObjectInputStream s) throws IOException,
+			ClassNotFoundException {
+		s.defaultReadObject();
+		int n = s.readInt();
+		if (n < 0)
+			throw new InvalidObjectException("Negative size " + n);
+		size = n;
+		if (n == 0) {
+			data = null;
+		} else if (n == 1) {
+			data = s.readObject();
+		} else {
+			Object[] a = new Object[n];
+			for (int i = 0; i < n; i++)
+				a[i] = s.readObject();
+			data = a;
+		}
+	}
+
+	private Object[] array() {
+		return (Object[]) data;
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+					+ size);
+	}
+
+	private void checkIndexForAdd(int index) {
+		if (index < 0 || index > size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+					+ size);
+	}
+
+	/**
+	 * Tells if the list is currently stored inline, that is without any backing
+	 * array.
+	 * 
+	 * @return {@code true} if the list holds zero or one element
+	 */
+	public boolean isInline() {
+		return size < 2;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public E get(int index) {
+		checkIndex(index);
+		if (size == 1)
+			return (E) data;
+		return (E) array()[index];
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public E set(int index, E element) {
+		checkIndex(index);
+		Object previous;
+		if (size == 1) {
+			previous = data;
+			data = element;
+		} else {
+			Object[] a = array();
+			previous = a[index];
+			a[index] = element;
+		}
+		return (E) previous;
+	}
+
+	@Override
+	public boolean add(E e) {
+		add(size, e);
+		return true;
+	}
+
+	@Override
+	public void add(int index, E element) {
+		checkIndexForAdd(index);
+		modCount++;
+		if (size == 0) {
+			data = element;
+		} else if (size == 1) {
+			data = index == 0 ? new Object[] { element, data } : new Object[] {
+					data, element };
+		} else {
+			Object[] a = array();
+			if (size == a.length) {
+				a = Arrays.copyOf(a, size + (size >> 1));
+				data = a;
+			}
+			System.arraycopy(a, index, a, index + 1, size - index);
+			a[index] = element;
+		}
+		size++;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public E remove(int index) {
+		checkIndex(index);
+		modCount++;
+		Object removed;
+		if (size == 1) {
+			removed = data;
+			data = null;
+		} else {
+			Object[] a = array();
+			removed = a[index];
+			if (size == 2) {
+				data = a[1 - index];
+			} else {
+				System.arraycopy(a, index + 1, a, index, size - index - 1);
+				a[size - 1] = null;
+			}
+		}
+		size--;
+		return (E) removed;
+	}
+
+	@Override
+	protected void removeRange(int fromIndex, int toIndex) {
+		if (fromIndex >= toIndex)
+			return;
+		modCount++;
+		int newSize = size - (toIndex - fromIndex);
+		if (size == 1 || newSize == 0) {
+			data = null;
+		} else {
+			Object[] a = array();
+			if (newSize == 1) {
+				data = fromIndex == 0 ? a[toIndex] : a[0];
+			} else {
+				System.arraycopy(a, toIndex, a, fromIndex, size - toIndex);
+				Arrays.fill(a, newSize, size, null);
+			}
+		}
+		size = newSize;
+	}
+
+	@Override
+	public void clear() {
+		modCount++;
+		data = null;
+		size = 0;
+	}
+
+	@Override
+	public int indexOf(Object o) {
+		if (size == 1)
+			return SingleElementCollection.eq(data, o) ? 0 : -1;
+		Object[] a = array();
+		for (int i = 0; i < size; i++) {
+			if (SingleElementCollection.eq(a[i], o))
+				return i;
+		}
+		return -1;
+	}
+
+	@Override
+	public int lastIndexOf(Object o) {
+		if (size == 1)
+			return SingleElementCollection.eq(data, o) ? 0 : -1;
+		Object[] a = array();
+		for (int i = size - 1; i >= 0; i--) {
+			if (SingleElementCollection.eq(a[i], o))
+				return i;
+		}
+		return -1;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return indexOf(o) >= 0;
+	}
+
+	@Override
+	public Object[] toArray() {
+		if (size == 0)
+			return new Object[0];
+		if (size == 1)
+			return new Object[] { data };
+		return Arrays.copyOf(array(), size);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> T[] toArray(T[] a) {
+		if (a.length < size)
+			a = (T[]) java.lang.reflect.Array.newInstance(a.getClass()
+					.getComponentType(), size);
+		if (size == 1)
+			a[0] = (T) data;
+		else if (size > 1)
+			System.arraycopy(array(), 0, a, 0, size);
+		if (a.length > size)
+			a[size] = null;
+		return a;
+	}
+
+	/**
+	 * Trims the capacity of the backing array to the current size of the list.
+	 * Lists holding zero or one element have no backing array and are left
+	 * unchanged.
+	 */
+	public void trimToSize() {
+		if (size > 1 && array().length > size) {
+			modCount++;
+			data = Arrays.copyOf(array(), size);
+		}
+	}
+
+}
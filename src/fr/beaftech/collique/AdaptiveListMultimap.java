@@ -0,0 +1,103 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link AdaptiveMultimap} keeping the values of each key as a list: a key may
+ * be mapped several times to the same value. It replaces a
+ * {@code Map<K, List<V>>} index, a key mapped to a single value costing two
+ * table slots instead of a map entry, a list and its array.
+ * <p>
+ * {@link #get(Object)} returns an immutable empty or single element list for
+ * the keys mapped to zero or one value.
+ * 
+ * @param <K>
+ *            the key type
+ * @param <V>
+ *            the value type
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class AdaptiveListMultimap<K, V> extends AdaptiveMultimap<K, V> {
+
+	private static final long serialVersionUID = 1L;
+
+	public AdaptiveListMultimap() {
+		super();
+	}
+
+	/**
+	 * @param expectedKeys
+	 *            - the number of keys the multimap can hold before growing
+	 * @throws IllegalArgumentException
+	 *             if the number of keys is negative
+	 */
+	public AdaptiveListMultimap(int expectedKeys) {
+		super(expectedKeys);
+	}
+
+	/**
+	 * Copy an index map.
+	 * 
+	 * @param map
+	 *            - a map from keys to collections of values
+	 */
+	public AdaptiveListMultimap(
+			Map<? extends K, ? extends Collection<? extends V>> map) {
+		super(map.size());
+		putAll(map);
+	}
+
+	@Override
+	boolean distinct() {
+		return false;
+	}
+
+	@Override
+	List<V> empty() {
+		return Collique.emptyList();
+	}
+
+	@Override
+	List<V> single(V value) {
+		return Collique.listOf(value);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	List<V> many(Object[] values) {
+		return Collections.unmodifiableList(Arrays.asList((V[]) values));
+	}
+
+	@Override
+	public List<V> get(Object key) {
+		return (List<V>) super.get(key);
+	}
+
+	@Override
+	public List<V> removeAll(Object key) {
+		return (List<V>) super.removeAll(key);
+	}
+
+}
@@ -0,0 +1,711 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * {@code Map} implementation optimized for maps that usually hold a single
+ * key/value pair. The storage of the map moves through three tiers as it
+ * grows:
+ * <ol>
+ * <li>zero or one pair stored inline in the map, like {@link SingleElementMap}
+ * does;</li>
+ * <li>up to {@value #LINEAR_MAX} pairs stored side by side in a compact array
+ * that is scanned linearly;</li>
+ * <li>an open-addressing hash table with linear probing beyond that.</li>
+ * </ol>
+ * The map moves back down the tiers when pairs are removed: the hash table is
+ * replaced by a linear array once the map holds {@value #LINEAR_MAX} / 2 pairs
+ * or fewer, and the linear array is dropped once a single pair is left.
+ * <p>
+ * This implementation permits {@code null} values and the {@code null} key
+ * and provides all optional map operations. The iteration order is not
+ * specified and iterators are fail-fast.
+ * 
+ * @param <K>
+ *            the key type
+ * @param <V>
+ *            the value type
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class AdaptiveMap<K, V> implements Map<K, V>, Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The maximum number of pairs stored in the linear tier.
+	 */
+	static final int LINEAR_MAX = 8;
+
+	/**
+	 * The number of slots of the smallest hash table.
+	 */
+	static final int HASH_MIN_CAPACITY = 16;
+
+	/**
+	 * Stands for the {@code null} key in the tables, where {@code null} marks
+	 * a free slot.
+	 */
+	private static final Object NULL_KEY = new Object();
+
+	/**
+	 * The key of the pair when the map is in the inline tier.
+	 */
+	private transient Object key;
+
+	/**
+	 * The value of the pair when the map is in the inline tier.
+	 */
+	private transient Object value;
+
+	/**
+	 * {@code null} in the inline tier, otherwise the keys and values stored
+	 * alternately: {@code table[2 * i]} is a key (masked by {@link #NULL_KEY})
+	 * and {@code table[2 * i + 1]} its value. In the linear tier, the first
+	 * {@link #size} pairs are used; in the hash tier the table length is a
+	 * power of two greater than {@code 2 * LINEAR_MAX}.
+	 */
+	private transient Object[] table;
+
+	private transient int size;
+
+	private transient int modCount;
+
+	public AdaptiveMap() {
+		key = null;
+		value = null;
+	}
+
+	public AdaptiveMap(K key, V value) {
+		this.key = key;
+		this.value = value;
+		size = 1;
+	}
+
+	public AdaptiveMap(Map<? extends K, ? extends V> m) {
+		this();
+		putAll(m);
+	}
+
+	/**
+	 * Save the state of the map to a stream. The layout of the tiers is not
+	 * written, since hash codes may differ in the reading JVM.
+	 * 
+	 * @serialData the size of the map ({@code int}), followed by the key and
+	 *             the value of each mapping
+	 */
+	private void writeObject(ObjectOutputStream s) throws IOException {
+		s.defaultWriteObject();
+		s.writeInt(size);
+		for (Map.Entry<K, V> e : entrySet()) {
+			s.writeObject(e.getKey());
+			s.writeObject(e.getValue());
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream s) throws IOException,
+			ClassNotFoundException {
+		s.defaultReadObject();
+		int n = s.readInt();
+		if (n < 0)
+			throw new InvalidObjectException("Negative size " + n);
+		for (int i = 0; i < n; i++)
+			put((K) s.readObject(), (V) s.readObject());
+	}
+
+	private static Object maskNull(Object key) {
+		return key == null ? NULL_KEY : key;
+	}
+
+	private static Object unmaskNull(Object key) {
+		return key == NULL_KEY ? null : key;
+	}
+
+	/**
+	 * Compute the position of the slot where the search for the given masked
+	 * key starts in a hash table of the given length.
+	 */
+	private static int slot(Object maskedKey, int length) {
+		int h = maskedKey.hashCode() * 0x9E3779B9;
+		return ((h ^ (h >>> 16)) << 1) & (length - 1);
+	}
+
+	private static int nextSlot(int i, int length) {
+		return (i + 2) & (length - 1);
+	}
+
+	private boolean isHashed() {
+		return table != null && table.length > 2 * LINEAR_MAX;
+	}
+
+	/**
+	 * Find the given key in the table.
+	 * 
+	 * @return the index of the key in {@link #table} or -1 if it is not there
+	 */
+	private int indexOf(Object key) {
+		Object mk = maskNull(key);
+		Object[] tab = table;
+		if (!isHashed()) {
+			for (int i = 0; i < 2 * size; i += 2) {
+				Object item = tab[i];
+				if (item == mk || item.equals(mk))
+					return i;
+			}
+			return -1;
+		}
+		int length = tab.length;
+		for (int i = slot(mk, length);; i = nextSlot(i, length)) {
+			Object item = tab[i];
+			if (item == null)
+				return -1;
+			if (item == mk || item.equals(mk))
+				return i;
+		}
+	}
+
+	/**
+	 * Insert a pair whose key is known to be absent into a hash table.
+	 */
+	private static void hashInsert(Object[] tab, Object maskedKey, Object value) {
+		int length = tab.length;
+		int i = slot(maskedKey, length);
+		while (tab[i] != null)
+			i = nextSlot(i, length);
+		tab[i] = maskedKey;
+		tab[i + 1] = value;
+	}
+
+	/**
+	 * Copy the pairs of a linear or hash table into a new hash table with the
+	 * given number of slots.
+	 */
+	private static Object[] rehash(Object[] tab, int pairs, int capacity) {
+		Object[] newTable = new Object[2 * capacity];
+		for (int i = 0; i < tab.length && pairs > 0; i += 2) {
+			if (tab[i] != null) {
+				hashInsert(newTable, tab[i], tab[i + 1]);
+				pairs--;
+			}
+		}
+		return newTable;
+	}
+
+	/**
+	 * Remove the pair at index i of the hash table, shifting back the
+	 * following pairs of the probe sequence so that no tombstone is needed.
+	 */
+	private void hashDelete(int i) {
+		Object[] tab = table;
+		int length = tab.length;
+		tab[i] = null;
+		tab[i + 1] = null;
+		for (int j = nextSlot(i, length); tab[j] != null; j = nextSlot(j, length)) {
+			int r = slot(tab[j], length);
+			if (i <= j ? (i < r && r <= j) : (i < r || r <= j))
+				continue;
+			tab[i] = tab[j];
+			tab[i + 1] = tab[j + 1];
+			tab[j] = null;
+			tab[j + 1] = null;
+			i = j;
+		}
+	}
+
+	/**
+	 * Move the map from the hash tier down to the linear tier.
+	 */
+	private void demoteToLinear() {
+		Object[] linear = new Object[2 * size];
+		int n = 0;
+		for (int i = 0; i < table.length && n < linear.length; i += 2) {
+			if (table[i] != null) {
+				linear[n++] = table[i];
+				linear[n++] = table[i + 1];
+			}
+		}
+		table = linear;
+	}
+
+	/**
+	 * Tells if the map is currently stored inline, that is without any table.
+	 * 
+	 * @return {@code true} if the map holds zero or one pair
+	 */
+	public boolean isInline() {
+		return table == null;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		if (table == null)
+			return size == 1 && SingleElementCollection.eq(this.key, key);
+		return indexOf(key) >= 0;
+	}
+
+	@Override
+	public boolean containsValue(Object value) {
+		if (table == null)
+			return size == 1 && SingleElementCollection.eq(this.value, value);
+		Object[] tab = table;
+		for (int i = 0; i < tab.length; i += 2) {
+			if (tab[i] != null && SingleElementCollection.eq(tab[i + 1], value))
+				return true;
+		}
+		return false;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V get(Object key) {
+		if (table == null)
+			return size == 1 && SingleElementCollection.eq(this.key, key) ? (V) value
+					: null;
+		int i = indexOf(key);
+		return i < 0 ? null : (V) table[i + 1];
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V put(K key, V value) {
+		if (table == null) {
+			if (size == 0) {
+				this.key = key;
+				this.value = value;
+				size = 1;
+				modCount++;
+				return null;
+			}
+			if (SingleElementCollection.eq(this.key, key)) {
+				Object previous = this.value;
+				this.value = value;
+				return (V) previous;
+			}
+			table = new Object[] { maskNull(this.key), this.value,
+					maskNull(key), value };
+			this.key = null;
+			this.value = null;
+			size = 2;
+			modCount++;
+			return null;
+		}
+
+		int i = indexOf(key);
+		if (i >= 0) {
+			Object previous = table[i + 1];
+			table[i + 1] = value;
+			return (V) previous;
+		}
+
+		if (!isHashed()) {
+			if (size < LINEAR_MAX) {
+				if (2 * size == table.length)
+					table = Arrays.copyOf(table, 2 * table.length);
+				table[2 * size] = maskNull(key);
+				table[2 * size + 1] = value;
+			} else {
+				table = rehash(table, size, HASH_MIN_CAPACITY);
+				hashInsert(table, maskNull(key), value);
+			}
+		} else {
+			hashInsert(table, maskNull(key), value);
+			if (3 * (size + 1) > table.length)
+				table = rehash(table, size + 1, table.length);
+		}
+		size++;
+		modCount++;
+		return null;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V remove(Object key) {
+		if (table == null) {
+			if (size == 1 && SingleElementCollection.eq(this.key, key)) {
+				Object removed = value;
+				this.key = null;
+				this.value = null;
+				size = 0;
+				modCount++;
+				return (V) removed;
+			}
+			return null;
+		}
+
+		int i = indexOf(key);
+		if (i < 0)
+			return null;
+		Object removed = table[i + 1];
+		if (!isHashed()) {
+			int last = 2 * (size - 1);
+			table[i] = table[last];
+			table[i + 1] = table[last + 1];
+			table[last] = null;
+			table[last + 1] = null;
+		} else {
+			hashDelete(i);
+		}
+		size--;
+		modCount++;
+
+		if (size == 1) {
+			this.key = unmaskNull(table[0]);
+			this.value = table[1];
+			table = null;
+		} else if (size <= LINEAR_MAX / 2 && isHashed()) {
+			demoteToLinear();
+		}
+		return (V) removed;
+	}
+
+	@Override
+	public void putAll(Map<? extends K, ? extends V> m) {
+		for (Map.Entry<? extends K, ? extends V> e : m.entrySet()) {
+			put(e.getKey(), e.getValue());
+		}
+	}
+
+	@Override
+	public void clear() {
+		key = null;
+		value = null;
+		table = null;
+		size = 0;
+		modCount++;
+	}
+
+	/**
+	 * Base iterator over the pairs of the map. The table being walked is copied
+	 * on the first call to {@link #remove()}, so that the shifts done by the
+	 * removal, or a change of tier, cannot make the iteration skip or repeat a
+	 * pair; the values are then read from the map itself.
+	 */
+	private abstract class PairIterator<T> implements Iterator<T> {
+
+		Object[] traversal = table;
+		final int limit = table == null ? size : isHashed() ? table.length
+				: 2 * size;
+		int index;
+		boolean copied;
+		Object lastKey;
+		boolean canRemove;
+		int expectedModCount = modCount;
+
+		abstract T result(Object key, Object value);
+
+		@Override
+		public boolean hasNext() {
+			if (traversal == null)
+				return index < limit;
+			while (index < limit && traversal[index] == null)
+				index += 2;
+			return index < limit;
+		}
+
+		@Override
+		public T next() {
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			if (!hasNext())
+				throw new NoSuchElementException();
+			Object k;
+			Object v;
+			if (traversal == null) {
+				k = key;
+				v = value;
+				index++;
+			} else {
+				k = unmaskNull(traversal[index]);
+				// the copy only keeps the order of the keys: the values may
+				// have been replaced since
+				v = copied ? get(k) : traversal[index + 1];
+				index += 2;
+			}
+			lastKey = k;
+			canRemove = true;
+			return result(k, v);
+		}
+
+		@Override
+		public void remove() {
+			if (!canRemove)
+				throw new IllegalStateException();
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			if (traversal != null && !copied) {
+				traversal = traversal.clone();
+				copied = true;
+			}
+			AdaptiveMap.this.remove(lastKey);
+			canRemove = false;
+			expectedModCount = modCount;
+		}
+
+	}
+
+	/**
+	 * Entry returned by the entry set iterator. Changing its value writes
+	 * through to the map as long as the key is still mapped.
+	 */
+	private final class PairEntry implements Map.Entry<K, V> {
+
+		private final Object key;
+		private Object value;
+
+		PairEntry(Object key, Object value) {
+			this.key = key;
+			this.value = value;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public K getKey() {
+			return (K) key;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public V getValue() {
+			return (V) value;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public V setValue(V value) {
+			Object previous = this.value;
+			this.value = value;
+			if (containsKey(key))
+				put((K) key, value);
+			return (V) previous;
+		}
+
+		@Override
+		public int hashCode() {
+			return (key == null ? 0 : key.hashCode())
+					^ (value == null ? 0 : value.hashCode());
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Map.Entry))
+				return false;
+			Map.Entry<?, ?> other = (Map.Entry<?, ?>) obj;
+			return SingleElementCollection.eq(key, other.getKey())
+					&& SingleElementCollection.eq(value, other.getValue());
+		}
+
+		@Override
+		public String toString() {
+			return key + "=" + value;
+		}
+
+	}
+
+	@Override
+	public Set<K> keySet() {
+		return new AbstractSet<K>() {
+
+			@Override
+			public Iterator<K> iterator() {
+				return new PairIterator<K>() {
+
+					@SuppressWarnings("unchecked")
+					@Override
+					K result(Object key, Object value) {
+						return (K) key;
+					}
+
+				};
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+
+			@Override
+			public boolean contains(Object o) {
+				return containsKey(o);
+			}
+
+			@Override
+			public boolean remove(Object o) {
+				if (!containsKey(o))
+					return false;
+				AdaptiveMap.this.remove(o);
+				return true;
+			}
+
+			@Override
+			public void clear() {
+				AdaptiveMap.this.clear();
+			}
+
+		};
+	}
+
+	@Override
+	public Collection<V> values() {
+		return new AbstractCollection<V>() {
+
+			@Override
+			public Iterator<V> iterator() {
+				return new PairIterator<V>() {
+
+					@SuppressWarnings("unchecked")
+					@Override
+					V result(Object key, Object value) {
+						return (V) value;
+					}
+
+				};
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+
+			@Override
+			public boolean contains(Object o) {
+				return containsValue(o);
+			}
+
+			@Override
+			public void clear() {
+				AdaptiveMap.this.clear();
+			}
+
+		};
+	}
+
+	@Override
+	public Set<Map.Entry<K, V>> entrySet() {
+		return new AbstractSet<Map.Entry<K, V>>() {
+
+			@Override
+			public Iterator<Map.Entry<K, V>> iterator() {
+				return new PairIterator<Map.Entry<K, V>>() {
+
+					@Override
+					Map.Entry<K, V> result(Object key, Object value) {
+						return new PairEntry(key, value);
+					}
+
+				};
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+
+			@Override
+			public boolean contains(Object o) {
+				if (!(o instanceof Map.Entry))
+					return false;
+				Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+				return containsKey(e.getKey())
+						&& SingleElementCollection.eq(get(e.getKey()),
+								e.getValue());
+			}
+
+			@Override
+			public boolean remove(Object o) {
+				if (!contains(o))
+					return false;
+				AdaptiveMap.this.remove(((Map.Entry<?, ?>) o).getKey());
+				return true;
+			}
+
+			@Override
+			public void clear() {
+				AdaptiveMap.this.clear();
+			}
+
+		};
+	}
+
+	@Override
+	public int hashCode() {
+		int h = 0;
+		for (Map.Entry<K, V> e : entrySet()) {
+			h += e.hashCode();
+		}
+		return h;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof Map))
+			return false;
+		Map<?, ?> other = (Map<?, ?>) obj;
+		if (other.size() != size)
+			return false;
+		for (Map.Entry<K, V> e : entrySet()) {
+			Object k = e.getKey();
+			Object v = e.getValue();
+			if (v == null ? other.get(k) != null || !other.containsKey(k)
+					: !v.equals(other.get(k)))
+				return false;
+		}
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("{");
+		for (Map.Entry<K, V> e : entrySet()) {
+			if (sb.length() > 1)
+				sb.append(", ");
+			sb.append(e.getKey() == this ? "(this Map)" : e.getKey());
+			sb.append('=');
+			sb.append(e.getValue() == this ? "(this Map)" : e.getValue());
+		}
+		return sb.append('}').toString();
+	}
+
+}
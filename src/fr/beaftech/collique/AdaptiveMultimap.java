@@ -0,0 +1,709 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Multimap optimized for indexes where most keys are mapped to a single value.
+ * The keys and their values are stored side by side in one open-addressing
+ * hash table with linear probing, so that a key costs two table slots and no
+ * entry object. Each key moves through two tiers:
+ * <ol>
+ * <li>a single value is stored inline in the slot next to the key;</li>
+ * <li>two values or more are moved into a compact array, which is dropped
+ * again once the key is back to a single value.</li>
+ * </ol>
+ * {@link #get(Object)} builds a read-only collection of the values of a key on
+ * demand: an empty or single element collection for the common case, a view of
+ * a copy of the array otherwise. Nothing is kept per key between calls.
+ * <p>
+ * This implementation permits {@code null} keys and {@code null} values. The
+ * iteration order of the keys is not specified and the values of a key keep
+ * their insertion order. The values of a key are scanned linearly, which suits
+ * keys with a few values. Iterators are fail-fast.
+ * 
+ * @param <K>
+ *            the key type
+ * @param <V>
+ *            the value type
+ * 
+ * @see AdaptiveListMultimap
+ * @see AdaptiveSetMultimap
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public abstract class AdaptiveMultimap<K, V> implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The number of slots of the smallest hash table.
+	 */
+	private static final int MIN_CAPACITY = AdaptiveMap.HASH_MIN_CAPACITY;
+
+	/**
+	 * Stands for the {@code null} key in the table, where {@code null} marks a
+	 * free slot.
+	 */
+	private static final Object NULL_KEY = new Object();
+
+	/**
+	 * {@code null} when the multimap has never held a key, otherwise the keys
+	 * and values stored alternately: {@code table[2 * i]} is a key (masked by
+	 * {@link #NULL_KEY}) and {@code table[2 * i + 1]} either its single value
+	 * or a {@link Bucket} of its values. The table length is a power of two.
+	 */
+	private transient Object[] table;
+
+	private transient int keyCount;
+
+	private transient int size;
+
+	private transient int modCount;
+
+	/**
+	 * The values of a key mapped to more than one value.
+	 */
+	private static final class Bucket {
+
+		Object[] values;
+
+		int size;
+
+		Bucket(Object first, Object second) {
+			values = new Object[] { first, second };
+			size = 2;
+		}
+
+		int indexOf(Object value) {
+			for (int i = 0; i < size; i++)
+				if (SingleElementCollection.eq(values[i], value))
+					return i;
+			return -1;
+		}
+
+		void add(Object value) {
+			if (size == values.length)
+				values = Arrays.copyOf(values, size + (size >> 1));
+			values[size++] = value;
+		}
+
+		void remove(int index) {
+			System.arraycopy(values, index + 1, values, index, size - index
+					- 1);
+			values[--size] = null;
+		}
+
+		Object[] toArray() {
+			return Arrays.copyOf(values, size);
+		}
+
+	}
+
+	AdaptiveMultimap() {
+	}
+
+	/**
+	 * @param expectedKeys
+	 *            - the number of keys the multimap can hold before growing
+	 * @throws IllegalArgumentException
+	 *             if the number of keys is negative
+	 */
+	AdaptiveMultimap(int expectedKeys) {
+		if (expectedKeys < 0)
+			throw new IllegalArgumentException("Illegal capacity: "
+					+ expectedKeys);
+		int capacity = MIN_CAPACITY;
+		while (3L * expectedKeys > 2L * capacity)
+			capacity <<= 1;
+		table = new Object[2 * capacity];
+	}
+
+	/**
+	 * Save the state of the multimap to a stream. The layout of the table is
+	 * not written, since hash codes may differ in the reading JVM.
+	 * 
+	 * @serialData the number of keys ({@code int}), followed for each key by
+	 *             the key, the number of its values ({@code int}) and its
+	 *             values
+	 */
+	private void writeObject(ObjectOutputStream s) throws IOException {
+		s.defaultWriteObject();
+		s.writeInt(keyCount);
+		Object[] tab = table;
+		for (int i = 0; tab != null && i < tab.length; i += 2) {
+			if (tab[i] == null)
+				continue;
+			s.writeObject(unmaskNull(tab[i]));
+			Object stored = tab[i + 1];
+			if (stored instanceof Bucket) {
+				Bucket bucket = (Bucket) stored;
+				s.writeInt(bucket.size);
+				for (int j = 0; j < bucket.size; j++)
+					s.writeObject(bucket.values[j]);
+			} else {
+				s.writeInt(1);
+				s.writeObject(stored);
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream s) throws IOException,
+			ClassNotFoundException {
+		s.defaultReadObject();
+		int keys = s.readInt();
+		if (keys < 0)
+			throw new InvalidObjectException("Negative key count " + keys);
+		for (int i = 0; i < keys; i++) {
+			K key = (K) s.readObject();
+			int n = s.readInt();
+			if (n <= 0)
+				throw new InvalidObjectException("Illegal value count " + n);
+			for (int j = 0; j < n; j++)
+				put(key, (V) s.readObject());
+		}
+	}
+
+	private static Object maskNull(Object key) {
+		return key == null ? NULL_KEY : key;
+	}
+
+	private static Object unmaskNull(Object key) {
+		return key == NULL_KEY ? null : key;
+	}
+
+	/**
+	 * Compute the position of the slot where the search for the given masked
+	 * key starts in a table of the given length.
+	 */
+	private static int slot(Object maskedKey, int length) {
+		int h = maskedKey.hashCode() * 0x9E3779B9;
+		return ((h ^ (h >>> 16)) << 1) & (length - 1);
+	}
+
+	private static int nextSlot(int i, int length) {
+		return (i + 2) & (length - 1);
+	}
+
+	/**
+	 * Find the given key in the table.
+	 * 
+	 * @return the index of the key in {@link #table} or -1 if it is not there
+	 */
+	private int indexOf(Object key) {
+		Object[] tab = table;
+		if (tab == null)
+			return -1;
+		Object mk = maskNull(key);
+		int length = tab.length;
+		for (int i = slot(mk, length);; i = nextSlot(i, length)) {
+			Object item = tab[i];
+			if (item == null)
+				return -1;
+			if (item == mk || item.equals(mk))
+				return i;
+		}
+	}
+
+	/**
+	 * Insert a key known to be absent into a table.
+	 */
+	private static void hashInsert(Object[] tab, Object maskedKey,
+			Object stored) {
+		int length = tab.length;
+		int i = slot(maskedKey, length);
+		while (tab[i] != null)
+			i = nextSlot(i, length);
+		tab[i] = maskedKey;
+		tab[i + 1] = stored;
+	}
+
+	/**
+	 * Copy the keys of a table into a new table with the given number of
+	 * slots.
+	 */
+	private static Object[] rehash(Object[] tab, int keys, int capacity) {
+		Object[] newTable = new Object[2 * capacity];
+		for (int i = 0; i < tab.length && keys > 0; i += 2) {
+			if (tab[i] != null) {
+				hashInsert(newTable, tab[i], tab[i + 1]);
+				keys--;
+			}
+		}
+		return newTable;
+	}
+
+	/**
+	 * Remove the key at index i of the table, shifting back the following
+	 * keys of the probe sequence so that no tombstone is needed.
+	 */
+	private void hashDelete(int i) {
+		Object[] tab = table;
+		int length = tab.length;
+		tab[i] = null;
+		tab[i + 1] = null;
+		for (int j = nextSlot(i, length); tab[j] != null; j = nextSlot(j, length)) {
+			int r = slot(tab[j], length);
+			if (i <= j ? (i < r && r <= j) : (i < r || r <= j))
+				continue;
+			tab[i] = tab[j];
+			tab[i + 1] = tab[j + 1];
+			tab[j] = null;
+			tab[j + 1] = null;
+			i = j;
+		}
+		keyCount--;
+	}
+
+	/**
+	 * Remove a key and all its values.
+	 * 
+	 * @return the single value or the {@link Bucket} stored for the key, or
+	 *         {@link SingleElementCollection#EMPTY} if the key is not there
+	 */
+	private Object detach(Object key) {
+		int i = indexOf(key);
+		if (i < 0)
+			return SingleElementCollection.EMPTY;
+		Object stored = table[i + 1];
+		hashDelete(i);
+		size -= stored instanceof Bucket ? ((Bucket) stored).size : 1;
+		modCount++;
+		return stored;
+	}
+
+	/**
+	 * @return {@code true} if a key may be mapped to the same value only
+	 *         once
+	 */
+	abstract boolean distinct();
+
+	/**
+	 * @return a read-only empty collection
+	 */
+	abstract Collection<V> empty();
+
+	/**
+	 * @return a read-only collection holding a single value
+	 */
+	abstract Collection<V> single(V value);
+
+	/**
+	 * @param values
+	 *            - an array of two values or more, owned by the result
+	 * @return a read-only collection holding the given values
+	 */
+	abstract Collection<V> many(Object[] values);
+
+	/**
+	 * Wrap the values stored for a key in a read-only collection.
+	 */
+	@SuppressWarnings("unchecked")
+	private Collection<V> values(Object stored) {
+		if (stored == SingleElementCollection.EMPTY)
+			return empty();
+		if (stored instanceof Bucket)
+			return many(((Bucket) stored).toArray());
+		return single((V) stored);
+	}
+
+	/**
+	 * @return the number of key/value pairs of the multimap
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return {@code true} if the multimap holds no key
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @return the number of distinct keys of the multimap
+	 */
+	public int keyCount() {
+		return keyCount;
+	}
+
+	/**
+	 * @param key
+	 *            - the key to look for, may be {@code null}
+	 * @return {@code true} if the key is mapped to at least one value
+	 */
+	public boolean containsKey(Object key) {
+		return indexOf(key) >= 0;
+	}
+
+	/**
+	 * @param key
+	 *            - the key to look for, may be {@code null}
+	 * @param value
+	 *            - the value to look for, may be {@code null}
+	 * @return {@code true} if the key is mapped to the value
+	 */
+	public boolean containsEntry(Object key, Object value) {
+		int i = indexOf(key);
+		if (i < 0)
+			return false;
+		Object stored = table[i + 1];
+		if (stored instanceof Bucket)
+			return ((Bucket) stored).indexOf(value) >= 0;
+		return SingleElementCollection.eq(stored, value);
+	}
+
+	/**
+	 * Get the values of a key. The returned collection is created on demand
+	 * and is read-only; it does not follow the later changes of the
+	 * multimap.
+	 * 
+	 * @param key
+	 *            - the key, may be {@code null}
+	 * @return the values of the key in insertion order, empty if the key is
+	 *         not there
+	 */
+	public Collection<V> get(Object key) {
+		int i = indexOf(key);
+		return values(i < 0 ? SingleElementCollection.EMPTY : table[i + 1]);
+	}
+
+	/**
+	 * Map a key to a value. The first value of a key is stored inline in the
+	 * table, the following ones promote the key to an array of values.
+	 * 
+	 * @param key
+	 *            - the key, may be {@code null}
+	 * @param value
+	 *            - the value, may be {@code null}
+	 * @return {@code true} if the multimap changed
+	 */
+	public boolean put(K key, V value) {
+		int i = indexOf(key);
+		if (i < 0) {
+			if (table == null)
+				table = new Object[2 * MIN_CAPACITY];
+			else if (3 * (keyCount + 1) > table.length)
+				table = rehash(table, keyCount, table.length);
+			hashInsert(table, maskNull(key), value);
+			keyCount++;
+		} else {
+			Object stored = table[i + 1];
+			if (stored instanceof Bucket) {
+				Bucket bucket = (Bucket) stored;
+				if (distinct() && bucket.indexOf(value) >= 0)
+					return false;
+				bucket.add(value);
+			} else {
+				if (distinct() && SingleElementCollection.eq(stored, value))
+					return false;
+				table[i + 1] = new Bucket(stored, value);
+			}
+		}
+		size++;
+		modCount++;
+		return true;
+	}
+
+	/**
+	 * Map a key to each of the given values.
+	 * 
+	 * @param key
+	 *            - the key, may be {@code null}
+	 * @param values
+	 *            - the values to map the key to
+	 * @return {@code true} if the multimap changed
+	 */
+	public boolean putAll(K key, Collection<? extends V> values) {
+		boolean modified = false;
+		for (V value : values)
+			modified |= put(key, value);
+		return modified;
+	}
+
+	/**
+	 * Map each key of an index map to each of its values.
+	 * 
+	 * @param map
+	 *            - a map from keys to collections of values
+	 * @return {@code true} if the multimap changed
+	 */
+	public boolean putAll(Map<? extends K, ? extends Collection<? extends V>> map) {
+		boolean modified = false;
+		for (Map.Entry<? extends K, ? extends Collection<? extends V>> e : map
+				.entrySet())
+			modified |= putAll(e.getKey(), e.getValue());
+		return modified;
+	}
+
+	/**
+	 * Remove one mapping of a key to a value. The key goes back to an inline
+	 * value when a single value is left.
+	 * 
+	 * @param key
+	 *            - the key, may be {@code null}
+	 * @param value
+	 *            - the value, may be {@code null}
+	 * @return {@code true} if the multimap changed
+	 */
+	public boolean remove(Object key, Object value) {
+		int i = indexOf(key);
+		if (i < 0)
+			return false;
+		Object stored = table[i + 1];
+		if (stored instanceof Bucket) {
+			Bucket bucket = (Bucket) stored;
+			int j = bucket.indexOf(value);
+			if (j < 0)
+				return false;
+			bucket.remove(j);
+			if (bucket.size == 1)
+				table[i + 1] = bucket.values[0];
+		} else {
+			if (!SingleElementCollection.eq(stored, value))
+				return false;
+			hashDelete(i);
+		}
+		size--;
+		modCount++;
+		return true;
+	}
+
+	/**
+	 * Remove a key and all its values.
+	 * 
+	 * @param key
+	 *            - the key, may be {@code null}
+	 * @return the removed values, as {@link #get(Object)} would have returned
+	 *         them
+	 */
+	public Collection<V> removeAll(Object key) {
+		return values(detach(key));
+	}
+
+	public void clear() {
+		table = null;
+		keyCount = 0;
+		size = 0;
+		modCount++;
+	}
+
+	/**
+	 * Shrink the arrays of values to the number of values of their key and
+	 * the table to the smallest capacity holding the keys.
+	 */
+	public void trimToSize() {
+		Object[] tab = table;
+		if (tab == null)
+			return;
+		for (int i = 1; i < tab.length; i += 2) {
+			if (tab[i] instanceof Bucket) {
+				Bucket bucket = (Bucket) tab[i];
+				if (bucket.size < bucket.values.length)
+					bucket.values = bucket.toArray();
+			}
+		}
+		int capacity = MIN_CAPACITY;
+		while (3 * keyCount > 2 * capacity)
+			capacity <<= 1;
+		if (2 * capacity < tab.length) {
+			table = rehash(tab, keyCount, capacity);
+			modCount++;
+		}
+	}
+
+	/**
+	 * Perform the given action for each key/value pair, the values of a key
+	 * being visited in insertion order.
+	 * 
+	 * @param action
+	 *            - the action to perform
+	 * @throws ConcurrentModificationException
+	 *             if the action changes the multimap
+	 */
+	@SuppressWarnings("unchecked")
+	public void forEach(BiConsumer<? super K, ? super V> action) {
+		Object[] tab = table;
+		int expectedModCount = modCount;
+		for (int i = 0; tab != null && i < tab.length; i += 2) {
+			if (tab[i] == null)
+				continue;
+			K key = (K) unmaskNull(tab[i]);
+			Object stored = tab[i + 1];
+			if (stored instanceof Bucket) {
+				Bucket bucket = (Bucket) stored;
+				for (int j = 0; j < bucket.size; j++)
+					action.accept(key, (V) bucket.values[j]);
+			} else {
+				action.accept(key, (V) stored);
+			}
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+		}
+	}
+
+	/**
+	 * Get a view of the keys of the multimap. Removing a key from the view
+	 * removes all its values.
+	 * 
+	 * @return the keys of the multimap
+	 */
+	public Set<K> keySet() {
+		return new AbstractSet<K>() {
+
+			@Override
+			public Iterator<K> iterator() {
+				return new Iterator<K>() {
+
+					/**
+					 * Copied on the first call to remove(), see
+					 * AdaptiveMap.PairIterator.
+					 */
+					Object[] traversal = table;
+					final int limit = table == null ? 0 : table.length;
+					int index;
+					boolean copied;
+					Object lastKey;
+					boolean canRemove;
+					int expectedModCount = modCount;
+
+					@Override
+					public boolean hasNext() {
+						while (index < limit && traversal[index] == null)
+							index += 2;
+						return index < limit;
+					}
+
+					@SuppressWarnings("unchecked")
+					@Override
+					public K next() {
+						if (modCount != expectedModCount)
+							throw new ConcurrentModificationException();
+						if (!hasNext())
+							throw new NoSuchElementException();
+						lastKey = unmaskNull(traversal[index]);
+						index += 2;
+						canRemove = true;
+						return (K) lastKey;
+					}
+
+					@Override
+					public void remove() {
+						if (!canRemove)
+							throw new IllegalStateException();
+						if (modCount != expectedModCount)
+							throw new ConcurrentModificationException();
+						if (!copied) {
+							traversal = traversal.clone();
+							copied = true;
+						}
+						detach(lastKey);
+						canRemove = false;
+						expectedModCount = modCount;
+					}
+
+				};
+			}
+
+			@Override
+			public int size() {
+				return keyCount;
+			}
+
+			@Override
+			public boolean contains(Object o) {
+				return containsKey(o);
+			}
+
+			@Override
+			public boolean remove(Object o) {
+				return detach(o) != SingleElementCollection.EMPTY;
+			}
+
+			@Override
+			public void clear() {
+				AdaptiveMultimap.this.clear();
+			}
+
+		};
+	}
+
+	/**
+	 * Compute the hash code of the multimap, which is the one of a
+	 * {@code Map} mapping each key to the collection returned by
+	 * {@link #get(Object)}.
+	 */
+	@Override
+	public int hashCode() {
+		int h = 0;
+		for (K key : keySet())
+			h += (key == null ? 0 : key.hashCode()) ^ get(key).hashCode();
+		return h;
+	}
+
+	/**
+	 * Compare the multimap with another multimap of the same kind, list or
+	 * set: both must hold the same keys, each mapped to equal collections of
+	 * values.
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof AdaptiveMultimap))
+			return false;
+		AdaptiveMultimap<?, ?> other = (AdaptiveMultimap<?, ?>) obj;
+		if (other.distinct() != distinct() || other.size != size || other.keyCount != keyCount)
+			return false;
+		for (K key : keySet()) {
+			if (!get(key).equals(other.get(key)))
+				return false;
+		}
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("{");
+		for (K key : keySet()) {
+			if (sb.length() > 1)
+				sb.append(", ");
+			sb.append(key == this ? "(this Multimap)" : key);
+			sb.append('=');
+			sb.append(get(key));
+		}
+		return sb.append('}').toString();
+	}
+
+}
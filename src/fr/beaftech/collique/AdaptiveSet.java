@@ -0,0 +1,483 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * {@code Set} implementation optimized for sets that usually hold a single
+ * element. The storage of the set moves through the same three tiers as
+ * {@link AdaptiveMap}:
+ * <ol>
+ * <li>zero or one element stored inline in the set, like
+ * {@link SingleElementSet} does;</li>
+ * <li>up to {@value AdaptiveMap#LINEAR_MAX} elements stored in a compact array
+ * that is scanned linearly;</li>
+ * <li>an open-addressing hash table with linear probing beyond that.</li>
+ * </ol>
+ * The set moves back down the tiers when elements are removed. Permits all
+ * elements, including {@code null}, and implements all optional set
+ * operations. The iteration order is not specified and iterators are
+ * fail-fast.
+ * 
+ * @param <E>
+ *            the type of the elements to store
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class AdaptiveSet<E> implements Set<E>, Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final int LINEAR_MAX = AdaptiveMap.LINEAR_MAX;
+
+	private static final int HASH_MIN_CAPACITY = AdaptiveMap.HASH_MIN_CAPACITY;
+
+	/**
+	 * Stands for the {@code null} element in the tables, where {@code null}
+	 * marks a free slot.
+	 */
+	private static final Object NULL_ELEMENT = new Object();
+
+	/**
+	 * The element of the set when the set is in the inline tier.
+	 */
+	private transient Object element;
+
+	/**
+	 * {@code null} in the inline tier, otherwise the elements masked by
+	 * {@link #NULL_ELEMENT}. In the linear tier, the first {@link #size} slots
+	 * are used; in the hash tier the table length is a power of two greater
+	 * than {@code LINEAR_MAX}.
+	 */
+	private transient Object[] table;
+
+	private transient int size;
+
+	private transient int modCount;
+
+	public AdaptiveSet() {
+		element = null;
+	}
+
+	public AdaptiveSet(E element) {
+		this.element = element;
+		size = 1;
+	}
+
+	public AdaptiveSet(Collection<? extends E> c) {
+		this();
+		addAll(c);
+	}
+
+	/**
+	 * Save the state of the set to a stream. The layout of the tiers is not
+	 * written, since hash codes may differ in the reading JVM.
+	 * 
+	 * @serialData the size of the set ({@code int}), followed by its elements
+	 */
+	private void writeObject(ObjectOutputStream s) throws IOException {
+		s.defaultWriteObject();
+		s.writeInt(size);
+		for (E e : this)
+			s.writeObject(e);
+	}
+
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream s) throws IOException,
+			ClassNotFoundException {
+		s.defaultReadObject();
+		int n = s.readInt();
+		if (n < 0)
+			throw new InvalidObjectException("Negative size " + n);
+		for (int i = 0; i < n; i++)
+			add((E) s.readObject());
+	}
+
+	private static Object maskNull(Object o) {
+		return o == null ? NULL_ELEMENT : o;
+	}
+
+	private static Object unmaskNull(Object o) {
+		return o == NULL_ELEMENT ? null : o;
+	}
+
+	private static int slot(Object masked, int length) {
+		int h = masked.hashCode() * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & (length - 1);
+	}
+
+	private boolean isHashed() {
+		return table != null && table.length > LINEAR_MAX;
+	}
+
+	/**
+	 * Find the given element in the table.
+	 * 
+	 * @return the index of the element in {@link #table} or -1 if it is not
+	 *         there
+	 */
+	private int indexOf(Object o) {
+		Object mo = maskNull(o);
+		Object[] tab = table;
+		if (!isHashed()) {
+			for (int i = 0; i < size; i++) {
+				Object item = tab[i];
+				if (item == mo || item.equals(mo))
+					return i;
+			}
+			return -1;
+		}
+		int mask = tab.length - 1;
+		for (int i = slot(mo, tab.length);; i = (i + 1) & mask) {
+			Object item = tab[i];
+			if (item == null)
+				return -1;
+			if (item == mo || item.equals(mo))
+				return i;
+		}
+	}
+
+	private static void hashInsert(Object[] tab, Object masked) {
+		int mask = tab.length - 1;
+		int i = slot(masked, tab.length);
+		while (tab[i] != null)
+			i = (i + 1) & mask;
+		tab[i] = masked;
+	}
+
+	private static Object[] rehash(Object[] tab, int count, int capacity) {
+		Object[] newTable = new Object[capacity];
+		for (int i = 0; i < tab.length && count > 0; i++) {
+			if (tab[i] != null) {
+				hashInsert(newTable, tab[i]);
+				count--;
+			}
+		}
+		return newTable;
+	}
+
+	/**
+	 * Remove the element at index i of the hash table, shifting back the
+	 * following elements of the probe sequence.
+	 */
+	private void hashDelete(int i) {
+		Object[] tab = table;
+		int mask = tab.length - 1;
+		tab[i] = null;
+		for (int j = (i + 1) & mask; tab[j] != null; j = (j + 1) & mask) {
+			int r = slot(tab[j], tab.length);
+			if (i <= j ? (i < r && r <= j) : (i < r || r <= j))
+				continue;
+			tab[i] = tab[j];
+			tab[j] = null;
+			i = j;
+		}
+	}
+
+	private void demoteToLinear() {
+		Object[] linear = new Object[size];
+		int n = 0;
+		for (int i = 0; i < table.length && n < size; i++) {
+			if (table[i] != null)
+				linear[n++] = table[i];
+		}
+		table = linear;
+	}
+
+	/**
+	 * Tells if the set is currently stored inline, that is without any table.
+	 * 
+	 * @return {@code true} if the set holds zero or one element
+	 */
+	public boolean isInline() {
+		return table == null;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		if (table == null)
+			return size == 1 && SingleElementCollection.eq(element, o);
+		return indexOf(o) >= 0;
+	}
+
+	@Override
+	public boolean add(E e) {
+		if (table == null) {
+			if (size == 0) {
+				element = e;
+				size = 1;
+				modCount++;
+				return true;
+			}
+			if (SingleElementCollection.eq(element, e))
+				return false;
+			table = new Object[] { maskNull(element), maskNull(e) };
+			element = null;
+			size = 2;
+			modCount++;
+			return true;
+		}
+
+		if (indexOf(e) >= 0)
+			return false;
+
+		if (!isHashed()) {
+			if (size < LINEAR_MAX) {
+				if (size == table.length)
+					table = Arrays.copyOf(table, 2 * table.length);
+				table[size] = maskNull(e);
+			} else {
+				table = rehash(table, size, HASH_MIN_CAPACITY);
+				hashInsert(table, maskNull(e));
+			}
+		} else {
+			hashInsert(table, maskNull(e));
+			if (3 * (size + 1) > 2 * table.length)
+				table = rehash(table, size + 1, 2 * table.length);
+		}
+		size++;
+		modCount++;
+		return true;
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		if (table == null) {
+			if (size == 1 && SingleElementCollection.eq(element, o)) {
+				element = null;
+				size = 0;
+				modCount++;
+				return true;
+			}
+			return false;
+		}
+
+		int i = indexOf(o);
+		if (i < 0)
+			return false;
+		if (!isHashed()) {
+			table[i] = table[size - 1];
+			table[size - 1] = null;
+		} else {
+			hashDelete(i);
+		}
+		size--;
+		modCount++;
+
+		if (size == 1) {
+			element = unmaskNull(table[0]);
+			table = null;
+		} else if (size <= LINEAR_MAX / 2 && isHashed()) {
+			demoteToLinear();
+		}
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		element = null;
+		table = null;
+		size = 0;
+		modCount++;
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		return new Iterator<E>() {
+
+			/**
+			 * Copied on the first call to remove(), see
+			 * AdaptiveMap.PairIterator.
+			 */
+			Object[] traversal = table;
+			final int limit = table == null ? size : isHashed() ? table.length
+					: size;
+			int index;
+			boolean copied;
+			Object last;
+			boolean canRemove;
+			int expectedModCount = modCount;
+
+			@Override
+			public boolean hasNext() {
+				if (traversal == null)
+					return index < limit;
+				while (index < limit && traversal[index] == null)
+					index++;
+				return index < limit;
+			}
+
+			@SuppressWarnings("unchecked")
+			@Override
+			public E next() {
+				if (modCount != expectedModCount)
+					throw new ConcurrentModificationException();
+				if (!hasNext())
+					throw new NoSuchElementException();
+				last = traversal == null ? element
+						: unmaskNull(traversal[index]);
+				index++;
+				canRemove = true;
+				return (E) last;
+			}
+
+			@Override
+			public void remove() {
+				if (!canRemove)
+					throw new IllegalStateException();
+				if (modCount != expectedModCount)
+					throw new ConcurrentModificationException();
+				if (traversal != null && !copied) {
+					traversal = traversal.clone();
+					copied = true;
+				}
+				AdaptiveSet.this.remove(last);
+				canRemove = false;
+				expectedModCount = modCount;
+			}
+
+		};
+	}
+
+	@Override
+	public Object[] toArray() {
+		Object[] result = new Object[size];
+		int i = 0;
+		for (E e : this)
+			result[i++] = e;
+		return result;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> T[] toArray(T[] a) {
+		if (a.length < size)
+			a = (T[]) java.lang.reflect.Array.newInstance(a.getClass()
+					.getComponentType(), size);
+		int i = 0;
+		for (E e : this)
+			a[i++] = (T) e;
+		if (a.length > size)
+			a[size] = null;
+		return a;
+	}
+
+	@Override
+	public boolean containsAll(Collection<?> c) {
+		for (Object o : c) {
+			if (!contains(o))
+				return false;
+		}
+		return true;
+	}
+
+	@Override
+	public boolean addAll(Collection<? extends E> c) {
+		boolean changed = false;
+		for (E e : c) {
+			changed = add(e) || changed;
+		}
+		return changed;
+	}
+
+	@Override
+	public boolean retainAll(Collection<?> c) {
+		boolean changed = false;
+		Iterator<E> it = iterator();
+		while (it.hasNext()) {
+			if (!c.contains(it.next())) {
+				it.remove();
+				changed = true;
+			}
+		}
+		return changed;
+	}
+
+	@Override
+	public boolean removeAll(Collection<?> c) {
+		boolean changed = false;
+		Iterator<E> it = iterator();
+		while (it.hasNext()) {
+			if (c.contains(it.next())) {
+				it.remove();
+				changed = true;
+			}
+		}
+		return changed;
+	}
+
+	@Override
+	public int hashCode() {
+		int h = 0;
+		for (E e : this) {
+			h += e == null ? 0 : e.hashCode();
+		}
+		return h;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof Set))
+			return false;
+		Set<?> other = (Set<?>) obj;
+		if (other.size() != size)
+			return false;
+		try {
+			return containsAll(other);
+		} catch (ClassCastException e) {
+			return false;
+		} catch (NullPointerException e) {
+			return false;
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("[");
+		for (E e : this) {
+			if (sb.length() > 1)
+				sb.append(", ");
+			sb.append(e == this ? "(this Collection)" : e);
+		}
+		return sb.append(']').toString();
+	}
+
+}
@@ -0,0 +1,128 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link AdaptiveMultimap} keeping the values of each key as a set: putting a
+ * value a key is already mapped to leaves the multimap unchanged. It replaces
+ * a {@code Map<K, Set<V>>} index, a key mapped to a single value costing two
+ * table slots instead of a map entry, a hash set and its own hash table.
+ * <p>
+ * {@link #get(Object)} returns an immutable empty or single element set for
+ * the keys mapped to zero or one value. The values of a key keep their
+ * insertion order.
+ * 
+ * @param <K>
+ *            the key type
+ * @param <V>
+ *            the value type
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class AdaptiveSetMultimap<K, V> extends AdaptiveMultimap<K, V> {
+
+	private static final long serialVersionUID = 1L;
+
+	public AdaptiveSetMultimap() {
+		super();
+	}
+
+	/**
+	 * @param expectedKeys
+	 *            - the number of keys the multimap can hold before growing
+	 * @throws IllegalArgumentException
+	 *             if the number of keys is negative
+	 */
+	public AdaptiveSetMultimap(int expectedKeys) {
+		super(expectedKeys);
+	}
+
+	/**
+	 * Copy an index map.
+	 * 
+	 * @param map
+	 *            - a map from keys to collections of values
+	 */
+	public AdaptiveSetMultimap(
+			Map<? extends K, ? extends Collection<? extends V>> map) {
+		super(map.size());
+		putAll(map);
+	}
+
+	/**
+	 * Read-only set of distinct values held in an array.
+	 */
+	private static final class ValueSet<V> extends AbstractSet<V> {
+
+		private final V[] values;
+
+		ValueSet(V[] values) {
+			this.values = values;
+		}
+
+		@Override
+		public Iterator<V> iterator() {
+			return Arrays.asList(values).iterator();
+		}
+
+		@Override
+		public int size() {
+			return values.length;
+		}
+
+	}
+
+	@Override
+	boolean distinct() {
+		return true;
+	}
+
+	@Override
+	Set<V> empty() {
+		return Collique.emptySet();
+	}
+
+	@Override
+	Set<V> single(V value) {
+		return Collique.setOf(value);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	Set<V> many(Object[] values) {
+		return new ValueSet<V>((V[]) values);
+	}
+
+	@Override
+	public Set<V> get(Object key) {
+		return (Set<V>) super.get(key);
+	}
+
+	@Override
+	public Set<V> removeAll(Object key) {
+		return (Set<V>) super.removeAll(key);
+	}
+
+}
@@ -0,0 +1,203 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hash-consing registry of single element collections. Interning a list, a
+ * set or a map of zero or one element returns a canonical immutable instance
+ * (as built by {@link Collique}) shared by all the equal collections interned
+ * so far, so that callers can drop their own copy. Larger collections are
+ * returned unchanged.
+ * <p>
+ * The registry is safe for concurrent use and only holds weak references to
+ * the canonical instances: they are released once callers drop them. When
+ * built with {@code internElements}, the elements, keys and values are
+ * interned as well, so that equal collections also share their content.
+ * <p>
+ * The registry counts hits and misses. The bytes saved are estimated from the
+ * layout of the canonical instances on a 64-bit JVM with compressed oops
+ * ({@value #CANONICAL_BYTES} bytes for each duplicate collection); duplicate
+ * elements are counted by {@link #elementHitCount()} but not included, as
+ * their size is unknown.
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class CollectionInterner {
+
+	/**
+	 * Size of a canonical list, set or map: header, one or two references and
+	 * the cached hash code.
+	 */
+	static final int CANONICAL_BYTES = 24;
+
+	private final WeakInterner collections = new WeakInterner();
+
+	private final WeakInterner elements;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder elementHits = new LongAdder();
+
+	public CollectionInterner() {
+		this(false);
+	}
+
+	/**
+	 * Create a registry.
+	 * 
+	 * @param internElements
+	 *            - {@code true} to intern the elements, keys and values of the
+	 *            collections as well
+	 */
+	public CollectionInterner(boolean internElements) {
+		elements = internElements ? new WeakInterner() : null;
+	}
+
+	/**
+	 * Get the canonical list equal to the given one.
+	 * 
+	 * @param list
+	 *            - the list to intern
+	 * @return a shared immutable list equal to {@code list}, or {@code list}
+	 *         itself if it holds more than one element
+	 */
+	@SuppressWarnings("unchecked")
+	public <E> List<E> intern(List<E> list) {
+		if (list.size() > 1)
+			return list;
+		if (list.isEmpty())
+			return record(Collique.<E> emptyList(), null);
+		List<E> candidate = Collique.listOf(internElement(list.iterator()
+				.next()));
+		return record((List<E>) collections.intern(candidate), candidate);
+	}
+
+	/**
+	 * Get the canonical set equal to the given one.
+	 * 
+	 * @param set
+	 *            - the set to intern
+	 * @return a shared immutable set equal to {@code set}, or {@code set}
+	 *         itself if it holds more than one element
+	 */
+	@SuppressWarnings("unchecked")
+	public <E> Set<E> intern(Set<E> set) {
+		if (set.size() > 1)
+			return set;
+		if (set.isEmpty())
+			return record(Collique.<E> emptySet(), null);
+		Set<E> candidate = Collique.setOf(internElement(set.iterator().next()));
+		return record((Set<E>) collections.intern(candidate), candidate);
+	}
+
+	/**
+	 * Get the canonical map equal to the given one.
+	 * 
+	 * @param map
+	 *            - the map to intern
+	 * @return a shared immutable map equal to {@code map}, or {@code map}
+	 *         itself if it holds more than one pair
+	 */
+	@SuppressWarnings("unchecked")
+	public <K, V> Map<K, V> intern(Map<K, V> map) {
+		if (map.size() > 1)
+			return map;
+		if (map.isEmpty())
+			return record(Collique.<K, V> emptyMap(), null);
+		Map.Entry<K, V> e = map.entrySet().iterator().next();
+		Map<K, V> candidate = Collique.mapOf(internElement(e.getKey()),
+				internElement(e.getValue()));
+		return record((Map<K, V>) collections.intern(candidate), candidate);
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T internElement(T element) {
+		if (elements == null || element == null)
+			return element;
+		T canonical = (T) elements.intern(element);
+		if (canonical != element)
+			elementHits.increment();
+		return canonical;
+	}
+
+	/**
+	 * Update the statistics: interning is a hit when the canonical instance
+	 * existed before the call.
+	 */
+	private <T> T record(T canonical, T candidate) {
+		if (canonical == candidate)
+			misses.increment();
+		else
+			hits.increment();
+		return canonical;
+	}
+
+	/**
+	 * @return the number of calls that returned an already existing canonical
+	 *         instance
+	 */
+	public long hitCount() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return the number of calls that registered a new canonical instance
+	 */
+	public long missCount() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return the ratio of hits among the single element collections interned
+	 *         so far, or 0 if none was
+	 */
+	public double hitRate() {
+		long h = hits.sum();
+		long total = h + misses.sum();
+		return total == 0 ? 0 : (double) h / total;
+	}
+
+	/**
+	 * @return the number of elements, keys and values that were replaced by an
+	 *         equal canonical instance
+	 */
+	public long elementHitCount() {
+		return elementHits.sum();
+	}
+
+	/**
+	 * @return an estimation of the heap saved by sharing the canonical
+	 *         collections, in bytes
+	 */
+	public long bytesSaved() {
+		return hits.sum() * CANONICAL_BYTES;
+	}
+
+	/**
+	 * @return the number of canonical collections currently registered
+	 */
+	public int size() {
+		return collections.size();
+	}
+
+}
@@ -0,0 +1,137 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Static factories of immutable single element collections. The returned
+ * collections keep their content and their hash code in final fields: once
+ * built, they can be published to any number of threads without locking, and
+ * hashing them costs a field read. The empty collections are shared canonical
+ * instances.
+ * <p>
+ * Note that the hash code is computed when the collection is created, so the
+ * elements must not change their own hash code afterwards.
+ * <p>
+ * {@link #compact(Object)} brings the same savings to existing object graphs.
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public final class Collique {
+
+	private Collique() {
+	}
+
+	/**
+	 * Create an immutable list holding the given element.
+	 * 
+	 * @param element
+	 *            - the element of the list, may be {@code null}
+	 * @return an immutable list of size 1
+	 */
+	public static <E> List<E> listOf(E element) {
+		return ImmutableSingleElementList.of(element);
+	}
+
+	/**
+	 * Create an immutable set holding the given element.
+	 * 
+	 * @param element
+	 *            - the element of the set, may be {@code null}
+	 * @return an immutable set of size 1
+	 */
+	public static <E> Set<E> setOf(E element) {
+		return ImmutableSingleElementSet.of(element);
+	}
+
+	/**
+	 * Create an immutable map holding the given key/value pair.
+	 * 
+	 * @param key
+	 *            - the key of the map, may be {@code null}
+	 * @param value
+	 *            - the value of the map, may be {@code null}
+	 * @return an immutable map of size 1
+	 */
+	public static <K, V> Map<K, V> mapOf(K key, V value) {
+		return ImmutableSingleElementMap.of(key, value);
+	}
+
+	/**
+	 * Walk the object graph reachable from the given root and replace, in the
+	 * fields of the visited objects, every {@code ArrayList},
+	 * {@code LinkedList}, {@code HashSet}, {@code LinkedHashSet},
+	 * {@code HashMap} and {@code LinkedHashMap} holding a single element by a
+	 * {@link SingleElementList}, {@link SingleElementSet} or
+	 * {@link SingleElementMap}, and the empty ones by {@link #emptyList()},
+	 * {@link #emptySet()} or {@link #emptyMap()}. A field is only updated if
+	 * it is neither static nor final and its declared type accepts the
+	 * replacement. A collection shared by several fields is replaced by one
+	 * shared counterpart, and left untouched if it is also referenced from a
+	 * field that cannot be updated, an array, another collection or a JDK
+	 * object such as an unmodifiable view. If such a JDK object cannot be
+	 * inspected, because its module is not opened to this library, nothing is
+	 * replaced. Large graphs are walked in parallel on the common fork-join
+	 * pool.
+	 * <p>
+	 * The graph must not be modified by other threads during the call, and
+	 * the replaced collections are then limited to one element (single-element
+	 * collections) or immutable (empty ones).
+	 * 
+	 * @param root
+	 *            - the root of the graph, may be {@code null}
+	 * @return the number of collections replaced
+	 */
+	public static int compact(Object root) {
+		return GraphCompactor.compact(root);
+	}
+
+	/**
+	 * Get the canonical immutable empty list.
+	 * 
+	 * @return the shared empty list
+	 */
+	@SuppressWarnings("unchecked")
+	public static <E> List<E> emptyList() {
+		return (List<E>) ImmutableSingleElementList.EMPTY;
+	}
+
+	/**
+	 * Get the canonical immutable empty set.
+	 * 
+	 * @return the shared empty set
+	 */
+	@SuppressWarnings("unchecked")
+	public static <E> Set<E> emptySet() {
+		return (Set<E>) ImmutableSingleElementSet.EMPTY;
+	}
+
+	/**
+	 * Get the canonical immutable empty map.
+	 * 
+	 * @return the shared empty map
+	 */
+	@SuppressWarnings("unchecked")
+	public static <K, V> Map<K, V> emptyMap() {
+		return (Map<K, V>) ImmutableSingleElementMap.EMPTY;
+	}
+
+}
@@ -0,0 +1,292 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Thread-safe, lock-free counterpart of {@link SingleElementCollection}. The
+ * element is held in a single volatile field, which contains
+ * {@link SingleElementCollection#EMPTY} when the collection is empty: reads are
+ * wait-free and updates are compare-and-set operations on that field, retried
+ * on contention. Permits all elements, including {@code null}. Iterators work
+ * on the element seen when they were created and never throw
+ * {@code ConcurrentModificationException}.
+ * 
+ * @param <E>
+ *            the type of the element to store
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public abstract class ConcurrentSingleElementCollection<E> implements
+		Collection<E>, Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<ConcurrentSingleElementCollection, Object> ELEMENT = AtomicReferenceFieldUpdater
+			.newUpdater(ConcurrentSingleElementCollection.class, Object.class,
+					"element");
+
+	protected transient volatile Object element;
+
+	public ConcurrentSingleElementCollection() {
+		element = SingleElementCollection.EMPTY;
+	}
+
+	public ConcurrentSingleElementCollection(E element) {
+		this.element = element;
+	}
+
+	/**
+	 * Save a snapshot of the collection to a stream.
+	 * 
+	 * @serialData a tag byte ({@code boolean}) telling if the collection holds
+	 *             an element, followed by the element itself when present
+	 */
+	private void writeObject(ObjectOutputStream s) throws IOException {
+		Object snapshot = element;
+		s.defaultWriteObject();
+		s.writeBoolean(!isEmpty(snapshot));
+		if (!isEmpty(snapshot))
+			s.writeObject(snapshot);
+	}
+
+	private void readObject(ObjectInputStream s) throws IOException,
+			ClassNotFoundException {
+		s.defaultReadObject();
+		element = s.readBoolean() ? s.readObject()
+				: SingleElementCollection.EMPTY;
+	}
+
+	/**
+	 * Atomically replace the element (or {@link SingleElementCollection#EMPTY}
+	 * marker) of the collection if it is still the expected one.
+	 * 
+	 * @param expected
+	 *            - the expected current content, compared by identity
+	 * @param update
+	 *            - the new content
+	 * @return {@code true} if the content was replaced
+	 */
+	protected final boolean compareAndSet(Object expected, Object update) {
+		return ELEMENT.compareAndSet(this, expected, update);
+	}
+
+	/**
+	 * Atomically empty the collection if it still holds the expected content.
+	 * All the removals of this class go through this method, except
+	 * {@link #clear()}.
+	 * 
+	 * @param expected
+	 *            - the expected current content, compared by identity
+	 * @return {@code true} if the collection was emptied
+	 */
+	boolean compareAndClear(Object expected) {
+		return compareAndSet(expected, SingleElementCollection.EMPTY);
+	}
+
+	static boolean isEmpty(Object content) {
+		return content == SingleElementCollection.EMPTY;
+	}
+
+	@Override
+	public int size() {
+		return isEmpty() ? 0 : 1;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return isEmpty(element);
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		Object e = element;
+		return !isEmpty(e) && SingleElementCollection.eq(e, o);
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		final Object snapshot = element;
+		return new Iterator<E>() {
+
+			/**
+			 * -1 -> empty collection<br/>
+			 * 0 -> next element is the snapshot<br/>
+			 * 1 -> element has already been seen<br/>
+			 */
+			int state = isEmpty(snapshot) ? -1 : 0;
+
+			@Override
+			public boolean hasNext() {
+				return state == 0;
+			}
+
+			@SuppressWarnings("unchecked")
+			@Override
+			public E next() {
+				if (state == 0) {
+					state++;
+					return (E) snapshot;
+				}
+				throw new NoSuchElementException();
+			}
+
+			@Override
+			public void remove() {
+				if (state != 1)
+					throw new IllegalStateException();
+				state = -1;
+				compareAndClear(snapshot);
+			}
+
+		};
+	}
+
+	/**
+	 * The returned spliterator traverses the element seen when it is created,
+	 * whatever the later modifications, and thus reports
+	 * {@link Spliterator#IMMUTABLE}.
+	 */
+	@Override
+	public Spliterator<E> spliterator() {
+		return new SingleElementSpliterator<E>(element, Spliterator.IMMUTABLE);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public void forEach(Consumer<? super E> action) {
+		if (action == null)
+			throw new NullPointerException();
+		Object e = element;
+		if (!isEmpty(e))
+			action.accept((E) e);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public boolean removeIf(Predicate<? super E> filter) {
+		if (filter == null)
+			throw new NullPointerException();
+		for (;;) {
+			Object e = element;
+			if (isEmpty(e) || !filter.test((E) e))
+				return false;
+			if (compareAndClear(e))
+				return true;
+		}
+	}
+
+	@Override
+	public Object[] toArray() {
+		Object e = element;
+		if (isEmpty(e))
+			return new Object[0];
+		return new Object[] { e };
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> T[] toArray(T[] a) {
+		Object e = element;
+		int size = isEmpty(e) ? 0 : 1;
+		if (a.length < size)
+			a = (T[]) java.lang.reflect.Array.newInstance(a.getClass()
+					.getComponentType(), 1);
+		if (size == 1)
+			a[0] = (T) e;
+		if (a.length > size)
+			a[size] = null;
+		return a;
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		for (;;) {
+			Object e = element;
+			if (isEmpty(e) || !SingleElementCollection.eq(e, o))
+				return false;
+			if (compareAndClear(e))
+				return true;
+		}
+	}
+
+	@Override
+	public boolean containsAll(Collection<?> c) {
+		Object e = element;
+		for (Object o : c) {
+			if (isEmpty(e) || !SingleElementCollection.eq(e, o))
+				return false;
+		}
+		return true;
+	}
+
+	@Override
+	public boolean addAll(Collection<? extends E> c) {
+		boolean changed = false;
+		for (E e : c) {
+			changed = add(e) || changed;
+		}
+		return changed;
+	}
+
+	@Override
+	public boolean removeAll(Collection<?> c) {
+		for (;;) {
+			Object e = element;
+			if (isEmpty(e) || !c.contains(e))
+				return false;
+			if (compareAndClear(e))
+				return true;
+		}
+	}
+
+	@Override
+	public boolean retainAll(Collection<?> c) {
+		for (;;) {
+			Object e = element;
+			if (isEmpty(e) || c.contains(e))
+				return false;
+			if (compareAndClear(e))
+				return true;
+		}
+	}
+
+	@Override
+	public void clear() {
+		element = SingleElementCollection.EMPTY;
+	}
+
+	@Override
+	public String toString() {
+		Object e = element;
+		return isEmpty(e) ? "[]" : "[" + e + "]";
+	}
+
+}
@@ -0,0 +1,194 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.function.UnaryOperator;
+
+/**
+ * Thread-safe, lock-free counterpart of {@link SingleElementList}. Adding an
+ * element to a non-empty list throws an {@code UnsupportedOperationException}.
+ * List iterators work on a snapshot and do not support modifications, and
+ * {@link #subList(int, int)} returns either the list itself or an immutable
+ * empty list.
+ * 
+ * @param <E>
+ *            the type of the element to store
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class ConcurrentSingleElementList<E> extends
+		ConcurrentSingleElementCollection<E> implements List<E>, RandomAccess {
+
+	private static final long serialVersionUID = 1L;
+
+	public ConcurrentSingleElementList() {
+		super();
+	}
+
+	public ConcurrentSingleElementList(E element) {
+		super(element);
+	}
+
+	@Override
+	public boolean add(E e) {
+		if (!compareAndSet(SingleElementCollection.EMPTY, e))
+			throw new UnsupportedOperationException(
+					"Cannot add more than one element to the list");
+		return true;
+	}
+
+	@Override
+	public boolean addAll(int index, Collection<? extends E> c) {
+		if (index == 0)
+			return addAll(c);
+		throw new IndexOutOfBoundsException();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public E get(int index) {
+		Object e = element;
+		if (!isEmpty(e) && index == 0)
+			return (E) e;
+		throw new ArrayIndexOutOfBoundsException(index);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public E set(int index, E element) {
+		if (index == 0) {
+			for (;;) {
+				Object e = this.element;
+				if (isEmpty(e))
+					break;
+				if (compareAndSet(e, element))
+					return (E) e;
+			}
+		}
+		throw new ArrayIndexOutOfBoundsException(index);
+	}
+
+	@Override
+	public void add(int index, E element) {
+		if (index != 0)
+			throw new ArrayIndexOutOfBoundsException(index);
+		add(element);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public E remove(int index) {
+		if (index == 0) {
+			for (;;) {
+				Object e = element;
+				if (isEmpty(e))
+					break;
+				if (compareAndClear(e))
+					return (E) e;
+			}
+		}
+		throw new IndexOutOfBoundsException();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public void replaceAll(UnaryOperator<E> operator) {
+		if (operator == null)
+			throw new NullPointerException();
+		for (;;) {
+			Object e = element;
+			if (isEmpty(e) || compareAndSet(e, operator.apply((E) e)))
+				return;
+		}
+	}
+
+	/**
+	 * A list of at most one element is always sorted: this method does
+	 * nothing.
+	 */
+	@Override
+	public void sort(Comparator<? super E> c) {
+	}
+
+	@Override
+	public Spliterator<E> spliterator() {
+		return new SingleElementSpliterator<E>(element, Spliterator.IMMUTABLE
+				| Spliterator.ORDERED);
+	}
+
+	@Override
+	public int indexOf(Object o) {
+		return contains(o) ? 0 : -1;
+	}
+
+	@Override
+	public int lastIndexOf(Object o) {
+		return indexOf(o);
+	}
+
+	@Override
+	public ListIterator<E> listIterator() {
+		return listIterator(0);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public ListIterator<E> listIterator(int index) {
+		Object e = element;
+		List<E> snapshot = isEmpty(e) ? Collique.<E> emptyList() : Collique
+				.listOf((E) e);
+		return snapshot.listIterator(index);
+	}
+
+	@Override
+	public List<E> subList(int fromIndex, int toIndex) {
+		if (fromIndex < 0 || toIndex > size() || fromIndex > toIndex)
+			throw new IndexOutOfBoundsException();
+		if (fromIndex == toIndex)
+			return Collique.emptyList();
+		return this;
+	}
+
+	@Override
+	public int hashCode() {
+		Object e = element;
+		return isEmpty(e) ? 1 : 31 + (e == null ? 0 : e.hashCode());
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof List))
+			return false;
+		Object e = element;
+		Iterator<?> it = ((List<?>) obj).iterator();
+		if (!isEmpty(e)
+				&& (!it.hasNext() || !SingleElementCollection.eq(e, it.next())))
+			return false;
+		return !it.hasNext();
+	}
+
+}
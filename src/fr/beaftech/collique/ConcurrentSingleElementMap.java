@@ -0,0 +1,512 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Thread-safe, lock-free single key/value pair implementation of
+ * {@code ConcurrentMap}. The pair is held by an immutable snapshot in a single
+ * volatile field: reads are wait-free (one volatile read) and every update is a
+ * compare-and-set of that field, retried on contention. Like
+ * {@link SingleElementMap}, adding a second key throws an
+ * {@code UnsupportedOperationException}.
+ * <p>
+ * As in {@code ConcurrentHashMap}, {@code null} keys and values are not
+ * permitted, the views are weakly consistent, and the functions given to the
+ * {@code compute} methods and to {@link #merge(Object, Object, BiFunction)}
+ * may be applied more than once under contention, so they should be free of
+ * side effects.
+ * 
+ * @param <K>
+ *            the key type
+ * @param <V>
+ *            the value type
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class ConcurrentSingleElementMap<K, V> implements ConcurrentMap<K, V>,
+		Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<ConcurrentSingleElementMap, ImmutableSingleElementMap> STATE = AtomicReferenceFieldUpdater
+			.newUpdater(ConcurrentSingleElementMap.class,
+					ImmutableSingleElementMap.class, "state");
+
+	private transient volatile ImmutableSingleElementMap<K, V> state;
+
+	@SuppressWarnings("unchecked")
+	public ConcurrentSingleElementMap() {
+		state = (ImmutableSingleElementMap<K, V>) ImmutableSingleElementMap.EMPTY;
+	}
+
+	public ConcurrentSingleElementMap(K key, V value) {
+		checkNotNull(key, value);
+		state = ImmutableSingleElementMap.of(key, value);
+	}
+
+	/**
+	 * Save a snapshot of the map to a stream.
+	 * 
+	 * @serialData a tag byte ({@code boolean}) telling if the map holds a
+	 *             mapping, followed by the key and the value when present
+	 */
+	private void writeObject(ObjectOutputStream s) throws IOException {
+		ImmutableSingleElementMap<K, V> snapshot = state;
+		s.defaultWriteObject();
+		s.writeBoolean(!snapshot.isEmpty());
+		if (!snapshot.isEmpty()) {
+			s.writeObject(snapshot.key);
+			s.writeObject(snapshot.value);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream s) throws IOException,
+			ClassNotFoundException {
+		s.defaultReadObject();
+		if (s.readBoolean()) {
+			K key = (K) s.readObject();
+			V value = (V) s.readObject();
+			if (key == null || value == null)
+				throw new InvalidObjectException("Null key or value");
+			state = ImmutableSingleElementMap.of(key, value);
+		} else {
+			state = empty();
+		}
+	}
+
+	private static void checkNotNull(Object key, Object value) {
+		if (key == null || value == null)
+			throw new NullPointerException();
+	}
+
+	private boolean cas(ImmutableSingleElementMap<K, V> expected,
+			ImmutableSingleElementMap<K, V> update) {
+		return STATE.compareAndSet(this, expected, update);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <K, V> ImmutableSingleElementMap<K, V> empty() {
+		return (ImmutableSingleElementMap<K, V>) ImmutableSingleElementMap.EMPTY;
+	}
+
+	private static UnsupportedOperationException full() {
+		return new UnsupportedOperationException(
+				"Cannot add more than one element");
+	}
+
+	@Override
+	public int size() {
+		return state.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return state.isEmpty();
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return state.containsKey(key);
+	}
+
+	@Override
+	public boolean containsValue(Object value) {
+		return state.containsValue(value);
+	}
+
+	@Override
+	public V get(Object key) {
+		return state.get(key);
+	}
+
+	@Override
+	public V getOrDefault(Object key, V defaultValue) {
+		ImmutableSingleElementMap<K, V> s = state;
+		return s.containsKey(key) ? s.value : defaultValue;
+	}
+
+	@Override
+	public V put(K key, V value) {
+		checkNotNull(key, value);
+		ImmutableSingleElementMap<K, V> update = ImmutableSingleElementMap.of(
+				key, value);
+		for (;;) {
+			ImmutableSingleElementMap<K, V> s = state;
+			if (!s.isEmpty() && !s.containsKey(key))
+				throw full();
+			if (cas(s, update))
+				return s.value;
+		}
+	}
+
+	@Override
+	public V putIfAbsent(K key, V value) {
+		checkNotNull(key, value);
+		ImmutableSingleElementMap<K, V> update = null;
+		for (;;) {
+			ImmutableSingleElementMap<K, V> s = state;
+			if (s.containsKey(key))
+				return s.value;
+			if (!s.isEmpty())
+				throw full();
+			if (update == null)
+				update = ImmutableSingleElementMap.of(key, value);
+			if (cas(s, update))
+				return null;
+		}
+	}
+
+	@Override
+	public V remove(Object key) {
+		for (;;) {
+			ImmutableSingleElementMap<K, V> s = state;
+			if (!s.containsKey(key))
+				return null;
+			if (cas(s, ConcurrentSingleElementMap.<K, V> empty()))
+				return s.value;
+		}
+	}
+
+	@Override
+	public boolean remove(Object key, Object value) {
+		for (;;) {
+			ImmutableSingleElementMap<K, V> s = state;
+			if (value == null || !s.containsKey(key) || !value.equals(s.value))
+				return false;
+			if (cas(s, ConcurrentSingleElementMap.<K, V> empty()))
+				return true;
+		}
+	}
+
+	@Override
+	public boolean replace(K key, V oldValue, V newValue) {
+		checkNotNull(key, newValue);
+		for (;;) {
+			ImmutableSingleElementMap<K, V> s = state;
+			if (oldValue == null || !s.containsKey(key)
+					|| !oldValue.equals(s.value))
+				return false;
+			if (cas(s, ImmutableSingleElementMap.of(key, newValue)))
+				return true;
+		}
+	}
+
+	@Override
+	public V replace(K key, V value) {
+		checkNotNull(key, value);
+		for (;;) {
+			ImmutableSingleElementMap<K, V> s = state;
+			if (!s.containsKey(key))
+				return null;
+			if (cas(s, ImmutableSingleElementMap.of(key, value)))
+				return s.value;
+		}
+	}
+
+	@Override
+	public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+		ImmutableSingleElementMap<K, V> s = state;
+		if (s.containsKey(key))
+			return s.value;
+		if (!s.isEmpty())
+			throw full();
+		V value = mappingFunction.apply(key);
+		if (value == null)
+			return null;
+		ImmutableSingleElementMap<K, V> update = ImmutableSingleElementMap.of(
+				key, value);
+		for (;;) {
+			s = state;
+			if (s.containsKey(key))
+				return s.value;
+			if (!s.isEmpty())
+				throw full();
+			if (cas(s, update))
+				return value;
+		}
+	}
+
+	@Override
+	public V computeIfPresent(K key,
+			BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+		for (;;) {
+			ImmutableSingleElementMap<K, V> s = state;
+			if (!s.containsKey(key))
+				return null;
+			V value = remappingFunction.apply(key, s.value);
+			ImmutableSingleElementMap<K, V> update = value == null ? ConcurrentSingleElementMap
+					.<K, V> empty() : ImmutableSingleElementMap.of(key, value);
+			if (cas(s, update))
+				return value;
+		}
+	}
+
+	@Override
+	public V compute(K key,
+			BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+		for (;;) {
+			ImmutableSingleElementMap<K, V> s = state;
+			boolean present = s.containsKey(key);
+			V value = remappingFunction.apply(key, present ? s.value : null);
+			ImmutableSingleElementMap<K, V> update;
+			if (value != null) {
+				if (!present && !s.isEmpty())
+					throw full();
+				update = ImmutableSingleElementMap.of(key, value);
+			} else if (present) {
+				update = empty();
+			} else {
+				return null;
+			}
+			if (cas(s, update))
+				return value;
+		}
+	}
+
+	@Override
+	public V merge(K key, V value,
+			BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+		checkNotNull(key, value);
+		for (;;) {
+			ImmutableSingleElementMap<K, V> s = state;
+			V merged;
+			ImmutableSingleElementMap<K, V> update;
+			if (s.containsKey(key)) {
+				merged = remappingFunction.apply(s.value, value);
+				update = merged == null ? ConcurrentSingleElementMap
+						.<K, V> empty() : ImmutableSingleElementMap.of(key,
+						merged);
+			} else if (s.isEmpty()) {
+				merged = value;
+				update = ImmutableSingleElementMap.of(key, value);
+			} else {
+				throw full();
+			}
+			if (cas(s, update))
+				return merged;
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public void forEach(BiConsumer<? super K, ? super V> action) {
+		ImmutableSingleElementMap<K, V> s = state;
+		if (!s.isEmpty())
+			action.accept((K) s.key, s.value);
+	}
+
+	@Override
+	public void replaceAll(
+			BiFunction<? super K, ? super V, ? extends V> function) {
+		for (;;) {
+			ImmutableSingleElementMap<K, V> s = state;
+			if (s.isEmpty())
+				return;
+			@SuppressWarnings("unchecked")
+			K key = (K) s.key;
+			V value = function.apply(key, s.value);
+			checkNotNull(key, value);
+			if (cas(s, ImmutableSingleElementMap.of(key, value)))
+				return;
+		}
+	}
+
+	@Override
+	public void putAll(Map<? extends K, ? extends V> m) {
+		for (Map.Entry<? extends K, ? extends V> e : m.entrySet()) {
+			put(e.getKey(), e.getValue());
+		}
+	}
+
+	@Override
+	public void clear() {
+		state = empty();
+	}
+
+	@Override
+	public Set<K> keySet() {
+		return new AbstractSet<K>() {
+
+			@Override
+			public Iterator<K> iterator() {
+				ImmutableSingleElementMap<K, V> s = state;
+				return new SnapshotIterator<K>(s, s.keySet().iterator());
+			}
+
+			@Override
+			public int size() {
+				return ConcurrentSingleElementMap.this.size();
+			}
+
+			@Override
+			public boolean contains(Object o) {
+				return containsKey(o);
+			}
+
+			@Override
+			public boolean remove(Object o) {
+				return ConcurrentSingleElementMap.this.remove(o) != null;
+			}
+
+			@Override
+			public void clear() {
+				ConcurrentSingleElementMap.this.clear();
+			}
+
+		};
+	}
+
+	@Override
+	public Collection<V> values() {
+		return new AbstractCollection<V>() {
+
+			@Override
+			public Iterator<V> iterator() {
+				ImmutableSingleElementMap<K, V> s = state;
+				return new SnapshotIterator<V>(s, s.values().iterator());
+			}
+
+			@Override
+			public int size() {
+				return ConcurrentSingleElementMap.this.size();
+			}
+
+			@Override
+			public boolean contains(Object o) {
+				return containsValue(o);
+			}
+
+			@Override
+			public void clear() {
+				ConcurrentSingleElementMap.this.clear();
+			}
+
+		};
+	}
+
+	@Override
+	public Set<Map.Entry<K, V>> entrySet() {
+		return new AbstractSet<Map.Entry<K, V>>() {
+
+			@Override
+			public Iterator<Map.Entry<K, V>> iterator() {
+				ImmutableSingleElementMap<K, V> s = state;
+				return new SnapshotIterator<Map.Entry<K, V>>(s, s.entrySet()
+						.iterator());
+			}
+
+			@Override
+			public int size() {
+				return ConcurrentSingleElementMap.this.size();
+			}
+
+			@Override
+			public boolean contains(Object o) {
+				return state.entrySet().contains(o);
+			}
+
+			@Override
+			public boolean remove(Object o) {
+				if (!(o instanceof Map.Entry))
+					return false;
+				Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+				return ConcurrentSingleElementMap.this.remove(e.getKey(),
+						e.getValue());
+			}
+
+			@Override
+			public void clear() {
+				ConcurrentSingleElementMap.this.clear();
+			}
+
+		};
+	}
+
+	/**
+	 * Iterator over the snapshot taken when the iterator was created. Its
+	 * {@link #remove()} removes the pair from the map only if the map still
+	 * holds the snapshot.
+	 */
+	private class SnapshotIterator<T> implements Iterator<T> {
+
+		private final ImmutableSingleElementMap<K, V> snapshot;
+		private final Iterator<T> it;
+		private boolean canRemove;
+
+		SnapshotIterator(ImmutableSingleElementMap<K, V> snapshot, Iterator<T> it) {
+			this.snapshot = snapshot;
+			this.it = it;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return it.hasNext();
+		}
+
+		@Override
+		public T next() {
+			T next = it.next();
+			canRemove = true;
+			return next;
+		}
+
+		@Override
+		public void remove() {
+			if (!canRemove)
+				throw new IllegalStateException();
+			canRemove = false;
+			cas(snapshot, ConcurrentSingleElementMap.<K, V> empty());
+		}
+
+	}
+
+	@Override
+	public int hashCode() {
+		return state.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return this == obj || state.equals(obj);
+	}
+
+	@Override
+	public String toString() {
+		return state.toString();
+	}
+
+}
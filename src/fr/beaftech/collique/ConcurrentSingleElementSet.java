@@ -0,0 +1,91 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import java.util.Set;
+import java.util.Spliterator;
+
+/**
+ * Thread-safe, lock-free counterpart of {@link SingleElementSet}. Adding an
+ * element different from the one contained in the set throws an
+ * {@code UnsupportedOperationException}.
+ * 
+ * @param <E>
+ *            the type of the element to store
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class ConcurrentSingleElementSet<E> extends
+		ConcurrentSingleElementCollection<E> implements Set<E> {
+
+	private static final long serialVersionUID = 1L;
+
+	public ConcurrentSingleElementSet() {
+		super();
+	}
+
+	public ConcurrentSingleElementSet(E element) {
+		super(element);
+	}
+
+	@Override
+	public boolean add(E e) {
+		for (;;) {
+			Object current = element;
+			if (!isEmpty(current)) {
+				if (SingleElementCollection.eq(current, e))
+					return false;
+				throw new UnsupportedOperationException(
+						"Cannot add more than one element to the set");
+			}
+			if (compareAndSet(current, e))
+				return true;
+		}
+	}
+
+	@Override
+	public Spliterator<E> spliterator() {
+		return new SingleElementSpliterator<E>(element, Spliterator.IMMUTABLE
+				| Spliterator.DISTINCT);
+	}
+
+	@Override
+	public int hashCode() {
+		Object e = element;
+		return isEmpty(e) || e == null ? 0 : e.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof Set))
+			return false;
+		Object e = element;
+		Set<?> other = (Set<?>) obj;
+		try {
+			return isEmpty(e) ? other.isEmpty() : other.size() == 1
+					&& other.contains(e);
+		} catch (ClassCastException ex) {
+			return false;
+		} catch (NullPointerException ex) {
+			return false;
+		}
+	}
+
+}
@@ -0,0 +1,515 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+/**
+ * Walks an object graph and replaces, in the fields of the visited objects,
+ * the general purpose collections holding zero or one element by their
+ * single-element counterpart: {@link SingleElementList},
+ * {@link SingleElementSet} and {@link SingleElementMap} for one element, the
+ * canonical empty collections of {@link Collique} for none.
+ * <p>
+ * Only instances of {@code ArrayList}, {@code LinkedList}, {@code HashSet},
+ * {@code LinkedHashSet}, {@code HashMap} and {@code LinkedHashMap} are
+ * replaced, and only in non-final, non-static fields whose declared type
+ * accepts the replacement. Collections and maps are traversed through their
+ * public API and arrays element by element. The fields of the JDK objects met,
+ * such as the wrappers of {@code Collections} or {@code Optional}, are read
+ * only to find the collections they reference, which are then kept as is;
+ * those of the common JDK collections, which only hold their elements, are
+ * not read. Each object is visited once, so cycles are handled.
+ * <p>
+ * A collection referenced from several fields is replaced by a single
+ * counterpart shared by all of them. A collection that is also referenced
+ * from a reference that cannot be rewritten, such as a final field, a field
+ * whose declared type rejects the counterpart, an array, another collection
+ * or the root itself, is left untouched everywhere: replacing only some of
+ * its references would split the state shared through it. The replacements
+ * are therefore applied once the whole graph has been walked. If a JDK object
+ * has a field that may lead to a collection but cannot be read, as happens on
+ * Java 9 and later for the modules not opened to this library, nothing is
+ * replaced at all.
+ * <p>
+ * The walk starts on the calling thread and forks part of its pending
+ * objects to the common fork-join pool whenever more than
+ * {@link #SPLIT_THRESHOLD} of them are waiting, so that small graphs are
+ * compacted without any thread hop.
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+final class GraphCompactor {
+
+	/**
+	 * Number of pending objects above which a task hands half of them to a
+	 * new task.
+	 */
+	static final int SPLIT_THRESHOLD = 512;
+
+	/**
+	 * Reflection metadata of each visited class, computed once per class.
+	 */
+	private static final ClassValue<Layout> LAYOUTS = new ClassValue<Layout>() {
+		@Override
+		protected Layout computeValue(Class<?> type) {
+			return new Layout(type);
+		}
+	};
+
+	/**
+	 * Names of the JDK collections whose fields hold nothing but their
+	 * elements, reached through their public API, and internal objects.
+	 */
+	private static final Set<String> CONTAINERS = new HashSet<String>(
+			Arrays.asList("java.util.AbstractCollection",
+					"java.util.AbstractList",
+					"java.util.AbstractSequentialList",
+					"java.util.AbstractSet", "java.util.AbstractQueue",
+					"java.util.AbstractMap", "java.util.ArrayList",
+					"java.util.LinkedList", "java.util.ArrayDeque",
+					"java.util.HashSet", "java.util.LinkedHashSet",
+					"java.util.HashMap", "java.util.LinkedHashMap",
+					"java.util.IdentityHashMap", "java.util.TreeMap",
+					"java.util.TreeSet", "java.util.EnumMap",
+					"java.util.EnumSet", "java.util.RegularEnumSet",
+					"java.util.JumboEnumSet", "java.util.Arrays$ArrayList",
+					"java.util.Collections$EmptyList",
+					"java.util.Collections$EmptySet",
+					"java.util.Collections$EmptyMap",
+					"java.util.Collections$SingletonList",
+					"java.util.Collections$SingletonSet",
+					"java.util.Collections$SingletonMap",
+					"java.util.concurrent.ConcurrentHashMap",
+					"java.util.concurrent.CopyOnWriteArrayList",
+					"java.util.concurrent.CopyOnWriteArraySet",
+					"java.util.concurrent.ConcurrentLinkedQueue"));
+
+	/**
+	 * Set when a JDK object may lead to a collection through a field that
+	 * cannot be read: nothing is replaced then.
+	 */
+	private volatile boolean blind;
+
+	private static final Function<Identity, Site> NEW_SITE = new Function<Identity, Site>() {
+		@Override
+		public Site apply(Identity identity) {
+			return new Site(compactForm(identity.o));
+		}
+	};
+
+	/**
+	 * Objects already visited, compared by identity.
+	 */
+	private final Set<Identity> visited = ConcurrentHashMap
+			.<Identity> newKeySet();
+
+	/**
+	 * The replaceable collections met during the walk, compared by identity.
+	 */
+	private final ConcurrentHashMap<Identity, Site> sites = new ConcurrentHashMap<Identity, Site>();
+
+	private GraphCompactor() {
+	}
+
+	/**
+	 * Compact the graph reachable from the given root.
+	 * 
+	 * @param root
+	 *            - the root of the graph, may be {@code null}
+	 * @return the number of collections replaced
+	 */
+	static int compact(Object root) {
+		if (root == null)
+			return 0;
+		GraphCompactor compactor = new GraphCompactor();
+		Deque<Object> pending = new ArrayDeque<Object>();
+		compactor.pin(root);
+		compactor.push(root, pending);
+		// invoke() runs the root task on the calling thread
+		compactor.new Task(pending).invoke();
+		if (compactor.blind)
+			return 0;
+		int replaced = 0;
+		for (Site site : compactor.sites.values())
+			if (site.apply())
+				replaced++;
+		return replaced;
+	}
+
+	/**
+	 * @return the site of the value if it is a replaceable collection,
+	 *         {@code null} otherwise
+	 */
+	private Site site(Object value) {
+		if (!isReplaceable(value))
+			return null;
+		return sites.computeIfAbsent(new Identity(value), NEW_SITE);
+	}
+
+	/**
+	 * Keep the value as is if it is a replaceable collection, because it is
+	 * referenced from a place that cannot be rewritten.
+	 */
+	private void pin(Object value) {
+		Site site = site(value);
+		if (site != null)
+			site.pin();
+	}
+
+	/**
+	 * Add the object to the pending ones if it has not been visited yet and
+	 * may reference other objects.
+	 */
+	private void push(Object o, Deque<Object> pending) {
+		if (o != null && !isLeaf(o.getClass())
+				&& visited.add(new Identity(o)))
+			pending.push(o);
+	}
+
+	/**
+	 * Pin and push a value referenced from a place that is never rewritten:
+	 * an element, a key, a comparator.
+	 */
+	private void fixed(Object value, Deque<Object> pending) {
+		pin(value);
+		push(value, pending);
+	}
+
+	private void visit(Object o, Deque<Object> pending) {
+		Class<?> type = o.getClass();
+		if (type.isArray()) {
+			for (Object e : (Object[]) o)
+				fixed(e, pending);
+			return;
+		}
+		if (o instanceof Collection) {
+			for (Object e : (Collection<?>) o)
+				fixed(e, pending);
+			if (o instanceof SortedSet)
+				fixed(((SortedSet<?>) o).comparator(), pending);
+		} else if (o instanceof Map) {
+			for (Map.Entry<?, ?> e : ((Map<?, ?>) o).entrySet()) {
+				fixed(e.getKey(), pending);
+				fixed(e.getValue(), pending);
+			}
+			if (o instanceof SortedMap)
+				fixed(((SortedMap<?, ?>) o).comparator(), pending);
+		}
+		Layout layout = LAYOUTS.get(type);
+		if (layout.opaque)
+			blind = true;
+		for (Field f : layout.fields) {
+			Object value = get(f, o);
+			Site site = site(value);
+			if (site != null) {
+				if (isPlatformClass(f.getDeclaringClass())
+						|| Modifier.isFinal(f.getModifiers())
+						|| !f.getType().isInstance(site.compact))
+					site.pin();
+				else
+					site.reference(o, f);
+			}
+			push(value, pending);
+		}
+	}
+
+	/**
+	 * @return {@code true} if the value is a replaceable collection of at
+	 *         most one element
+	 */
+	static boolean isReplaceable(Object value) {
+		if (value == null)
+			return false;
+		Class<?> type = value.getClass();
+		if (type == ArrayList.class || type == LinkedList.class
+				|| type == HashSet.class || type == LinkedHashSet.class)
+			return ((Collection<?>) value).size() <= 1;
+		if (type == HashMap.class || type == LinkedHashMap.class)
+			return ((Map<?, ?>) value).size() <= 1;
+		return false;
+	}
+
+	/**
+	 * @param value
+	 *            - a replaceable collection, see {@link #isReplaceable(Object)}
+	 * @return the single-element counterpart of the value
+	 */
+	static Object compactForm(Object value) {
+		if (value instanceof List) {
+			List<?> list = (List<?>) value;
+			return list.isEmpty() ? Collique.emptyList()
+					: new SingleElementList<Object>(list.get(0));
+		}
+		if (value instanceof Set) {
+			Set<?> set = (Set<?>) value;
+			return set.isEmpty() ? Collique.emptySet()
+					: new SingleElementSet<Object>(set.iterator().next());
+		}
+		Map<?, ?> map = (Map<?, ?>) value;
+		if (map.isEmpty())
+			return Collique.emptyMap();
+		Map.Entry<?, ?> e = map.entrySet().iterator().next();
+		return new SingleElementMap<Object, Object>(e.getKey(), e.getValue());
+	}
+
+	/**
+	 * @return {@code true} if instances of the given class cannot lead to
+	 *         other objects worth visiting
+	 */
+	private static boolean isLeaf(Class<?> type) {
+		if (type.isArray())
+			return type.getComponentType().isPrimitive();
+		if (Collection.class.isAssignableFrom(type)
+				|| Map.class.isAssignableFrom(type))
+			return false;
+		Layout layout = LAYOUTS.get(type);
+		return layout.fields.length == 0 && !layout.opaque;
+	}
+
+	/**
+	 * @return {@code true} if the fields of the given class hold nothing but
+	 *         the elements of a collection and internal objects
+	 */
+	private static boolean isContainer(Class<?> type) {
+		if (isPlatformClass(type))
+			return CONTAINERS.contains(type.getName());
+		return type.getPackage() == GraphCompactor.class.getPackage()
+				&& (Collection.class.isAssignableFrom(type) || Map.class
+						.isAssignableFrom(type));
+	}
+
+	/**
+	 * @param seen
+	 *            - the final classes already inspected, which are not
+	 *            inspected again
+	 * @return {@code true} if a field of the given declared type may lead to
+	 *         a replaceable collection
+	 */
+	private static boolean mayLeadToCollection(Class<?> type,
+			Set<Class<?>> seen) {
+		while (type.isArray())
+			type = type.getComponentType();
+		if (type.isPrimitive() || type == Class.class)
+			return false;
+		if (!Modifier.isFinal(type.getModifiers()))
+			return true;
+		if (!seen.add(type))
+			return false;
+		for (Class<?> k = type; k != null; k = k.getSuperclass())
+			for (Field f : k.getDeclaredFields())
+				if (!Modifier.isStatic(f.getModifiers())
+						&& mayLeadToCollection(f.getType(), seen))
+					return true;
+		return false;
+	}
+
+	private static boolean isPlatformClass(Class<?> type) {
+		String name = type.getName();
+		return name.startsWith("java.") || name.startsWith("javax.")
+				|| name.startsWith("jdk.") || name.startsWith("sun.")
+				|| name.startsWith("com.sun.");
+	}
+
+	private static Object get(Field f, Object o) {
+		try {
+			return f.get(o);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void set(Field f, Object o, Object value) {
+		try {
+			f.set(o, value);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * The fields of a class to read when visiting its instances: all the
+	 * reference fields of the application classes, and those of the JDK
+	 * classes which may lead to a collection. The fields of the containers are
+	 * not read, nor those of {@code Class}, whose instances only hold runtime
+	 * metadata.
+	 */
+	private static final class Layout {
+
+		final Field[] fields;
+
+		/**
+		 * Whether one of the fields to read cannot be read.
+		 */
+		final boolean opaque;
+
+		Layout(Class<?> type) {
+			List<Field> fields = new ArrayList<Field>();
+			boolean opaque = false;
+			for (Class<?> k = type; k != null && k != Object.class
+					&& k != Class.class; k = k.getSuperclass()) {
+				if (isContainer(k))
+					continue;
+				boolean platform = isPlatformClass(k);
+				for (Field f : k.getDeclaredFields()) {
+					if (Modifier.isStatic(f.getModifiers())
+							|| f.getType().isPrimitive()
+							|| platform && !mayLeadToCollection(f.getType(),
+									new HashSet<Class<?>>()))
+						continue;
+					try {
+						f.setAccessible(true);
+						fields.add(f);
+					} catch (RuntimeException e) {
+						// not opened to us (Java 9+)
+						opaque = true;
+					}
+				}
+			}
+			this.fields = fields.toArray(new Field[fields.size()]);
+			this.opaque = opaque;
+		}
+
+	}
+
+	/**
+	 * Wrapper comparing objects by identity, for the visited set and the
+	 * sites.
+	 */
+	private static final class Identity {
+
+		final Object o;
+
+		Identity(Object o) {
+			this.o = o;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(o);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Identity && ((Identity) obj).o == o;
+		}
+
+	}
+
+	/**
+	 * A replaceable collection, its counterpart and the fields to rewrite.
+	 * Tasks record references concurrently, hence the synchronized methods.
+	 */
+	private static final class Site {
+
+		final Object compact;
+
+		/**
+		 * The holders and the fields referencing the collection, stored
+		 * alternately.
+		 */
+		private final List<Object> references = new ArrayList<Object>(2);
+
+		private boolean pinned;
+
+		Site(Object compact) {
+			this.compact = compact;
+		}
+
+		synchronized void reference(Object holder, Field f) {
+			if (!pinned) {
+				references.add(holder);
+				references.add(f);
+			}
+		}
+
+		synchronized void pin() {
+			pinned = true;
+			references.clear();
+		}
+
+		/**
+		 * Rewrite the recorded fields with the counterpart, unless the
+		 * collection is pinned.
+		 * 
+		 * @return {@code true} if the collection was replaced
+		 */
+		synchronized boolean apply() {
+			if (pinned || references.isEmpty())
+				return false;
+			for (int i = 0; i < references.size(); i += 2)
+				set((Field) references.get(i + 1), references.get(i), compact);
+			return true;
+		}
+
+	}
+
+	/**
+	 * Visits pending objects depth-first, handing half of them to a forked
+	 * task when too many are waiting.
+	 */
+	private final class Task extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Deque<Object> pending;
+
+		Task(Deque<Object> pending) {
+			this.pending = pending;
+		}
+
+		@Override
+		protected void compute() {
+			List<Task> forked = new ArrayList<Task>();
+			while (!pending.isEmpty()) {
+				visit(pending.pop(), pending);
+				if (pending.size() > SPLIT_THRESHOLD) {
+					Deque<Object> half = new ArrayDeque<Object>();
+					for (int i = pending.size() / 2; i > 0; i--)
+						half.add(pending.pollLast());
+					Task task = new Task(half);
+					task.fork();
+					forked.add(task);
+				}
+			}
+			for (Task task : forked)
+				task.join();
+		}
+
+	}
+
+}
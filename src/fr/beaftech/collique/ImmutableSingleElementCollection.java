@@ -0,0 +1,215 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Immutable counterpart of {@link SingleElementCollection}. The element and
+ * the hash code are stored in final fields, so instances can be shared between
+ * threads without any synchronization once constructed. All mutating
+ * operations throw an {@code UnsupportedOperationException}.
+ * 
+ * @param <E>
+ *            the type of the element to store
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+abstract class ImmutableSingleElementCollection<E> implements Collection<E>,
+		Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Shared result of {@link #toArray()} for empty collections: an array of
+	 * length zero cannot be modified by the caller.
+	 */
+	static final Object[] EMPTY_ARRAY = new Object[0];
+
+	/**
+	 * The element of the collection, or {@link SingleElementCollection#EMPTY}
+	 * if the collection is empty.
+	 */
+	final Object element;
+
+	/**
+	 * The hash code of the collection, computed once at construction.
+	 */
+	final int hash;
+
+	ImmutableSingleElementCollection(Object element, int hash) {
+		this.element = element;
+		this.hash = hash;
+	}
+
+	/**
+	 * Instances are serialized through a {@link SerialProxy}: a stream
+	 * holding the fields of this class directly was not written by this
+	 * library.
+	 */
+	private void readObject(ObjectInputStream s) throws InvalidObjectException {
+		throw new InvalidObjectException("Serialization proxy required");
+	}
+
+	static UnsupportedOperationException immutable() {
+		return new UnsupportedOperationException("Immutable collection");
+	}
+
+	@SuppressWarnings("unchecked")
+	E getElement() {
+		return isEmpty() ? null : (E) element;
+	}
+
+	@Override
+	public int size() {
+		return isEmpty() ? 0 : 1;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return element == SingleElementCollection.EMPTY;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return !isEmpty() && SingleElementCollection.eq(element, o);
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		if (isEmpty())
+			return Collections.emptyIterator();
+		return new Iterator<E>() {
+
+			boolean hasNext = true;
+
+			@Override
+			public boolean hasNext() {
+				return hasNext;
+			}
+
+			@Override
+			public E next() {
+				if (hasNext) {
+					hasNext = false;
+					return getElement();
+				}
+				throw new NoSuchElementException();
+			}
+
+		};
+	}
+
+	@Override
+	public Spliterator<E> spliterator() {
+		return new SingleElementSpliterator<E>(element, Spliterator.IMMUTABLE);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public void forEach(Consumer<? super E> action) {
+		if (action == null)
+			throw new NullPointerException();
+		if (!isEmpty())
+			action.accept((E) element);
+	}
+
+	@Override
+	public Object[] toArray() {
+		if (isEmpty())
+			return EMPTY_ARRAY;
+		return new Object[] { element };
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> T[] toArray(T[] a) {
+		if (a.length < size())
+			a = (T[]) java.lang.reflect.Array.newInstance(a.getClass()
+					.getComponentType(), 1);
+		if (!isEmpty())
+			a[0] = (T) element;
+		if (a.length > size())
+			a[size()] = null;
+		return a;
+	}
+
+	@Override
+	public boolean containsAll(Collection<?> c) {
+		for (Object o : c) {
+			if (!contains(o))
+				return false;
+		}
+		return true;
+	}
+
+	@Override
+	public boolean add(E e) {
+		throw immutable();
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		throw immutable();
+	}
+
+	@Override
+	public boolean addAll(Collection<? extends E> c) {
+		throw immutable();
+	}
+
+	@Override
+	public boolean removeAll(Collection<?> c) {
+		throw immutable();
+	}
+
+	@Override
+	public boolean retainAll(Collection<?> c) {
+		throw immutable();
+	}
+
+	@Override
+	public boolean removeIf(Predicate<? super E> filter) {
+		throw immutable();
+	}
+
+	@Override
+	public void clear() {
+		throw immutable();
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public String toString() {
+		return isEmpty() ? "[]" : "[" + element + "]";
+	}
+
+}
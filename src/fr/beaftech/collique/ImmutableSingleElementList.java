@@ -0,0 +1,207 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.function.UnaryOperator;
+
+/**
+ * Immutable counterpart of {@link SingleElementList}, created through
+ * {@link Collique#listOf(Object)} and {@link Collique#emptyList()}.
+ * 
+ * @param <E>
+ *            the type of the element to store
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+final class ImmutableSingleElementList<E> extends
+		ImmutableSingleElementCollection<E> implements List<E>, RandomAccess {
+
+	private static final long serialVersionUID = 1L;
+
+	static final ImmutableSingleElementList<Object> EMPTY = new ImmutableSingleElementList<Object>(
+			SingleElementCollection.EMPTY);
+
+	private ImmutableSingleElementList(Object element) {
+		super(element, element == SingleElementCollection.EMPTY ? 1
+				: 31 + (element == null ? 0 : element.hashCode()));
+	}
+
+	static <E> ImmutableSingleElementList<E> of(E element) {
+		return new ImmutableSingleElementList<E>(element);
+	}
+
+	@Override
+	public E get(int index) {
+		if (!isEmpty() && index == 0)
+			return getElement();
+		throw new IndexOutOfBoundsException("Index: " + index);
+	}
+
+	private Object writeReplace() {
+		return new SerialProxy(SerialProxy.LIST, element, null);
+	}
+
+	@Override
+	public Spliterator<E> spliterator() {
+		return new SingleElementSpliterator<E>(element, Spliterator.IMMUTABLE
+				| Spliterator.ORDERED);
+	}
+
+	@Override
+	public void replaceAll(UnaryOperator<E> operator) {
+		throw immutable();
+	}
+
+	@Override
+	public void sort(Comparator<? super E> c) {
+		throw immutable();
+	}
+
+	@Override
+	public int indexOf(Object o) {
+		return contains(o) ? 0 : -1;
+	}
+
+	@Override
+	public int lastIndexOf(Object o) {
+		return indexOf(o);
+	}
+
+	@Override
+	public ListIterator<E> listIterator() {
+		return listIterator(0);
+	}
+
+	@Override
+	public ListIterator<E> listIterator(final int index) {
+		if (index < 0 || index > size())
+			throw new IndexOutOfBoundsException("Index: " + index);
+		return new ListIterator<E>() {
+
+			int cursor = index;
+
+			@Override
+			public boolean hasNext() {
+				return cursor < size();
+			}
+
+			@Override
+			public E next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+				cursor++;
+				return getElement();
+			}
+
+			@Override
+			public boolean hasPrevious() {
+				return cursor > 0;
+			}
+
+			@Override
+			public E previous() {
+				if (!hasPrevious())
+					throw new NoSuchElementException();
+				cursor--;
+				return getElement();
+			}
+
+			@Override
+			public int nextIndex() {
+				return cursor;
+			}
+
+			@Override
+			public int previousIndex() {
+				return cursor - 1;
+			}
+
+			@Override
+			public void remove() {
+				throw immutable();
+			}
+
+			@Override
+			public void set(E e) {
+				throw immutable();
+			}
+
+			@Override
+			public void add(E e) {
+				throw immutable();
+			}
+
+		};
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public List<E> subList(int fromIndex, int toIndex) {
+		if (fromIndex < 0 || toIndex > size() || fromIndex > toIndex)
+			throw new IndexOutOfBoundsException();
+		return fromIndex == toIndex ? (List<E>) EMPTY : this;
+	}
+
+	@Override
+	public boolean addAll(int index, Collection<? extends E> c) {
+		throw immutable();
+	}
+
+	@Override
+	public E set(int index, E element) {
+		throw immutable();
+	}
+
+	@Override
+	public void add(int index, E element) {
+		throw immutable();
+	}
+
+	@Override
+	public E remove(int index) {
+		throw immutable();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj instanceof ImmutableSingleElementList) {
+			ImmutableSingleElementList<?> other = (ImmutableSingleElementList<?>) obj;
+			return hash == other.hash
+					&& (isEmpty() ? other.isEmpty() : !other.isEmpty()
+							&& SingleElementCollection.eq(element,
+									other.element));
+		}
+		if (!(obj instanceof List))
+			return false;
+		Iterator<?> it = ((List<?>) obj).iterator();
+		if (!isEmpty() && (!it.hasNext() || !contains(it.next())))
+			return false;
+		return !it.hasNext();
+	}
+
+}
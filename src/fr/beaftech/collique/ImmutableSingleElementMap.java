@@ -0,0 +1,203 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable counterpart of {@link SingleElementMap}, created through
+ * {@link Collique#mapOf(Object, Object)} and {@link Collique#emptyMap()}. The
+ * key, the value and the hash code are stored in final fields, so instances
+ * can be shared between threads without any synchronization once constructed.
+ * All mutating operations throw an {@code UnsupportedOperationException}.
+ * 
+ * @param <K>
+ *            the key type
+ * @param <V>
+ *            the value type
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+final class ImmutableSingleElementMap<K, V> implements Map<K, V>,
+		Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	static final ImmutableSingleElementMap<Object, Object> EMPTY = new ImmutableSingleElementMap<Object, Object>(
+			SingleElementCollection.EMPTY, null);
+
+	/**
+	 * The key of the map, or {@link SingleElementCollection#EMPTY} if the map
+	 * is empty.
+	 */
+	final Object key;
+
+	final V value;
+
+	/**
+	 * The hash code of the map, computed once at construction.
+	 */
+	final int hash;
+
+	private ImmutableSingleElementMap(Object key, V value) {
+		this.key = key;
+		this.value = value;
+		this.hash = key == SingleElementCollection.EMPTY ? 0
+				: (key == null ? 0 : key.hashCode())
+						^ (value == null ? 0 : value.hashCode());
+	}
+
+	static <K, V> ImmutableSingleElementMap<K, V> of(K key, V value) {
+		return new ImmutableSingleElementMap<K, V>(key, value);
+	}
+
+	private Object writeReplace() {
+		return new SerialProxy(SerialProxy.MAP, key, value);
+	}
+
+	/**
+	 * Instances are serialized through a {@link SerialProxy}: a stream
+	 * holding the fields of this class directly was not written by this
+	 * library.
+	 */
+	private void readObject(ObjectInputStream s) throws InvalidObjectException {
+		throw new InvalidObjectException("Serialization proxy required");
+	}
+
+	@SuppressWarnings("unchecked")
+	private K getKey() {
+		return isEmpty() ? null : (K) key;
+	}
+
+	@Override
+	public int size() {
+		return isEmpty() ? 0 : 1;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return key == SingleElementCollection.EMPTY;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return !isEmpty() && SingleElementCollection.eq(this.key, key);
+	}
+
+	@Override
+	public boolean containsValue(Object value) {
+		return !isEmpty() && SingleElementCollection.eq(this.value, value);
+	}
+
+	@Override
+	public V get(Object key) {
+		return containsKey(key) ? value : null;
+	}
+
+	@Override
+	public V put(K key, V value) {
+		throw ImmutableSingleElementCollection.immutable();
+	}
+
+	@Override
+	public V remove(Object key) {
+		throw ImmutableSingleElementCollection.immutable();
+	}
+
+	@Override
+	public void putAll(Map<? extends K, ? extends V> m) {
+		throw ImmutableSingleElementCollection.immutable();
+	}
+
+	@Override
+	public void clear() {
+		throw ImmutableSingleElementCollection.immutable();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Set<K> keySet() {
+		if (isEmpty())
+			return (Set<K>) ImmutableSingleElementSet.EMPTY;
+		return ImmutableSingleElementSet.of(getKey());
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Collection<V> values() {
+		if (isEmpty())
+			return (Collection<V>) ImmutableSingleElementList.EMPTY;
+		return ImmutableSingleElementList.of(value);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		if (isEmpty())
+			return (Set<Entry<K, V>>) (Set<?>) ImmutableSingleElementSet.EMPTY;
+		Entry<K, V> entry = new AbstractMap.SimpleImmutableEntry<K, V>(
+				getKey(), value);
+		return ImmutableSingleElementSet.of(entry);
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj instanceof ImmutableSingleElementMap) {
+			ImmutableSingleElementMap<?, ?> other = (ImmutableSingleElementMap<?, ?>) obj;
+			return hash == other.hash
+					&& (isEmpty() ? other.isEmpty() : !other.isEmpty()
+							&& SingleElementCollection.eq(key, other.key)
+							&& SingleElementCollection.eq(value, other.value));
+		}
+		if (!(obj instanceof Map))
+			return false;
+		Map<?, ?> other = (Map<?, ?>) obj;
+		if (other.size() != size())
+			return false;
+		if (isEmpty())
+			return true;
+		try {
+			Object otherValue = other.get(key);
+			return value == null ? otherValue == null && other.containsKey(key)
+					: value.equals(otherValue);
+		} catch (ClassCastException e) {
+			return false;
+		} catch (NullPointerException e) {
+			return false;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return isEmpty() ? "{}" : "{" + key + "=" + value + "}";
+	}
+
+}
@@ -0,0 +1,83 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import java.util.Set;
+import java.util.Spliterator;
+
+/**
+ * Immutable counterpart of {@link SingleElementSet}, created through
+ * {@link Collique#setOf(Object)} and {@link Collique#emptySet()}.
+ * 
+ * @param <E>
+ *            the type of the element to store
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+final class ImmutableSingleElementSet<E> extends
+		ImmutableSingleElementCollection<E> implements Set<E> {
+
+	private static final long serialVersionUID = 1L;
+
+	static final ImmutableSingleElementSet<Object> EMPTY = new ImmutableSingleElementSet<Object>(
+			SingleElementCollection.EMPTY);
+
+	private ImmutableSingleElementSet(Object element) {
+		super(element, element == SingleElementCollection.EMPTY
+				|| element == null ? 0 : element.hashCode());
+	}
+
+	static <E> ImmutableSingleElementSet<E> of(E element) {
+		return new ImmutableSingleElementSet<E>(element);
+	}
+
+	private Object writeReplace() {
+		return new SerialProxy(SerialProxy.SET, element, null);
+	}
+
+	@Override
+	public Spliterator<E> spliterator() {
+		return new SingleElementSpliterator<E>(element, Spliterator.IMMUTABLE
+				| Spliterator.DISTINCT);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj instanceof ImmutableSingleElementSet) {
+			ImmutableSingleElementSet<?> other = (ImmutableSingleElementSet<?>) obj;
+			return hash == other.hash
+					&& (isEmpty() ? other.isEmpty() : !other.isEmpty()
+							&& SingleElementCollection.eq(element,
+									other.element));
+		}
+		if (!(obj instanceof Set))
+			return false;
+		Set<?> other = (Set<?>) obj;
+		try {
+			return other.size() == size()
+					&& (isEmpty() || other.contains(element));
+		} catch (ClassCastException e) {
+			return false;
+		} catch (NullPointerException e) {
+			return false;
+		}
+	}
+
+}
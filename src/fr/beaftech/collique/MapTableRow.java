@@ -0,0 +1,379 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Flyweight {@code Map} view of one row of a single entry map table. The view
+ * holds no data: reads and writes go straight to the columns of the table,
+ * and so do its key set, values and entry set, which are views of the row.
+ * Like {@link SingleElementMap}, putting a second key throws an
+ * {@code UnsupportedOperationException}.
+ * 
+ * @param <K>
+ *            the key type
+ * @param <V>
+ *            the value type
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+abstract class MapTableRow<K, V> implements Map<K, V> {
+
+	/**
+	 * @return the key of the row, which must not be empty
+	 */
+	abstract K key();
+
+	/**
+	 * @return the value of the row, which must not be empty
+	 */
+	abstract V value();
+
+	/**
+	 * @return {@code true} if the row holds a mapping whose key equals the
+	 *         given one
+	 */
+	abstract boolean matches(Object key);
+
+	/**
+	 * Replace the value of the row, which must not be empty.
+	 */
+	abstract void setValue(V value);
+
+	/**
+	 * Store a mapping in the row, replacing the current one if any.
+	 */
+	abstract void store(K key, V value);
+
+	/**
+	 * Entry view of the mapping of the row.
+	 */
+	private class EntryView implements Entry<K, V> {
+
+		@Override
+		public K getKey() {
+			return isEmpty() ? null : key();
+		}
+
+		@Override
+		public V getValue() {
+			return isEmpty() ? null : value();
+		}
+
+		@Override
+		public V setValue(V value) {
+			if (isEmpty())
+				throw new IllegalStateException();
+			V previous = value();
+			MapTableRow.this.setValue(value);
+			return previous;
+		}
+
+		@Override
+		public int hashCode() {
+			return MapTableRow.this.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Entry))
+				return false;
+			Entry<?, ?> other = (Entry<?, ?>) obj;
+			return matches(other.getKey())
+					&& SingleElementCollection.eq(value(), other.getValue());
+		}
+
+		@Override
+		public String toString() {
+			return getKey() + "=" + getValue();
+		}
+
+	}
+
+	@Override
+	public int size() {
+		return isEmpty() ? 0 : 1;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return matches(key);
+	}
+
+	@Override
+	public boolean containsValue(Object value) {
+		return !isEmpty() && SingleElementCollection.eq(value(), value);
+	}
+
+	@Override
+	public V get(Object key) {
+		return matches(key) ? value() : null;
+	}
+
+	@Override
+	public V put(K key, V value) {
+		if (isEmpty()) {
+			store(key, value);
+			return null;
+		}
+		if (matches(key)) {
+			V previous = value();
+			setValue(value);
+			return previous;
+		}
+		throw new UnsupportedOperationException(
+				"Cannot add more than one element");
+	}
+
+	@Override
+	public V remove(Object key) {
+		if (matches(key)) {
+			V removed = value();
+			clear();
+			return removed;
+		}
+		return null;
+	}
+
+	@Override
+	public void putAll(Map<? extends K, ? extends V> m) {
+		for (Map.Entry<? extends K, ? extends V> e : m.entrySet()) {
+			put(e.getKey(), e.getValue());
+		}
+	}
+
+	/**
+	 * Iterator over the mapping of the row, if any. Each view only tells which
+	 * part of the mapping is returned.
+	 */
+	private abstract class RowIterator<T> implements Iterator<T> {
+
+		private boolean hasNext = !isEmpty();
+
+		private boolean removable;
+
+		abstract T result();
+
+		@Override
+		public boolean hasNext() {
+			return hasNext;
+		}
+
+		@Override
+		public T next() {
+			if (!hasNext)
+				throw new NoSuchElementException();
+			hasNext = false;
+			removable = true;
+			return result();
+		}
+
+		@Override
+		public void remove() {
+			if (!removable)
+				throw new IllegalStateException();
+			removable = false;
+			clear();
+		}
+
+	}
+
+	private final class KeySet extends AbstractSet<K> {
+
+		@Override
+		public Iterator<K> iterator() {
+			return new RowIterator<K>() {
+
+				@Override
+				K result() {
+					return key();
+				}
+
+			};
+		}
+
+		@Override
+		public int size() {
+			return MapTableRow.this.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return MapTableRow.this.isEmpty();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return matches(o);
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			if (!matches(o))
+				return false;
+			MapTableRow.this.clear();
+			return true;
+		}
+
+		@Override
+		public void clear() {
+			MapTableRow.this.clear();
+		}
+
+	}
+
+	private final class Values extends AbstractCollection<V> {
+
+		@Override
+		public Iterator<V> iterator() {
+			return new RowIterator<V>() {
+
+				@Override
+				V result() {
+					return value();
+				}
+
+			};
+		}
+
+		@Override
+		public int size() {
+			return MapTableRow.this.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return MapTableRow.this.isEmpty();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return containsValue(o);
+		}
+
+		@Override
+		public void clear() {
+			MapTableRow.this.clear();
+		}
+
+	}
+
+	private final class EntrySet extends AbstractSet<Entry<K, V>> {
+
+		@Override
+		public Iterator<Entry<K, V>> iterator() {
+			return new RowIterator<Entry<K, V>>() {
+
+				@Override
+				Entry<K, V> result() {
+					return new EntryView();
+				}
+
+			};
+		}
+
+		@Override
+		public int size() {
+			return MapTableRow.this.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return MapTableRow.this.isEmpty();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof Entry))
+				return false;
+			Entry<?, ?> e = (Entry<?, ?>) o;
+			return matches(e.getKey())
+					&& SingleElementCollection.eq(value(), e.getValue());
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			if (!contains(o))
+				return false;
+			MapTableRow.this.clear();
+			return true;
+		}
+
+		@Override
+		public void clear() {
+			MapTableRow.this.clear();
+		}
+
+	}
+
+	@Override
+	public Set<K> keySet() {
+		return new KeySet();
+	}
+
+	@Override
+	public Collection<V> values() {
+		return new Values();
+	}
+
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		return new EntrySet();
+	}
+
+	@Override
+	public int hashCode() {
+		if (isEmpty())
+			return 0;
+		K key = key();
+		V value = value();
+		return (key == null ? 0 : key.hashCode())
+				^ (value == null ? 0 : value.hashCode());
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof Map))
+			return false;
+		Map<?, ?> other = (Map<?, ?>) obj;
+		if (other.size() != size())
+			return false;
+		if (isEmpty())
+			return true;
+		K key = key();
+		V value = value();
+		Object otherValue = other.get(key);
+		return value == null ? otherValue == null && other.containsKey(key)
+				: value.equals(otherValue);
+	}
+
+	@Override
+	public String toString() {
+		return isEmpty() ? "{}" : "{" + key() + "=" + value() + "}";
+	}
+
+}
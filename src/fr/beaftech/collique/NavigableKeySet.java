@@ -0,0 +1,188 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import java.util.AbstractSet;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.SortedSet;
+
+/**
+ * {@code NavigableSet} view of the keys of a {@code NavigableMap}, delegating
+ * every operation to the map. It serves as the key set of
+ * {@link SingleElementNavigableMap} and of its range views.
+ * 
+ * @param <E>
+ *            the type of the keys
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+final class NavigableKeySet<E> extends AbstractSet<E> implements
+		NavigableSet<E> {
+
+	private final NavigableMap<E, ?> map;
+
+	NavigableKeySet(NavigableMap<E, ?> map) {
+		this.map = map;
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		final Iterator<? extends Map.Entry<E, ?>> it = map.entrySet()
+				.iterator();
+		return new Iterator<E>() {
+
+			@Override
+			public boolean hasNext() {
+				return it.hasNext();
+			}
+
+			@Override
+			public E next() {
+				return it.next().getKey();
+			}
+
+			@Override
+			public void remove() {
+				it.remove();
+			}
+
+		};
+	}
+
+	@Override
+	public int size() {
+		return map.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return map.isEmpty();
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return map.containsKey(o);
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		if (!map.containsKey(o))
+			return false;
+		map.remove(o);
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		map.clear();
+	}
+
+	@Override
+	public Comparator<? super E> comparator() {
+		return map.comparator();
+	}
+
+	@Override
+	public E first() {
+		return map.firstKey();
+	}
+
+	@Override
+	public E last() {
+		return map.lastKey();
+	}
+
+	@Override
+	public E lower(E e) {
+		return map.lowerKey(e);
+	}
+
+	@Override
+	public E floor(E e) {
+		return map.floorKey(e);
+	}
+
+	@Override
+	public E ceiling(E e) {
+		return map.ceilingKey(e);
+	}
+
+	@Override
+	public E higher(E e) {
+		return map.higherKey(e);
+	}
+
+	@Override
+	public E pollFirst() {
+		Map.Entry<E, ?> e = map.pollFirstEntry();
+		return e == null ? null : e.getKey();
+	}
+
+	@Override
+	public E pollLast() {
+		Map.Entry<E, ?> e = map.pollLastEntry();
+		return e == null ? null : e.getKey();
+	}
+
+	@Override
+	public NavigableSet<E> descendingSet() {
+		return new NavigableKeySet<E>(map.descendingMap());
+	}
+
+	@Override
+	public Iterator<E> descendingIterator() {
+		return descendingSet().iterator();
+	}
+
+	@Override
+	public NavigableSet<E> subSet(E fromElement, boolean fromInclusive,
+			E toElement, boolean toInclusive) {
+		return new NavigableKeySet<E>(map.subMap(fromElement, fromInclusive,
+				toElement, toInclusive));
+	}
+
+	@Override
+	public NavigableSet<E> headSet(E toElement, boolean inclusive) {
+		return new NavigableKeySet<E>(map.headMap(toElement, inclusive));
+	}
+
+	@Override
+	public NavigableSet<E> tailSet(E fromElement, boolean inclusive) {
+		return new NavigableKeySet<E>(map.tailMap(fromElement, inclusive));
+	}
+
+	@Override
+	public SortedSet<E> subSet(E fromElement, E toElement) {
+		return subSet(fromElement, true, toElement, false);
+	}
+
+	@Override
+	public SortedSet<E> headSet(E toElement) {
+		return headSet(toElement, false);
+	}
+
+	@Override
+	public SortedSet<E> tailSet(E fromElement) {
+		return tailSet(fromElement, true);
+	}
+
+}
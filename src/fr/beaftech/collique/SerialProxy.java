@@ -0,0 +1,113 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+/**
+ * Serialized form of the immutable collections returned by {@link Collique}.
+ * The whole state is written as one tag byte, telling the kind of the
+ * collection and whether it is empty, followed by the element, or the key and
+ * the value, when present. Deserialization goes back through the
+ * {@link Collique} factories, so empty collections resolve to the canonical
+ * shared instances and hash codes are computed again in the reading JVM.
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+final class SerialProxy implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	static final byte LIST = 0;
+
+	static final byte SET = 2;
+
+	static final byte MAP = 4;
+
+	/**
+	 * Bit of the tag set when the collection is not empty.
+	 */
+	private static final byte PRESENT = 1;
+
+	private transient byte tag;
+
+	private transient Object first;
+
+	private transient Object second;
+
+	/**
+	 * @param kind
+	 *            - {@link #LIST}, {@link #SET} or {@link #MAP}
+	 * @param first
+	 *            - the element or the key, or
+	 *            {@link SingleElementCollection#EMPTY}
+	 * @param second
+	 *            - the value of a map
+	 */
+	SerialProxy(byte kind, Object first, Object second) {
+		this.tag = (byte) (first == SingleElementCollection.EMPTY ? kind
+				: kind | PRESENT);
+		this.first = first;
+		this.second = second;
+	}
+
+	/**
+	 * @serialData the tag byte, then the element (list and set) or the key and
+	 *             the value (map) if the collection is not empty
+	 */
+	private void writeObject(ObjectOutputStream s) throws IOException {
+		s.defaultWriteObject();
+		s.writeByte(tag);
+		if ((tag & PRESENT) != 0) {
+			s.writeObject(first);
+			if ((tag & ~PRESENT) == MAP)
+				s.writeObject(second);
+		}
+	}
+
+	private void readObject(ObjectInputStream s) throws IOException,
+			ClassNotFoundException {
+		s.defaultReadObject();
+		tag = s.readByte();
+		if ((tag & PRESENT) != 0) {
+			first = s.readObject();
+			if ((tag & ~PRESENT) == MAP)
+				second = s.readObject();
+		}
+	}
+
+	private Object readResolve() throws InvalidObjectException {
+		boolean present = (tag & PRESENT) != 0;
+		switch (tag & ~PRESENT) {
+		case LIST:
+			return present ? Collique.listOf(first) : Collique.emptyList();
+		case SET:
+			return present ? Collique.setOf(first) : Collique.emptySet();
+		case MAP:
+			return present ? Collique.mapOf(first, second) : Collique
+					.emptyMap();
+		default:
+			throw new InvalidObjectException("Unknown tag " + tag);
+		}
+	}
+
+}
@@ -0,0 +1,269 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * Single element implementation of {@code List<Double>} storing its element as
+ * a raw {@code double}. Like {@link SingleElementList}, {@link #add(Double)}
+ * and {@link #addAll(java.util.Collection)} throw an
+ * {@code UnsupportedOperationException} when trying to add a second element.
+ * Unboxed accessors such as {@link #getDouble(int)} avoid boxing on hot read
+ * paths.
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class SingleDoubleList extends SingleDoubleCollection implements
+		List<Double>, RandomAccess {
+
+	private static final long serialVersionUID = 1L;
+
+	public SingleDoubleList() {
+		super();
+	}
+
+	public SingleDoubleList(double element) {
+		super(element);
+	}
+
+	@Override
+	public boolean addDouble(double e) {
+		if (present) {
+			throw new UnsupportedOperationException(
+					"Cannot add more than one element to the list");
+		}
+		element = e;
+		present = true;
+		return true;
+	}
+
+	@Override
+	public boolean addAll(int index, Collection<? extends Double> c) {
+		if (index == 0)
+			return addAll(c);
+		throw new IndexOutOfBoundsException();
+	}
+
+	/**
+	 * Get the element at the given position without boxing it.
+	 * 
+	 * @param index
+	 *            - the index of the element, only 0 is valid
+	 * @return the element of the list
+	 */
+	public double getDouble(int index) {
+		if (present && index == 0)
+			return element;
+		throw new ArrayIndexOutOfBoundsException(index);
+	}
+
+	/**
+	 * Replace the element at the given position without boxing it.
+	 * 
+	 * @param index
+	 *            - the index of the element, only 0 is valid
+	 * @param value
+	 *            - the new element
+	 * @return the previous element
+	 */
+	public double setDouble(int index, double value) {
+		if (present && index == 0) {
+			double previous = element;
+			element = value;
+			return previous;
+		}
+		throw new ArrayIndexOutOfBoundsException(index);
+	}
+
+	@Override
+	public Double get(int index) {
+		return getDouble(index);
+	}
+
+	@Override
+	public Double set(int index, Double element) {
+		return setDouble(index, element);
+	}
+
+	@Override
+	public void add(int index, Double element) {
+		if (index == 0) {
+			add(element);
+		} else {
+			throw new ArrayIndexOutOfBoundsException(index);
+		}
+	}
+
+	@Override
+	public Double remove(int index) {
+		if (index == 0 && present) {
+			present = false;
+			return element;
+		}
+		throw new IndexOutOfBoundsException();
+	}
+
+	@Override
+	public int indexOf(Object o) {
+		if (contains(o))
+			return 0;
+		return -1;
+	}
+
+	@Override
+	public int lastIndexOf(Object o) {
+		return indexOf(o);
+	}
+
+	@Override
+	public ListIterator<Double> listIterator() {
+		return new SingleDoubleListIterator(0);
+	}
+
+	@Override
+	public ListIterator<Double> listIterator(int index) {
+		return new SingleDoubleListIterator(index);
+	}
+
+	@Override
+	public List<Double> subList(int fromIndex, int toIndex) {
+		if (fromIndex < 0 || toIndex > size() || fromIndex > toIndex)
+			throw new IndexOutOfBoundsException();
+		if (fromIndex == toIndex)
+			return Collections.emptyList();
+		return new SingleDoubleList(element);
+	}
+
+	@Override
+	public int hashCode() {
+		return present ? 31 + Double.hashCode(element) : 1;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj instanceof SingleDoubleList) {
+			SingleDoubleList other = (SingleDoubleList) obj;
+			return present ? other.present && same(element, other.element)
+					: !other.present;
+		}
+		if (!(obj instanceof List))
+			return false;
+		Iterator<?> it = ((List<?>) obj).iterator();
+		if (present && (!it.hasNext() || !contains(it.next())))
+			return false;
+		return !it.hasNext();
+	}
+
+	private class SingleDoubleListIterator implements ListIterator<Double> {
+
+		/**
+		 * The pointer position. (will be -1 for an empty list)
+		 */
+		int pt;
+		boolean hasCurrent;
+
+		public SingleDoubleListIterator(int start) {
+			if (start < 0 || start > size())
+				throw new IndexOutOfBoundsException();
+			pt = present ? start : -1;
+			hasCurrent = false;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return pt == 0;
+		}
+
+		@Override
+		public Double next() {
+			if (pt == 0) {
+				pt++;
+				hasCurrent = true;
+				return element;
+			}
+			throw new NoSuchElementException();
+		}
+
+		@Override
+		public boolean hasPrevious() {
+			return pt == 1;
+		}
+
+		@Override
+		public Double previous() {
+			if (pt == 1) {
+				pt--;
+				hasCurrent = true;
+				return element;
+			}
+			throw new NoSuchElementException();
+		}
+
+		@Override
+		public int nextIndex() {
+			return pt == 1 ? 1 : 0;
+		}
+
+		@Override
+		public int previousIndex() {
+			return pt == 1 ? 0 : -1;
+		}
+
+		@Override
+		public void remove() {
+			if (hasCurrent) {
+				present = false;
+				hasCurrent = false;
+				pt = -1;
+			} else {
+				throw new IllegalStateException();
+			}
+		}
+
+		@Override
+		public void set(Double e) {
+			if (hasCurrent) {
+				element = e;
+			} else {
+				throw new IllegalStateException();
+			}
+		}
+
+		@Override
+		public void add(Double e) {
+			if (pt == -1) {
+				addDouble(e);
+				pt = 1;
+			} else {
+				throw new UnsupportedOperationException(
+						"This list can only contains one element");
+			}
+		}
+
+	}
+
+}
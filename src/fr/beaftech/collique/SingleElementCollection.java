@@ -16,9 +16,20 @@ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
  */
 package fr.beaftech.collique;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * Single element implementation of {@code Collection} interface. Permits all
@@ -36,52 +47,68 @@ import java.util.NoSuchElementException;
  * @version 1.0
  * @since 1.0
  */
-public abstract class SingleElementCollection<E> implements Collection<E> {
+public abstract class SingleElementCollection<E> implements Collection<E>,
+		Serializable {
 
-	protected Element<E> element;
+	private static final long serialVersionUID = 1L;
 
 	/**
-	 * A wrapper for the list element. Useful to know if the collection is empty
-	 * or contains {@code null}
-	 * 
-	 * @author Arnould Guidat
-	 *
-	 * @param <E>
-	 *            the wrapped element type
+	 * Marker stored in {@link #element} when the collection is empty. Using a
+	 * private sentinel instead of {@code null} lets the collection hold a
+	 * {@code null} element without any wrapper object.
 	 */
-	protected static class Element<E> {
-		E value;
+	protected static final Object EMPTY = new Object();
 
-		public Element() {
-			value = null;
-		}
+	/**
+	 * Marker returned by {@link #contentOf(Collection)} for collections which
+	 * are not single element collections.
+	 */
+	static final Object FOREIGN = new Object();
 
-		public Element(E value) {
-			this.value = value;
-		}
+	/**
+	 * The element of the collection, or {@link #EMPTY} if the collection is
+	 * empty.
+	 */
+	protected transient Object element;
 
-		@Override
-		public boolean equals(Object obj) {
-			if (value == null)
-				return obj == null;
-			if (obj instanceof Element)
-				return value.equals(((Element<?>) obj).value);
-			return value.equals(obj);
-		}
+	public SingleElementCollection() {
+		element = EMPTY;
+	}
 
-		@Override
-		public int hashCode() {
-			return value == null ? 0 : value.hashCode();
-		}
+	public SingleElementCollection(E element) {
+		this.element = element;
+	}
 
+	/**
+	 * Save the state of the collection to a stream.
+	 * 
+	 * @serialData a tag byte ({@code boolean}) telling if the collection holds
+	 *             an element, followed by the element itself when present
+	 */
+	private void writeObject(ObjectOutputStream s) throws IOException {
+		s.defaultWriteObject();
+		s.writeBoolean(!isEmpty());
+		if (!isEmpty())
+			s.writeObject(element);
 	}
 
-	public SingleElementCollection() {
-		element = null;
+	private void readObject(ObjectInputStream s) throws IOException,
+			ClassNotFoundException {
+		s.defaultReadObject();
+		element = s.readBoolean() ? s.readObject() : EMPTY;
 	}
 
-	public SingleElementCollection(E element) {
-		this.element = new Element<E>(element);
+	/**
+	 * Null-safe equality test used to compare the element with other objects.
+	 * 
+	 * @param o1
+	 *            - the first object (may be {@code null})
+	 * @param o2
+	 *            - the second object (may be {@code null})
+	 * @return {@code true} if both objects are {@code null} or equal
+	 */
+	static boolean eq(Object o1, Object o2) {
+		return o1 == null ? o2 == null : o1.equals(o2);
 	}
 
 	/**
@@ -90,22 +117,20 @@ public abstract class SingleElementCollection<E> implements Collection<E> {
 	 * @return the value of the element of the collection or {@code null} is the
 	 *         collection is empty
 	 */
+	@SuppressWarnings("unchecked")
 	protected E getElement() {
-		return isEmpty() ? null : element.value;
+		return isEmpty() ? null : (E) element;
 	}
 
 	/**
 	 * Set the value of the element of the collection with the given one. If the
-	 * collection is empty, create a new element and et its value.
+	 * collection is empty, it will then contain the given value.
 	 * 
 	 * @param value
 	 *            - the value to set.
 	 */
 	protected void setElement(E value) {
-		if (element == null) {
-			element = new Element<E>();
-		}
-		element.value = value;
+		element = value;
 	}
 
 	@Override
@@ -115,12 +140,12 @@ public abstract class SingleElementCollection<E> implements Collection<E> {
 
 	@Override
 	public boolean isEmpty() {
-		return element == null;
+		return element == EMPTY;
 	}
 
 	@Override
 	public boolean contains(Object o) {
-		return isEmpty() ? false : element.equals(o);
+		return isEmpty() ? false : eq(element, o);
 	}
 
 	@Override
@@ -152,7 +177,7 @@ public abstract class SingleElementCollection<E> implements Collection<E> {
 			@Override
 			public void remove() {
 				if (state == 1) {
-					element = null;
+					element = EMPTY;
 					state = -1;
 				} else {
 					throw new IllegalStateException();
@@ -163,6 +188,36 @@ public abstract class SingleElementCollection<E> implements Collection<E> {
 		};
 	}
 
+	/**
+	 * The returned spliterator is bound to the element contained when it is
+	 * created and reports {@link Spliterator#SIZED} and
+	 * {@link Spliterator#SUBSIZED}.
+	 */
+	@Override
+	public Spliterator<E> spliterator() {
+		return new SingleElementSpliterator<E>(element, 0);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public void forEach(Consumer<? super E> action) {
+		if (action == null)
+			throw new NullPointerException();
+		if (!isEmpty())
+			action.accept((E) element);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public boolean removeIf(Predicate<? super E> filter) {
+		if (filter == null)
+			throw new NullPointerException();
+		if (isEmpty() || !filter.test((E) element))
+			return false;
+		element = EMPTY;
+		return true;
+	}
+
 	@Override
 	public Object[] toArray() {
 		if (isEmpty())
@@ -197,8 +252,8 @@ public abstract class SingleElementCollection<E> implements Collection<E> {
 	public boolean remove(Object o) {
 		if (isEmpty())
 			return false;
-		if (element.equals(o)) {
-			element = null;
+		if (eq(element, o)) {
+			element = EMPTY;
 			return true;
 		}
 		return false;
@@ -206,74 +261,116 @@ public abstract class SingleElementCollection<E> implements Collection<E> {
 
 	@Override
 	public boolean containsAll(Collection<?> c) {
+		// read the content once: a concurrent collection may be emptied
+		// between two reads
+		Object content = contentOf(c);
+		if (content == EMPTY)
+			return true;
+		if (content != FOREIGN)
+			return !isEmpty() && eq(element, content);
 		if (c.isEmpty())
 			return true;
 		if (isEmpty())
 			return false;
-		if (c.size() == 1)
-			return element.equals(c.toArray()[0]);
-		return false;
+		if (c instanceof Set)
+			return c.size() == 1 && c.contains(element);
+		if (c instanceof List && c instanceof RandomAccess) {
+			List<?> list = (List<?>) c;
+			for (int i = 0, n = list.size(); i < n; i++) {
+				if (!eq(element, list.get(i)))
+					return false;
+			}
+			return true;
+		}
+		for (Object o : c) {
+			if (!eq(element, o))
+				return false;
+		}
+		return true;
 	}
 
+	@SuppressWarnings("unchecked")
 	@Override
 	public boolean addAll(Collection<? extends E> c) {
+		Object content = contentOf(c);
+		if (content == EMPTY)
+			return false;
+		if (content != FOREIGN)
+			return add((E) content);
+		if (c.isEmpty())
+			return false;
 		boolean changed = false;
-		Iterator<? extends E> it = c.iterator();
-		while (it.hasNext()) {
-			changed = add(it.next()) || changed;
+		if (c instanceof List && c instanceof RandomAccess) {
+			List<? extends E> list = (List<? extends E>) c;
+			for (int i = 0, n = list.size(); i < n; i++) {
+				changed = add(list.get(i)) || changed;
+			}
+			return changed;
+		}
+		for (E e : c) {
+			changed = add(e) || changed;
 		}
 		return changed;
 	}
 
 	@Override
 	public boolean removeAll(Collection<?> c) {
-		Iterator<?> it = c.iterator();
-		while (it.hasNext()) {
-			if (contains(it.next())) {
-				element = null;
-				return true;
-			}
-		}
-		return false;
+		Objects.requireNonNull(c);
+		if (isEmpty() || c.isEmpty() || !c.contains(element))
+			return false;
+		element = EMPTY;
+		return true;
 	}
 
 	@Override
 	public boolean retainAll(Collection<?> c) {
-		if (isEmpty() || c.contains(getElement()))
+		Objects.requireNonNull(c);
+		if (isEmpty() || c.contains(element))
 			return false;
-		element = null;
+		element = EMPTY;
 		return true;
 	}
 
+	/**
+	 * Read the content of a collection of this library holding at most one
+	 * element without going through its iterator, so that bulk operations
+	 * between such collections neither iterate nor allocate.
+	 * 
+	 * @param c
+	 *            - the collection to read
+	 * @return the element of {@code c}, {@link #EMPTY} if {@code c} is an empty
+	 *         single element collection, or {@link #FOREIGN} if {@code c} is
+	 *         not a single element collection
+	 */
+	static Object contentOf(Collection<?> c) {
+		if (c instanceof SingleElementCollection)
+			return ((SingleElementCollection<?>) c).element;
+		if (c instanceof ImmutableSingleElementCollection)
+			return ((ImmutableSingleElementCollection<?>) c).element;
+		if (c instanceof ConcurrentSingleElementCollection)
+			return ((ConcurrentSingleElementCollection<?>) c).element;
+		return FOREIGN;
+	}
+
 	@Override
 	public void clear() {
-		element = null;
+		element = EMPTY;
 
 	}
 
+	/**
+	 * Compute the hash code required by the interface implemented by the
+	 * subclass, {@code List} or {@code Set}, so that the collection can be
+	 * mixed with other implementations in hash based structures.
+	 */
 	@Override
-	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + ((element == null) ? 0 : element.hashCode());
-		return result;
-	}
+	public abstract int hashCode();
 
+	/**
+	 * Compare the collection with any other collection implementing the same
+	 * interface, {@code List} or {@code Set}, as that interface requires.
+	 */
 	@Override
-	public boolean equals(Object obj) {
-		if (this == obj)
-			return true;
-		if (obj == null)
-			return false;
-		if (getClass() != obj.getClass())
-			return false;
-		SingleElementCollection<?> other = (SingleElementCollection<?>) obj;
-		if (element == null) {
-			if (other.element != null)
-				return false;
-		} else if (!element.equals(other.element))
-			return false;
-		return true;
-	}
+	public abstract boolean equals(Object obj);
 
 }
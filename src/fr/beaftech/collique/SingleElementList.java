@@ -18,9 +18,14 @@ package fr.beaftech.collique;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.function.UnaryOperator;
 
 /**
  * Single element implementation of {@code List}. Permits all elements,
@@ -39,7 +44,9 @@ import java.util.NoSuchElementException;
  * @since 1.0
  */
 public class SingleElementList<E> extends SingleElementCollection<E> implements
-		List<E> {
+		List<E>, RandomAccess {
+
+	private static final long serialVersionUID = 1L;
 
 	public SingleElementList() {
 		super();
@@ -101,12 +108,34 @@ public class SingleElementList<E> extends SingleElementCollection<E> implements
 	public E remove(int index) {
 		if (index == 0 && !isEmpty()) {
 			E deleted = getElement();
-			element = null;
+			element = EMPTY;
 			return deleted;
 		}
 		throw new IndexOutOfBoundsException();
 	}
 
+	@SuppressWarnings("unchecked")
+	@Override
+	public void replaceAll(UnaryOperator<E> operator) {
+		if (operator == null)
+			throw new NullPointerException();
+		if (!isEmpty())
+			element = operator.apply((E) element);
+	}
+
+	/**
+	 * A list of at most one element is always sorted: this method does
+	 * nothing.
+	 */
+	@Override
+	public void sort(Comparator<? super E> c) {
+	}
+
+	@Override
+	public Spliterator<E> spliterator() {
+		return new SingleElementSpliterator<E>(element, Spliterator.ORDERED);
+	}
+
 	@Override
 	public int indexOf(Object o) {
 		if (contains(o))
@@ -139,6 +168,36 @@ public class SingleElementList<E> extends SingleElementCollection<E> implements
 		return new SingleElementList<E>(getElement());
 	}
 
+	/**
+	 * Compute the hash code defined by {@link List#hashCode()}.
+	 */
+	@Override
+	public int hashCode() {
+		return isEmpty() ? 1 : 31 + (element == null ? 0 : element.hashCode());
+	}
+
+	/**
+	 * Compare the list with any {@code List} as defined by
+	 * {@link List#equals(Object)}. Comparing two single element lists only
+	 * compares their elements.
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj instanceof SingleElementList) {
+			SingleElementList<?> other = (SingleElementList<?>) obj;
+			return isEmpty() ? other.isEmpty() : !other.isEmpty()
+					&& eq(element, other.element);
+		}
+		if (!(obj instanceof List))
+			return false;
+		Iterator<?> it = ((List<?>) obj).iterator();
+		if (!isEmpty() && (!it.hasNext() || !eq(element, it.next())))
+			return false;
+		return !it.hasNext();
+	}
+
 	private class SingleElementListIterator implements ListIterator<E> {
 
 		/**
@@ -209,7 +268,7 @@ public class SingleElementList<E> extends SingleElementCollection<E> implements
 		@Override
 		public void remove() {
 			if (hasCurrent) {
-				element = null;
+				element = EMPTY;
 				hasCurrent = false;
 				pt = -1;
 			} else {
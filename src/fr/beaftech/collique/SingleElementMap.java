@@ -16,10 +16,20 @@ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
  */
 package fr.beaftech.collique;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 /**
  * Single key/value pair implementation of {@code Map}. This implementation
@@ -37,11 +47,29 @@ import java.util.Set;
  * @param <V>
  *            the value type
  */
-public class SingleElementMap<K, V> implements Map<K, V> {
+public class SingleElementMap<K, V> implements Map<K, V>, Serializable {
 
-	private Entry<K, V> entry;
+	private static final long serialVersionUID = 1L;
 
-	public static class DefaultEntry<K, V> implements Entry<K, V> {
+	/**
+	 * Marker stored in {@link #key} when the map is empty, so that the
+	 * {@code null} key stays usable.
+	 */
+	private static final Object EMPTY = new Object();
+
+	private transient Object key;
+	private transient V value;
+
+	/**
+	 * Collection views of the map, created on the first call to
+	 * {@link #keySet()}, {@link #values()} or {@link #entrySet()}.
+	 */
+	private transient Views views;
+
+	public static class DefaultEntry<K, V> implements Entry<K, V>,
+			Serializable {
+
+		private static final long serialVersionUID = 1L;
 
 		private K key;
 		private V value;
@@ -73,57 +101,164 @@ public class SingleElementMap<K, V> implements Map<K, V> {
 			return previous;
 		}
 
+		/**
+		 * Compute the hash code defined by {@link Map.Entry#hashCode()}.
+		 */
 		@Override
 		public int hashCode() {
-			final int prime = 31;
-			int result = 1;
-			result = prime * result + ((key == null) ? 0 : key.hashCode());
-			result = prime * result + ((value == null) ? 0 : value.hashCode());
-			return result;
+			return (key == null ? 0 : key.hashCode())
+					^ (value == null ? 0 : value.hashCode());
 		}
 
+		/**
+		 * Compare the entry with any {@code Map.Entry} as defined by
+		 * {@link Map.Entry#equals(Object)}.
+		 */
 		@Override
 		public boolean equals(Object obj) {
 			if (this == obj)
 				return true;
-			if (obj == null)
-				return false;
-			if (getClass() != obj.getClass())
-				return false;
-			DefaultEntry<?, ?> other = (DefaultEntry<?, ?>) obj;
-			if (key == null) {
-				if (other.key != null)
-					return false;
-			} else if (!key.equals(other.key))
-				return false;
-			if (value == null) {
-				if (other.value != null)
-					return false;
-			} else if (!value.equals(other.value))
+			if (!(obj instanceof Entry))
 				return false;
-			return true;
+			Entry<?, ?> other = (Entry<?, ?>) obj;
+			return SingleElementCollection.eq(key, other.getKey())
+					&& SingleElementCollection.eq(value, other.getValue());
 		}
 
 	}
 
 	public SingleElementMap() {
-		entry = null;
+		key = EMPTY;
+		value = null;
 	}
 
 	public SingleElementMap(K key, V value) {
-		entry = new DefaultEntry<K, V>(key, value);
+		this.key = key;
+		this.value = value;
+	}
+
+	/**
+	 * Save the state of the map to a stream.
+	 * 
+	 * @serialData a tag byte ({@code boolean}) telling if the map holds a
+	 *             mapping, followed by the key and the value when present
+	 */
+	private void writeObject(ObjectOutputStream s) throws IOException {
+		s.defaultWriteObject();
+		s.writeBoolean(!isEmpty());
+		if (!isEmpty()) {
+			s.writeObject(key);
+			s.writeObject(value);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream s) throws IOException,
+			ClassNotFoundException {
+		s.defaultReadObject();
+		if (s.readBoolean()) {
+			key = s.readObject();
+			value = (V) s.readObject();
+		} else {
+			removeEntry();
+		}
 	}
 
-	private K getKey() {
-		return isEmpty() ? null : entry.getKey();
+	@SuppressWarnings("unchecked")
+	K getKey() {
+		return isEmpty() ? null : (K) key;
 	}
 
-	private V getValue() {
-		return isEmpty() ? null : entry.getValue();
+	V getValue() {
+		return isEmpty() ? null : value;
 	}
 
 	private V setValue(V value) {
-		return entry.setValue(value);
+		V previous = this.value;
+		this.value = value;
+		return previous;
+	}
+
+	/**
+	 * Empty the map, releasing the references to the key and the value.
+	 */
+	void removeEntry() {
+		key = EMPTY;
+		value = null;
+	}
+
+	/**
+	 * Entry returned by the entry set iterator. It remembers the key it was
+	 * created for: while the map holds that key, reads and writes go through
+	 * to the map, and once the key is removed the entry keeps the last pair
+	 * it saw, as the entries of {@code HashMap} do.
+	 */
+	private final class EntryView implements Entry<K, V> {
+
+		private final K key;
+
+		private V value;
+
+		EntryView(K key, V value) {
+			this.key = key;
+			this.value = value;
+		}
+
+		@Override
+		public K getKey() {
+			return key;
+		}
+
+		@Override
+		public V getValue() {
+			if (containsKey(key))
+				value = SingleElementMap.this.getValue();
+			return value;
+		}
+
+		@Override
+		public V setValue(V value) {
+			V previous = getValue();
+			this.value = value;
+			if (containsKey(key))
+				SingleElementMap.this.setValue(value);
+			return previous;
+		}
+
+		@Override
+		public int hashCode() {
+			V value = getValue();
+			return (key == null ? 0 : key.hashCode())
+					^ (value == null ? 0 : value.hashCode());
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof Entry))
+				return false;
+			Entry<?, ?> other = (Entry<?, ?>) obj;
+			return SingleElementCollection.eq(key, other.getKey())
+					&& SingleElementCollection.eq(getValue(), other.getValue());
+		}
+
+		@Override
+		public String toString() {
+			return key + "=" + getValue();
+		}
+
+	}
+
+	/**
+	 * Compute the hash code of the stored pair as defined by
+	 * {@link Map.Entry#hashCode()}.
+	 * 
+	 * @return the hash code of the stored pair
+	 */
+	private int entryHashCode() {
+		return (getKey() == null ? 0 : key.hashCode())
+				^ (value == null ? 0 : value.hashCode());
 	}
 
 	@Override
@@ -133,17 +268,17 @@ public class SingleElementMap<K, V> implements Map<K, V> {
 
 	@Override
 	public boolean isEmpty() {
-		return entry == null;
+		return key == EMPTY;
 	}
 
 	@Override
 	public boolean containsKey(Object key) {
-		return isEmpty() ? false : getKey().equals(key);
+		return isEmpty() ? false : SingleElementCollection.eq(this.key, key);
 	}
 
 	@Override
 	public boolean containsValue(Object value) {
-		return isEmpty() ? false : getValue().equals(value);
+		return isEmpty() ? false : SingleElementCollection.eq(this.value, value);
 	}
 
 	@Override
@@ -156,7 +291,9 @@ public class SingleElementMap<K, V> implements Map<K, V> {
 	@Override
 	public V put(K key, V value) {
 		if (isEmpty()) {
-			entry = new DefaultEntry<K, V>(key, value);
+			checkNewKey(key);
+			this.key = key;
+			this.value = value;
 			return null;
 		}
 
@@ -172,12 +309,153 @@ public class SingleElementMap<K, V> implements Map<K, V> {
 	public V remove(Object key) {
 		if (containsKey(key)) {
 			V removed = getValue();
-			entry = null;
+			removeEntry();
 			return removed;
 		}
 		return null;
 	}
 
+	@Override
+	public V getOrDefault(Object key, V defaultValue) {
+		return containsKey(key) ? value : defaultValue;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public void forEach(BiConsumer<? super K, ? super V> action) {
+		if (action == null)
+			throw new NullPointerException();
+		if (!isEmpty())
+			action.accept((K) key, value);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+		if (function == null)
+			throw new NullPointerException();
+		if (!isEmpty())
+			value = function.apply((K) key, value);
+	}
+
+	@Override
+	public V putIfAbsent(K key, V value) {
+		if (containsKey(key) && this.value != null)
+			return this.value;
+		return put(key, value);
+	}
+
+	@Override
+	public boolean remove(Object key, Object value) {
+		if (containsKey(key) && SingleElementCollection.eq(this.value, value)) {
+			removeEntry();
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public boolean replace(K key, V oldValue, V newValue) {
+		if (containsKey(key) && SingleElementCollection.eq(value, oldValue)) {
+			value = newValue;
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public V replace(K key, V value) {
+		return containsKey(key) ? setValue(value) : null;
+	}
+
+	/**
+	 * Throws an {@code UnsupportedOperationException} if the function returns
+	 * a non-{@code null} value for a key different from the one of a non-empty
+	 * map.
+	 */
+	@Override
+	public V computeIfAbsent(K key,
+			Function<? super K, ? extends V> mappingFunction) {
+		if (mappingFunction == null)
+			throw new NullPointerException();
+		boolean present = containsKey(key);
+		if (present && value != null)
+			return value;
+		V newValue = mappingFunction.apply(key);
+		if (newValue != null)
+			store(key, newValue, present);
+		return newValue;
+	}
+
+	@Override
+	public V computeIfPresent(K key,
+			BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+		if (remappingFunction == null)
+			throw new NullPointerException();
+		if (!containsKey(key) || value == null)
+			return null;
+		V newValue = remappingFunction.apply(key, value);
+		if (newValue == null)
+			removeEntry();
+		else
+			value = newValue;
+		return newValue;
+	}
+
+	/**
+	 * Throws an {@code UnsupportedOperationException} if the function returns
+	 * a non-{@code null} value for a key different from the one of a non-empty
+	 * map.
+	 */
+	@Override
+	public V compute(K key,
+			BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+		if (remappingFunction == null)
+			throw new NullPointerException();
+		boolean present = containsKey(key);
+		V newValue = remappingFunction.apply(key, present ? value : null);
+		if (newValue != null)
+			store(key, newValue, present);
+		else if (present)
+			removeEntry();
+		return newValue;
+	}
+
+	/**
+	 * Throws an {@code UnsupportedOperationException} if the key is different
+	 * from the one of a non-empty map.
+	 */
+	@Override
+	public V merge(K key, V value,
+			BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+		if (value == null || remappingFunction == null)
+			throw new NullPointerException();
+		boolean present = containsKey(key);
+		V newValue = present && this.value != null ? remappingFunction.apply(
+				this.value, value) : value;
+		if (newValue != null)
+			store(key, newValue, present);
+		else
+			removeEntry();
+		return newValue;
+	}
+
+	/**
+	 * Store a computed value, the map being known to contain the given key or
+	 * not. The stored key instance is kept when the key is present, as
+	 * {@code HashMap} and {@code TreeMap} do.
+	 */
+	private void store(K key, V value, boolean present) {
+		if (!present) {
+			if (!isEmpty())
+				throw new UnsupportedOperationException(
+						"Cannot add more than one element");
+			checkNewKey(key);
+			this.key = key;
+		}
+		this.value = value;
+	}
+
 	@Override
 	public void putAll(Map<? extends K, ? extends V> m) {
 		for (Map.Entry<? extends K, ? extends V> e : m.entrySet()) {
@@ -188,54 +466,280 @@ public class SingleElementMap<K, V> implements Map<K, V> {
 
 	@Override
 	public void clear() {
-		entry = null;
+		removeEntry();
 
 	}
 
 	@Override
 	public Set<K> keySet() {
-		if (isEmpty())
-			return Collections.emptySet();
-		return new SingleElementSet<K>(getKey());
+		Views v = views();
+		Set<K> keySet = v.keySet;
+		if (keySet == null)
+			v.keySet = keySet = newKeySet();
+		return keySet;
 	}
 
 	@Override
 	public Collection<V> values() {
-		if (isEmpty())
-			return Collections.emptyList();
-		return new SingleElementList<V>(getValue());
+		Views v = views();
+		Collection<V> values = v.values;
+		if (values == null)
+			v.values = values = new Values();
+		return values;
 	}
 
 	@Override
 	public Set<java.util.Map.Entry<K, V>> entrySet() {
-		if (isEmpty())
-			return Collections.emptySet();
-		return new SingleElementSet<Map.Entry<K, V>>(entry);
+		Views v = views();
+		Set<Map.Entry<K, V>> entrySet = v.entrySet;
+		if (entrySet == null)
+			v.entrySet = entrySet = new EntrySet();
+		return entrySet;
+	}
+
+	/**
+	 * Check that a key can be stored in the empty map. Accepts any key by
+	 * default.
+	 * 
+	 * @param key
+	 *            - the key about to be stored
+	 */
+	void checkNewKey(K key) {
+	}
+
+	/**
+	 * Create the key set view returned by {@link #keySet()}.
+	 */
+	Set<K> newKeySet() {
+		return new KeySet();
+	}
+
+	private Views views() {
+		Views v = views;
+		if (v == null)
+			views = v = new Views();
+		return v;
+	}
+
+	/**
+	 * Holder of the collection views, so that caching them costs the map a
+	 * single reference.
+	 */
+	private final class Views {
+
+		Set<K> keySet;
+
+		Collection<V> values;
+
+		Set<Map.Entry<K, V>> entrySet;
+
+	}
+
+	/**
+	 * Iterator over the pair of the map, if any. Each view only tells which
+	 * part of the pair is returned.
+	 */
+	private abstract class PairIterator<T> implements Iterator<T> {
+
+		private boolean hasNext = !isEmpty();
+
+		private boolean removable;
+
+		abstract T result();
+
+		@Override
+		public boolean hasNext() {
+			return hasNext;
+		}
+
+		@Override
+		public T next() {
+			if (!hasNext)
+				throw new NoSuchElementException();
+			hasNext = false;
+			removable = true;
+			return result();
+		}
+
+		@Override
+		public void remove() {
+			if (!removable)
+				throw new IllegalStateException();
+			removable = false;
+			removeEntry();
+		}
+
+	}
+
+	private final class KeySet extends AbstractSet<K> {
+
+		@Override
+		public Iterator<K> iterator() {
+			return new PairIterator<K>() {
+
+				@Override
+				K result() {
+					return getKey();
+				}
+
+			};
+		}
+
+		@Override
+		public int size() {
+			return SingleElementMap.this.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return SingleElementMap.this.isEmpty();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return containsKey(o);
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			if (!containsKey(o))
+				return false;
+			removeEntry();
+			return true;
+		}
+
+		@Override
+		public void clear() {
+			removeEntry();
+		}
+
 	}
 
+	private final class Values extends AbstractCollection<V> {
+
+		@Override
+		public Iterator<V> iterator() {
+			return new PairIterator<V>() {
+
+				@Override
+				V result() {
+					return getValue();
+				}
+
+			};
+		}
+
+		@Override
+		public int size() {
+			return SingleElementMap.this.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return SingleElementMap.this.isEmpty();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return containsValue(o);
+		}
+
+		@Override
+		public void clear() {
+			removeEntry();
+		}
+
+	}
+
+	private final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+
+		@Override
+		public Iterator<Map.Entry<K, V>> iterator() {
+			return new PairIterator<Map.Entry<K, V>>() {
+
+				@Override
+				Map.Entry<K, V> result() {
+					return new EntryView(getKey(), getValue());
+				}
+
+			};
+		}
+
+		@Override
+		public int size() {
+			return SingleElementMap.this.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return SingleElementMap.this.isEmpty();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof Map.Entry))
+				return false;
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			return containsKey(e.getKey())
+					&& SingleElementCollection.eq(value, e.getValue());
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			if (!contains(o))
+				return false;
+			removeEntry();
+			return true;
+		}
+
+		@Override
+		public void clear() {
+			removeEntry();
+		}
+
+	}
+
+	/**
+	 * Compute the hash code defined by {@link Map#hashCode()}.
+	 */
 	@Override
 	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + ((entry == null) ? 0 : entry.hashCode());
-		return result;
+		return isEmpty() ? 0 : entryHashCode();
 	}
 
+	/**
+	 * Compare the map with any {@code Map} as defined by
+	 * {@link Map#equals(Object)}. Comparing two single element maps only
+	 * compares their pairs.
+	 */
 	@Override
 	public boolean equals(Object obj) {
 		if (this == obj)
 			return true;
-		if (obj == null)
+		if (obj instanceof SingleElementMap) {
+			SingleElementMap<?, ?> other = (SingleElementMap<?, ?>) obj;
+			if (isEmpty())
+				return other.isEmpty();
+			return !other.isEmpty()
+					&& SingleElementCollection.eq(key, other.key)
+					&& SingleElementCollection.eq(value, other.value);
+		}
+		if (!(obj instanceof Map))
 			return false;
-		if (getClass() != obj.getClass())
+		Map<?, ?> other = (Map<?, ?>) obj;
+		if (other.size() != size())
 			return false;
-		SingleElementMap<?, ?> other = (SingleElementMap<?, ?>) obj;
-		if (entry == null) {
-			if (other.entry != null)
-				return false;
-		} else if (!entry.equals(other.entry))
+		if (isEmpty())
+			return true;
+		try {
+			Object otherValue = other.get(key);
+			return value == null ? otherValue == null && other.containsKey(key)
+					: value.equals(otherValue);
+		} catch (ClassCastException e) {
+			return false;
+		} catch (NullPointerException e) {
 			return false;
-		return true;
+		}
 	}
 
 }
@@ -0,0 +1,391 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Columnar table of single entry maps. Instead of one
+ * {@link SingleElementMap} object per record, the keys and the values of all
+ * the records are stored in two parallel arrays, so a record costs two array
+ * slots and no object header. Scans such as {@link #indexOf(Object)} walk the
+ * arrays sequentially.
+ * <p>
+ * Each row holds at most one mapping. {@link #map(int)} hands out a
+ * {@code Map} view of a row, created on demand and reading and writing
+ * through to the table. Rows are never moved, so the views stay valid while
+ * the table grows.
+ * 
+ * @param <K>
+ *            the key type
+ * @param <V>
+ *            the value type
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class SingleElementMapTable<K, V> implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	/**
+	 * The keys, {@link SingleElementCollection#EMPTY} for the empty rows.
+	 */
+	private transient Object[] keys;
+
+	private transient Object[] values;
+
+	private transient int size;
+
+	public SingleElementMapTable() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param initialCapacity
+	 *            - the number of rows the table can hold before growing
+	 * @throws IllegalArgumentException
+	 *             if the capacity is negative
+	 */
+	public SingleElementMapTable(int initialCapacity) {
+		if (initialCapacity < 0)
+			throw new IllegalArgumentException("Illegal capacity: "
+					+ initialCapacity);
+		keys = new Object[initialCapacity];
+		values = new Object[initialCapacity];
+	}
+
+	/**
+	 * Save the state of the table to a stream.
+	 * 
+	 * @serialData the number of rows ({@code int}), then for each row a tag
+	 *             byte ({@code boolean}) telling if the row holds a mapping,
+	 *             followed by the key and the value when present
+	 */
+	private void writeObject(ObjectOutputStream s) throws IOException {
+		s.defaultWriteObject();
+		s.writeInt(size);
+		for (int row = 0; row < size; row++) {
+			s.writeBoolean(!isEmpty(row));
+			if (!isEmpty(row)) {
+				s.writeObject(keys[row]);
+				s.writeObject(values[row]);
+			}
+		}
+	}
+
+	private void readObject(ObjectInputStream s) throws IOException,
+			ClassNotFoundException {
+		s.defaultReadObject();
+		size = s.readInt();
+		if (size < 0)
+			throw new InvalidObjectException("Negative size: " + size);
+		keys = new Object[size];
+		values = new Object[size];
+		for (int row = 0; row < size; row++) {
+			if (s.readBoolean()) {
+				keys[row] = s.readObject();
+				values[row] = s.readObject();
+			} else {
+				keys[row] = SingleElementCollection.EMPTY;
+			}
+		}
+	}
+
+	/**
+	 * @return the number of rows of the table
+	 */
+	public int size() {
+		return size;
+	}
+
+	private int newRow() {
+		if (size == keys.length) {
+			int capacity = Math.max(DEFAULT_CAPACITY, size + (size >> 1));
+			keys = Arrays.copyOf(keys, capacity);
+			values = Arrays.copyOf(values, capacity);
+		}
+		return size++;
+	}
+
+	/**
+	 * Append a row holding the given mapping.
+	 * 
+	 * @param key
+	 *            - the key, may be {@code null}
+	 * @param value
+	 *            - the value, may be {@code null}
+	 * @return the index of the new row
+	 */
+	public int add(K key, V value) {
+		int row = newRow();
+		keys[row] = key;
+		values[row] = value;
+		return row;
+	}
+
+	/**
+	 * Append an empty row.
+	 * 
+	 * @return the index of the new row
+	 */
+	public int addEmpty() {
+		int row = newRow();
+		keys[row] = SingleElementCollection.EMPTY;
+		return row;
+	}
+
+	/**
+	 * Append a row holding the mapping of the given map.
+	 * 
+	 * @param map
+	 *            - a map holding at most one mapping
+	 * @return the index of the new row
+	 * @throws IllegalArgumentException
+	 *             if the map holds more than one mapping
+	 */
+	public int add(Map<? extends K, ? extends V> map) {
+		if (map.size() > 1)
+			throw new IllegalArgumentException(
+					"Cannot add more than one element");
+		if (map.isEmpty())
+			return addEmpty();
+		Map.Entry<? extends K, ? extends V> entry = map.entrySet().iterator()
+				.next();
+		return add(entry.getKey(), entry.getValue());
+	}
+
+	private void checkRow(int row) {
+		if (row < 0 || row >= size)
+			throw new IndexOutOfBoundsException("Row: " + row + ", Size: "
+					+ size);
+	}
+
+	/**
+	 * @param row
+	 *            - the index of a row
+	 * @return {@code true} if the row holds no mapping
+	 * @throws IndexOutOfBoundsException
+	 *             if the row does not exist
+	 */
+	public boolean isEmpty(int row) {
+		checkRow(row);
+		return keys[row] == SingleElementCollection.EMPTY;
+	}
+
+	/**
+	 * @param row
+	 *            - the index of a row
+	 * @return the key of the row, or {@code null} if the row is empty
+	 * @throws IndexOutOfBoundsException
+	 *             if the row does not exist
+	 */
+	@SuppressWarnings("unchecked")
+	public K getKey(int row) {
+		return isEmpty(row) ? null : (K) keys[row];
+	}
+
+	/**
+	 * @param row
+	 *            - the index of a row
+	 * @return the value of the row, or {@code null} if the row is empty
+	 * @throws IndexOutOfBoundsException
+	 *             if the row does not exist
+	 */
+	@SuppressWarnings("unchecked")
+	public V getValue(int row) {
+		checkRow(row);
+		return (V) values[row];
+	}
+
+	/**
+	 * Replace the mapping of a row, whatever its current key.
+	 * 
+	 * @param row
+	 *            - the index of a row
+	 * @param key
+	 *            - the new key, may be {@code null}
+	 * @param value
+	 *            - the new value, may be {@code null}
+	 * @throws IndexOutOfBoundsException
+	 *             if the row does not exist
+	 */
+	public void set(int row, K key, V value) {
+		checkRow(row);
+		keys[row] = key;
+		values[row] = value;
+	}
+
+	/**
+	 * Remove the mapping of a row, which stays in the table as an empty row.
+	 * 
+	 * @param row
+	 *            - the index of a row
+	 * @throws IndexOutOfBoundsException
+	 *             if the row does not exist
+	 */
+	public void clear(int row) {
+		checkRow(row);
+		keys[row] = SingleElementCollection.EMPTY;
+		values[row] = null;
+	}
+
+	/**
+	 * Find the first row mapping the given key.
+	 * 
+	 * @param key
+	 *            - the key to look for, may be {@code null}
+	 * @return the index of the first row mapping the key, or -1 if none
+	 */
+	public int indexOf(Object key) {
+		return indexOf(key, 0);
+	}
+
+	/**
+	 * Find the first row mapping the given key, starting from a given row.
+	 * 
+	 * @param key
+	 *            - the key to look for, may be {@code null}
+	 * @param fromRow
+	 *            - the index of the first row to look at
+	 * @return the index of the first row from {@code fromRow} mapping the
+	 *         key, or -1 if none
+	 */
+	public int indexOf(Object key, int fromRow) {
+		Object[] keys = this.keys;
+		if (key == null) {
+			for (int row = Math.max(fromRow, 0); row < size; row++)
+				if (keys[row] == null)
+					return row;
+		} else {
+			for (int row = Math.max(fromRow, 0); row < size; row++)
+				if (key.equals(keys[row]))
+					return row;
+		}
+		return -1;
+	}
+
+	/**
+	 * Get a read-only list view of the values of all the rows, in row order,
+	 * {@code null} standing for the empty rows. The list reads the value
+	 * column directly and follows the changes of the table.
+	 * 
+	 * @return the values of the rows
+	 */
+	public List<V> values() {
+		return new ValueColumn();
+	}
+
+	/**
+	 * Get a {@code Map} view of a row. The view is created on demand and
+	 * reads and writes through to the table.
+	 * 
+	 * @param row
+	 *            - the index of a row
+	 * @return a map holding the mapping of the row, if any
+	 * @throws IndexOutOfBoundsException
+	 *             if the row does not exist
+	 */
+	public Map<K, V> map(int row) {
+		checkRow(row);
+		return new Row(row);
+	}
+
+	/**
+	 * Shrink the columns to the number of rows.
+	 */
+	public void trimToSize() {
+		if (size < keys.length) {
+			keys = Arrays.copyOf(keys, size);
+			values = Arrays.copyOf(values, size);
+		}
+	}
+
+	private class ValueColumn extends AbstractList<V> implements RandomAccess {
+
+		@Override
+		public V get(int index) {
+			return getValue(index);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+	}
+
+	private class Row extends MapTableRow<K, V> {
+
+		private final int row;
+
+		Row(int row) {
+			this.row = row;
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return keys[row] == SingleElementCollection.EMPTY;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		K key() {
+			return (K) keys[row];
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		V value() {
+			return (V) values[row];
+		}
+
+		@Override
+		boolean matches(Object key) {
+			return !isEmpty() && SingleElementCollection.eq(keys[row], key);
+		}
+
+		@Override
+		void setValue(V value) {
+			values[row] = value;
+		}
+
+		@Override
+		void store(K key, V value) {
+			keys[row] = key;
+			values[row] = value;
+		}
+
+		@Override
+		public void clear() {
+			SingleElementMapTable.this.clear(row);
+		}
+
+	}
+
+}
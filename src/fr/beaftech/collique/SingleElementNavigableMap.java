@@ -0,0 +1,518 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+
+/**
+ * Single key/value pair implementation of {@code NavigableMap}. Keys are
+ * compared with the comparator given at creation or, if none is given, with
+ * their natural ordering, which is also used instead of {@code equals} to find
+ * whether the map contains a key, as in {@code TreeMap}. The {@code null} key
+ * is only permitted by comparators accepting it.
+ * <p>
+ * As with {@link SingleElementMap}, adding a mapping for another key than the
+ * one of the map throws an {@code UnsupportedOperationException}. The entries
+ * returned by {@link #firstEntry()} and the other navigation methods are
+ * snapshots which do not support {@code setValue}. The views returned by
+ * {@link #subMap}, {@link #headMap}, {@link #tailMap},
+ * {@link #descendingMap()} and {@link #navigableKeySet()} are backed by the
+ * map and created in constant time.
+ * 
+ * @param <K>
+ *            the key type
+ * @param <V>
+ *            the value type
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class SingleElementNavigableMap<K, V> extends SingleElementMap<K, V>
+		implements NavigableMap<K, V> {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The comparator of the map, or {@code null} for the natural ordering.
+	 */
+	private final Comparator<? super K> comparator;
+
+	/**
+	 * Create an empty map sorted according to the natural ordering of its key.
+	 */
+	public SingleElementNavigableMap() {
+		this.comparator = null;
+	}
+
+	/**
+	 * Create an empty map sorted according to the given comparator.
+	 * 
+	 * @param comparator
+	 *            - the comparator, or {@code null} for the natural ordering
+	 */
+	public SingleElementNavigableMap(Comparator<? super K> comparator) {
+		this.comparator = comparator;
+	}
+
+	/**
+	 * Create a map sorted according to the natural ordering of its key.
+	 * 
+	 * @param key
+	 *            - the key of the map
+	 * @param value
+	 *            - the value of the map
+	 * @throws ClassCastException
+	 *             if the key is not {@code Comparable}
+	 * @throws NullPointerException
+	 *             if the key is {@code null}
+	 */
+	public SingleElementNavigableMap(K key, V value) {
+		this(key, value, null);
+	}
+
+	/**
+	 * Create a map sorted according to the given comparator.
+	 * 
+	 * @param key
+	 *            - the key of the map
+	 * @param value
+	 *            - the value of the map
+	 * @param comparator
+	 *            - the comparator, or {@code null} for the natural ordering
+	 * @throws ClassCastException
+	 *             if the key cannot be compared
+	 * @throws NullPointerException
+	 *             if the key is {@code null} and the comparator does not
+	 *             permit {@code null}
+	 */
+	public SingleElementNavigableMap(K key, V value,
+			Comparator<? super K> comparator) {
+		super(key, value);
+		this.comparator = comparator;
+		compare(key, key);
+	}
+
+	private int compare(Object k1, Object k2) {
+		return SortedRange.compare(comparator, k1, k2);
+	}
+
+	@Override
+	void checkNewKey(K key) {
+		compare(key, key);
+	}
+
+	@Override
+	Set<K> newKeySet() {
+		return new NavigableKeySet<K>(this);
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return !isEmpty() && compare(key, getKey()) == 0;
+	}
+
+	@Override
+	public Comparator<? super K> comparator() {
+		return comparator;
+	}
+
+	/**
+	 * Create a snapshot of the pair of the map.
+	 */
+	private Map.Entry<K, V> snapshot() {
+		return new AbstractMap.SimpleImmutableEntry<K, V>(getKey(), getValue());
+	}
+
+	@Override
+	public Map.Entry<K, V> firstEntry() {
+		return isEmpty() ? null : snapshot();
+	}
+
+	@Override
+	public Map.Entry<K, V> lastEntry() {
+		return firstEntry();
+	}
+
+	@Override
+	public K firstKey() {
+		if (isEmpty())
+			throw new NoSuchElementException();
+		return getKey();
+	}
+
+	@Override
+	public K lastKey() {
+		return firstKey();
+	}
+
+	@Override
+	public Map.Entry<K, V> pollFirstEntry() {
+		Map.Entry<K, V> e = firstEntry();
+		removeEntry();
+		return e;
+	}
+
+	@Override
+	public Map.Entry<K, V> pollLastEntry() {
+		return pollFirstEntry();
+	}
+
+	/**
+	 * Tell if the key of the map is the result of a lookup relative to the
+	 * given key.
+	 * 
+	 * @see SortedRange#accepts(int, boolean, boolean)
+	 */
+	boolean isRelative(Object key, boolean lower, boolean inclusive) {
+		return !isEmpty()
+				&& SortedRange.accepts(compare(key, getKey()), lower,
+						inclusive);
+	}
+
+	@Override
+	public Map.Entry<K, V> lowerEntry(K key) {
+		return isRelative(key, true, false) ? snapshot() : null;
+	}
+
+	@Override
+	public K lowerKey(K key) {
+		return isRelative(key, true, false) ? getKey() : null;
+	}
+
+	@Override
+	public Map.Entry<K, V> floorEntry(K key) {
+		return isRelative(key, true, true) ? snapshot() : null;
+	}
+
+	@Override
+	public K floorKey(K key) {
+		return isRelative(key, true, true) ? getKey() : null;
+	}
+
+	@Override
+	public Map.Entry<K, V> ceilingEntry(K key) {
+		return isRelative(key, false, true) ? snapshot() : null;
+	}
+
+	@Override
+	public K ceilingKey(K key) {
+		return isRelative(key, false, true) ? getKey() : null;
+	}
+
+	@Override
+	public Map.Entry<K, V> higherEntry(K key) {
+		return isRelative(key, false, false) ? snapshot() : null;
+	}
+
+	@Override
+	public K higherKey(K key) {
+		return isRelative(key, false, false) ? getKey() : null;
+	}
+
+	@Override
+	public NavigableSet<K> navigableKeySet() {
+		return (NavigableSet<K>) keySet();
+	}
+
+	@Override
+	public NavigableSet<K> descendingKeySet() {
+		return descendingMap().navigableKeySet();
+	}
+
+	@Override
+	public NavigableMap<K, V> descendingMap() {
+		return new SubMap(SortedRange.<K> all(comparator), true);
+	}
+
+	@Override
+	public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive,
+			K toKey, boolean toInclusive) {
+		return new SubMap(SortedRange.<K> all(comparator).sub(fromKey,
+				fromInclusive, toKey, toInclusive), false);
+	}
+
+	@Override
+	public NavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+		return new SubMap(SortedRange.<K> all(comparator).head(toKey,
+				inclusive), false);
+	}
+
+	@Override
+	public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+		return new SubMap(SortedRange.<K> all(comparator).tail(fromKey,
+				inclusive), false);
+	}
+
+	@Override
+	public SortedMap<K, V> subMap(K fromKey, K toKey) {
+		return subMap(fromKey, true, toKey, false);
+	}
+
+	@Override
+	public SortedMap<K, V> headMap(K toKey) {
+		return headMap(toKey, false);
+	}
+
+	@Override
+	public SortedMap<K, V> tailMap(K fromKey) {
+		return tailMap(fromKey, true);
+	}
+
+	/**
+	 * View of the map restricted to a range of keys, possibly in descending
+	 * order. The pair of the map belongs to the view as long as its key lies
+	 * in the range.
+	 */
+	private final class SubMap extends AbstractMap<K, V> implements
+			NavigableMap<K, V> {
+
+		private final SortedRange<K> range;
+
+		private final boolean descending;
+
+		SubMap(SortedRange<K> range, boolean descending) {
+			this.range = range;
+			this.descending = descending;
+		}
+
+		private boolean visible() {
+			return !SingleElementNavigableMap.this.isEmpty()
+					&& range.contains(getKey());
+		}
+
+		@Override
+		public int size() {
+			return visible() ? 1 : 0;
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return !visible();
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return range.contains(key)
+					&& SingleElementNavigableMap.this.containsKey(key);
+		}
+
+		@Override
+		public boolean containsValue(Object value) {
+			return visible()
+					&& SingleElementNavigableMap.this.containsValue(value);
+		}
+
+		@Override
+		public V get(Object key) {
+			return range.contains(key) ? SingleElementNavigableMap.this
+					.get(key) : null;
+		}
+
+		@Override
+		public V put(K key, V value) {
+			if (!range.contains(key))
+				throw new IllegalArgumentException("key out of range");
+			return SingleElementNavigableMap.this.put(key, value);
+		}
+
+		@Override
+		public V remove(Object key) {
+			return range.contains(key) ? SingleElementNavigableMap.this
+					.remove(key) : null;
+		}
+
+		@Override
+		public void clear() {
+			if (visible())
+				removeEntry();
+		}
+
+		@Override
+		public Set<Map.Entry<K, V>> entrySet() {
+			return new AbstractSet<Map.Entry<K, V>>() {
+
+				@Override
+				public Iterator<Map.Entry<K, V>> iterator() {
+					return visible() ? SingleElementNavigableMap.this
+							.entrySet().iterator() : Collections
+							.<Map.Entry<K, V>> emptyIterator();
+				}
+
+				@Override
+				public int size() {
+					return SubMap.this.size();
+				}
+
+			};
+		}
+
+		@Override
+		public Set<K> keySet() {
+			return navigableKeySet();
+		}
+
+		@Override
+		public Comparator<? super K> comparator() {
+			return descending ? Collections.reverseOrder(comparator)
+					: comparator;
+		}
+
+		@Override
+		public Map.Entry<K, V> firstEntry() {
+			return visible() ? snapshot() : null;
+		}
+
+		@Override
+		public Map.Entry<K, V> lastEntry() {
+			return firstEntry();
+		}
+
+		@Override
+		public K firstKey() {
+			if (!visible())
+				throw new NoSuchElementException();
+			return getKey();
+		}
+
+		@Override
+		public K lastKey() {
+			return firstKey();
+		}
+
+		@Override
+		public Map.Entry<K, V> pollFirstEntry() {
+			return visible() ? SingleElementNavigableMap.this
+					.pollFirstEntry() : null;
+		}
+
+		@Override
+		public Map.Entry<K, V> pollLastEntry() {
+			return pollFirstEntry();
+		}
+
+		private boolean isRelative(Object key, boolean lower,
+				boolean inclusive) {
+			return visible()
+					&& SingleElementNavigableMap.this.isRelative(key, lower
+							^ descending, inclusive);
+		}
+
+		@Override
+		public Map.Entry<K, V> lowerEntry(K key) {
+			return isRelative(key, true, false) ? snapshot() : null;
+		}
+
+		@Override
+		public K lowerKey(K key) {
+			return isRelative(key, true, false) ? getKey() : null;
+		}
+
+		@Override
+		public Map.Entry<K, V> floorEntry(K key) {
+			return isRelative(key, true, true) ? snapshot() : null;
+		}
+
+		@Override
+		public K floorKey(K key) {
+			return isRelative(key, true, true) ? getKey() : null;
+		}
+
+		@Override
+		public Map.Entry<K, V> ceilingEntry(K key) {
+			return isRelative(key, false, true) ? snapshot() : null;
+		}
+
+		@Override
+		public K ceilingKey(K key) {
+			return isRelative(key, false, true) ? getKey() : null;
+		}
+
+		@Override
+		public Map.Entry<K, V> higherEntry(K key) {
+			return isRelative(key, false, false) ? snapshot() : null;
+		}
+
+		@Override
+		public K higherKey(K key) {
+			return isRelative(key, false, false) ? getKey() : null;
+		}
+
+		@Override
+		public NavigableSet<K> navigableKeySet() {
+			return new NavigableKeySet<K>(this);
+		}
+
+		@Override
+		public NavigableSet<K> descendingKeySet() {
+			return descendingMap().navigableKeySet();
+		}
+
+		@Override
+		public NavigableMap<K, V> descendingMap() {
+			return new SubMap(range, !descending);
+		}
+
+		@Override
+		public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive,
+				K toKey, boolean toInclusive) {
+			if (descending)
+				return new SubMap(range.sub(toKey, toInclusive, fromKey,
+						fromInclusive), true);
+			return new SubMap(range.sub(fromKey, fromInclusive, toKey,
+					toInclusive), false);
+		}
+
+		@Override
+		public NavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+			return new SubMap(descending ? range.tail(toKey, inclusive)
+					: range.head(toKey, inclusive), descending);
+		}
+
+		@Override
+		public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+			return new SubMap(descending ? range.head(fromKey, inclusive)
+					: range.tail(fromKey, inclusive), descending);
+		}
+
+		@Override
+		public SortedMap<K, V> subMap(K fromKey, K toKey) {
+			return subMap(fromKey, true, toKey, false);
+		}
+
+		@Override
+		public SortedMap<K, V> headMap(K toKey) {
+			return headMap(toKey, false);
+		}
+
+		@Override
+		public SortedMap<K, V> tailMap(K fromKey) {
+			return tailMap(fromKey, true);
+		}
+
+	}
+
+}
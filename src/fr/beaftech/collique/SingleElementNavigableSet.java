@@ -0,0 +1,432 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+import java.util.Spliterator;
+
+/**
+ * Single element implementation of {@code NavigableSet}. Elements are compared
+ * with the comparator given at creation or, if none is given, with their
+ * natural ordering, which is also used instead of {@code equals} to find
+ * whether the set contains an element, as in {@code TreeSet}. The {@code null}
+ * element is only permitted by comparators accepting it.
+ * <p>
+ * As with {@link SingleElementSet}, adding an element different from the one
+ * contained in the set throws an {@code UnsupportedOperationException}. The
+ * views returned by {@link #subSet}, {@link #headSet}, {@link #tailSet} and
+ * {@link #descendingSet()} are backed by the set and created in constant
+ * time.
+ * 
+ * @param <E>
+ *            the type of the element to store
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class SingleElementNavigableSet<E> extends SingleElementSet<E> implements
+		NavigableSet<E> {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The comparator of the set, or {@code null} for the natural ordering.
+	 */
+	private final Comparator<? super E> comparator;
+
+	/**
+	 * Create an empty set sorted according to the natural ordering of its
+	 * element.
+	 */
+	public SingleElementNavigableSet() {
+		this.comparator = null;
+	}
+
+	/**
+	 * Create an empty set sorted according to the given comparator.
+	 * 
+	 * @param comparator
+	 *            - the comparator, or {@code null} for the natural ordering
+	 */
+	public SingleElementNavigableSet(Comparator<? super E> comparator) {
+		this.comparator = comparator;
+	}
+
+	/**
+	 * Create a set sorted according to the natural ordering of its element.
+	 * 
+	 * @param element
+	 *            - the element of the set
+	 * @throws ClassCastException
+	 *             if the element is not {@code Comparable}
+	 * @throws NullPointerException
+	 *             if the element is {@code null}
+	 */
+	public SingleElementNavigableSet(E element) {
+		this(element, null);
+	}
+
+	/**
+	 * Create a set sorted according to the given comparator.
+	 * 
+	 * @param element
+	 *            - the element of the set
+	 * @param comparator
+	 *            - the comparator, or {@code null} for the natural ordering
+	 * @throws ClassCastException
+	 *             if the element cannot be compared
+	 * @throws NullPointerException
+	 *             if the element is {@code null} and the comparator does not
+	 *             permit {@code null}
+	 */
+	public SingleElementNavigableSet(E element,
+			Comparator<? super E> comparator) {
+		super(element);
+		this.comparator = comparator;
+		compare(element, element);
+	}
+
+	private int compare(Object o1, Object o2) {
+		return SortedRange.compare(comparator, o1, o2);
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return !isEmpty() && compare(o, element) == 0;
+	}
+
+	@Override
+	public boolean add(E e) {
+		if (isEmpty()) {
+			compare(e, e);
+			setElement(e);
+			return true;
+		}
+		if (compare(e, element) == 0)
+			return false;
+		throw new UnsupportedOperationException(
+				"Cannot add more than one element to the set");
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		if (!contains(o))
+			return false;
+		element = EMPTY;
+		return true;
+	}
+
+	/**
+	 * Elements are compared with the ordering of the set, so this method does
+	 * not take the fast paths of {@link SingleElementCollection}.
+	 */
+	@Override
+	public boolean containsAll(Collection<?> c) {
+		for (Object o : c) {
+			if (!contains(o))
+				return false;
+		}
+		return true;
+	}
+
+	@Override
+	public Spliterator<E> spliterator() {
+		return new SingleElementSpliterator<E>(element, Spliterator.DISTINCT
+				| Spliterator.SORTED | Spliterator.ORDERED, comparator);
+	}
+
+	@Override
+	public Comparator<? super E> comparator() {
+		return comparator;
+	}
+
+	@Override
+	public E first() {
+		if (isEmpty())
+			throw new NoSuchElementException();
+		return getElement();
+	}
+
+	@Override
+	public E last() {
+		return first();
+	}
+
+	/**
+	 * Find the element of the set relatively to the given one.
+	 * 
+	 * @see SortedRange#accepts(int, boolean, boolean)
+	 */
+	E relative(Object e, boolean lower, boolean inclusive) {
+		if (isEmpty()
+				|| !SortedRange.accepts(compare(e, element), lower, inclusive))
+			return null;
+		return getElement();
+	}
+
+	@Override
+	public E lower(E e) {
+		return relative(e, true, false);
+	}
+
+	@Override
+	public E floor(E e) {
+		return relative(e, true, true);
+	}
+
+	@Override
+	public E ceiling(E e) {
+		return relative(e, false, true);
+	}
+
+	@Override
+	public E higher(E e) {
+		return relative(e, false, false);
+	}
+
+	@Override
+	public E pollFirst() {
+		E e = getElement();
+		element = EMPTY;
+		return e;
+	}
+
+	@Override
+	public E pollLast() {
+		return pollFirst();
+	}
+
+	@Override
+	public Iterator<E> descendingIterator() {
+		return iterator();
+	}
+
+	@Override
+	public NavigableSet<E> descendingSet() {
+		return new SubSet(SortedRange.<E> all(comparator), true);
+	}
+
+	@Override
+	public NavigableSet<E> subSet(E fromElement, boolean fromInclusive,
+			E toElement, boolean toInclusive) {
+		return new SubSet(SortedRange.<E> all(comparator).sub(fromElement,
+				fromInclusive, toElement, toInclusive), false);
+	}
+
+	@Override
+	public NavigableSet<E> headSet(E toElement, boolean inclusive) {
+		return new SubSet(SortedRange.<E> all(comparator).head(toElement,
+				inclusive), false);
+	}
+
+	@Override
+	public NavigableSet<E> tailSet(E fromElement, boolean inclusive) {
+		return new SubSet(SortedRange.<E> all(comparator).tail(fromElement,
+				inclusive), false);
+	}
+
+	@Override
+	public SortedSet<E> subSet(E fromElement, E toElement) {
+		return subSet(fromElement, true, toElement, false);
+	}
+
+	@Override
+	public SortedSet<E> headSet(E toElement) {
+		return headSet(toElement, false);
+	}
+
+	@Override
+	public SortedSet<E> tailSet(E fromElement) {
+		return tailSet(fromElement, true);
+	}
+
+	/**
+	 * View of the set restricted to a range, possibly in descending order.
+	 * The element of the set belongs to the view as long as it lies in the
+	 * range.
+	 */
+	private final class SubSet extends AbstractSet<E> implements
+			NavigableSet<E> {
+
+		private final SortedRange<E> range;
+
+		private final boolean descending;
+
+		SubSet(SortedRange<E> range, boolean descending) {
+			this.range = range;
+			this.descending = descending;
+		}
+
+		private boolean visible() {
+			return !SingleElementNavigableSet.this.isEmpty()
+					&& range.contains(element);
+		}
+
+		@Override
+		public int size() {
+			return visible() ? 1 : 0;
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return !visible();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return range.contains(o)
+					&& SingleElementNavigableSet.this.contains(o);
+		}
+
+		@Override
+		public boolean add(E e) {
+			if (!range.contains(e))
+				throw new IllegalArgumentException("element out of range");
+			return SingleElementNavigableSet.this.add(e);
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			return range.contains(o)
+					&& SingleElementNavigableSet.this.remove(o);
+		}
+
+		@Override
+		public void clear() {
+			if (visible())
+				SingleElementNavigableSet.this.clear();
+		}
+
+		@Override
+		public Iterator<E> iterator() {
+			return visible() ? SingleElementNavigableSet.this.iterator()
+					: Collections.<E> emptyIterator();
+		}
+
+		@Override
+		public Iterator<E> descendingIterator() {
+			return iterator();
+		}
+
+		@Override
+		public Comparator<? super E> comparator() {
+			return descending ? Collections.reverseOrder(comparator)
+					: comparator;
+		}
+
+		@Override
+		public E first() {
+			if (!visible())
+				throw new NoSuchElementException();
+			return getElement();
+		}
+
+		@Override
+		public E last() {
+			return first();
+		}
+
+		private E relative(Object e, boolean lower, boolean inclusive) {
+			if (!visible())
+				return null;
+			return SingleElementNavigableSet.this.relative(e, lower
+					^ descending, inclusive);
+		}
+
+		@Override
+		public E lower(E e) {
+			return relative(e, true, false);
+		}
+
+		@Override
+		public E floor(E e) {
+			return relative(e, true, true);
+		}
+
+		@Override
+		public E ceiling(E e) {
+			return relative(e, false, true);
+		}
+
+		@Override
+		public E higher(E e) {
+			return relative(e, false, false);
+		}
+
+		@Override
+		public E pollFirst() {
+			return visible() ? SingleElementNavigableSet.this.pollFirst()
+					: null;
+		}
+
+		@Override
+		public E pollLast() {
+			return pollFirst();
+		}
+
+		@Override
+		public NavigableSet<E> descendingSet() {
+			return new SubSet(range, !descending);
+		}
+
+		@Override
+		public NavigableSet<E> subSet(E fromElement, boolean fromInclusive,
+				E toElement, boolean toInclusive) {
+			if (descending)
+				return new SubSet(range.sub(toElement, toInclusive,
+						fromElement, fromInclusive), true);
+			return new SubSet(range.sub(fromElement, fromInclusive,
+					toElement, toInclusive), false);
+		}
+
+		@Override
+		public NavigableSet<E> headSet(E toElement, boolean inclusive) {
+			return new SubSet(descending ? range.tail(toElement, inclusive)
+					: range.head(toElement, inclusive), descending);
+		}
+
+		@Override
+		public NavigableSet<E> tailSet(E fromElement, boolean inclusive) {
+			return new SubSet(descending ? range.head(fromElement, inclusive)
+					: range.tail(fromElement, inclusive), descending);
+		}
+
+		@Override
+		public SortedSet<E> subSet(E fromElement, E toElement) {
+			return subSet(fromElement, true, toElement, false);
+		}
+
+		@Override
+		public SortedSet<E> headSet(E toElement) {
+			return headSet(toElement, false);
+		}
+
+		@Override
+		public SortedSet<E> tailSet(E fromElement) {
+			return tailSet(fromElement, true);
+		}
+
+	}
+
+}
@@ -17,6 +17,7 @@ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
 package fr.beaftech.collique;
 
 import java.util.Set;
+import java.util.Spliterator;
 
 /**
  * Single element implementation of {@code Set}. Permits all elements, including
@@ -37,6 +38,8 @@ import java.util.Set;
 public class SingleElementSet<E> extends SingleElementCollection<E> implements
 		Set<E> {
 
+	private static final long serialVersionUID = 1L;
+
 	public SingleElementSet() {
 		super();
 	}
@@ -49,7 +52,7 @@ public class SingleElementSet<E> extends SingleElementCollection<E> implements
 	@Override
 	public boolean add(E e) {
 		if (!isEmpty()) {
-			if (element.equals(e)) {
+			if (eq(element, e)) {
 				return false;
 			}
 			throw new UnsupportedOperationException(
@@ -60,4 +63,44 @@ public class SingleElementSet<E> extends SingleElementCollection<E> implements
 		return true;
 	}
 
+	@Override
+	public Spliterator<E> spliterator() {
+		return new SingleElementSpliterator<E>(element, Spliterator.DISTINCT);
+	}
+
+	/**
+	 * Compute the hash code defined by {@link Set#hashCode()}.
+	 */
+	@Override
+	public int hashCode() {
+		return isEmpty() || element == null ? 0 : element.hashCode();
+	}
+
+	/**
+	 * Compare the set with any {@code Set} as defined by
+	 * {@link Set#equals(Object)}. Comparing two single element sets only
+	 * compares their elements.
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj instanceof SingleElementSet) {
+			SingleElementSet<?> other = (SingleElementSet<?>) obj;
+			return isEmpty() ? other.isEmpty() : !other.isEmpty()
+					&& eq(element, other.element);
+		}
+		if (!(obj instanceof Set))
+			return false;
+		Set<?> other = (Set<?>) obj;
+		try {
+			return other.size() == size()
+					&& (isEmpty() || other.contains(element));
+		} catch (ClassCastException e) {
+			return false;
+		} catch (NullPointerException e) {
+			return false;
+		}
+	}
+
 }
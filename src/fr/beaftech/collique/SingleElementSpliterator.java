@@ -0,0 +1,121 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * {@code Spliterator} over at most one element. The element is bound when the
+ * spliterator is created, and the spliterator always reports its exact size
+ * ({@link #SIZED} and {@link #SUBSIZED}) so that stream pipelines can take
+ * their sized fast paths. It never splits.
+ * 
+ * @param <E>
+ *            the type of the element
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+final class SingleElementSpliterator<E> implements Spliterator<E> {
+
+	/**
+	 * The element not yet traversed, or {@link SingleElementCollection#EMPTY}.
+	 */
+	private Object element;
+
+	private final int characteristics;
+
+	private final Comparator<? super E> comparator;
+
+	/**
+	 * @param element
+	 *            - the element to traverse or
+	 *            {@link SingleElementCollection#EMPTY}
+	 * @param characteristics
+	 *            - the characteristics to report in addition to {@link #SIZED}
+	 *            and {@link #SUBSIZED}
+	 */
+	SingleElementSpliterator(Object element, int characteristics) {
+		this(element, characteristics, null);
+	}
+
+	/**
+	 * @param element
+	 *            - the element to traverse or
+	 *            {@link SingleElementCollection#EMPTY}
+	 * @param characteristics
+	 *            - the characteristics to report in addition to {@link #SIZED}
+	 *            and {@link #SUBSIZED}
+	 * @param comparator
+	 *            - the comparator returned by {@link #getComparator()} when
+	 *            the characteristics include {@link #SORTED}
+	 */
+	SingleElementSpliterator(Object element, int characteristics,
+			Comparator<? super E> comparator) {
+		this.element = element;
+		this.characteristics = characteristics | SIZED | SUBSIZED;
+		this.comparator = comparator;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public boolean tryAdvance(Consumer<? super E> action) {
+		if (action == null)
+			throw new NullPointerException();
+		Object e = element;
+		if (e == SingleElementCollection.EMPTY)
+			return false;
+		element = SingleElementCollection.EMPTY;
+		action.accept((E) e);
+		return true;
+	}
+
+	@Override
+	public void forEachRemaining(Consumer<? super E> action) {
+		tryAdvance(action);
+	}
+
+	@Override
+	public Spliterator<E> trySplit() {
+		return null;
+	}
+
+	@Override
+	public long estimateSize() {
+		return element == SingleElementCollection.EMPTY ? 0 : 1;
+	}
+
+	@Override
+	public long getExactSizeIfKnown() {
+		return estimateSize();
+	}
+
+	@Override
+	public int characteristics() {
+		return characteristics;
+	}
+
+	@Override
+	public Comparator<? super E> getComparator() {
+		if ((characteristics & SORTED) == 0)
+			throw new IllegalStateException();
+		return comparator;
+	}
+
+}
@@ -0,0 +1,269 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * Single element implementation of {@code List<Integer>} storing its element as
+ * a raw {@code int}. Like {@link SingleElementList}, {@link #add(Integer)}
+ * and {@link #addAll(java.util.Collection)} throw an
+ * {@code UnsupportedOperationException} when trying to add a second element.
+ * Unboxed accessors such as {@link #getInt(int)} avoid boxing on hot read
+ * paths.
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class SingleIntList extends SingleIntCollection implements
+		List<Integer>, RandomAccess {
+
+	private static final long serialVersionUID = 1L;
+
+	public SingleIntList() {
+		super();
+	}
+
+	public SingleIntList(int element) {
+		super(element);
+	}
+
+	@Override
+	public boolean addInt(int e) {
+		if (present) {
+			throw new UnsupportedOperationException(
+					"Cannot add more than one element to the list");
+		}
+		element = e;
+		present = true;
+		return true;
+	}
+
+	@Override
+	public boolean addAll(int index, Collection<? extends Integer> c) {
+		if (index == 0)
+			return addAll(c);
+		throw new IndexOutOfBoundsException();
+	}
+
+	/**
+	 * Get the element at the given position without boxing it.
+	 * 
+	 * @param index
+	 *            - the index of the element, only 0 is valid
+	 * @return the element of the list
+	 */
+	public int getInt(int index) {
+		if (present && index == 0)
+			return element;
+		throw new ArrayIndexOutOfBoundsException(index);
+	}
+
+	/**
+	 * Replace the element at the given position without boxing it.
+	 * 
+	 * @param index
+	 *            - the index of the element, only 0 is valid
+	 * @param value
+	 *            - the new element
+	 * @return the previous element
+	 */
+	public int setInt(int index, int value) {
+		if (present && index == 0) {
+			int previous = element;
+			element = value;
+			return previous;
+		}
+		throw new ArrayIndexOutOfBoundsException(index);
+	}
+
+	@Override
+	public Integer get(int index) {
+		return getInt(index);
+	}
+
+	@Override
+	public Integer set(int index, Integer element) {
+		return setInt(index, element);
+	}
+
+	@Override
+	public void add(int index, Integer element) {
+		if (index == 0) {
+			add(element);
+		} else {
+			throw new ArrayIndexOutOfBoundsException(index);
+		}
+	}
+
+	@Override
+	public Integer remove(int index) {
+		if (index == 0 && present) {
+			present = false;
+			return element;
+		}
+		throw new IndexOutOfBoundsException();
+	}
+
+	@Override
+	public int indexOf(Object o) {
+		if (contains(o))
+			return 0;
+		return -1;
+	}
+
+	@Override
+	public int lastIndexOf(Object o) {
+		return indexOf(o);
+	}
+
+	@Override
+	public ListIterator<Integer> listIterator() {
+		return new SingleIntListIterator(0);
+	}
+
+	@Override
+	public ListIterator<Integer> listIterator(int index) {
+		return new SingleIntListIterator(index);
+	}
+
+	@Override
+	public List<Integer> subList(int fromIndex, int toIndex) {
+		if (fromIndex < 0 || toIndex > size() || fromIndex > toIndex)
+			throw new IndexOutOfBoundsException();
+		if (fromIndex == toIndex)
+			return Collections.emptyList();
+		return new SingleIntList(element);
+	}
+
+	@Override
+	public int hashCode() {
+		return present ? 31 + Integer.hashCode(element) : 1;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj instanceof SingleIntList) {
+			SingleIntList other = (SingleIntList) obj;
+			return present ? other.present && same(element, other.element)
+					: !other.present;
+		}
+		if (!(obj instanceof List))
+			return false;
+		Iterator<?> it = ((List<?>) obj).iterator();
+		if (present && (!it.hasNext() || !contains(it.next())))
+			return false;
+		return !it.hasNext();
+	}
+
+	private class SingleIntListIterator implements ListIterator<Integer> {
+
+		/**
+		 * The pointer position. (will be -1 for an empty list)
+		 */
+		int pt;
+		boolean hasCurrent;
+
+		public SingleIntListIterator(int start) {
+			if (start < 0 || start > size())
+				throw new IndexOutOfBoundsException();
+			pt = present ? start : -1;
+			hasCurrent = false;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return pt == 0;
+		}
+
+		@Override
+		public Integer next() {
+			if (pt == 0) {
+				pt++;
+				hasCurrent = true;
+				return element;
+			}
+			throw new NoSuchElementException();
+		}
+
+		@Override
+		public boolean hasPrevious() {
+			return pt == 1;
+		}
+
+		@Override
+		public Integer previous() {
+			if (pt == 1) {
+				pt--;
+				hasCurrent = true;
+				return element;
+			}
+			throw new NoSuchElementException();
+		}
+
+		@Override
+		public int nextIndex() {
+			return pt == 1 ? 1 : 0;
+		}
+
+		@Override
+		public int previousIndex() {
+			return pt == 1 ? 0 : -1;
+		}
+
+		@Override
+		public void remove() {
+			if (hasCurrent) {
+				present = false;
+				hasCurrent = false;
+				pt = -1;
+			} else {
+				throw new IllegalStateException();
+			}
+		}
+
+		@Override
+		public void set(Integer e) {
+			if (hasCurrent) {
+				element = e;
+			} else {
+				throw new IllegalStateException();
+			}
+		}
+
+		@Override
+		public void add(Integer e) {
+			if (pt == -1) {
+				addInt(e);
+				pt = 1;
+			} else {
+				throw new UnsupportedOperationException(
+						"This list can only contains one element");
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,84 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import java.util.Set;
+
+/**
+ * Single element implementation of {@code Set<Integer>} storing its element as a
+ * raw {@code int}. Like {@link SingleElementSet}, adding a value different
+ * from the one contained in the set throws an
+ * {@code UnsupportedOperationException}.
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class SingleIntSet extends SingleIntCollection implements
+		Set<Integer> {
+
+	private static final long serialVersionUID = 1L;
+
+	public SingleIntSet() {
+		super();
+	}
+
+	public SingleIntSet(int element) {
+		super(element);
+	}
+
+	@Override
+	public boolean addInt(int e) {
+		if (present) {
+			if (same(element, e)) {
+				return false;
+			}
+			throw new UnsupportedOperationException(
+					"Cannot add more than one element to the set");
+		}
+		element = e;
+		present = true;
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		return present ? Integer.hashCode(element) : 0;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj instanceof SingleIntSet) {
+			SingleIntSet other = (SingleIntSet) obj;
+			return present ? other.present && same(element, other.element)
+					: !other.present;
+		}
+		if (!(obj instanceof Set))
+			return false;
+		Set<?> other = (Set<?>) obj;
+		try {
+			return other.size() == size()
+					&& (!present || other.contains(element));
+		} catch (ClassCastException e) {
+			return false;
+		} catch (NullPointerException e) {
+			return false;
+		}
+	}
+
+}
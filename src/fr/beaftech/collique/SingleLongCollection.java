@@ -0,0 +1,269 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+
+/**
+ * Single element implementation of {@code Collection<Long>} storing its
+ * element as a raw {@code long}, without any boxing. Besides the
+ * {@code Collection} methods, which box and unbox on the fly, it offers
+ * unboxed accessors such as {@link #containsLong(long)} and
+ * {@link #forEachLong(LongConsumer)}. The {@code null} element is not
+ * permitted: adding it throws a {@code NullPointerException}.
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public abstract class SingleLongCollection implements Collection<Long>,
+		Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	protected transient long element;
+
+	/**
+	 * Tells if {@link #element} holds the element of the collection.
+	 */
+	protected transient boolean present;
+
+	public SingleLongCollection() {
+		present = false;
+	}
+
+	public SingleLongCollection(long element) {
+		this.element = element;
+		present = true;
+	}
+
+	/**
+	 * Save the state of the collection to a stream.
+	 * 
+	 * @serialData a tag byte ({@code boolean}) telling if the collection holds
+	 *             an element, followed by the raw {@code long} when present
+	 */
+	private void writeObject(ObjectOutputStream s) throws IOException {
+		s.defaultWriteObject();
+		s.writeBoolean(present);
+		if (present)
+			s.writeLong(element);
+	}
+
+	private void readObject(ObjectInputStream s) throws IOException,
+			ClassNotFoundException {
+		s.defaultReadObject();
+		present = s.readBoolean();
+		if (present)
+			element = s.readLong();
+	}
+
+	/**
+	 * Equality test between two {@code long} values, consistent with
+	 * {@link Long#equals(Object)}.
+	 */
+	static boolean same(long v1, long v2) {
+		return v1 == v2;
+	}
+
+	/**
+	 * Add the given value to the collection, without boxing it.
+	 * 
+	 * @param e
+	 *            - the value to add
+	 * @return {@code true} if the collection changed
+	 */
+	public abstract boolean addLong(long e);
+
+	@Override
+	public boolean add(Long e) {
+		return addLong(e);
+	}
+
+	/**
+	 * Tells if the collection contains the given value, without boxing it.
+	 * 
+	 * @param value
+	 *            - the value to look for
+	 * @return {@code true} if the collection contains the value
+	 */
+	public boolean containsLong(long value) {
+		return present && same(element, value);
+	}
+
+	/**
+	 * Perform the given action on the element of the collection, if any,
+	 * without boxing it.
+	 * 
+	 * @param action
+	 *            - the action to perform
+	 */
+	public void forEachLong(LongConsumer action) {
+		if (present)
+			action.accept(element);
+	}
+
+	/**
+	 * Get the elements of this collection in an array of {@code long}.
+	 * 
+	 * @return an array of length 0 or 1
+	 */
+	public long[] toLongArray() {
+		return present ? new long[] { element } : new long[0];
+	}
+
+	@Override
+	public int size() {
+		return present ? 1 : 0;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return !present;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return present && o instanceof Long && same(element, (Long) o);
+	}
+
+	@Override
+	public PrimitiveIterator.OfLong iterator() {
+		return new PrimitiveIterator.OfLong() {
+
+			/**
+			 * -1 -> empty collection<br/>
+			 * 0 -> next element is the element of the collection<br/>
+			 * 1 -> element has already been seen<br/>
+			 */
+			int state = present ? 0 : -1;
+
+			@Override
+			public boolean hasNext() {
+				return state == 0;
+			}
+
+			@Override
+			public long nextLong() {
+				if (state == 0) {
+					state++;
+					return element;
+				}
+				throw new NoSuchElementException();
+			}
+
+			@Override
+			public void remove() {
+				if (state == 1) {
+					present = false;
+					state = -1;
+				} else {
+					throw new IllegalStateException();
+				}
+			}
+
+		};
+	}
+
+	@Override
+	public Object[] toArray() {
+		if (!present)
+			return new Object[0];
+		return new Object[] { element };
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> T[] toArray(T[] a) {
+		if (a.length == 0 && present) {
+			a = (T[]) java.lang.reflect.Array.newInstance(a.getClass()
+					.getComponentType(), 1);
+		}
+		int i = 0;
+		if (present) {
+			a[i] = (T) (Long) element;
+			i++;
+		}
+		for (; i < a.length; i++) {
+			a[i] = null;
+		}
+		return a;
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		if (contains(o)) {
+			present = false;
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public boolean containsAll(Collection<?> c) {
+		for (Object o : c) {
+			if (!contains(o))
+				return false;
+		}
+		return true;
+	}
+
+	@Override
+	public boolean addAll(Collection<? extends Long> c) {
+		boolean changed = false;
+		Iterator<? extends Long> it = c.iterator();
+		while (it.hasNext()) {
+			changed = add(it.next()) || changed;
+		}
+		return changed;
+	}
+
+	@Override
+	public boolean removeAll(Collection<?> c) {
+		if (present && c.contains(element)) {
+			present = false;
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public boolean retainAll(Collection<?> c) {
+		if (!present || c.contains(element))
+			return false;
+		present = false;
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		present = false;
+	}
+
+	@Override
+	public String toString() {
+		return present ? "[" + element + "]" : "[]";
+	}
+
+}
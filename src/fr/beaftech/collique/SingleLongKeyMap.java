@@ -0,0 +1,331 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Single key/value pair implementation of {@code Map<Long, V>} storing its
+ * key as a raw {@code long}. Besides the {@code Map} methods, which box and
+ * unbox the key on the fly, it offers {@link #get(long)},
+ * {@link #put(long, Object)}, {@link #containsKey(long)} and
+ * {@link #remove(long)} which neither box nor allocate. Like
+ * {@link SingleElementMap}, putting a second key throws an
+ * {@code UnsupportedOperationException}. {@code null} values are permitted,
+ * the {@code null} key is not.
+ * 
+ * @param <V>
+ *            the value type
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class SingleLongKeyMap<V> implements Map<Long, V>, Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private transient long key;
+	private transient V value;
+	private transient boolean present;
+
+	public SingleLongKeyMap() {
+		present = false;
+	}
+
+	public SingleLongKeyMap(long key, V value) {
+		this.key = key;
+		this.value = value;
+		present = true;
+	}
+
+	/**
+	 * Save the state of the map to a stream.
+	 * 
+	 * @serialData a tag byte ({@code boolean}) telling if the map holds a
+	 *             mapping, followed by the raw {@code long} key and the value
+	 *             when present
+	 */
+	private void writeObject(ObjectOutputStream s) throws IOException {
+		s.defaultWriteObject();
+		s.writeBoolean(present);
+		if (present) {
+			s.writeLong(key);
+			s.writeObject(value);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream s) throws IOException,
+			ClassNotFoundException {
+		s.defaultReadObject();
+		present = s.readBoolean();
+		if (present) {
+			key = s.readLong();
+			value = (V) s.readObject();
+		}
+	}
+
+	/**
+	 * Entry returned by the entry set. It remembers the key it was created
+	 * for: while the map holds that key, reads and writes go through to the
+	 * map, and once the key is removed the entry keeps the last pair it saw,
+	 * like the entries of {@link SingleElementMap}.
+	 */
+	private final class EntryView implements Entry<Long, V> {
+
+		private final long key;
+
+		private V value;
+
+		EntryView(long key, V value) {
+			this.key = key;
+			this.value = value;
+		}
+
+		@Override
+		public Long getKey() {
+			return key;
+		}
+
+		@Override
+		public V getValue() {
+			if (containsKey(key))
+				value = SingleLongKeyMap.this.value;
+			return value;
+		}
+
+		@Override
+		public V setValue(V value) {
+			V previous = getValue();
+			this.value = value;
+			if (containsKey(key))
+				SingleLongKeyMap.this.value = value;
+			return previous;
+		}
+
+		@Override
+		public int hashCode() {
+			V value = getValue();
+			return Long.hashCode(key)
+					^ (value == null ? 0 : value.hashCode());
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof Entry))
+				return false;
+			Entry<?, ?> other = (Entry<?, ?>) obj;
+			return other.getKey() instanceof Long
+					&& ((Long) other.getKey()).longValue() == key
+					&& SingleElementCollection.eq(getValue(), other.getValue());
+		}
+
+		@Override
+		public String toString() {
+			return key + "=" + getValue();
+		}
+
+	}
+
+	private int entryHashCode() {
+		return Long.hashCode(key) ^ (value == null ? 0 : value.hashCode());
+	}
+
+	/**
+	 * Get the key of the map without boxing it.
+	 * 
+	 * @return the key of the map
+	 * @throws java.util.NoSuchElementException
+	 *             if the map is empty
+	 */
+	public long getLongKey() {
+		if (!present)
+			throw new java.util.NoSuchElementException();
+		return key;
+	}
+
+	/**
+	 * Tells if the map contains the given key, without boxing it.
+	 * 
+	 * @param key
+	 *            - the key to look for
+	 * @return {@code true} if the map contains the key
+	 */
+	public boolean containsKey(long key) {
+		return present && this.key == key;
+	}
+
+	/**
+	 * Get the value mapped to the given key, without boxing it.
+	 * 
+	 * @param key
+	 *            - the key to look for
+	 * @return the value mapped to the key, or {@code null} if none
+	 */
+	public V get(long key) {
+		return present && this.key == key ? value : null;
+	}
+
+	/**
+	 * Map the given value to the given key, without boxing it.
+	 * 
+	 * @param key
+	 *            - the key
+	 * @param value
+	 *            - the value
+	 * @return the previous value mapped to the key, or {@code null} if none
+	 * @throws UnsupportedOperationException
+	 *             if the map already contains another key
+	 */
+	public V put(long key, V value) {
+		if (!present) {
+			this.key = key;
+			this.value = value;
+			present = true;
+			return null;
+		}
+		if (this.key == key) {
+			V previous = this.value;
+			this.value = value;
+			return previous;
+		}
+		throw new UnsupportedOperationException(
+				"Cannot add more than one element");
+	}
+
+	/**
+	 * Remove the mapping of the given key, without boxing it.
+	 * 
+	 * @param key
+	 *            - the key to remove
+	 * @return the value that was mapped to the key, or {@code null} if none
+	 */
+	public V remove(long key) {
+		if (present && this.key == key) {
+			V removed = value;
+			clear();
+			return removed;
+		}
+		return null;
+	}
+
+	@Override
+	public int size() {
+		return present ? 1 : 0;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return !present;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return key instanceof Long && containsKey(((Long) key).longValue());
+	}
+
+	@Override
+	public boolean containsValue(Object value) {
+		return present && SingleElementCollection.eq(this.value, value);
+	}
+
+	@Override
+	public V get(Object key) {
+		return key instanceof Long ? get(((Long) key).longValue()) : null;
+	}
+
+	@Override
+	public V put(Long key, V value) {
+		return put(key.longValue(), value);
+	}
+
+	@Override
+	public V remove(Object key) {
+		return key instanceof Long ? remove(((Long) key).longValue()) : null;
+	}
+
+	@Override
+	public void putAll(Map<? extends Long, ? extends V> m) {
+		for (Map.Entry<? extends Long, ? extends V> e : m.entrySet()) {
+			put(e.getKey(), e.getValue());
+		}
+	}
+
+	@Override
+	public void clear() {
+		present = false;
+		value = null;
+	}
+
+	@Override
+	public Set<Long> keySet() {
+		if (!present)
+			return Collections.emptySet();
+		return new SingleLongSet(key);
+	}
+
+	@Override
+	public Collection<V> values() {
+		if (!present)
+			return Collections.emptyList();
+		return new SingleElementList<V>(value);
+	}
+
+	@Override
+	public Set<Entry<Long, V>> entrySet() {
+		if (!present)
+			return Collections.emptySet();
+		return new SingleElementSet<Entry<Long, V>>(new EntryView(key,
+				value));
+	}
+
+	@Override
+	public int hashCode() {
+		return present ? entryHashCode() : 0;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof Map))
+			return false;
+		Map<?, ?> other = (Map<?, ?>) obj;
+		if (other.size() != size())
+			return false;
+		if (!present)
+			return true;
+		Object otherValue = other.get(key);
+		return value == null ? otherValue == null && other.containsKey(key)
+				: value.equals(otherValue);
+	}
+
+	@Override
+	public String toString() {
+		return present ? "{" + key + "=" + value + "}" : "{}";
+	}
+
+}
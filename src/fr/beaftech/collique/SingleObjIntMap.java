@@ -0,0 +1,322 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Single key/value pair implementation of {@code Map<K, Integer>} storing its
+ * value as a raw {@code int}. Besides the {@code Map} methods, which box and
+ * unbox the value on the fly, it offers {@link #getInt(Object)},
+ * {@link #put(Object, int)} and {@link #containsValue(int)} which neither box
+ * nor allocate. Like {@link SingleElementMap}, putting a second key throws an
+ * {@code UnsupportedOperationException}. The {@code null} key is permitted,
+ * {@code null} values are not.
+ * 
+ * @param <K>
+ *            the key type
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class SingleObjIntMap<K> implements Map<K, Integer>, Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Marker stored in {@link #key} when the map is empty.
+	 */
+	private static final Object EMPTY = new Object();
+
+	private transient Object key;
+	private transient int value;
+
+	public SingleObjIntMap() {
+		key = EMPTY;
+	}
+
+	public SingleObjIntMap(K key, int value) {
+		this.key = key;
+		this.value = value;
+	}
+
+	/**
+	 * Save the state of the map to a stream.
+	 * 
+	 * @serialData a tag byte ({@code boolean}) telling if the map holds a
+	 *             mapping, followed by the key and the raw {@code int} value
+	 *             when present
+	 */
+	private void writeObject(ObjectOutputStream s) throws IOException {
+		s.defaultWriteObject();
+		s.writeBoolean(!isEmpty());
+		if (!isEmpty()) {
+			s.writeObject(key);
+			s.writeInt(value);
+		}
+	}
+
+	private void readObject(ObjectInputStream s) throws IOException,
+			ClassNotFoundException {
+		s.defaultReadObject();
+		if (s.readBoolean()) {
+			key = s.readObject();
+			value = s.readInt();
+		} else {
+			key = EMPTY;
+		}
+	}
+
+	/**
+	 * Entry returned by the entry set. It remembers the key it was created
+	 * for: while the map holds that key, reads and writes go through to the
+	 * map, and once the key is removed the entry keeps the last pair it saw,
+	 * like the entries of {@link SingleElementMap}.
+	 */
+	private final class EntryView implements Entry<K, Integer> {
+
+		private final K key;
+
+		private int value;
+
+		EntryView(K key, int value) {
+			this.key = key;
+			this.value = value;
+		}
+
+		@Override
+		public K getKey() {
+			return key;
+		}
+
+		@Override
+		public Integer getValue() {
+			if (containsKey(key))
+				value = SingleObjIntMap.this.value;
+			return value;
+		}
+
+		@Override
+		public Integer setValue(Integer value) {
+			int previous = getValue();
+			this.value = value;
+			if (containsKey(key))
+				SingleObjIntMap.this.value = value;
+			return previous;
+		}
+
+		@Override
+		public int hashCode() {
+			return (key == null ? 0 : key.hashCode()) ^ getValue();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof Entry))
+				return false;
+			Entry<?, ?> other = (Entry<?, ?>) obj;
+			return SingleElementCollection.eq(key, other.getKey())
+					&& other.getValue() instanceof Integer
+					&& getValue().intValue() == (Integer) other.getValue();
+		}
+
+		@Override
+		public String toString() {
+			return key + "=" + getValue();
+		}
+
+	}
+
+	private int entryHashCode() {
+		return (key == null ? 0 : key.hashCode()) ^ value;
+	}
+
+	/**
+	 * Get the value mapped to the given key, without boxing it.
+	 * 
+	 * @param key
+	 *            - the key to look for
+	 * @return the value mapped to the key, or 0 if the key is not in the map
+	 */
+	public int getInt(Object key) {
+		return containsKey(key) ? value : 0;
+	}
+
+	/**
+	 * Get the value mapped to the given key, without boxing it.
+	 * 
+	 * @param key
+	 *            - the key to look for
+	 * @param defaultValue
+	 *            - the value to return if the key is not in the map
+	 * @return the value mapped to the key, or {@code defaultValue}
+	 */
+	public int getInt(Object key, int defaultValue) {
+		return containsKey(key) ? value : defaultValue;
+	}
+
+	/**
+	 * Map the given value to the given key, without boxing it.
+	 * 
+	 * @param key
+	 *            - the key
+	 * @param value
+	 *            - the value
+	 * @return the previous value mapped to the key, or 0 if none
+	 * @throws UnsupportedOperationException
+	 *             if the map already contains another key
+	 */
+	public int put(K key, int value) {
+		if (isEmpty()) {
+			this.key = key;
+			this.value = value;
+			return 0;
+		}
+		if (SingleElementCollection.eq(this.key, key)) {
+			int previous = this.value;
+			this.value = value;
+			return previous;
+		}
+		throw new UnsupportedOperationException(
+				"Cannot add more than one element");
+	}
+
+	/**
+	 * Tells if the map contains the given value, without boxing it.
+	 * 
+	 * @param value
+	 *            - the value to look for
+	 * @return {@code true} if the map contains the value
+	 */
+	public boolean containsValue(int value) {
+		return !isEmpty() && this.value == value;
+	}
+
+	@Override
+	public int size() {
+		return isEmpty() ? 0 : 1;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return key == EMPTY;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return !isEmpty() && SingleElementCollection.eq(this.key, key);
+	}
+
+	@Override
+	public boolean containsValue(Object value) {
+		return value instanceof Integer && containsValue(((Integer) value).intValue());
+	}
+
+	@Override
+	public Integer get(Object key) {
+		return containsKey(key) ? Integer.valueOf(value) : null;
+	}
+
+	@Override
+	public Integer put(K key, Integer value) {
+		boolean replaced = containsKey(key);
+		int previous = put(key, value.intValue());
+		return replaced ? Integer.valueOf(previous) : null;
+	}
+
+	@Override
+	public Integer remove(Object key) {
+		if (containsKey(key)) {
+			int removed = value;
+			clear();
+			return removed;
+		}
+		return null;
+	}
+
+	@Override
+	public void putAll(Map<? extends K, ? extends Integer> m) {
+		for (Map.Entry<? extends K, ? extends Integer> e : m.entrySet()) {
+			put(e.getKey(), e.getValue());
+		}
+	}
+
+	@Override
+	public void clear() {
+		key = EMPTY;
+		value = 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Set<K> keySet() {
+		if (isEmpty())
+			return Collections.emptySet();
+		return new SingleElementSet<K>((K) key);
+	}
+
+	@Override
+	public Collection<Integer> values() {
+		if (isEmpty())
+			return Collections.emptyList();
+		return new SingleIntList(value);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Set<Entry<K, Integer>> entrySet() {
+		if (isEmpty())
+			return Collections.emptySet();
+		return new SingleElementSet<Entry<K, Integer>>(new EntryView((K) key,
+				value));
+	}
+
+	@Override
+	public int hashCode() {
+		return isEmpty() ? 0 : entryHashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof Map))
+			return false;
+		Map<?, ?> other = (Map<?, ?>) obj;
+		if (other.size() != size())
+			return false;
+		if (isEmpty())
+			return true;
+		Object otherValue = other.get(key);
+		return otherValue instanceof Integer && value == (Integer) otherValue;
+	}
+
+	@Override
+	public String toString() {
+		return isEmpty() ? "{}" : "{" + key + "=" + value + "}";
+	}
+
+}
@@ -0,0 +1,382 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import java.util.Collection;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock-free {@code BlockingQueue} of capacity one, meant for handing objects
+ * over between two threads. The element is held in the single volatile slot
+ * of {@link ConcurrentSingleElementCollection}: {@link #offer(Object)} and
+ * {@link #poll()} are compare-and-set operations on that slot and never
+ * allocate. Blocking operations wait according to a {@link WaitStrategy}, by
+ * default spinning, then yielding, then parking. Parked threads are queued in
+ * a stack and all woken up when the queue changes, the only allocations of
+ * the queue happening there.
+ * <p>
+ * As required by {@code BlockingQueue}, {@code null} elements are not
+ * permitted. Iterators work on the element seen when they were created and
+ * never throw {@code ConcurrentModificationException}. Equality is identity,
+ * as for the other queues of the JDK.
+ * 
+ * @param <E>
+ *            the type of the element to store
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class SingleSlotBlockingQueue<E> extends
+		ConcurrentSingleElementCollection<E> implements BlockingQueue<E> {
+
+	private static final long serialVersionUID = 1L;
+
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<SingleSlotBlockingQueue, WaitNode> TAKERS = AtomicReferenceFieldUpdater
+			.newUpdater(SingleSlotBlockingQueue.class, WaitNode.class,
+					"takers");
+
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<SingleSlotBlockingQueue, WaitNode> PUTTERS = AtomicReferenceFieldUpdater
+			.newUpdater(SingleSlotBlockingQueue.class, WaitNode.class,
+					"putters");
+
+	private final WaitStrategy waitStrategy;
+
+	/**
+	 * Threads parked until the queue holds an element.
+	 */
+	private transient volatile WaitNode takers;
+
+	/**
+	 * Threads parked until the queue is empty.
+	 */
+	private transient volatile WaitNode putters;
+
+	/**
+	 * Node of a stack of parked threads.
+	 */
+	private static final class WaitNode {
+
+		final Thread thread;
+
+		volatile WaitNode next;
+
+		/**
+		 * Set once the node has been removed from its stack, so that the
+		 * thread pushes a new node before parking again.
+		 */
+		volatile boolean signalled;
+
+		/**
+		 * Set when the operation ended without the node being signalled, so
+		 * that the node can be unlinked from its stack.
+		 */
+		volatile boolean cancelled;
+
+		WaitNode(Thread thread) {
+			this.thread = thread;
+		}
+
+	}
+
+	/**
+	 * Create an empty queue waiting with {@link WaitStrategy#spinYieldPark()}.
+	 */
+	public SingleSlotBlockingQueue() {
+		this(WaitStrategy.spinYieldPark());
+	}
+
+	/**
+	 * Create an empty queue.
+	 * 
+	 * @param waitStrategy
+	 *            - the way blocked operations wait for the queue to change
+	 */
+	public SingleSlotBlockingQueue(WaitStrategy waitStrategy) {
+		this.waitStrategy = Objects.requireNonNull(waitStrategy);
+	}
+
+	public WaitStrategy getWaitStrategy() {
+		return waitStrategy;
+	}
+
+	@Override
+	public boolean offer(E e) {
+		Objects.requireNonNull(e);
+		// read first, so that a producer retrying on a full queue does not
+		// steal the cache line from the consumer
+		if (!isEmpty(element)
+				|| !compareAndSet(SingleElementCollection.EMPTY, e))
+			return false;
+		if (takers != null)
+			signal(TAKERS);
+		return true;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public E poll() {
+		for (;;) {
+			Object e = element;
+			if (isEmpty(e))
+				return null;
+			if (compareAndClear(e))
+				return (E) e;
+		}
+	}
+
+	@Override
+	boolean compareAndClear(Object expected) {
+		if (!super.compareAndClear(expected))
+			return false;
+		if (putters != null)
+			signal(PUTTERS);
+		return true;
+	}
+
+	@Override
+	public void put(E e) throws InterruptedException {
+		Objects.requireNonNull(e);
+		WaitNode node = null;
+		try {
+			for (int round = 0; !offer(e); round = next(round))
+				node = await(PUTTERS, node, round, false, 0L);
+		} finally {
+			cancel(PUTTERS, node);
+		}
+	}
+
+	@Override
+	public boolean offer(E e, long timeout, TimeUnit unit)
+			throws InterruptedException {
+		Objects.requireNonNull(e);
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		WaitNode node = null;
+		try {
+			for (int round = 0; !offer(e); round = next(round)) {
+				if (deadline - System.nanoTime() <= 0L)
+					return false;
+				node = await(PUTTERS, node, round, true, deadline);
+			}
+			return true;
+		} finally {
+			cancel(PUTTERS, node);
+		}
+	}
+
+	@Override
+	public E take() throws InterruptedException {
+		WaitNode node = null;
+		try {
+			for (int round = 0;; round = next(round)) {
+				E e = poll();
+				if (e != null)
+					return e;
+				node = await(TAKERS, node, round, false, 0L);
+			}
+		} finally {
+			cancel(TAKERS, node);
+		}
+	}
+
+	@Override
+	public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		WaitNode node = null;
+		try {
+			for (int round = 0;; round = next(round)) {
+				E e = poll();
+				if (e != null)
+					return e;
+				if (deadline - System.nanoTime() <= 0L)
+					return null;
+				node = await(TAKERS, node, round, true, deadline);
+			}
+		} finally {
+			cancel(TAKERS, node);
+		}
+	}
+
+	private static int next(int round) {
+		return round == Integer.MAX_VALUE ? round : round + 1;
+	}
+
+	/**
+	 * Wait once for the queue to change, as told by the wait strategy.
+	 * 
+	 * @param waiters
+	 *            - {@link #TAKERS} to wait for an element, {@link #PUTTERS}
+	 *            to wait for room
+	 * @param node
+	 *            - the node pushed by the previous call of the same operation,
+	 *            or {@code null}
+	 * @param round
+	 *            - the number of previous calls of the same operation
+	 * @param timed
+	 *            - {@code true} if the operation ends at the deadline
+	 * @param deadline
+	 *            - the {@link System#nanoTime()} at which a timed operation
+	 *            ends
+	 * @return the node of the calling thread, if it parked
+	 * @throws InterruptedException
+	 *             if the thread has been interrupted
+	 */
+	@SuppressWarnings("rawtypes")
+	private WaitNode await(
+			AtomicReferenceFieldUpdater<SingleSlotBlockingQueue, WaitNode> waiters,
+			WaitNode node, int round, boolean timed, long deadline)
+			throws InterruptedException {
+		if (Thread.interrupted())
+			throw new InterruptedException();
+		if (!waitStrategy.idle(round))
+			return node;
+		if (node == null || node.signalled) {
+			node = new WaitNode(Thread.currentThread());
+			for (;;) {
+				WaitNode head = waiters.get(this);
+				node.next = head;
+				if (waiters.compareAndSet(this, head, node))
+					break;
+			}
+		}
+		// the node is visible before the slot is checked again, so either
+		// this thread sees the change or the changing thread sees the node
+		if (isEmpty() == (waiters == TAKERS)) {
+			if (!timed)
+				LockSupport.park(this);
+			else
+				LockSupport.parkNanos(this, deadline - System.nanoTime());
+		}
+		return node;
+	}
+
+	/**
+	 * Unlink the node of an operation that ended, timed out or was
+	 * interrupted while its node was still on the stack, so that an idle
+	 * queue does not accumulate the nodes of its timed-out waiters.
+	 */
+	@SuppressWarnings("rawtypes")
+	private void cancel(
+			AtomicReferenceFieldUpdater<SingleSlotBlockingQueue, WaitNode> waiters,
+			WaitNode node) {
+		if (node == null || node.signalled)
+			return;
+		node.cancelled = true;
+		WaitNode head;
+		while ((head = waiters.get(this)) != null && head.cancelled)
+			waiters.compareAndSet(this, head, head.next);
+		// a concurrent unlink may put back a cancelled node, which is then
+		// dropped by a later cancellation or signal, but never skips a live
+		// one
+		for (WaitNode p = head; p != null;) {
+			WaitNode n = p.next;
+			if (n != null && n.cancelled)
+				p.next = n.next;
+			else
+				p = n;
+		}
+	}
+
+	/**
+	 * Wake up all the threads of a stack.
+	 */
+	@SuppressWarnings("rawtypes")
+	private void signal(
+			AtomicReferenceFieldUpdater<SingleSlotBlockingQueue, WaitNode> waiters) {
+		for (WaitNode n = waiters.getAndSet(this, null); n != null; n = n.next) {
+			n.signalled = true;
+			LockSupport.unpark(n.thread);
+		}
+	}
+
+	@Override
+	public boolean add(E e) {
+		if (offer(e))
+			return true;
+		throw new IllegalStateException("Queue full");
+	}
+
+	@Override
+	public E remove() {
+		E e = poll();
+		if (e == null)
+			throw new NoSuchElementException();
+		return e;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public E peek() {
+		Object e = element;
+		return isEmpty(e) ? null : (E) e;
+	}
+
+	@Override
+	public E element() {
+		E e = peek();
+		if (e == null)
+			throw new NoSuchElementException();
+		return e;
+	}
+
+	@Override
+	public int remainingCapacity() {
+		return isEmpty() ? 1 : 0;
+	}
+
+	@Override
+	public int drainTo(Collection<? super E> c) {
+		return drainTo(c, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public int drainTo(Collection<? super E> c, int maxElements) {
+		Objects.requireNonNull(c);
+		if (c == this)
+			throw new IllegalArgumentException();
+		if (maxElements <= 0)
+			return 0;
+		E e = poll();
+		if (e == null)
+			return 0;
+		c.add(e);
+		return 1;
+	}
+
+	@Override
+	public void clear() {
+		for (;;) {
+			Object e = element;
+			if (isEmpty(e) || compareAndClear(e))
+				return;
+		}
+	}
+
+	@Override
+	public Spliterator<E> spliterator() {
+		return new SingleElementSpliterator<E>(element, Spliterator.IMMUTABLE
+				| Spliterator.NONNULL | Spliterator.ORDERED);
+	}
+
+}
@@ -0,0 +1,195 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import java.util.Comparator;
+
+/**
+ * Bounds of a range view of a single element sorted set or map. A range is
+ * always expressed in the ascending order of the backing collection,
+ * descending views swapping the bounds they are given before building one.
+ * Bounds are checked the way {@code TreeMap} checks the bounds of its sub
+ * maps.
+ * 
+ * @param <T>
+ *            the type of the elements or keys
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+final class SortedRange<T> {
+
+	private final Comparator<? super T> comparator;
+
+	private final boolean fromStart;
+
+	private final Object lo;
+
+	private final boolean loInclusive;
+
+	private final boolean toEnd;
+
+	private final Object hi;
+
+	private final boolean hiInclusive;
+
+	private SortedRange(Comparator<? super T> comparator, boolean fromStart,
+			Object lo, boolean loInclusive, boolean toEnd, Object hi,
+			boolean hiInclusive) {
+		if (!fromStart && !toEnd) {
+			if (compare(comparator, lo, hi) > 0)
+				throw new IllegalArgumentException("fromKey > toKey");
+		} else {
+			// type check of the bounds
+			if (!fromStart)
+				compare(comparator, lo, lo);
+			if (!toEnd)
+				compare(comparator, hi, hi);
+		}
+		this.comparator = comparator;
+		this.fromStart = fromStart;
+		this.lo = lo;
+		this.loInclusive = loInclusive;
+		this.toEnd = toEnd;
+		this.hi = hi;
+		this.hiInclusive = hiInclusive;
+	}
+
+	/**
+	 * Create a range with no bound.
+	 * 
+	 * @param comparator
+	 *            - the comparator of the backing collection or {@code null}
+	 *            for the natural ordering
+	 * @return a range containing every element
+	 */
+	static <T> SortedRange<T> all(Comparator<? super T> comparator) {
+		return new SortedRange<T>(comparator, true, null, false, true, null,
+				false);
+	}
+
+	/**
+	 * Compare two elements with the given comparator, or with their natural
+	 * ordering if the comparator is {@code null}.
+	 */
+	@SuppressWarnings("unchecked")
+	static int compare(Comparator<?> comparator, Object o1, Object o2) {
+		return comparator == null ? ((Comparable<Object>) o1).compareTo(o2)
+				: ((Comparator<Object>) comparator).compare(o1, o2);
+	}
+
+	/**
+	 * Tell if an element is accepted by a relative lookup such as
+	 * {@code lower} or {@code ceiling}.
+	 * 
+	 * @param cmp
+	 *            - the comparison of the searched element with the element
+	 *            of the collection
+	 * @param lower
+	 *            - {@code true} for {@code lower} and {@code floor},
+	 *            {@code false} for {@code ceiling} and {@code higher}
+	 * @param inclusive
+	 *            - {@code true} for {@code floor} and {@code ceiling}
+	 * @return {@code true} if the element of the collection is the result of
+	 *         the lookup
+	 */
+	static boolean accepts(int cmp, boolean lower, boolean inclusive) {
+		if (cmp == 0)
+			return inclusive;
+		return lower ? cmp > 0 : cmp < 0;
+	}
+
+	Comparator<? super T> comparator() {
+		return comparator;
+	}
+
+	private boolean tooLow(Object o) {
+		if (fromStart)
+			return false;
+		int c = compare(comparator, o, lo);
+		return c < 0 || (c == 0 && !loInclusive);
+	}
+
+	private boolean tooHigh(Object o) {
+		if (toEnd)
+			return false;
+		int c = compare(comparator, o, hi);
+		return c > 0 || (c == 0 && !hiInclusive);
+	}
+
+	/**
+	 * Tell if the range contains the given element.
+	 */
+	boolean contains(Object o) {
+		return !tooLow(o) && !tooHigh(o);
+	}
+
+	/**
+	 * Tell if a new bound lies within this range, an exclusive bound being
+	 * allowed to be equal to the corresponding bound of this range.
+	 */
+	private boolean allows(Object bound, boolean inclusive) {
+		if (inclusive)
+			return contains(bound);
+		return (fromStart || compare(comparator, bound, lo) >= 0)
+				&& (toEnd || compare(comparator, hi, bound) >= 0);
+	}
+
+	/**
+	 * Restrict the range to the elements between two bounds.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if {@code from} is greater than {@code to} or a bound lies
+	 *             outside of this range
+	 */
+	SortedRange<T> sub(Object from, boolean fromInclusive, Object to,
+			boolean toInclusive) {
+		if (!allows(from, fromInclusive))
+			throw new IllegalArgumentException("fromKey out of range");
+		if (!allows(to, toInclusive))
+			throw new IllegalArgumentException("toKey out of range");
+		return new SortedRange<T>(comparator, false, from, fromInclusive,
+				false, to, toInclusive);
+	}
+
+	/**
+	 * Restrict the range to the elements lower than a bound.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if the bound lies outside of this range
+	 */
+	SortedRange<T> head(Object to, boolean inclusive) {
+		if (!allows(to, inclusive))
+			throw new IllegalArgumentException("toKey out of range");
+		return new SortedRange<T>(comparator, fromStart, lo, loInclusive,
+				false, to, inclusive);
+	}
+
+	/**
+	 * Restrict the range to the elements greater than a bound.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if the bound lies outside of this range
+	 */
+	SortedRange<T> tail(Object from, boolean inclusive) {
+		if (!allows(from, inclusive))
+			throw new IllegalArgumentException("fromKey out of range");
+		return new SortedRange<T>(comparator, false, from, inclusive, toEnd,
+				hi, hiInclusive);
+	}
+
+}
@@ -0,0 +1,75 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import java.io.Serializable;
+
+/**
+ * The wait strategies provided by {@link WaitStrategy}: a number of spinning
+ * rounds, then a number of yielding rounds, then either parking or spinning
+ * forever.
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+final class SpinYieldPark implements WaitStrategy, Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	static final SpinYieldPark BUSY_SPIN = new SpinYieldPark(0, 0, false);
+
+	static final SpinYieldPark PARK = new SpinYieldPark(0, 0, true);
+
+	static final SpinYieldPark DEFAULT = new SpinYieldPark(
+			WaitStrategy.DEFAULT_SPINS, WaitStrategy.DEFAULT_YIELDS, true);
+
+	private final int spins;
+
+	private final int yields;
+
+	private final boolean park;
+
+	SpinYieldPark(int spins, int yields, boolean park) {
+		if (spins < 0 || yields < 0)
+			throw new IllegalArgumentException("Negative number of rounds");
+		this.spins = spins;
+		this.yields = yields;
+		this.park = park;
+	}
+
+	@Override
+	public boolean idle(int round) {
+		if (round >= spins) {
+			if (round - spins >= yields)
+				return park;
+			Thread.yield();
+		}
+		return false;
+	}
+
+	/**
+	 * Keep the constants unique, so that they can be compared by identity.
+	 */
+	private Object readResolve() {
+		if (spins == 0 && yields == 0)
+			return park ? PARK : BUSY_SPIN;
+		if (park && spins == DEFAULT.spins && yields == DEFAULT.yields)
+			return DEFAULT;
+		return this;
+	}
+
+}
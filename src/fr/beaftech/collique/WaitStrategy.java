@@ -0,0 +1,96 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+/**
+ * Tells a blocked operation of a {@link SingleSlotBlockingQueue} how to wait
+ * for the queue to change. The operation calls {@link #idle(int)} each time
+ * it finds the queue full (or empty) and checks it again when the call
+ * returns {@code false}, so the strategy may spin or yield before returning.
+ * When the call returns {@code true}, the thread is parked until another
+ * thread changes the queue, the thread is interrupted or the operation times
+ * out.
+ * <p>
+ * Implementations must be stateless, a strategy being shared by all the
+ * threads using a queue, and serializable to keep the queue serializable.
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public interface WaitStrategy {
+
+	/**
+	 * Number of rounds spinning before yielding in
+	 * {@link #spinYieldPark()}.
+	 */
+	int DEFAULT_SPINS = 256;
+
+	/**
+	 * Number of rounds yielding before parking in {@link #spinYieldPark()}.
+	 */
+	int DEFAULT_YIELDS = 32;
+
+	/**
+	 * Wait for the queue to change.
+	 * 
+	 * @param round
+	 *            - the number of previous calls during the same operation
+	 * @return {@code true} to park the calling thread, {@code false} to check
+	 *         the queue again at once
+	 */
+	boolean idle(int round);
+
+	/**
+	 * Keep checking the queue without ever yielding or parking. It gives the
+	 * lowest latency to threads pinned to dedicated cores, and burns a core
+	 * for each blocked thread.
+	 */
+	static WaitStrategy busySpin() {
+		return SpinYieldPark.BUSY_SPIN;
+	}
+
+	/**
+	 * Park the thread as soon as the queue is found full (or empty).
+	 */
+	static WaitStrategy park() {
+		return SpinYieldPark.PARK;
+	}
+
+	/**
+	 * Spin {@link #DEFAULT_SPINS} rounds, then yield {@link #DEFAULT_YIELDS}
+	 * rounds, then park. This is the strategy of a queue created without one.
+	 */
+	static WaitStrategy spinYieldPark() {
+		return SpinYieldPark.DEFAULT;
+	}
+
+	/**
+	 * Spin, then yield, then park.
+	 * 
+	 * @param spins
+	 *            - the number of rounds checking the queue again at once
+	 * @param yields
+	 *            - the number of rounds yielding before checking the queue
+	 *            again, once done spinning
+	 * @throws IllegalArgumentException
+	 *             if a number of rounds is negative
+	 */
+	static WaitStrategy spinYieldPark(int spins, int yields) {
+		return new SpinYieldPark(spins, yields, true);
+	}
+
+}
@@ -0,0 +1,142 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Concurrent registry of canonical instances, keyed by {@code equals} and
+ * {@code hashCode}, that only holds weak references to them: a canonical
+ * instance is dropped from the registry once no caller references it anymore.
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+final class WeakInterner {
+
+	private final ConcurrentHashMap<Object, WeakKey> map = new ConcurrentHashMap<Object, WeakKey>();
+
+	private final ReferenceQueue<Object> queue = new ReferenceQueue<Object>();
+
+	/**
+	 * Weak reference to a canonical instance, used both as key and value of
+	 * the registry. The hash code is kept so that the entry can still be found
+	 * and removed after the referent has been collected.
+	 */
+	private static final class WeakKey extends WeakReference<Object> {
+
+		private final int hash;
+
+		WeakKey(Object referent, ReferenceQueue<Object> queue) {
+			super(referent, queue);
+			hash = referent.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof WeakKey))
+				return false;
+			Object referent = get();
+			return referent != null && referent.equals(((WeakKey) obj).get());
+		}
+
+	}
+
+	/**
+	 * Short-lived key used to look a sample up in the registry without
+	 * creating a weak reference.
+	 */
+	private static final class Lookup {
+
+		private final Object sample;
+		private final int hash;
+
+		Lookup(Object sample) {
+			this.sample = sample;
+			hash = sample.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof WeakKey))
+				return false;
+			Object referent = ((WeakKey) obj).get();
+			return referent != null && sample.equals(referent);
+		}
+
+	}
+
+	/**
+	 * Get the canonical instance equal to the given sample. If there is none,
+	 * the sample itself becomes the canonical instance.
+	 * 
+	 * @param sample
+	 *            - the object to intern, must not be {@code null}
+	 * @return the canonical instance, identical to {@code sample} if it was
+	 *         registered by this call
+	 */
+	Object intern(Object sample) {
+		expungeStaleEntries();
+		Lookup lookup = new Lookup(sample);
+		for (;;) {
+			WeakKey existing = map.get(lookup);
+			if (existing == null) {
+				WeakKey key = new WeakKey(sample, queue);
+				existing = map.putIfAbsent(key, key);
+				if (existing == null)
+					return sample;
+			}
+			Object canonical = existing.get();
+			if (canonical != null)
+				return canonical;
+			map.remove(existing, existing);
+		}
+	}
+
+	/**
+	 * Get the number of canonical instances currently registered, including
+	 * the ones collected but not yet expunged.
+	 * 
+	 * @return the size of the registry
+	 */
+	int size() {
+		expungeStaleEntries();
+		return map.size();
+	}
+
+	private void expungeStaleEntries() {
+		Object ref;
+		while ((ref = queue.poll()) != null) {
+			map.remove(ref, ref);
+		}
+	}
+
+}
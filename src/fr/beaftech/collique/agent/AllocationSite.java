@@ -0,0 +1,118 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique.agent;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of the sampled collections allocated at one site.
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+final class AllocationSite {
+
+	/**
+	 * Instance state bit set once the collection held one element.
+	 */
+	static final byte REACHED_ONE = 1;
+
+	/**
+	 * Instance state bit set once the collection held two elements.
+	 */
+	static final byte REACHED_TWO = 2;
+
+	final CollectionKind kind;
+
+	final String location;
+
+	private final LongAdder sampled = new LongAdder();
+
+	private final LongAdder reachedOne = new LongAdder();
+
+	private final LongAdder reachedTwo = new LongAdder();
+
+	AllocationSite(CollectionKind kind, String location) {
+		this.kind = kind;
+		this.location = location;
+	}
+
+	/**
+	 * Record the allocation of a sampled collection.
+	 * 
+	 * @param size
+	 *            - the initial size of the collection
+	 * @return the initial state of the collection
+	 */
+	byte allocated(int size) {
+		sampled.increment();
+		return record((byte) 0, size);
+	}
+
+	/**
+	 * Record the current size of a sampled collection.
+	 * 
+	 * @param state
+	 *            - the state of the collection
+	 * @param size
+	 *            - the current size of the collection
+	 * @return the new state of the collection
+	 */
+	byte record(byte state, int size) {
+		if (size >= 1 && (state & REACHED_ONE) == 0) {
+			reachedOne.increment();
+			state |= REACHED_ONE;
+		}
+		if (size >= 2 && (state & REACHED_TWO) == 0) {
+			reachedTwo.increment();
+			state |= REACHED_TWO;
+		}
+		return state;
+	}
+
+	long sampled() {
+		return sampled.sum();
+	}
+
+	/**
+	 * @return the number of sampled collections that never held an element
+	 */
+	long stayedEmpty() {
+		return sampled.sum() - reachedOne.sum();
+	}
+
+	/**
+	 * @return the number of sampled collections that held at most one element
+	 */
+	long stayedSingle() {
+		return reachedOne.sum() - reachedTwo.sum();
+	}
+
+	/**
+	 * @param sampleRate
+	 *            - one in how many allocations is sampled
+	 * @return the estimated number of bytes saved by using a single element
+	 *         collection for all the allocations of this site that stayed
+	 *         below two elements
+	 */
+	long estimatedSavedBytes(int sampleRate) {
+		return sampleRate
+				* (stayedEmpty() * kind.savedWhenEmpty + stayedSingle()
+						* kind.savedWhenSingle);
+	}
+
+}
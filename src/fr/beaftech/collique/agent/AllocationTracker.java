@@ -0,0 +1,171 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique.agent;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Registry of the allocation sites of the tracked collections. One in
+ * {@link #sampleRate()} allocations is sampled: its site is located by walking
+ * the stack, and the sizes reached by the collection are recorded. Unsampled
+ * collections only pay a null check on their mutators.
+ * <p>
+ * Counts in the report are estimated by multiplying the sampled counts by the
+ * sample rate.
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public final class AllocationTracker {
+
+	private static volatile int sampleRate = 64;
+
+	private static final ConcurrentMap<String, AllocationSite> SITES = new ConcurrentHashMap<String, AllocationSite>();
+
+	private AllocationTracker() {
+	}
+
+	/**
+	 * @return one in how many allocations is sampled
+	 */
+	public static int sampleRate() {
+		return sampleRate;
+	}
+
+	/**
+	 * Set the sampling rate. A rate of 1 samples every allocation.
+	 * 
+	 * @param rate
+	 *            - one in how many allocations is sampled
+	 * @throws IllegalArgumentException
+	 *             if the rate is not positive
+	 */
+	public static void setSampleRate(int rate) {
+		if (rate < 1)
+			throw new IllegalArgumentException("Illegal sample rate: " + rate);
+		sampleRate = rate;
+	}
+
+	/**
+	 * Forget all the recorded allocation sites.
+	 */
+	public static void reset() {
+		SITES.clear();
+	}
+
+	/**
+	 * Decide whether the collection being allocated is sampled.
+	 * 
+	 * @param kind
+	 *            - the kind of the collection
+	 * @return the allocation site of the collection if it is sampled,
+	 *         {@code null} otherwise
+	 */
+	static AllocationSite sample(CollectionKind kind) {
+		int rate = sampleRate;
+		if (rate > 1 && ThreadLocalRandom.current().nextInt(rate) != 0)
+			return null;
+		String location = callerLocation();
+		String key = kind.ordinal() + location;
+		AllocationSite site = SITES.get(key);
+		if (site == null) {
+			AllocationSite created = new AllocationSite(kind, location);
+			site = SITES.putIfAbsent(key, created);
+			if (site == null)
+				site = created;
+		}
+		return site;
+	}
+
+	/**
+	 * @return the first stack frame outside of the tracker and of the
+	 *         constructors of the tracked collections
+	 */
+	private static String callerLocation() {
+		for (StackTraceElement frame : new Throwable().getStackTrace()) {
+			String c = frame.getClassName();
+			if (!c.equals(AllocationTracker.class.getName())
+					&& !("<init>".equals(frame.getMethodName()) && isTracked(c)))
+				return frame.toString();
+		}
+		return "unknown";
+	}
+
+	private static boolean isTracked(String className) {
+		return className.equals(TrackedArrayList.class.getName())
+				|| className.equals(TrackedHashSet.class.getName())
+				|| className.equals(TrackedHashMap.class.getName());
+	}
+
+	/**
+	 * Write the report of the recorded allocation sites, the sites which
+	 * would save the most memory first.
+	 * 
+	 * @param out
+	 *            - the writer receiving the report
+	 */
+	public static void writeReport(Writer out) {
+		final int rate = sampleRate;
+		List<AllocationSite> sites = new ArrayList<AllocationSite>(
+				SITES.values());
+		Collections.sort(sites, new Comparator<AllocationSite>() {
+
+			@Override
+			public int compare(AllocationSite s1, AllocationSite s2) {
+				return Long.compare(s2.estimatedSavedBytes(rate),
+						s1.estimatedSavedBytes(rate));
+			}
+
+		});
+		PrintWriter writer = new PrintWriter(out);
+		writer.printf(Locale.ROOT,
+				"Collique allocation sites (1 in %d allocations sampled)%n",
+				rate);
+		writer.printf(Locale.ROOT, "%-10s %12s %7s %7s %7s %12s  %-18s %s%n",
+				"class", "allocations", "size 0", "size 1", "<= 1", "saved",
+				"replacement", "site");
+		for (AllocationSite site : sites) {
+			long sampled = site.sampled();
+			double empty = 100.0 * site.stayedEmpty() / sampled;
+			double single = 100.0 * site.stayedSingle() / sampled;
+			writer.printf(Locale.ROOT,
+					"%-10s %12d %6.1f%% %6.1f%% %6.1f%% %12s  %-18s %s%n",
+					site.kind.jdkName, sampled * rate, empty, single, empty
+							+ single, bytes(site.estimatedSavedBytes(rate)),
+					site.kind.replacementName, site.location);
+		}
+		writer.flush();
+	}
+
+	private static String bytes(long bytes) {
+		if (bytes < 1024)
+			return bytes + " B";
+		if (bytes < 1024 * 1024)
+			return String.format(Locale.ROOT, "%.1f KiB", bytes / 1024.0);
+		return String.format(Locale.ROOT, "%.1f MiB", bytes / 1048576.0);
+	}
+
+}
@@ -0,0 +1,84 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique.agent;
+
+import java.lang.instrument.ClassFileTransformer;
+import java.security.ProtectionDomain;
+
+/**
+ * Transformer redirecting the collection allocations of application classes
+ * to the tracked collections. Classes loaded by the bootstrap or the platform
+ * class loader cannot see the agent and are left untouched, as are the
+ * Collique classes.
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+final class AllocationTransformer implements ClassFileTransformer {
+
+	private static final String[] EXCLUDED = { "java/", "javax/", "jdk/",
+			"sun/", "com/sun/", "fr/beaftech/collique/" };
+
+	private final ClassLoader platformLoader = ClassLoader
+			.getSystemClassLoader().getParent();
+
+	/**
+	 * Internal name prefixes of the instrumented classes, all application
+	 * classes when empty.
+	 */
+	private final String[] included;
+
+	/**
+	 * @param included
+	 *            - binary name prefixes of the instrumented classes, all
+	 *            application classes when empty
+	 */
+	AllocationTransformer(String... included) {
+		this.included = new String[included.length];
+		for (int i = 0; i < included.length; i++)
+			this.included[i] = included[i].replace('.', '/');
+	}
+
+	boolean instruments(ClassLoader loader, String className) {
+		if (loader == null || loader == platformLoader || className == null)
+			return false;
+		for (String prefix : EXCLUDED)
+			if (className.startsWith(prefix))
+				return false;
+		if (included.length == 0)
+			return true;
+		for (String prefix : included)
+			if (className.startsWith(prefix))
+				return true;
+		return false;
+	}
+
+	@Override
+	public byte[] transform(ClassLoader loader, String className,
+			Class<?> classBeingRedefined, ProtectionDomain protectionDomain,
+			byte[] classfileBuffer) {
+		if (classBeingRedefined != null || !instruments(loader, className))
+			return null;
+		try {
+			return ClassRewriter.rewrite(classfileBuffer);
+		} catch (IllegalArgumentException e) {
+			// leave the class untouched rather than failing its loading
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,341 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique.agent;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Minimal class file rewriter redirecting the allocations of
+ * {@code ArrayList}, {@code HashMap} and {@code HashSet} to their tracked
+ * subclasses. For each target class referenced by the class, a constant for
+ * the tracked subclass and one method reference per constructor used are
+ * appended to the constant pool; then the operand of every {@code new} of the
+ * target and of every {@code invokespecial} of one of its constructors is
+ * patched in place. The code keeps its length and its stack map frames stay
+ * valid, the tracked classes being subclasses of the targets. Other uses of
+ * the targets ({@code checkcast}, method calls, field types...) are left
+ * untouched.
+ * <p>
+ * Classes extending one of the targets are not rewritten: the
+ * {@code invokespecial} of their constructors initializes {@code this}, not a
+ * new instance. Constructor references ({@code ArrayList::new}) are not
+ * rewritten either.
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+final class ClassRewriter {
+
+	/**
+	 * Internal names of the target classes and of their tracked subclasses.
+	 */
+	static final String[][] TARGETS = {
+			{ "java/util/ArrayList",
+					"fr/beaftech/collique/agent/TrackedArrayList" },
+			{ "java/util/HashMap", "fr/beaftech/collique/agent/TrackedHashMap" },
+			{ "java/util/HashSet", "fr/beaftech/collique/agent/TrackedHashSet" } };
+
+	private static final int UTF8 = 1;
+	private static final int CLASS = 7;
+	private static final int METHODREF = 10;
+	private static final int NAME_AND_TYPE = 12;
+
+	private static final int NEW = 0xbb;
+	private static final int INVOKESPECIAL = 0xb7;
+	private static final int TABLESWITCH = 0xaa;
+	private static final int LOOKUPSWITCH = 0xab;
+	private static final int WIDE = 0xc4;
+	private static final int IINC = 0x84;
+
+	/**
+	 * Length of each fixed-size instruction, indexed by opcode.
+	 */
+	private static final int[] LENGTHS = new int[256];
+
+	static {
+		Arrays.fill(LENGTHS, 1);
+		fill(0x10, 0x10, 2); // bipush
+		fill(0x11, 0x11, 3); // sipush
+		fill(0x12, 0x12, 2); // ldc
+		fill(0x13, 0x14, 3); // ldc_w, ldc2_w
+		fill(0x15, 0x19, 2); // xload
+		fill(0x36, 0x3a, 2); // xstore
+		fill(0x84, 0x84, 3); // iinc
+		fill(0x99, 0xa8, 3); // if*, goto, jsr
+		fill(0xa9, 0xa9, 2); // ret
+		fill(0xb2, 0xb8, 3); // field accesses, invokevirtual/special/static
+		fill(0xb9, 0xba, 5); // invokeinterface, invokedynamic
+		fill(0xbb, 0xbb, 3); // new
+		fill(0xbc, 0xbc, 2); // newarray
+		fill(0xbd, 0xbd, 3); // anewarray
+		fill(0xc0, 0xc1, 3); // checkcast, instanceof
+		fill(0xc5, 0xc5, 4); // multianewarray
+		fill(0xc6, 0xc7, 3); // ifnull, ifnonnull
+		fill(0xc8, 0xc9, 5); // goto_w, jsr_w
+	}
+
+	private static void fill(int from, int to, int length) {
+		Arrays.fill(LENGTHS, from, to + 1, length);
+	}
+
+	private final byte[] b;
+
+	private final int[] offsets;
+
+	/**
+	 * Index in {@link #TARGETS} of each constant pool entry that is a target
+	 * class, -1 for the other entries.
+	 */
+	private final int[] targetClass;
+
+	/**
+	 * Replacement of each constant pool entry that is a constructor reference
+	 * of a target class, 0 for the other entries.
+	 */
+	private final int[] initReplacement;
+
+	private final int[] trackedClass = new int[TARGETS.length];
+
+	private int constantPoolEnd;
+
+	private boolean changed;
+
+	private ClassRewriter(byte[] b) {
+		this.b = b;
+		int count = u2(8);
+		offsets = new int[count];
+		targetClass = new int[count];
+		initReplacement = new int[count];
+		Arrays.fill(targetClass, -1);
+	}
+
+	/**
+	 * Rewrite the given class file.
+	 * 
+	 * @param classFile
+	 *            - the original class file
+	 * @return the rewritten class file, or {@code null} if the class does not
+	 *         allocate any target class
+	 * @throws IllegalArgumentException
+	 *             if the class file is malformed
+	 */
+	static byte[] rewrite(byte[] classFile) {
+		try {
+			return new ClassRewriter(classFile).rewrite();
+		} catch (ArrayIndexOutOfBoundsException e) {
+			throw new IllegalArgumentException("Malformed class file", e);
+		}
+	}
+
+	private byte[] rewrite() {
+		parseConstantPool();
+		boolean any = false;
+		for (int i = 1; i < offsets.length; i++) {
+			if (tag(i) == CLASS) {
+				String name = utf8(u2(offsets[i] + 1));
+				for (int t = 0; t < TARGETS.length; t++)
+					if (TARGETS[t][0].equals(name)) {
+						targetClass[i] = t;
+						any = true;
+					}
+			}
+		}
+		int superClass = u2(constantPoolEnd + 4);
+		if (!any || superClass != 0 && targetClass[superClass] >= 0)
+			return null;
+
+		// append the tracked classes and their constructor references
+		ByteArrayOutputStream extra = new ByteArrayOutputStream();
+		int next = offsets.length;
+		for (int i = 1; i < offsets.length; i++) {
+			if (tag(i) != METHODREF)
+				continue;
+			int t = targetClass[u2(offsets[i] + 1)];
+			int nameAndType = u2(offsets[i] + 3);
+			if (t < 0 || !"<init>".equals(utf8(u2(offsets[nameAndType] + 1))))
+				continue;
+			if (trackedClass[t] == 0) {
+				byte[] name = TARGETS[t][1].getBytes(StandardCharsets.UTF_8);
+				extra.write(UTF8);
+				writeU2(extra, name.length);
+				extra.write(name, 0, name.length);
+				extra.write(CLASS);
+				writeU2(extra, next);
+				trackedClass[t] = next + 1;
+				next += 2;
+			}
+			extra.write(METHODREF);
+			writeU2(extra, trackedClass[t]);
+			writeU2(extra, nameAndType);
+			initReplacement[i] = next++;
+		}
+		if (next == offsets.length || next > 0xffff)
+			return null;
+
+		int shift = extra.size();
+		byte[] out = new byte[b.length + shift];
+		System.arraycopy(b, 0, out, 0, constantPoolEnd);
+		out[8] = (byte) (next >>> 8);
+		out[9] = (byte) next;
+		System.arraycopy(extra.toByteArray(), 0, out, constantPoolEnd, shift);
+		System.arraycopy(b, constantPoolEnd, out, constantPoolEnd + shift,
+				b.length - constantPoolEnd);
+		patchMethods(out, shift);
+		return changed ? out : null;
+	}
+
+	private void parseConstantPool() {
+		int p = 10;
+		for (int i = 1; i < offsets.length; i++) {
+			offsets[i] = p;
+			switch (b[p] & 0xff) {
+			case UTF8:
+				p += 3 + u2(p + 1);
+				break;
+			case 3: // Integer
+			case 4: // Float
+			case 9: // Fieldref
+			case METHODREF:
+			case 11: // InterfaceMethodref
+			case NAME_AND_TYPE:
+			case 17: // Dynamic
+			case 18: // InvokeDynamic
+				p += 5;
+				break;
+			case 5: // Long
+			case 6: // Double
+				p += 9;
+				i++;
+				break;
+			case CLASS:
+			case 8: // String
+			case 16: // MethodType
+			case 19: // Module
+			case 20: // Package
+				p += 3;
+				break;
+			case 15: // MethodHandle
+				p += 4;
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown constant tag "
+						+ (b[p] & 0xff));
+			}
+		}
+		constantPoolEnd = p;
+	}
+
+	private void patchMethods(byte[] out, int shift) {
+		int p = constantPoolEnd + 6;
+		p += 2 + 2 * u2(p); // interfaces
+		p = skipMembers(p); // fields
+		int methods = u2(p);
+		p += 2;
+		for (int m = 0; m < methods; m++) {
+			int attributes = u2(p + 6);
+			p += 8;
+			for (int a = 0; a < attributes; a++) {
+				int length = u4(p + 2);
+				if ("Code".equals(utf8(u2(p))))
+					patchCode(out, p + 14, u4(p + 10), shift);
+				p += 6 + length;
+			}
+		}
+	}
+
+	private int skipMembers(int p) {
+		int count = u2(p);
+		p += 2;
+		for (int i = 0; i < count; i++) {
+			int attributes = u2(p + 6);
+			p += 8;
+			for (int a = 0; a < attributes; a++)
+				p += 6 + u4(p + 2);
+		}
+		return p;
+	}
+
+	private void patchCode(byte[] out, int start, int length, int shift) {
+		int pc = 0;
+		while (pc < length) {
+			int p = start + pc;
+			int op = b[p] & 0xff;
+			if (op == NEW) {
+				int t = targetClass[u2(p + 1)];
+				if (t >= 0 && trackedClass[t] != 0)
+					patchU2(out, p + 1 + shift, trackedClass[t]);
+			} else if (op == INVOKESPECIAL) {
+				int replacement = initReplacement[u2(p + 1)];
+				if (replacement != 0)
+					patchU2(out, p + 1 + shift, replacement);
+			}
+			pc += instructionLength(op, pc, start);
+		}
+	}
+
+	private int instructionLength(int op, int pc, int start) {
+		int pad = 3 - (pc & 3);
+		switch (op) {
+		case TABLESWITCH: {
+			int base = start + pc + 1 + pad;
+			return 1 + pad + 12 + 4 * (u4(base + 8) - u4(base + 4) + 1);
+		}
+		case LOOKUPSWITCH:
+			return 1 + pad + 8 + 8 * u4(start + pc + 1 + pad + 4);
+		case WIDE:
+			return (b[start + pc + 1] & 0xff) == IINC ? 6 : 4;
+		default:
+			return LENGTHS[op];
+		}
+	}
+
+	private void patchU2(byte[] out, int p, int value) {
+		out[p] = (byte) (value >>> 8);
+		out[p + 1] = (byte) value;
+		changed = true;
+	}
+
+	private int tag(int index) {
+		return offsets[index] == 0 ? 0 : b[offsets[index]] & 0xff;
+	}
+
+	/**
+	 * Decode a constant pool UTF-8 entry. Class and member names compared by
+	 * this rewriter are ASCII, so other characters need no exact decoding.
+	 */
+	private String utf8(int index) {
+		int p = offsets[index];
+		return new String(b, p + 3, u2(p + 1), StandardCharsets.UTF_8);
+	}
+
+	private int u2(int p) {
+		return (b[p] & 0xff) << 8 | b[p + 1] & 0xff;
+	}
+
+	private int u4(int p) {
+		return (b[p] & 0xff) << 24 | (b[p + 1] & 0xff) << 16
+				| (b[p + 2] & 0xff) << 8 | b[p + 3] & 0xff;
+	}
+
+	private static void writeU2(ByteArrayOutputStream out, int value) {
+		out.write(value >>> 8);
+		out.write(value);
+	}
+
+}
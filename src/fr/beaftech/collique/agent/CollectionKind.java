@@ -0,0 +1,64 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique.agent;
+
+/**
+ * The tracked collection classes, with the estimated footprint saved by
+ * replacing an instance holding zero or one element by its Collique
+ * counterpart. The estimates assume a 64-bit JVM with compressed oops and
+ * collections created with their default capacity.
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+enum CollectionKind {
+
+	/**
+	 * {@code ArrayList} (24 bytes, 80 with a 10 slots array) replaced by a
+	 * {@code SingleElementList} (16 bytes).
+	 */
+	ARRAY_LIST("ArrayList", "SingleElementList", 8, 64),
+
+	/**
+	 * {@code HashSet} (16 bytes plus its map) replaced by a
+	 * {@code SingleElementSet} (16 bytes).
+	 */
+	HASH_SET("HashSet", "SingleElementSet", 48, 160),
+
+	/**
+	 * {@code HashMap} (48 bytes, 160 with a 16 buckets table and a node)
+	 * replaced by a {@code SingleElementMap} (24 bytes).
+	 */
+	HASH_MAP("HashMap", "SingleElementMap", 24, 136);
+
+	final String jdkName;
+
+	final String replacementName;
+
+	final int savedWhenEmpty;
+
+	final int savedWhenSingle;
+
+	private CollectionKind(String jdkName, String replacementName,
+			int savedWhenEmpty, int savedWhenSingle) {
+		this.jdkName = jdkName;
+		this.replacementName = replacementName;
+		this.savedWhenEmpty = savedWhenEmpty;
+		this.savedWhenSingle = savedWhenSingle;
+	}
+
+}
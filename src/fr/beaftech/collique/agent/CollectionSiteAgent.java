@@ -0,0 +1,121 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique.agent;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.instrument.Instrumentation;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Java agent finding the allocation sites of {@code ArrayList},
+ * {@code HashMap} and {@code HashSet} whose instances never hold more than
+ * one element, and could therefore be replaced by a Collique single element
+ * collection. The report is written when the JVM exits.
+ * <p>
+ * The agent is enabled with
+ * {@code -javaagent:collique-agent.jar[=option,...]}, the options being:
+ * <ul>
+ * <li>{@code rate=<n>}: sample one in {@code n} allocations (64 by default),</li>
+ * <li>{@code include=<prefix>|<prefix>...}: only instrument the classes whose
+ * name starts with one of the prefixes,</li>
+ * <li>{@code report=<file>}: write the report to a file instead of the
+ * standard error.</li>
+ * </ul>
+ * Only the classes loaded after the agent starts are instrumented.
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public final class CollectionSiteAgent {
+
+	private CollectionSiteAgent() {
+	}
+
+	/**
+	 * Entry point when the agent is given on the command line.
+	 * 
+	 * @param args
+	 *            - the agent options
+	 * @param instrumentation
+	 *            - the instrumentation services
+	 */
+	public static void premain(String args, Instrumentation instrumentation) {
+		install(args, instrumentation);
+	}
+
+	/**
+	 * Entry point when the agent is attached to a running JVM.
+	 * 
+	 * @param args
+	 *            - the agent options
+	 * @param instrumentation
+	 *            - the instrumentation services
+	 */
+	public static void agentmain(String args, Instrumentation instrumentation) {
+		install(args, instrumentation);
+	}
+
+	private static void install(String args, Instrumentation instrumentation) {
+		String[] included = {};
+		String report = null;
+		if (args != null && !args.isEmpty()) {
+			for (String option : args.split(",")) {
+				int equals = option.indexOf('=');
+				String name = equals < 0 ? option : option.substring(0, equals);
+				String value = equals < 0 ? "" : option.substring(equals + 1);
+				if ("rate".equals(name))
+					AllocationTracker.setSampleRate(Integer.parseInt(value));
+				else if ("include".equals(name))
+					included = value.split("\\|");
+				else if ("report".equals(name))
+					report = value;
+				else
+					throw new IllegalArgumentException("Unknown agent option: "
+							+ option);
+			}
+		}
+		instrumentation.addTransformer(new AllocationTransformer(included));
+		final String reportFile = report;
+		Runtime.getRuntime().addShutdownHook(
+				new Thread("collique-agent-report") {
+
+					@Override
+					public void run() {
+						writeReport(reportFile);
+					}
+
+				});
+	}
+
+	private static void writeReport(String file) {
+		if (file == null) {
+			AllocationTracker.writeReport(new PrintWriter(System.err));
+			return;
+		}
+		try (Writer out = new OutputStreamWriter(new FileOutputStream(file),
+				StandardCharsets.UTF_8)) {
+			AllocationTracker.writeReport(out);
+		} catch (IOException e) {
+			System.err.println("Cannot write the Collique agent report: " + e);
+		}
+	}
+
+}
@@ -0,0 +1,96 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique.agent;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * {@code ArrayList} recording the sizes it reaches when sampled. The agent
+ * redirects the allocations of {@code ArrayList} to this class; it serializes
+ * as a plain {@code ArrayList}. Elements added through an iterator or a sub
+ * list are not seen.
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class TrackedArrayList<E> extends ArrayList<E> {
+
+	private static final long serialVersionUID = 1L;
+
+	private final transient AllocationSite site;
+
+	private transient byte state;
+
+	public TrackedArrayList() {
+		super();
+		site = AllocationTracker.sample(CollectionKind.ARRAY_LIST);
+		if (site != null)
+			state = site.allocated(0);
+	}
+
+	public TrackedArrayList(int initialCapacity) {
+		super(initialCapacity);
+		site = AllocationTracker.sample(CollectionKind.ARRAY_LIST);
+		if (site != null)
+			state = site.allocated(0);
+	}
+
+	public TrackedArrayList(Collection<? extends E> c) {
+		super(c);
+		site = AllocationTracker.sample(CollectionKind.ARRAY_LIST);
+		if (site != null)
+			state = site.allocated(size());
+	}
+
+	private void track() {
+		if (site != null)
+			state = site.record(state, size());
+	}
+
+	@Override
+	public boolean add(E e) {
+		super.add(e);
+		track();
+		return true;
+	}
+
+	@Override
+	public void add(int index, E element) {
+		super.add(index, element);
+		track();
+	}
+
+	@Override
+	public boolean addAll(Collection<? extends E> c) {
+		boolean modified = super.addAll(c);
+		track();
+		return modified;
+	}
+
+	@Override
+	public boolean addAll(int index, Collection<? extends E> c) {
+		boolean modified = super.addAll(index, c);
+		track();
+		return modified;
+	}
+
+	private Object writeReplace() {
+		return new ArrayList<E>(this);
+	}
+
+}
@@ -0,0 +1,121 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique.agent;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * {@code HashMap} recording the sizes it reaches when sampled. The agent
+ * redirects the allocations of {@code HashMap} to this class; it serializes
+ * as a plain {@code HashMap}.
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class TrackedHashMap<K, V> extends HashMap<K, V> {
+
+	private static final long serialVersionUID = 1L;
+
+	private final transient AllocationSite site;
+
+	private transient byte state;
+
+	public TrackedHashMap() {
+		super();
+		site = AllocationTracker.sample(CollectionKind.HASH_MAP);
+		if (site != null)
+			state = site.allocated(0);
+	}
+
+	public TrackedHashMap(int initialCapacity) {
+		super(initialCapacity);
+		site = AllocationTracker.sample(CollectionKind.HASH_MAP);
+		if (site != null)
+			state = site.allocated(0);
+	}
+
+	public TrackedHashMap(int initialCapacity, float loadFactor) {
+		super(initialCapacity, loadFactor);
+		site = AllocationTracker.sample(CollectionKind.HASH_MAP);
+		if (site != null)
+			state = site.allocated(0);
+	}
+
+	public TrackedHashMap(Map<? extends K, ? extends V> m) {
+		super(m);
+		site = AllocationTracker.sample(CollectionKind.HASH_MAP);
+		if (site != null)
+			state = site.allocated(size());
+	}
+
+	private void track() {
+		if (site != null)
+			state = site.record(state, size());
+	}
+
+	@Override
+	public V put(K key, V value) {
+		V previous = super.put(key, value);
+		track();
+		return previous;
+	}
+
+	@Override
+	public void putAll(Map<? extends K, ? extends V> m) {
+		super.putAll(m);
+		track();
+	}
+
+	@Override
+	public V putIfAbsent(K key, V value) {
+		V previous = super.putIfAbsent(key, value);
+		track();
+		return previous;
+	}
+
+	@Override
+	public V computeIfAbsent(K key,
+			Function<? super K, ? extends V> mappingFunction) {
+		V value = super.computeIfAbsent(key, mappingFunction);
+		track();
+		return value;
+	}
+
+	@Override
+	public V compute(K key,
+			BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+		V value = super.compute(key, remappingFunction);
+		track();
+		return value;
+	}
+
+	@Override
+	public V merge(K key, V value,
+			BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+		V merged = super.merge(key, value, remappingFunction);
+		track();
+		return merged;
+	}
+
+	private Object writeReplace() {
+		return new HashMap<K, V>(this);
+	}
+
+}
@@ -0,0 +1,89 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique.agent;
+
+import java.util.Collection;
+import java.util.HashSet;
+
+/**
+ * {@code HashSet} recording the sizes it reaches when sampled. The agent
+ * redirects the allocations of {@code HashSet} to this class; it serializes
+ * as a plain {@code HashSet}.
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class TrackedHashSet<E> extends HashSet<E> {
+
+	private static final long serialVersionUID = 1L;
+
+	private final transient AllocationSite site;
+
+	private transient byte state;
+
+	public TrackedHashSet() {
+		super();
+		site = AllocationTracker.sample(CollectionKind.HASH_SET);
+		if (site != null)
+			state = site.allocated(0);
+	}
+
+	public TrackedHashSet(int initialCapacity) {
+		super(initialCapacity);
+		site = AllocationTracker.sample(CollectionKind.HASH_SET);
+		if (site != null)
+			state = site.allocated(0);
+	}
+
+	public TrackedHashSet(int initialCapacity, float loadFactor) {
+		super(initialCapacity, loadFactor);
+		site = AllocationTracker.sample(CollectionKind.HASH_SET);
+		if (site != null)
+			state = site.allocated(0);
+	}
+
+	public TrackedHashSet(Collection<? extends E> c) {
+		super(c);
+		site = AllocationTracker.sample(CollectionKind.HASH_SET);
+		if (site != null)
+			state = site.allocated(size());
+	}
+
+	private void track() {
+		if (site != null)
+			state = site.record(state, size());
+	}
+
+	@Override
+	public boolean add(E e) {
+		boolean added = super.add(e);
+		track();
+		return added;
+	}
+
+	@Override
+	public boolean addAll(Collection<? extends E> c) {
+		boolean modified = super.addAll(c);
+		track();
+		return modified;
+	}
+
+	private Object writeReplace() {
+		return new HashSet<E>(this);
+	}
+
+}
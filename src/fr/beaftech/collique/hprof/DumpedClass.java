@@ -0,0 +1,46 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique.hprof;
+
+/**
+ * Instance field layout of a class read from a heap dump.
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+final class DumpedClass {
+
+	final long id;
+
+	final long superId;
+
+	/**
+	 * Identifiers of the names of the instance fields declared by the class,
+	 * in the order of their values in the instance records.
+	 */
+	final long[] fieldNames;
+
+	final byte[] fieldTypes;
+
+	DumpedClass(long id, long superId, long[] fieldNames, byte[] fieldTypes) {
+		this.id = id;
+		this.superId = superId;
+		this.fieldNames = fieldNames;
+		this.fieldTypes = fieldTypes;
+	}
+
+}
@@ -0,0 +1,486 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique.hprof;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import fr.beaftech.collique.hprof.HeapDumpReport.Kind;
+
+/**
+ * Offline analyzer of HPROF heap dumps estimating the memory that Collique
+ * collections would reclaim. It counts the instances of {@code ArrayList},
+ * {@code LinkedList}, {@code HashSet}, {@code HashMap} and {@code TreeMap} by
+ * size, and sums the retained bytes of the ones holding zero or one element
+ * minus the footprint of their Collique replacement.
+ * <p>
+ * The dump is streamed through a fixed-size window, never loaded. Sizing an
+ * {@code ArrayList} or a {@code HashMap} needs the length of the array it
+ * references, and sizing a {@code HashSet} needs the size of its backing map,
+ * which can be anywhere in the dump: these references are resolved by further
+ * passes over the dump. The analyzer holds at most about
+ * {@code maxPendingReferences} pending references at once: when the dump holds
+ * more collections, they are split into partitions analyzed one after the
+ * other, trading passes for memory.
+ * <p>
+ * Shallow sizes are computed from the dumped fields with an 8 bytes
+ * alignment. With compressed oops, objects have a 12 bytes header and arrays
+ * a 16 bytes one. Without them, which also disables compressed class pointers
+ * up to Java 14, objects have a 16 bytes header and the elements of arrays
+ * start after a 20 bytes header aligned to 24 bytes.
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class HeapDumpAnalyzer {
+
+	private static final String[] FIELDS = { "size", "elementData", "table",
+			"map" };
+
+	private static final String HASH_MAP_NODE = "java/util/HashMap$Node";
+	private static final String LINKED_LIST_NODE = "java/util/LinkedList$Node";
+	private static final String TREE_MAP_ENTRY = "java/util/TreeMap$Entry";
+
+	private final boolean compressedOops;
+
+	private final int maxPendingReferences;
+
+	private int windowSize = HprofInput.DEFAULT_WINDOW;
+
+	/**
+	 * Create an analyzer for a JVM using compressed references, holding at most
+	 * about 4 millions pending references.
+	 */
+	public HeapDumpAnalyzer() {
+		this(true, 1 << 22);
+	}
+
+	/**
+	 * @param compressedOops
+	 *            - whether the dumped JVM used 4 bytes references, and the
+	 *            smaller object and array headers that go with them
+	 * @param maxPendingReferences
+	 *            - the number of pending references held in memory above
+	 *            which the collections are analyzed by partitions
+	 */
+	public HeapDumpAnalyzer(boolean compressedOops, int maxPendingReferences) {
+		if (maxPendingReferences < 1)
+			throw new IllegalArgumentException(
+					"Illegal maximum number of pending references: "
+							+ maxPendingReferences);
+		this.compressedOops = compressedOops;
+		this.maxPendingReferences = maxPendingReferences;
+	}
+
+	/**
+	 * Set the size of the read window, for tests.
+	 */
+	HeapDumpAnalyzer windowSize(int windowSize) {
+		this.windowSize = windowSize;
+		return this;
+	}
+
+	/**
+	 * Analyze a heap dump.
+	 * 
+	 * @param dump
+	 *            - the HPROF file
+	 * @return the report of the analysis
+	 * @throws IOException
+	 *             if the dump cannot be read or is malformed
+	 */
+	public HeapDumpReport analyze(Path dump) throws IOException {
+		try (HprofInput in = new HprofInput(dump, windowSize)) {
+			return new Analysis(in, dump.toString()).run();
+		}
+	}
+
+	private static long align(long size) {
+		return size + 7 & ~7L;
+	}
+
+	/**
+	 * State of the analysis of one dump.
+	 */
+	private final class Analysis {
+
+		private final HprofInput in;
+
+		private final String name;
+
+		private final int referenceSize = compressedOops ? 4 : 8;
+
+		private final int header = compressedOops ? 12 : 16;
+
+		/**
+		 * The header and the length of an array, aligned for its elements.
+		 */
+		private final long arrayHeader = align(header + 4);
+
+		private final Map<Long, String> names = new HashMap<Long, String>();
+
+		private final Map<Long, Long> classNames = new HashMap<Long, Long>();
+
+		private final Map<Long, DumpedClass> classes = new HashMap<Long, DumpedClass>();
+
+		private final LongLongMap instanceCounts = new LongLongMap(1024);
+
+		private final long[] classIds = new long[Kind.values().length];
+
+		private final long[] shallowSizes = new long[Kind.values().length];
+
+		private final long[] nodeSizes = new long[Kind.values().length];
+
+		private final int[] sizeOffsets = new int[Kind.values().length];
+
+		/**
+		 * Offset of the array of the lists and maps, of the map of the sets.
+		 */
+		private final int[] referenceOffsets = new int[Kind.values().length];
+
+		/**
+		 * Number of sets of the current partition backed by each map.
+		 */
+		private final LongLongMap setMaps;
+
+		/**
+		 * Kind of the collection owning each array of the current partition.
+		 */
+		private final LongLongMap arrays;
+
+		private int partitions;
+
+		private int partition;
+
+		private HeapDumpReport report;
+
+		Analysis(HprofInput in, String name) {
+			this.in = in;
+			this.name = name;
+			int expected = Math.min(maxPendingReferences, 1 << 16);
+			setMaps = new LongLongMap(expected);
+			arrays = new LongLongMap(expected);
+		}
+
+		HeapDumpReport run() throws IOException {
+			readMetadata();
+			long collections = 0;
+			for (Kind kind : Kind.values())
+				if (kind != Kind.LINKED_LIST && kind != Kind.TREE_MAP)
+					collections += instanceCounts.get(classIds[kind.ordinal()]);
+			partitions = (int) Math.max(1,
+					Math.min(Integer.MAX_VALUE, (collections
+							+ maxPendingReferences - 1)
+							/ maxPendingReferences));
+			report = new HeapDumpReport(name, referenceSize,
+					1 + 3 * partitions);
+			for (partition = 0; partition < partitions; partition++) {
+				setMaps.clear();
+				arrays.clear();
+				in.accept(new CollectionPass());
+				in.accept(new MapPass());
+				in.accept(new ArrayPass());
+			}
+			return report;
+		}
+
+		private boolean inPartition(long id) {
+			if (partitions == 1)
+				return true;
+			long h = id * 0x9e3779b97f4a7c15L;
+			return Long.remainderUnsigned(h ^ h >>> 29, partitions) == partition;
+		}
+
+		/**
+		 * Read the names and layouts of the classes and count the instances
+		 * of each class.
+		 */
+		private void readMetadata() throws IOException {
+			final Set<String> wanted = new HashSet<String>(
+					Arrays.asList(FIELDS));
+			int longest = 0;
+			for (Kind kind : Kind.values())
+				wanted.add(kind.className);
+			wanted.add(HASH_MAP_NODE);
+			wanted.add(LINKED_LIST_NODE);
+			wanted.add(TREE_MAP_ENTRY);
+			for (String s : wanted)
+				longest = Math.max(longest, s.length());
+			final int maxLength = longest;
+			in.accept(new HprofVisitor() {
+
+				@Override
+				void string(HprofInput in, long id, int length)
+						throws IOException {
+					if (length <= maxLength) {
+						String s = in.utf8(length);
+						if (wanted.contains(s))
+							names.put(id, s);
+					}
+				}
+
+				@Override
+				void loadClass(long classId, long nameId) {
+					classNames.put(classId, nameId);
+				}
+
+				@Override
+				void classDump(DumpedClass dumpedClass) {
+					classes.put(dumpedClass.id, dumpedClass);
+				}
+
+				@Override
+				void instance(HprofInput in, long id, long classId, long data) {
+					instanceCounts.add(classId, 1);
+				}
+
+			});
+			Map<String, Long> ids = new HashMap<String, Long>();
+			for (Map.Entry<Long, Long> e : classNames.entrySet()) {
+				String className = names.get(e.getValue());
+				if (className != null)
+					ids.put(className, e.getKey());
+			}
+			for (Kind kind : Kind.values()) {
+				int k = kind.ordinal();
+				Long id = ids.get(kind.className);
+				if (id == null || !classes.containsKey(id))
+					continue;
+				classIds[k] = id;
+				shallowSizes[k] = shallowSize(id)
+						- align(header + kind.replacementReferences
+								* referenceSize);
+				sizeOffsets[k] = fieldOffset(id, "size");
+				String reference = referenceField(kind);
+				referenceOffsets[k] = reference == null ? -1 : fieldOffset(id,
+						reference);
+			}
+			nodeSizes[Kind.HASH_MAP.ordinal()] = shallowSize(ids
+					.get(HASH_MAP_NODE));
+			nodeSizes[Kind.LINKED_LIST.ordinal()] = shallowSize(ids
+					.get(LINKED_LIST_NODE));
+			nodeSizes[Kind.TREE_MAP.ordinal()] = shallowSize(ids
+					.get(TREE_MAP_ENTRY));
+			Long hashMap = ids.get(Kind.HASH_MAP.className);
+			// the backing map of a set is replaced along with the set
+			shallowSizes[Kind.HASH_SET.ordinal()] += shallowSize(hashMap);
+		}
+
+		/**
+		 * @return the field referencing the array of a list or a map, or the
+		 *         backing map of a set, {@code null} if it is not needed
+		 */
+		private String referenceField(Kind kind) {
+			switch (kind) {
+			case ARRAY_LIST:
+				return "elementData";
+			case HASH_SET:
+				return "map";
+			case HASH_MAP:
+				return "table";
+			default:
+				return null;
+			}
+		}
+
+		/**
+		 * @return the shallow size of the instances of a class, 0 if the
+		 *         class is unknown
+		 */
+		private long shallowSize(Long classId) throws IOException {
+			if (classId == null)
+				return 0;
+			long size = header;
+			for (DumpedClass c = classes.get(classId); c != null; c = classes
+					.get(c.superId))
+				for (byte type : c.fieldTypes)
+					size += type == HprofInput.OBJECT ? referenceSize : in
+							.typeSize(type);
+			return align(size);
+		}
+
+		/**
+		 * @return the offset of a field in the instance records of a class,
+		 *         -1 if the class has no such field
+		 */
+		private int fieldOffset(long classId, String field) throws IOException {
+			int offset = 0;
+			for (DumpedClass c = classes.get(classId); c != null; c = classes
+					.get(c.superId)) {
+				for (int i = 0; i < c.fieldNames.length; i++) {
+					if (field.equals(names.get(c.fieldNames[i])))
+						return offset;
+					offset += in.typeSize(c.fieldTypes[i]);
+				}
+			}
+			return -1;
+		}
+
+		private Kind kind(long classId) {
+			if (classId == 0)
+				return null;
+			for (Kind kind : Kind.values())
+				if (classIds[kind.ordinal()] == classId)
+					return kind;
+			return null;
+		}
+
+		private int readSize(HprofInput in, int k, long data)
+				throws IOException {
+			if (sizeOffsets[k] < 0)
+				return 0;
+			in.seek(data + sizeOffsets[k]);
+			return in.u4();
+		}
+
+		private long readReference(HprofInput in, int k, long data)
+				throws IOException {
+			if (referenceOffsets[k] < 0)
+				return 0;
+			in.seek(data + referenceOffsets[k]);
+			return in.id();
+		}
+
+		/**
+		 * Size the lists and the tree maps, collect the backing maps of the
+		 * sets and the arrays of the small lists.
+		 */
+		private final class CollectionPass extends HprofVisitor {
+
+			@Override
+			void instance(HprofInput in, long id, long classId, long data)
+					throws IOException {
+				Kind kind = kind(classId);
+				if (kind == null || kind == Kind.HASH_MAP)
+					return;
+				int k = kind.ordinal();
+				if (kind == Kind.HASH_SET) {
+					long map = readReference(in, k, data);
+					if (map != 0 && inPartition(map))
+						setMaps.add(map, 1);
+					return;
+				}
+				if (!inPartition(id))
+					return;
+				int size = readSize(in, k, data);
+				report.count(kind, size, 1);
+				if (size > 1)
+					return;
+				report.reclaim(kind, shallowSizes[k] + size * nodeSizes[k]);
+				if (kind == Kind.ARRAY_LIST) {
+					long array = readReference(in, k, data);
+					if (array != 0)
+						arrays.put(array, k + 1);
+				}
+			}
+
+		}
+
+		/**
+		 * Size the maps and the sets they back, collect the tables of the
+		 * small ones.
+		 */
+		private final class MapPass extends HprofVisitor {
+
+			@Override
+			void instance(HprofInput in, long id, long classId, long data)
+					throws IOException {
+				int m = Kind.HASH_MAP.ordinal();
+				if (classId != classIds[m] || classId == 0 || !inPartition(id))
+					return;
+				long sets = setMaps.get(id);
+				Kind kind = sets == 0 ? Kind.HASH_MAP : Kind.HASH_SET;
+				int k = kind.ordinal();
+				long count = Math.max(sets, 1);
+				int size = readSize(in, m, data);
+				report.count(kind, size, count);
+				if (size > 1)
+					return;
+				report.reclaim(kind, count
+						* (shallowSizes[k] + size * nodeSizes[m]));
+				long table = readReference(in, m, data);
+				if (table != 0)
+					arrays.put(table, k + 1);
+			}
+
+		}
+
+		/**
+		 * Add the arrays of the small lists and maps.
+		 */
+		private final class ArrayPass extends HprofVisitor {
+
+			@Override
+			void objectArray(long id, int length) {
+				long owner = arrays.get(id);
+				// empty arrays are shared constants
+				if (owner != 0 && length > 0)
+					report.reclaim(Kind.values()[(int) owner - 1],
+							align(arrayHeader + (long) length
+									* referenceSize));
+			}
+
+		}
+
+	}
+
+	/**
+	 * Analyze a heap dump from the command line.
+	 * 
+	 * <pre>
+	 * HeapDumpAnalyzer [--uncompressed-oops] [--max-pending &lt;n&gt;] &lt;dump.hprof&gt;
+	 * </pre>
+	 * 
+	 * @param args
+	 *            - the command line arguments
+	 * @throws IOException
+	 *             if the dump cannot be read or is malformed
+	 */
+	public static void main(String[] args) throws IOException {
+		boolean compressedOops = true;
+		int maxPending = 1 << 22;
+		Path dump = null;
+		boolean valid = true;
+		for (int i = 0; i < args.length; i++) {
+			if ("--uncompressed-oops".equals(args[i]))
+				compressedOops = false;
+			else if ("--max-pending".equals(args[i]) && i + 1 < args.length)
+				maxPending = Integer.parseInt(args[++i]);
+			else if (dump == null && !args[i].startsWith("--"))
+				dump = Paths.get(args[i]);
+			else
+				valid = false;
+		}
+		if (!valid || dump == null) {
+			System.err.println("Usage: HeapDumpAnalyzer [--uncompressed-oops]"
+					+ " [--max-pending <n>] <dump.hprof>");
+			System.exit(2);
+			return;
+		}
+		new HeapDumpAnalyzer(compressedOops, maxPending).analyze(dump).write(
+				new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+	}
+
+}
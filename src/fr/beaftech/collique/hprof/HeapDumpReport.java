@@ -0,0 +1,207 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique.hprof;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Locale;
+
+/**
+ * Result of the analysis of a heap dump: for each analyzed collection class,
+ * the number of instances by size and the bytes that converting the instances
+ * holding zero or one element to a Collique collection would reclaim.
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public final class HeapDumpReport {
+
+	/**
+	 * The analyzed collection classes, with the Collique collection replacing
+	 * their instances holding zero or one element.
+	 */
+	public enum Kind {
+
+		ARRAY_LIST("java/util/ArrayList", "SingleElementList", 1),
+
+		LINKED_LIST("java/util/LinkedList", "SingleElementList", 1),
+
+		HASH_SET("java/util/HashSet", "SingleElementSet", 1),
+
+		HASH_MAP("java/util/HashMap", "SingleElementMap", 2),
+
+		TREE_MAP("java/util/TreeMap", "SingleElementMap", 2);
+
+		final String className;
+
+		final String replacement;
+
+		/**
+		 * Number of reference fields of the replacement.
+		 */
+		final int replacementReferences;
+
+		private Kind(String className, String replacement,
+				int replacementReferences) {
+			this.className = className;
+			this.replacement = replacement;
+			this.replacementReferences = replacementReferences;
+		}
+
+		String simpleName() {
+			return className.substring(className.lastIndexOf('/') + 1);
+		}
+
+	}
+
+	private static final String[] BUCKETS = { "0", "1", "2", "3-4", "5-8",
+			"9-16", "17-32", ">32" };
+
+	private final String dump;
+
+	private final int referenceSize;
+
+	private final int passes;
+
+	private final long[][] histograms = new long[Kind.values().length][BUCKETS.length];
+
+	private final long[] reclaimable = new long[Kind.values().length];
+
+	HeapDumpReport(String dump, int referenceSize, int passes) {
+		this.dump = dump;
+		this.referenceSize = referenceSize;
+		this.passes = passes;
+	}
+
+	/**
+	 * @param size
+	 *            - the size of a collection
+	 * @return the index of the histogram bucket counting this size
+	 */
+	static int bucket(int size) {
+		if (size <= 2)
+			return Math.max(size, 0);
+		return Math.min(BUCKETS.length - 1,
+				33 - Integer.numberOfLeadingZeros(size - 1));
+	}
+
+	void count(Kind kind, int size, long instances) {
+		histograms[kind.ordinal()][bucket(size)] += instances;
+	}
+
+	void reclaim(Kind kind, long bytes) {
+		reclaimable[kind.ordinal()] += bytes;
+	}
+
+	/**
+	 * @param kind
+	 *            - a collection class
+	 * @return the number of instances of the class in the dump
+	 */
+	public long instances(Kind kind) {
+		long total = 0;
+		for (long count : histograms[kind.ordinal()])
+			total += count;
+		return total;
+	}
+
+	/**
+	 * @param kind
+	 *            - a collection class
+	 * @param size
+	 *            - a collection size
+	 * @return the number of instances of the class whose size falls in the
+	 *         same histogram bucket as the given size: sizes 0, 1 and 2 are
+	 *         counted exactly, larger sizes by power of two ranges
+	 */
+	public long instances(Kind kind, int size) {
+		return histograms[kind.ordinal()][bucket(size)];
+	}
+
+	/**
+	 * @param kind
+	 *            - a collection class
+	 * @return the retained bytes reclaimed by replacing the instances of the
+	 *         class holding zero or one element with a Collique collection
+	 */
+	public long reclaimableBytes(Kind kind) {
+		return reclaimable[kind.ordinal()];
+	}
+
+	/**
+	 * @return the retained bytes reclaimed by replacing all the collections
+	 *         holding zero or one element
+	 */
+	public long reclaimableBytes() {
+		long total = 0;
+		for (long bytes : reclaimable)
+			total += bytes;
+		return total;
+	}
+
+	/**
+	 * @return the number of times the dump was read
+	 */
+	public int passes() {
+		return passes;
+	}
+
+	/**
+	 * Write the report as a text table.
+	 * 
+	 * @param out
+	 *            - the writer receiving the report
+	 */
+	public void write(Writer out) {
+		PrintWriter writer = new PrintWriter(out);
+		writer.printf(Locale.ROOT,
+				"Heap dump %s (%d byte references, %d passes)%n", dump,
+				referenceSize, passes);
+		writer.printf(Locale.ROOT, "%-11s %12s", "class", "instances");
+		for (String bucket : BUCKETS)
+			writer.printf(Locale.ROOT, " %11s", bucket);
+		writer.printf(Locale.ROOT, " %12s  %s%n", "reclaimable", "replacement");
+		for (Kind kind : Kind.values()) {
+			writer.printf(Locale.ROOT, "%-11s %12d", kind.simpleName(),
+					instances(kind));
+			for (long count : histograms[kind.ordinal()])
+				writer.printf(Locale.ROOT, " %11d", count);
+			writer.printf(Locale.ROOT, " %12s  %s%n",
+					bytes(reclaimableBytes(kind)), kind.replacement);
+		}
+		writer.printf(Locale.ROOT, "Total reclaimable: %s%n",
+				bytes(reclaimableBytes()));
+		writer.flush();
+	}
+
+	private static String bytes(long bytes) {
+		if (bytes < 1024)
+			return bytes + " B";
+		if (bytes < 1024 * 1024)
+			return String.format(Locale.ROOT, "%.1f KiB", bytes / 1024.0);
+		return String.format(Locale.ROOT, "%.1f MiB", bytes / 1048576.0);
+	}
+
+	@Override
+	public String toString() {
+		StringWriter out = new StringWriter();
+		write(out);
+		return out.toString();
+	}
+
+}
@@ -0,0 +1,350 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique.hprof;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Sequential reader of an HPROF heap dump. The file is read one window at a
+ * time into a single direct buffer reused for the whole dump, so reading a
+ * dump of any size only needs the memory of one window. Mapping the windows
+ * instead would leave each mapping in place until its buffer is garbage
+ * collected, which a reader allocating almost nothing may never trigger.
+ * <p>
+ * {@link #accept(HprofVisitor)} walks all the records of the dump, calling the
+ * visitor for the ones an analysis may need and skipping the others.
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+final class HprofInput implements Closeable {
+
+	static final int DEFAULT_WINDOW = 1 << 24;
+
+	static final int OBJECT = 2;
+
+	private static final int STRING = 0x01;
+	private static final int LOAD_CLASS = 0x02;
+	private static final int HEAP_DUMP = 0x0c;
+	private static final int HEAP_DUMP_SEGMENT = 0x1c;
+
+	private static final int ROOT_UNKNOWN = 0xff;
+	private static final int ROOT_JNI_GLOBAL = 0x01;
+	private static final int ROOT_JNI_LOCAL = 0x02;
+	private static final int ROOT_JAVA_FRAME = 0x03;
+	private static final int ROOT_NATIVE_STACK = 0x04;
+	private static final int ROOT_STICKY_CLASS = 0x05;
+	private static final int ROOT_THREAD_BLOCK = 0x06;
+	private static final int ROOT_MONITOR_USED = 0x07;
+	private static final int ROOT_THREAD_OBJECT = 0x08;
+	private static final int CLASS_DUMP = 0x20;
+	private static final int INSTANCE_DUMP = 0x21;
+	private static final int OBJECT_ARRAY_DUMP = 0x22;
+	private static final int PRIMITIVE_ARRAY_DUMP = 0x23;
+
+	private final FileChannel channel;
+
+	private final long size;
+
+	private final int windowSize;
+
+	private ByteBuffer window;
+
+	private long windowStart;
+
+	private long position;
+
+	private int idSize;
+
+	/**
+	 * @param path
+	 *            - the heap dump file
+	 * @param windowSize
+	 *            - the size of the window; the buffer only grows beyond it to
+	 *            read a longer value at once
+	 * @throws IOException
+	 *             if the file cannot be opened
+	 */
+	HprofInput(Path path, int windowSize) throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.READ);
+		size = channel.size();
+		this.windowSize = windowSize;
+	}
+
+	/**
+	 * @return the size of the object identifiers, 4 or 8
+	 */
+	int idSize() {
+		return idSize;
+	}
+
+	/**
+	 * @param type
+	 *            - a basic type code
+	 * @return the size of the values of this type in the dump
+	 * @throws IOException
+	 *             if the type code is invalid
+	 */
+	int typeSize(int type) throws IOException {
+		switch (type) {
+		case OBJECT:
+			return idSize;
+		case 4: // boolean
+		case 8: // byte
+			return 1;
+		case 5: // char
+		case 9: // short
+			return 2;
+		case 6: // float
+		case 10: // int
+			return 4;
+		case 7: // double
+		case 11: // long
+			return 8;
+		default:
+			throw new IOException("Invalid basic type " + type + " at offset "
+					+ position);
+		}
+	}
+
+	/**
+	 * Walk the whole dump.
+	 * 
+	 * @param visitor
+	 *            - the visitor called for each relevant record
+	 * @throws IOException
+	 *             if the dump cannot be read or is malformed
+	 */
+	void accept(HprofVisitor visitor) throws IOException {
+		seek(0);
+		readHeader();
+		while (position < size) {
+			int tag = u1();
+			u4(); // time
+			long length = u4() & 0xffffffffL;
+			long end = position + length;
+			switch (tag) {
+			case STRING:
+				visitor.string(this, id(), (int) (end - position));
+				break;
+			case LOAD_CLASS:
+				u4(); // class serial number
+				long classId = id();
+				u4(); // stack trace serial number
+				visitor.loadClass(classId, id());
+				break;
+			case HEAP_DUMP:
+			case HEAP_DUMP_SEGMENT:
+				heapDump(visitor, end);
+				break;
+			default:
+				break;
+			}
+			seek(end);
+		}
+	}
+
+	private void readHeader() throws IOException {
+		StringBuilder format = new StringBuilder();
+		for (int c = u1(); c != 0; c = u1()) {
+			if (format.length() > 64)
+				throw new IOException("Not an HPROF heap dump");
+			format.append((char) c);
+		}
+		if (!format.toString().startsWith("JAVA PROFILE "))
+			throw new IOException("Not an HPROF heap dump: " + format);
+		idSize = u4();
+		if (idSize != 4 && idSize != 8)
+			throw new IOException("Unsupported identifier size " + idSize);
+		u8(); // time stamp
+	}
+
+	private void heapDump(HprofVisitor visitor, long end) throws IOException {
+		while (position < end) {
+			int tag = u1();
+			switch (tag) {
+			case ROOT_UNKNOWN:
+			case ROOT_STICKY_CLASS:
+			case ROOT_MONITOR_USED:
+				skip(idSize);
+				break;
+			case ROOT_JNI_GLOBAL:
+				skip(2 * idSize);
+				break;
+			case ROOT_NATIVE_STACK:
+			case ROOT_THREAD_BLOCK:
+				skip(idSize + 4);
+				break;
+			case ROOT_JNI_LOCAL:
+			case ROOT_JAVA_FRAME:
+			case ROOT_THREAD_OBJECT:
+				skip(idSize + 8);
+				break;
+			case CLASS_DUMP:
+				classDump(visitor);
+				break;
+			case INSTANCE_DUMP: {
+				long id = id();
+				u4(); // stack trace serial number
+				long classId = id();
+				long length = u4() & 0xffffffffL;
+				long data = position;
+				visitor.instance(this, id, classId, data);
+				seek(data + length);
+				break;
+			}
+			case OBJECT_ARRAY_DUMP: {
+				long id = id();
+				u4(); // stack trace serial number
+				int length = u4();
+				id(); // array class
+				visitor.objectArray(id, length);
+				skip((long) length * idSize);
+				break;
+			}
+			case PRIMITIVE_ARRAY_DUMP: {
+				id();
+				u4(); // stack trace serial number
+				int length = u4();
+				skip((long) length * typeSize(u1()));
+				break;
+			}
+			default:
+				throw new IOException("Unsupported heap dump record 0x"
+						+ Integer.toHexString(tag) + " at offset "
+						+ (position - 1));
+			}
+		}
+	}
+
+	private void classDump(HprofVisitor visitor) throws IOException {
+		long id = id();
+		u4(); // stack trace serial number
+		long superId = id();
+		// class loader, signers, protection domain and two reserved fields
+		skip(5 * idSize);
+		u4(); // instance size
+		int constants = u2();
+		for (int i = 0; i < constants; i++) {
+			u2();
+			skip(typeSize(u1()));
+		}
+		int statics = u2();
+		for (int i = 0; i < statics; i++) {
+			id();
+			skip(typeSize(u1()));
+		}
+		int fields = u2();
+		long[] names = new long[fields];
+		byte[] types = new byte[fields];
+		for (int i = 0; i < fields; i++) {
+			names[i] = id();
+			types[i] = (byte) u1();
+		}
+		visitor.classDump(new DumpedClass(id, superId, names, types));
+	}
+
+	void seek(long position) {
+		this.position = position;
+	}
+
+	void skip(long n) {
+		position += n;
+	}
+
+	private void ensure(int n) throws IOException {
+		if (window != null && position >= windowStart
+				&& position + n <= windowStart + window.limit())
+			return;
+		if (position + n > size)
+			throw new EOFException("Truncated heap dump at offset " + position);
+		int length = (int) Math.max(n, Math.min(windowSize, size - position));
+		if (window == null || window.capacity() < length)
+			window = ByteBuffer.allocateDirect(length);
+		window.clear();
+		window.limit(length);
+		windowStart = position;
+		while (window.hasRemaining()) {
+			if (channel.read(window, windowStart + window.position()) < 0)
+				throw new EOFException("Truncated heap dump at offset "
+						+ (windowStart + window.position()));
+		}
+		window.flip();
+	}
+
+	int u1() throws IOException {
+		ensure(1);
+		return window.get((int) (position++ - windowStart)) & 0xff;
+	}
+
+	int u2() throws IOException {
+		ensure(2);
+		int value = window.getShort((int) (position - windowStart)) & 0xffff;
+		position += 2;
+		return value;
+	}
+
+	int u4() throws IOException {
+		ensure(4);
+		int value = window.getInt((int) (position - windowStart));
+		position += 4;
+		return value;
+	}
+
+	long u8() throws IOException {
+		ensure(8);
+		long value = window.getLong((int) (position - windowStart));
+		position += 8;
+		return value;
+	}
+
+	long id() throws IOException {
+		return idSize == 4 ? u4() & 0xffffffffL : u8();
+	}
+
+	/**
+	 * Read a modified UTF-8 string.
+	 * 
+	 * @param length
+	 *            - the length of the string in bytes
+	 * @return the decoded string
+	 * @throws IOException
+	 *             if the dump cannot be read
+	 */
+	String utf8(int length) throws IOException {
+		ensure(length);
+		byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++)
+			bytes[i] = window.get((int) (position + i - windowStart));
+		position += length;
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public void close() throws IOException {
+		window = null;
+		channel.close();
+	}
+
+}
@@ -0,0 +1,69 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique.hprof;
+
+import java.io.IOException;
+
+/**
+ * Receiver of the records of a heap dump walked by
+ * {@link HprofInput#accept(HprofVisitor)}. All the methods do nothing by
+ * default.
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+abstract class HprofVisitor {
+
+	/**
+	 * @param in
+	 *            - the input, positioned on the content of the string
+	 * @param id
+	 *            - the identifier of the string
+	 * @param length
+	 *            - the length of the string in bytes
+	 * @throws IOException
+	 *             if the string cannot be read
+	 */
+	void string(HprofInput in, long id, int length) throws IOException {
+	}
+
+	void loadClass(long classId, long nameId) {
+	}
+
+	void classDump(DumpedClass dumpedClass) {
+	}
+
+	/**
+	 * @param in
+	 *            - the input, which may be moved freely
+	 * @param id
+	 *            - the identifier of the object
+	 * @param classId
+	 *            - the identifier of its class
+	 * @param data
+	 *            - the position of the values of its fields
+	 * @throws IOException
+	 *             if the fields cannot be read
+	 */
+	void instance(HprofInput in, long id, long classId, long data)
+			throws IOException {
+	}
+
+	void objectArray(long id, int length) {
+	}
+
+}
@@ -0,0 +1,123 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique.hprof;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from non-zero {@code long} keys to {@code long}
+ * values, without boxing. Zero, the null object identifier of heap dumps,
+ * marks the free slots.
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+final class LongLongMap {
+
+	private long[] keys;
+
+	private long[] values;
+
+	private int size;
+
+	LongLongMap(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+		keys = new long[capacity];
+		values = new long[capacity];
+	}
+
+	private static int hash(long key) {
+		long h = key * 0x9e3779b97f4a7c15L;
+		return (int) (h ^ h >>> 32);
+	}
+
+	private int slot(long key) {
+		int mask = keys.length - 1;
+		int i = hash(key) & mask;
+		while (keys[i] != 0 && keys[i] != key)
+			i = i + 1 & mask;
+		return i;
+	}
+
+	/**
+	 * @param key
+	 *            - a non-zero key
+	 * @return the value mapped to the key, 0 if there is none
+	 */
+	long get(long key) {
+		return values[slot(key)];
+	}
+
+	boolean containsKey(long key) {
+		return keys[slot(key)] != 0;
+	}
+
+	/**
+	 * Add a delta to the value mapped to a key, 0 if there is none.
+	 * 
+	 * @param key
+	 *            - a non-zero key
+	 * @param delta
+	 *            - the value to add
+	 */
+	void add(long key, long delta) {
+		int i = slot(key);
+		if (keys[i] == 0) {
+			if (2 * (size + 1) > keys.length) {
+				grow();
+				i = slot(key);
+			}
+			keys[i] = key;
+			size++;
+		}
+		values[i] += delta;
+	}
+
+	void put(long key, long value) {
+		int i = slot(key);
+		if (keys[i] == 0) {
+			add(key, value);
+			return;
+		}
+		values[i] = value;
+	}
+
+	int size() {
+		return size;
+	}
+
+	void clear() {
+		Arrays.fill(keys, 0);
+		Arrays.fill(values, 0);
+		size = 0;
+	}
+
+	private void grow() {
+		long[] oldKeys = keys;
+		long[] oldValues = values;
+		keys = new long[oldKeys.length * 2];
+		values = new long[oldValues.length * 2];
+		for (int j = 0; j < oldKeys.length; j++) {
+			if (oldKeys[j] != 0) {
+				int i = slot(oldKeys[j]);
+				keys[i] = oldKeys[j];
+				values[i] = oldValues[j];
+			}
+		}
+	}
+
+}
@@ -0,0 +1,499 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique.xml;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import fr.beaftech.collique.Collique;
+import fr.beaftech.collique.SingleElementList;
+import fr.beaftech.collique.SingleElementMap;
+import fr.beaftech.collique.SingleElementSet;
+
+/**
+ * Streaming reader binding XML configuration documents straight into Java
+ * objects, using the StAX API of the JDK. No intermediate tree is built and
+ * collections are created in their final form while the document is read:
+ * <ul>
+ * <li>a collection or map element without children gives
+ * {@link Collique#emptyList()}, {@link Collique#emptySet()} or
+ * {@link Collique#emptyMap()};</li>
+ * <li>one child gives a {@link SingleElementList}, {@link SingleElementSet} or
+ * {@link SingleElementMap};</li>
+ * <li>more children give an {@code ArrayList}, {@code HashSet} or
+ * {@code HashMap}, created when the second child is met.</li>
+ * </ul>
+ * The compact forms are only used when the declared type of the field is one
+ * of the {@code Collection}, {@code List}, {@code Set} or {@code Map}
+ * interfaces; a field declared with a concrete collection class gets an
+ * instance of that class.
+ * <p>
+ * The expected format is:
+ * 
+ * <pre>
+ * &lt;server port="8080"&gt;             &lt;!-- scalar fields as attributes... --&gt;
+ *   &lt;name&gt;main&lt;/name&gt;              &lt;!-- ...or as elements --&gt;
+ *   &lt;aliases&gt;                     &lt;!-- collection: one child per item --&gt;
+ *     &lt;alias&gt;www&lt;/alias&gt;
+ *   &lt;/aliases&gt;
+ *   &lt;headers&gt;                     &lt;!-- map: one child per entry --&gt;
+ *     &lt;header key="Cache-Control"&gt;no-cache&lt;/header&gt;
+ *   &lt;/headers&gt;
+ *   &lt;store class="com.example.FileStore"&gt; &lt;!-- nested object --&gt;
+ *     &lt;path&gt;/var/data&lt;/path&gt;
+ *   &lt;/store&gt;
+ * &lt;/server&gt;
+ * </pre>
+ * 
+ * The names of the elements and attributes are the names of the non-static,
+ * non-final, non-transient fields of the bound class; the names of collection
+ * items and map entries are free. Scalar values are strings, primitives, their
+ * wrappers and enum constants. Objects are created with their no-argument
+ * constructor, which must be accessible to this class: private constructors
+ * are not forced open. The optional {@code class} attribute selects a subclass
+ * of the declared type among the classes given to
+ * {@link #ConfigReader(Class...)}; any other class name is rejected without
+ * being loaded, so a document cannot instantiate arbitrary classes. Unknown
+ * elements and attributes are rejected.
+ * <p>
+ * DTDs and external entities are disabled. Reflection metadata are computed
+ * once per bound class, so a single reader can be reused for any number of
+ * documents.
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public final class ConfigReader {
+
+	/**
+	 * Name of the attribute selecting the concrete class of an object.
+	 */
+	public static final String CLASS_ATTRIBUTE = "class";
+
+	/**
+	 * Name of the attribute holding the key of a map entry.
+	 */
+	public static final String KEY_ATTRIBUTE = "key";
+
+	private static final ClassValue<ClassBinding> BINDINGS = new ClassValue<ClassBinding>() {
+		@Override
+		protected ClassBinding computeValue(Class<?> type) {
+			return new ClassBinding(type);
+		}
+	};
+
+	/**
+	 * Marker of a collection or map not having read any child yet.
+	 */
+	private static final Object NONE = new Object();
+
+	private final XMLInputFactory factory;
+
+	/**
+	 * Classes the {@code class} attribute may select, by name.
+	 */
+	private final Map<String, Class<?>> subclasses;
+
+	/**
+	 * Create a reader honouring no {@code class} attribute: every object is an
+	 * instance of its declared type, and documents selecting a class are
+	 * rejected.
+	 */
+	public ConfigReader() {
+		this(new Class<?>[0]);
+	}
+
+	/**
+	 * Create a reader whose {@code class} attribute may select one of the
+	 * given classes, by their {@linkplain Class#getName() name}.
+	 * 
+	 * @param subclasses
+	 *            the classes documents may select
+	 */
+	public ConfigReader(Class<?>... subclasses) {
+		Map<String, Class<?>> names = new HashMap<String, Class<?>>();
+		for (Class<?> type : subclasses)
+			names.put(type.getName(), type);
+		this.subclasses = names;
+		factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,
+				Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+		factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.FALSE);
+	}
+
+	/**
+	 * Read a document from a byte stream. The stream is not closed.
+	 * 
+	 * @param in
+	 *            - the stream to read, its encoding is given by the XML
+	 *            declaration
+	 * @param type
+	 *            - the type of the root object
+	 * @return the root object
+	 * @throws XMLStreamException
+	 *             if the document is malformed or does not match the type
+	 */
+	public <T> T read(InputStream in, Class<T> type) throws XMLStreamException {
+		return read(factory.createXMLStreamReader(in), type);
+	}
+
+	/**
+	 * Read a document from a character stream. The stream is not closed.
+	 * 
+	 * @param in
+	 *            - the stream to read
+	 * @param type
+	 *            - the type of the root object
+	 * @return the root object
+	 * @throws XMLStreamException
+	 *             if the document is malformed or does not match the type
+	 */
+	public <T> T read(Reader in, Class<T> type) throws XMLStreamException {
+		return read(factory.createXMLStreamReader(in), type);
+	}
+
+	private <T> T read(XMLStreamReader r, Class<T> type)
+			throws XMLStreamException {
+		try {
+			r.nextTag();
+			return type.cast(readValue(r, type));
+		} finally {
+			r.close();
+		}
+	}
+
+	/**
+	 * Read the value of the current element, leaving the reader on its end
+	 * tag.
+	 */
+	private Object readValue(XMLStreamReader r, Type type)
+			throws XMLStreamException {
+		return readValue(r, type, false);
+	}
+
+	/**
+	 * @param entry
+	 *            - whether the element is a map entry, whose
+	 *            {@code key} attribute is not a field of the value
+	 */
+	private Object readValue(XMLStreamReader r, Type type, boolean entry)
+			throws XMLStreamException {
+		Class<?> raw = concreteClass(r, rawClass(r, type));
+		if (isScalar(raw))
+			return toScalar(r, raw, r.getElementText());
+		if (Collection.class.isAssignableFrom(raw))
+			return readCollection(r, raw, typeArgument(type, 0));
+		if (Map.class.isAssignableFrom(raw))
+			return readMap(r, raw, typeArgument(type, 0), typeArgument(type, 1));
+		return readObject(r, raw, entry);
+	}
+
+	private Object readObject(XMLStreamReader r, Class<?> type, boolean entry)
+			throws XMLStreamException {
+		ClassBinding binding = binding(r, type);
+		Object instance = binding.newInstance(r);
+		for (int i = 0; i < r.getAttributeCount(); i++) {
+			String name = r.getAttributeLocalName(i);
+			if (CLASS_ATTRIBUTE.equals(name) || entry
+					&& KEY_ATTRIBUTE.equals(name))
+				continue;
+			Field field = binding.field(r, name);
+			if (!isScalar(field.getType()))
+				throw error(r, "Attribute " + name + " of " + type.getName()
+						+ " is not a scalar field");
+			binding.set(r, field, instance,
+					toScalar(r, field.getType(), r.getAttributeValue(i)));
+		}
+		while (r.nextTag() == XMLStreamConstants.START_ELEMENT) {
+			Field field = binding.field(r, r.getLocalName());
+			binding.set(r, field, instance,
+					readValue(r, field.getGenericType()));
+		}
+		return instance;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Object readCollection(XMLStreamReader r, Class<?> type,
+			Type elementType) throws XMLStreamException {
+		boolean compact = type.isAssignableFrom(SingleElementList.class);
+		boolean set = !compact && type.isAssignableFrom(SingleElementSet.class);
+		Collection<Object> collection = null;
+		if (!compact && !set)
+			collection = (Collection<Object>) binding(r, type).newInstance(r);
+		Object first = NONE;
+		while (r.nextTag() == XMLStreamConstants.START_ELEMENT) {
+			Object item = readValue(r, elementType);
+			if (collection != null) {
+				collection.add(item);
+			} else if (first == NONE) {
+				first = item;
+			} else if (!set || !eq(first, item)) {
+				collection = set ? new HashSet<Object>()
+						: new ArrayList<Object>();
+				collection.add(first);
+				collection.add(item);
+			}
+		}
+		if (collection != null)
+			return collection;
+		if (first == NONE)
+			return set ? Collique.emptySet() : Collique.emptyList();
+		return set ? new SingleElementSet<Object>(first)
+				: new SingleElementList<Object>(first);
+	}
+
+	@SuppressWarnings("unchecked")
+	private Object readMap(XMLStreamReader r, Class<?> type, Type keyType,
+			Type valueType) throws XMLStreamException {
+		Map<Object, Object> map = null;
+		if (!type.isAssignableFrom(SingleElementMap.class))
+			map = (Map<Object, Object>) binding(r, type).newInstance(r);
+		Class<?> keyClass = rawClass(r, keyType);
+		if (!isScalar(keyClass))
+			throw error(r, "Unsupported map key type " + keyClass.getName());
+		Object firstKey = NONE;
+		Object firstValue = null;
+		while (r.nextTag() == XMLStreamConstants.START_ELEMENT) {
+			String text = r.getAttributeValue(null, KEY_ATTRIBUTE);
+			if (text == null)
+				throw error(r, "Missing " + KEY_ATTRIBUTE + " attribute");
+			Object key = toScalar(r, keyClass, text);
+			Object value = readValue(r, valueType, true);
+			if (map != null) {
+				map.put(key, value);
+			} else if (firstKey == NONE || eq(firstKey, key)) {
+				firstKey = key;
+				firstValue = value;
+			} else {
+				map = new HashMap<Object, Object>();
+				map.put(firstKey, firstValue);
+				map.put(key, value);
+			}
+		}
+		if (map != null)
+			return map;
+		if (firstKey == NONE)
+			return Collique.emptyMap();
+		return new SingleElementMap<Object, Object>(firstKey, firstValue);
+	}
+
+	/**
+	 * Apply the {@code class} attribute of the current element, if any.
+	 */
+	private Class<?> concreteClass(XMLStreamReader r, Class<?> declared)
+			throws XMLStreamException {
+		String name = r.getAttributeValue(null, CLASS_ATTRIBUTE);
+		if (name == null)
+			return declared;
+		Class<?> type = subclasses.get(name);
+		if (type == null)
+			throw error(r, "Class " + name + " is not registered");
+		if (!declared.isAssignableFrom(type))
+			throw error(r, name + " is not a " + declared.getName());
+		return type;
+	}
+
+	private static Class<?> rawClass(XMLStreamReader r, Type type)
+			throws XMLStreamException {
+		if (type instanceof Class)
+			return (Class<?>) type;
+		if (type instanceof ParameterizedType)
+			return (Class<?>) ((ParameterizedType) type).getRawType();
+		if (type instanceof WildcardType)
+			return rawClass(r, ((WildcardType) type).getUpperBounds()[0]);
+		if (type instanceof TypeVariable)
+			return rawClass(r, ((TypeVariable<?>) type).getBounds()[0]);
+		if (type instanceof GenericArrayType)
+			return Array.newInstance(
+					rawClass(r, ((GenericArrayType) type)
+							.getGenericComponentType()), 0).getClass();
+		throw error(r, "Unsupported type " + type);
+	}
+
+	private static Type typeArgument(Type type, int index) {
+		if (type instanceof ParameterizedType)
+			return ((ParameterizedType) type).getActualTypeArguments()[index];
+		return String.class;
+	}
+
+	private static boolean isScalar(Class<?> type) {
+		return type.isPrimitive() || type == String.class
+				|| type == Boolean.class || type == Character.class
+				|| Number.class.isAssignableFrom(type) && type.getName()
+						.startsWith("java.lang.") || type.isEnum();
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static Object toScalar(XMLStreamReader r, Class<?> type,
+			String text) throws XMLStreamException {
+		try {
+			if (type == String.class)
+				return text;
+			if (type == int.class || type == Integer.class)
+				return Integer.valueOf(text.trim());
+			if (type == long.class || type == Long.class)
+				return Long.valueOf(text.trim());
+			if (type == boolean.class || type == Boolean.class)
+				return Boolean.valueOf(text.trim());
+			if (type == double.class || type == Double.class)
+				return Double.valueOf(text.trim());
+			if (type == float.class || type == Float.class)
+				return Float.valueOf(text.trim());
+			if (type == short.class || type == Short.class)
+				return Short.valueOf(text.trim());
+			if (type == byte.class || type == Byte.class)
+				return Byte.valueOf(text.trim());
+			if (type == char.class || type == Character.class) {
+				if (text.length() != 1)
+					throw error(r, "Invalid character '" + text + "'");
+				return Character.valueOf(text.charAt(0));
+			}
+			if (type.isEnum())
+				return Enum.valueOf((Class<? extends Enum>) type, text.trim());
+		} catch (IllegalArgumentException e) {
+			throw error(r, "Invalid " + type.getSimpleName() + " '" + text
+					+ "'");
+		}
+		throw error(r, "Unsupported scalar type " + type.getName());
+	}
+
+	private static ClassBinding binding(XMLStreamReader r, Class<?> type)
+			throws XMLStreamException {
+		if (type.isInterface() || Modifier.isAbstract(type.getModifiers())
+				|| type.isArray())
+			throw error(r, "Cannot instantiate " + type.getName());
+		return BINDINGS.get(type);
+	}
+
+	private static boolean eq(Object o1, Object o2) {
+		return o1 == null ? o2 == null : o1.equals(o2);
+	}
+
+	static XMLStreamException error(XMLStreamReader r, String message) {
+		return new XMLStreamException(message, r.getLocation());
+	}
+
+	/**
+	 * Reflection metadata of a bound class: its no-argument constructor and its
+	 * settable fields by name, computed once per class.
+	 */
+	private static final class ClassBinding {
+
+		private final Class<?> type;
+
+		private final Constructor<?> constructor;
+
+		private final Map<String, Field> fields;
+
+		ClassBinding(Class<?> type) {
+			this.type = type;
+			Constructor<?> c;
+			try {
+				c = type.getDeclaredConstructor();
+			} catch (NoSuchMethodException e) {
+				c = null;
+			}
+			constructor = c;
+			Map<String, Field> fields = new HashMap<String, Field>();
+			List<Class<?>> hierarchy = new ArrayList<Class<?>>();
+			for (Class<?> k = type; k != null && k != Object.class; k = k
+					.getSuperclass())
+				hierarchy.add(0, k);
+			// fields of subclasses hide the ones of their superclasses
+			for (Class<?> k : hierarchy) {
+				for (Field f : k.getDeclaredFields()) {
+					int m = f.getModifiers();
+					if (Modifier.isStatic(m) || Modifier.isFinal(m)
+							|| Modifier.isTransient(m) || f.isSynthetic())
+						continue;
+					if (!k.getName().startsWith("java."))
+						try {
+							f.setAccessible(true);
+						} catch (RuntimeException e) {
+							// not opened to us (Java 9+): set() reports it
+						}
+					fields.put(f.getName(), f);
+				}
+			}
+			this.fields = fields;
+		}
+
+		Object newInstance(XMLStreamReader r) throws XMLStreamException {
+			if (constructor == null)
+				throw error(r, type.getName()
+						+ " has no constructor without argument");
+			try {
+				return constructor.newInstance();
+			} catch (Exception e) {
+				XMLStreamException ex = error(r,
+						"Cannot instantiate " + type.getName());
+				ex.initCause(e);
+				throw ex;
+			}
+		}
+
+		Field field(XMLStreamReader r, String name) throws XMLStreamException {
+			Field f = fields.get(name);
+			if (f == null)
+				throw error(r, "Unknown field " + name + " in "
+						+ type.getName());
+			return f;
+		}
+
+		void set(XMLStreamReader r, Field field, Object instance, Object value)
+				throws XMLStreamException {
+			try {
+				field.set(instance, value);
+			} catch (IllegalAccessException e) {
+				XMLStreamException ex = error(r, "Cannot set field "
+						+ field.getName() + " of " + type.getName());
+				ex.initCause(e);
+				throw ex;
+			} catch (IllegalArgumentException e) {
+				XMLStreamException ex = error(r, "Cannot set field "
+						+ field.getName() + " of " + type.getName());
+				ex.initCause(e);
+				throw ex;
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,275 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.BiConsumer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class AdaptiveListMultimapTest {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void testPutPromotesAndRemoveDemotes() {
+		AdaptiveListMultimap<String, Integer> mm = new AdaptiveListMultimap<String, Integer>();
+		assertTrue(mm.isEmpty());
+		assertSame(Collique.emptyList(), mm.get("a"));
+		assertTrue(mm.put("a", 1));
+		assertEquals(Collique.listOf(1).getClass(), mm.get("a").getClass());
+		assertEquals(Arrays.asList(1), mm.get("a"));
+
+		assertTrue(mm.put("a", 2));
+		assertTrue(mm.put("a", 1));
+		assertEquals(Arrays.asList(1, 2, 1), mm.get("a"));
+		assertEquals(3, mm.size());
+		assertEquals(1, mm.keyCount());
+
+		assertTrue(mm.remove("a", 1));
+		assertFalse(mm.remove("a", 3));
+		assertEquals(Arrays.asList(2, 1), mm.get("a"));
+		assertTrue(mm.remove("a", 2));
+		assertEquals(Collique.listOf(1).getClass(), mm.get("a").getClass());
+		assertTrue(mm.remove("a", 1));
+		assertFalse(mm.containsKey("a"));
+		assertTrue(mm.isEmpty());
+		assertEquals(0, mm.keyCount());
+	}
+
+	@Test
+	public void testNullKeyAndValue() {
+		AdaptiveListMultimap<String, String> mm = new AdaptiveListMultimap<String, String>();
+		mm.put(null, null);
+		assertTrue(mm.containsKey(null));
+		assertTrue(mm.containsEntry(null, null));
+		mm.put(null, "value");
+		mm.put("key", null);
+		assertEquals(Arrays.asList(null, "value"), mm.get(null));
+		assertTrue(mm.remove(null, null));
+		assertEquals(Arrays.asList("value"), mm.get(null));
+		assertEquals(Arrays.asList((String) null), mm.removeAll("key"));
+		assertFalse(mm.containsKey("key"));
+	}
+
+	@Test
+	public void testGetIsReadOnly() {
+		AdaptiveListMultimap<String, Integer> mm = new AdaptiveListMultimap<String, Integer>();
+		mm.put("a", 1);
+		mm.put("a", 2);
+		List<Integer> values = mm.get("a");
+		mm.put("a", 3);
+		assertEquals(Arrays.asList(1, 2), values);
+		thrown.expect(UnsupportedOperationException.class);
+		values.set(0, 4);
+	}
+
+	@Test
+	public void testRemoveAll() {
+		AdaptiveListMultimap<String, Integer> mm = new AdaptiveListMultimap<String, Integer>();
+		mm.putAll("a", Arrays.asList(1, 2, 3));
+		mm.put("b", 4);
+		assertEquals(Arrays.asList(1, 2, 3), mm.removeAll("a"));
+		assertEquals(Collections.emptyList(), mm.removeAll("a"));
+		assertEquals(1, mm.size());
+		assertEquals(1, mm.keyCount());
+		assertTrue(mm.containsEntry("b", 4));
+	}
+
+	/**
+	 * Put a mapping in both the multimap and its reference.
+	 */
+	private static void put(AdaptiveListMultimap<Integer, Integer> mm,
+			Map<Integer, List<Integer>> reference, Integer k, Integer v) {
+		List<Integer> values = reference.get(k);
+		if (values == null)
+			reference.put(k, values = new ArrayList<Integer>());
+		values.add(v);
+		assertTrue(mm.put(k, v));
+	}
+
+	@Test
+	public void testRandomAgainstHashMap() {
+		Random random = new Random(42);
+		AdaptiveListMultimap<Integer, Integer> mm = new AdaptiveListMultimap<Integer, Integer>();
+		Map<Integer, List<Integer>> reference = new HashMap<Integer, List<Integer>>();
+		int size = 0;
+		for (int i = 0; i < 20000; i++) {
+			Integer k = random.nextInt(random.nextBoolean() ? 10 : 200);
+			Integer v = random.nextInt(4);
+			List<Integer> values = reference.get(k);
+			switch (random.nextInt(4)) {
+			case 0:
+				boolean removed = values != null && values.remove(v);
+				assertEquals(removed, mm.remove(k, v));
+				if (removed)
+					size--;
+				if (values != null && values.isEmpty())
+					reference.remove(k);
+				break;
+			case 1:
+				if (random.nextInt(10) == 0) {
+					List<Integer> expected = reference.remove(k);
+					if (expected == null)
+						expected = Collections.emptyList();
+					assertEquals(expected, mm.removeAll(k));
+					size -= expected.size();
+				} else {
+					put(mm, reference, k, v);
+					size++;
+				}
+				break;
+			default:
+				put(mm, reference, k, v);
+				size++;
+			}
+			assertEquals(size, mm.size());
+			assertEquals(reference.size(), mm.keyCount());
+		}
+		for (Map.Entry<Integer, List<Integer>> e : reference.entrySet())
+			assertEquals(e.getValue(), mm.get(e.getKey()));
+		assertEquals(reference.keySet(), mm.keySet());
+		assertEquals(reference.hashCode(), mm.hashCode());
+		assertEquals(mm, new AdaptiveListMultimap<Integer, Integer>(reference));
+	}
+
+	@Test
+	public void testKeySetIteratorRemove() {
+		AdaptiveListMultimap<Integer, Integer> mm = new AdaptiveListMultimap<Integer, Integer>();
+		for (int i = 0; i < 50; i++) {
+			mm.put(i, i);
+			if (i % 2 == 0)
+				mm.put(i, -i);
+		}
+		Iterator<Integer> it = mm.keySet().iterator();
+		int seen = 0;
+		while (it.hasNext()) {
+			if (it.next() % 10 != 0)
+				it.remove();
+			seen++;
+		}
+		assertEquals(50, seen);
+		assertEquals(5, mm.keyCount());
+		assertEquals(10, mm.size());
+		for (int i = 0; i < 50; i += 10)
+			assertEquals(Arrays.asList(i, -i), mm.get(i));
+	}
+
+	@Test
+	public void testForEach() {
+		AdaptiveListMultimap<String, Integer> mm = new AdaptiveListMultimap<String, Integer>();
+		mm.put("a", 1);
+		mm.put("b", 2);
+		mm.put("b", 3);
+		final Map<String, List<Integer>> visited = new HashMap<String, List<Integer>>();
+		mm.forEach(new BiConsumer<String, Integer>() {
+
+			@Override
+			public void accept(String key, Integer value) {
+				if (!visited.containsKey(key))
+					visited.put(key, new ArrayList<Integer>());
+				visited.get(key).add(value);
+			}
+
+		});
+		Map<String, List<Integer>> expected = new HashMap<String, List<Integer>>();
+		expected.put("a", Arrays.asList(1));
+		expected.put("b", Arrays.asList(2, 3));
+		assertEquals(expected, visited);
+	}
+
+	@Test
+	public void testForEachConcurrentModification() {
+		final AdaptiveListMultimap<String, Integer> mm = new AdaptiveListMultimap<String, Integer>();
+		mm.put("a", 1);
+		thrown.expect(ConcurrentModificationException.class);
+		mm.forEach(new BiConsumer<String, Integer>() {
+
+			@Override
+			public void accept(String key, Integer value) {
+				mm.put(key, value);
+			}
+
+		});
+	}
+
+	@Test
+	public void testTrimToSize() {
+		AdaptiveListMultimap<Integer, Integer> mm = new AdaptiveListMultimap<Integer, Integer>(
+				1000);
+		for (int i = 0; i < 10; i++)
+			mm.putAll(i, Arrays.asList(i, i + 1, i + 2));
+		AdaptiveListMultimap<Integer, Integer> copy = new AdaptiveListMultimap<Integer, Integer>();
+		for (int i = 0; i < 10; i++)
+			copy.putAll(i, Arrays.asList(i, i + 1, i + 2));
+		long before = ObjectLayout.COMPRESSED_OOPS.retainedSize(mm);
+		mm.trimToSize();
+		assertTrue(ObjectLayout.COMPRESSED_OOPS.retainedSize(mm) < before);
+		assertEquals(copy, mm);
+		mm.put(10, 0);
+		assertEquals(Arrays.asList(0), mm.get(10));
+	}
+
+	@Test
+	public void testEqualsAndToString() {
+		AdaptiveListMultimap<String, Integer> mm = new AdaptiveListMultimap<String, Integer>();
+		mm.put("a", 1);
+		mm.put("a", 1);
+		assertEquals("{a=[1, 1]}", mm.toString());
+		AdaptiveSetMultimap<String, Integer> set = new AdaptiveSetMultimap<String, Integer>();
+		set.put("a", 1);
+		assertFalse(mm.equals(set));
+		mm.remove("a", 1);
+		assertFalse(mm.equals(set));
+		assertFalse(set.equals(mm));
+	}
+
+	@Test
+	public void testSerialization() throws Exception {
+		AdaptiveListMultimap<String, Integer> mm = new AdaptiveListMultimap<String, Integer>();
+		mm.put(null, 1);
+		mm.putAll("a", Arrays.asList(1, null, 1));
+		assertEquals(mm, SerializationTest.roundTrip(mm));
+		assertEquals(new AdaptiveListMultimap<String, Integer>(),
+				SerializationTest.roundTrip(new AdaptiveListMultimap<String, Integer>()));
+	}
+
+	@Test
+	public void testNegativeCapacity() {
+		thrown.expect(IllegalArgumentException.class);
+		new AdaptiveListMultimap<String, Integer>(-1);
+	}
+
+}
@@ -0,0 +1,166 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class AdaptiveListTest {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void testAddPromotes() {
+		AdaptiveList<String> al = new AdaptiveList<String>();
+		assertTrue(al.isInline());
+		assertTrue(al.add("a"));
+		assertTrue(al.isInline());
+		assertEquals("a", al.get(0));
+		
+		assertTrue(al.add("b"));
+		assertFalse(al.isInline());
+		al.add("c");
+		al.add("d");
+		assertEquals(Arrays.asList("a", "b", "c", "d"), al);
+	}
+
+	@Test
+	public void testAddIntE() {
+		AdaptiveList<String> al = new AdaptiveList<String>("b");
+		al.add(0, "a");
+		assertEquals(Arrays.asList("a", "b"), al);
+		al.add(1, "c");
+		assertEquals(Arrays.asList("a", "c", "b"), al);
+		al.add(3, "d");
+		assertEquals(Arrays.asList("a", "c", "b", "d"), al);
+		
+		thrown.expect(IndexOutOfBoundsException.class);
+		al.add(5, "e");
+	}
+
+	@Test
+	public void testRemoveDemotes() {
+		AdaptiveList<String> al = new AdaptiveList<String>(Arrays.asList("a", "b", "c"));
+		assertEquals("b", al.remove(1));
+		assertFalse(al.isInline());
+		assertEquals("a", al.remove(0));
+		assertTrue(al.isInline());
+		assertEquals(Arrays.asList("c"), al);
+		assertEquals("c", al.remove(0));
+		assertTrue(al.isEmpty());
+		
+		thrown.expect(IndexOutOfBoundsException.class);
+		al.remove(0);
+	}
+
+	@Test
+	public void testSet() {
+		AdaptiveList<String> al = new AdaptiveList<String>("a");
+		assertEquals("a", al.set(0, "b"));
+		al.add("c");
+		assertEquals("c", al.set(1, "d"));
+		assertEquals(Arrays.asList("b", "d"), al);
+		
+		thrown.expect(IndexOutOfBoundsException.class);
+		al.set(2, "e");
+	}
+
+	@Test
+	public void testIndexOf() {
+		AdaptiveList<String> al = new AdaptiveList<String>();
+		assertEquals(-1, al.indexOf("a"));
+		al.add(null);
+		assertEquals(0, al.indexOf(null));
+		al.add("a");
+		al.add(null);
+		assertEquals(1, al.indexOf("a"));
+		assertEquals(0, al.indexOf(null));
+		assertEquals(2, al.lastIndexOf(null));
+		assertFalse(al.contains("b"));
+	}
+
+	@Test
+	public void testIteratorRemove() {
+		AdaptiveList<String> al = new AdaptiveList<String>(Arrays.asList("a", "b", "c"));
+		Iterator<String> it = al.iterator();
+		while (it.hasNext()) {
+			if (!it.next().equals("b"))
+				it.remove();
+		}
+		assertEquals(Arrays.asList("b"), al);
+		assertTrue(al.isInline());
+	}
+
+	@Test
+	public void testSubListClear() {
+		AdaptiveList<String> al = new AdaptiveList<String>(Arrays.asList("a", "b", "c", "d"));
+		al.subList(1, 3).clear();
+		assertEquals(Arrays.asList("a", "d"), al);
+		al.subList(0, 1).clear();
+		assertEquals(Arrays.asList("d"), al);
+		assertTrue(al.isInline());
+	}
+
+	@Test
+	public void testToArray() {
+		AdaptiveList<String> al = new AdaptiveList<String>();
+		assertEquals(0, al.toArray().length);
+		al.add("a");
+		assertArrayEquals(new Object[] { "a" }, al.toArray());
+		al.add("b");
+		assertArrayEquals(new String[] { "a", "b" }, al.toArray(new String[0]));
+		String[] array = al.toArray(new String[3]);
+		assertNull(array[2]);
+	}
+
+	@Test
+	public void testTrimToSize() {
+		AdaptiveList<String> al = new AdaptiveList<String>();
+		for (int i = 0; i < 10; i++)
+			al.add("e" + i);
+		al.trimToSize();
+		assertEquals(10, al.size());
+		assertEquals("e9", al.get(9));
+	}
+
+	@Test
+	public void testEqualsObject() {
+		AdaptiveList<String> al = new AdaptiveList<String>("a");
+		List<String> other = new ArrayList<String>();
+		other.add("a");
+		assertTrue(al.equals(other));
+		assertTrue(other.equals(al));
+		assertEquals(other.hashCode(), al.hashCode());
+		al.add("b");
+		assertFalse(al.equals(other));
+	}
+
+}
@@ -0,0 +1,162 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class AdaptiveMapTest {
+
+	@Test
+	public void testPutPromotes() {
+		AdaptiveMap<String, String> am = new AdaptiveMap<String, String>();
+		assertNull(am.put("key", "value"));
+		assertTrue(am.isInline());
+		assertEquals("value", am.put("key", "another value"));
+		assertTrue(am.isInline());
+		
+		assertNull(am.put("another key", "value"));
+		assertFalse(am.isInline());
+		assertEquals(2, am.size());
+		assertEquals("another value", am.get("key"));
+		assertEquals("value", am.get("another key"));
+		assertNull(am.get("missing key"));
+	}
+
+	@Test
+	public void testTiers() {
+		AdaptiveMap<Integer, Integer> am = new AdaptiveMap<Integer, Integer>();
+		for (int i = 0; i < 100; i++)
+			am.put(i, -i);
+		assertEquals(100, am.size());
+		for (int i = 0; i < 100; i++)
+			assertEquals(Integer.valueOf(-i), am.get(i));
+		
+		for (int i = 99; i > 0; i--)
+			assertEquals(Integer.valueOf(-i), am.remove(i));
+		assertTrue(am.isInline());
+		assertEquals(1, am.size());
+		assertEquals(Integer.valueOf(0), am.get(0));
+	}
+
+	@Test
+	public void testNullKeyAndValue() {
+		AdaptiveMap<String, String> am = new AdaptiveMap<String, String>();
+		am.put(null, null);
+		assertTrue(am.containsKey(null));
+		assertTrue(am.containsValue(null));
+		for (int i = 0; i < 20; i++)
+			am.put("key" + i, null);
+		assertTrue(am.containsKey(null));
+		am.put(null, "value");
+		assertEquals("value", am.get(null));
+		assertEquals("value", am.remove(null));
+		assertFalse(am.containsKey(null));
+	}
+
+	@Test
+	public void testRandomAgainstHashMap() {
+		Random random = new Random(42);
+		AdaptiveMap<Integer, Integer> am = new AdaptiveMap<Integer, Integer>();
+		Map<Integer, Integer> reference = new HashMap<Integer, Integer>();
+		for (int i = 0; i < 20000; i++) {
+			Integer k = random.nextInt(random.nextBoolean() ? 6 : 60);
+			if (random.nextInt(3) == 0) {
+				assertEquals(reference.remove(k), am.remove(k));
+			} else {
+				assertEquals(reference.put(k, i), am.put(k, i));
+			}
+			assertEquals(reference.size(), am.size());
+		}
+		assertEquals(reference, am);
+		assertEquals(am, reference);
+		assertEquals(reference.hashCode(), am.hashCode());
+	}
+
+	@Test
+	public void testIteratorRemove() {
+		AdaptiveMap<Integer, Integer> am = new AdaptiveMap<Integer, Integer>();
+		for (int i = 0; i < 50; i++)
+			am.put(i, i);
+		Iterator<Integer> it = am.keySet().iterator();
+		int seen = 0;
+		while (it.hasNext()) {
+			if (it.next() % 10 != 0)
+				it.remove();
+			seen++;
+		}
+		assertEquals(50, seen);
+		assertEquals(5, am.size());
+		for (int i = 0; i < 50; i += 10)
+			assertTrue(am.containsKey(i));
+	}
+
+	@Test
+	public void testIteratorSeesValuesReplacedAfterRemove() {
+		AdaptiveMap<Integer, String> am = new AdaptiveMap<Integer, String>();
+		for (int i = 0; i < 40; i++)
+			am.put(i, "old");
+		Iterator<Entry<Integer, String>> it = am.entrySet().iterator();
+		Integer removed = it.next().getKey();
+		it.remove();
+		for (int i = 0; i < 40; i++)
+			if (i != removed)
+				am.replace(i, "new");
+		int seen = 0;
+		while (it.hasNext()) {
+			assertEquals("new", it.next().getValue());
+			seen++;
+		}
+		assertEquals(39, seen);
+	}
+
+	@Test
+	public void testEntrySetValue() {
+		AdaptiveMap<String, String> am = new AdaptiveMap<String, String>();
+		am.put("key", "value");
+		am.put("another key", "value");
+		for (Entry<String, String> e : am.entrySet())
+			e.setValue(e.getKey());
+		assertEquals("key", am.get("key"));
+		assertEquals("another key", am.get("another key"));
+	}
+
+	@Test
+	public void testViews() {
+		AdaptiveMap<String, String> am = new AdaptiveMap<String, String>();
+		am.put("key", "value");
+		am.put("another key", "another value");
+		assertTrue(am.keySet().remove("key"));
+		assertFalse(am.containsKey("key"));
+		assertTrue(am.values().contains("another value"));
+		am.entrySet().clear();
+		assertTrue(am.isEmpty());
+	}
+
+}
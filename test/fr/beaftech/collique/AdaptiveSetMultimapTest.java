@@ -0,0 +1,136 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class AdaptiveSetMultimapTest {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void testDistinctValues() {
+		AdaptiveSetMultimap<String, Integer> mm = new AdaptiveSetMultimap<String, Integer>();
+		assertSame(Collique.emptySet(), mm.get("a"));
+		assertTrue(mm.put("a", 1));
+		assertFalse(mm.put("a", 1));
+		assertEquals(Collique.setOf(1).getClass(), mm.get("a").getClass());
+		assertTrue(mm.put("a", 2));
+		assertFalse(mm.put("a", 2));
+		assertTrue(mm.put("a", null));
+		assertFalse(mm.put("a", null));
+		assertEquals(3, mm.size());
+		assertEquals(new HashSet<Integer>(Arrays.asList(1, 2, null)),
+				mm.get("a"));
+		assertEquals(Arrays.asList(1, 2, null),
+				Arrays.asList(mm.get("a").toArray()));
+		assertFalse(mm.putAll("a", Arrays.asList(2, 1)));
+		assertTrue(mm.remove("a", 2));
+		assertTrue(mm.remove("a", null));
+		assertEquals(Collique.setOf(1), mm.get("a"));
+	}
+
+	@Test
+	public void testGetIsReadOnly() {
+		AdaptiveSetMultimap<String, Integer> mm = new AdaptiveSetMultimap<String, Integer>();
+		mm.put("a", 1);
+		mm.put("a", 2);
+		Set<Integer> values = mm.get("a");
+		assertTrue(values.contains(2));
+		assertFalse(values.contains(3));
+		thrown.expect(UnsupportedOperationException.class);
+		values.remove(1);
+	}
+
+	@Test
+	public void testRandomAgainstHashMap() {
+		Random random = new Random(42);
+		AdaptiveSetMultimap<Integer, Integer> mm = new AdaptiveSetMultimap<Integer, Integer>();
+		Map<Integer, Set<Integer>> reference = new HashMap<Integer, Set<Integer>>();
+		int size = 0;
+		for (int i = 0; i < 20000; i++) {
+			Integer k = random.nextInt(random.nextBoolean() ? 10 : 200);
+			Integer v = random.nextInt(6);
+			Set<Integer> values = reference.get(k);
+			if (random.nextInt(3) == 0) {
+				boolean removed = values != null && values.remove(v);
+				assertEquals(removed, mm.remove(k, v));
+				if (removed)
+					size--;
+				if (values != null && values.isEmpty())
+					reference.remove(k);
+			} else {
+				if (values == null)
+					reference.put(k, values = new LinkedHashSet<Integer>());
+				boolean added = values.add(v);
+				assertEquals(added, mm.put(k, v));
+				if (added)
+					size++;
+			}
+			assertEquals(size, mm.size());
+			assertEquals(reference.size(), mm.keyCount());
+		}
+		for (Map.Entry<Integer, Set<Integer>> e : reference.entrySet()) {
+			assertEquals(e.getValue(), mm.get(e.getKey()));
+			assertEquals(e.getValue().hashCode(), mm.get(e.getKey())
+					.hashCode());
+		}
+		assertEquals(reference.hashCode(), mm.hashCode());
+		assertEquals(mm, new AdaptiveSetMultimap<Integer, Integer>(reference));
+	}
+
+	@Test
+	public void testKeySetRemove() {
+		AdaptiveSetMultimap<String, Integer> mm = new AdaptiveSetMultimap<String, Integer>();
+		mm.putAll("a", Arrays.asList(1, 2));
+		mm.put("b", 3);
+		assertTrue(mm.keySet().remove("a"));
+		assertFalse(mm.keySet().remove("a"));
+		assertEquals(1, mm.size());
+		assertEquals(Collections.singleton("b"), mm.keySet());
+		mm.keySet().clear();
+		assertTrue(mm.isEmpty());
+	}
+
+	@Test
+	public void testSerialization() throws Exception {
+		AdaptiveSetMultimap<String, Integer> mm = new AdaptiveSetMultimap<String, Integer>();
+		mm.put(null, null);
+		mm.putAll("a", Arrays.asList(1, 2, 3));
+		assertEquals(mm, SerializationTest.roundTrip(mm));
+	}
+
+}
@@ -0,0 +1,116 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class AdaptiveSetTest {
+
+	@Test
+	public void testAddPromotes() {
+		AdaptiveSet<String> as = new AdaptiveSet<String>();
+		assertTrue(as.add("a string"));
+		assertFalse(as.add("a string"));
+		assertTrue(as.isInline());
+		assertTrue(as.add("another string"));
+		assertFalse(as.isInline());
+		assertEquals(2, as.size());
+		assertTrue(as.contains("a string"));
+		assertTrue(as.contains("another string"));
+	}
+
+	@Test
+	public void testTiers() {
+		AdaptiveSet<Integer> as = new AdaptiveSet<Integer>();
+		for (int i = 0; i < 100; i++)
+			assertTrue(as.add(i));
+		assertEquals(100, as.size());
+		for (int i = 99; i > 0; i--)
+			assertTrue(as.remove(i));
+		assertFalse(as.remove(50));
+		assertTrue(as.isInline());
+		assertEquals(new HashSet<Integer>(Arrays.asList(0)), as);
+	}
+
+	@Test
+	public void testNullElement() {
+		AdaptiveSet<String> as = new AdaptiveSet<String>();
+		as.add(null);
+		for (int i = 0; i < 20; i++)
+			as.add("e" + i);
+		assertTrue(as.contains(null));
+		assertTrue(as.remove(null));
+		assertFalse(as.contains(null));
+	}
+
+	@Test
+	public void testRandomAgainstHashSet() {
+		Random random = new Random(42);
+		AdaptiveSet<Integer> as = new AdaptiveSet<Integer>();
+		Set<Integer> reference = new HashSet<Integer>();
+		for (int i = 0; i < 20000; i++) {
+			Integer e = random.nextInt(random.nextBoolean() ? 6 : 60);
+			if (random.nextInt(3) == 0)
+				assertEquals(reference.remove(e), as.remove(e));
+			else
+				assertEquals(reference.add(e), as.add(e));
+			assertEquals(reference.size(), as.size());
+		}
+		assertEquals(reference, as);
+		assertEquals(as, reference);
+		assertEquals(reference.hashCode(), as.hashCode());
+	}
+
+	@Test
+	public void testIteratorRemove() {
+		AdaptiveSet<Integer> as = new AdaptiveSet<Integer>();
+		for (int i = 0; i < 50; i++)
+			as.add(i);
+		Iterator<Integer> it = as.iterator();
+		int seen = 0;
+		while (it.hasNext()) {
+			if (it.next() % 10 != 0)
+				it.remove();
+			seen++;
+		}
+		assertEquals(50, seen);
+		assertEquals(new HashSet<Integer>(Arrays.asList(0, 10, 20, 30, 40)), as);
+	}
+
+	@Test
+	public void testBulkOperations() {
+		AdaptiveSet<String> as = new AdaptiveSet<String>(Arrays.asList("a", "b", "c"));
+		assertTrue(as.containsAll(Arrays.asList("a", "c")));
+		assertTrue(as.retainAll(Arrays.asList("a", "b")));
+		assertTrue(as.removeAll(Arrays.asList("b")));
+		assertArrayEquals(new String[] { "a" }, as.toArray(new String[0]));
+	}
+
+}
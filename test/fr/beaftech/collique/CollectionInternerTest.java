@@ -0,0 +1,102 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class CollectionInternerTest {
+
+	@Test
+	public void testInternList() {
+		CollectionInterner interner = new CollectionInterner();
+		List<String> first = interner.intern(new SingleElementList<String>("default"));
+		List<String> second = interner.intern(new ArrayList<String>(Arrays.asList("default")));
+		assertSame(first, second);
+		assertEquals(Arrays.asList("default"), first);
+		assertNotSame(first, interner.intern(new SingleElementList<String>("other")));
+		assertSame(Collique.emptyList(), interner.intern(new SingleElementList<String>()));
+
+		List<String> large = Arrays.asList("a", "b");
+		assertSame(large, interner.intern(large));
+
+		assertEquals(2, interner.hitCount());
+		assertEquals(2, interner.missCount());
+		assertEquals(0.5, interner.hitRate(), 0);
+		assertEquals(2 * CollectionInterner.CANONICAL_BYTES, interner.bytesSaved());
+	}
+
+	@Test
+	public void testInternSetAndMap() {
+		CollectionInterner interner = new CollectionInterner();
+		Set<String> set = interner.intern(new SingleElementSet<String>("enabled"));
+		assertSame(set, interner.intern(Collections.singleton("enabled")));
+
+		Map<String, String> map = interner.intern(new SingleElementMap<String, String>("enabled", "true"));
+		Map<String, String> other = new HashMap<String, String>();
+		other.put("enabled", "true");
+		assertSame(map, interner.intern(other));
+		assertEquals(other, map);
+	}
+
+	@Test
+	public void testListAndSetAreDistinct() {
+		CollectionInterner interner = new CollectionInterner();
+		List<String> list = interner.intern(new SingleElementList<String>("a string"));
+		Set<String> set = interner.intern(new SingleElementSet<String>("a string"));
+		assertFalse(list.equals(set));
+		assertEquals(2, interner.size());
+	}
+
+	@Test
+	public void testInternElements() {
+		CollectionInterner interner = new CollectionInterner(true);
+		String first = new String("default");
+		String second = new String("default");
+		interner.intern(new SingleElementMap<String, String>(first, first));
+		Map<String, String> map = interner.intern(new SingleElementMap<String, String>(second, "value"));
+		assertSame(first, map.keySet().iterator().next());
+		assertEquals(1, interner.elementHitCount());
+	}
+
+	@Test
+	public void testCanonicalInstancesAreReleased() throws InterruptedException {
+		CollectionInterner interner = new CollectionInterner();
+		for (int i = 0; i < 1000; i++)
+			interner.intern(new SingleElementList<String>("element " + i));
+		for (int i = 0; i < 50 && interner.size() > 0; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertEquals(0, interner.size());
+	}
+
+}
@@ -0,0 +1,151 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class ColliqueTest {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void testListOf() {
+		List<String> list = Collique.listOf("a string");
+		assertEquals(1, list.size());
+		assertEquals("a string", list.get(0));
+		assertTrue(list.contains("a string"));
+		assertEquals(0, list.indexOf("a string"));
+		List<String> other = new ArrayList<String>();
+		other.add("a string");
+		assertEquals(other, list);
+		assertEquals(list, other);
+		assertEquals(other.hashCode(), list.hashCode());
+		assertEquals(list, Collique.listOf("a string"));
+		assertFalse(list.equals(Collique.setOf("a string")));
+
+		thrown.expect(UnsupportedOperationException.class);
+		list.add("another string");
+	}
+
+	@Test
+	public void testListOfNull() {
+		List<String> list = Collique.listOf(null);
+		assertEquals(1, list.size());
+		assertTrue(list.contains(null));
+		assertFalse(list.equals(Collique.emptyList()));
+		Iterator<String> it = list.iterator();
+		assertNull(it.next());
+		assertFalse(it.hasNext());
+	}
+
+	@Test
+	public void testSetOf() {
+		Set<String> set = Collique.setOf("a string");
+		Set<String> other = new HashSet<String>();
+		other.add("a string");
+		assertEquals(other, set);
+		assertEquals(set, other);
+		assertEquals(other.hashCode(), set.hashCode());
+
+		thrown.expect(UnsupportedOperationException.class);
+		set.clear();
+	}
+
+	@Test
+	public void testMapOf() {
+		Map<String, String> map = Collique.mapOf("key", "value");
+		assertEquals("value", map.get("key"));
+		assertNull(map.get("another key"));
+		assertTrue(map.keySet().contains("key"));
+		assertTrue(map.values().contains("value"));
+		assertEquals(1, map.entrySet().size());
+		Map<String, String> other = new HashMap<String, String>();
+		other.put("key", "value");
+		assertEquals(other, map);
+		assertEquals(map, other);
+		assertEquals(other.hashCode(), map.hashCode());
+
+		thrown.expect(UnsupportedOperationException.class);
+		map.put("key", "another value");
+	}
+
+	@Test
+	public void testEmpty() {
+		assertSame(Collique.emptyList(), Collique.emptyList());
+		assertSame(Collique.emptySet(), Collique.emptySet());
+		assertSame(Collique.emptyMap(), Collique.emptyMap());
+		assertTrue(Collique.emptyList().isEmpty());
+		assertEquals(Collections.emptyList(), Collique.emptyList());
+		assertEquals(Collections.emptyList().hashCode(), Collique.emptyList().hashCode());
+		assertEquals(Collections.emptySet(), Collique.emptySet());
+		assertEquals(Collections.emptyMap(), Collique.emptyMap());
+		assertEquals(0, Collique.emptyList().toArray().length);
+		assertFalse(Collique.emptyList().iterator().hasNext());
+		assertTrue(Collique.emptyMap().keySet().isEmpty());
+	}
+
+	@Test
+	public void testSubList() {
+		List<String> list = Collique.listOf("a string");
+		assertSame(list, list.subList(0, 1));
+		assertTrue(list.subList(1, 1).isEmpty());
+
+		thrown.expect(IndexOutOfBoundsException.class);
+		list.subList(0, 2);
+	}
+
+	@Test
+	public void testSpliterator() {
+		Spliterator<String> list = Collique.listOf("a string").spliterator();
+		assertTrue(list.hasCharacteristics(Spliterator.IMMUTABLE
+				| Spliterator.ORDERED | Spliterator.SIZED));
+		assertEquals(1, list.getExactSizeIfKnown());
+		Spliterator<String> set = Collique.setOf("a string").spliterator();
+		assertTrue(set.hasCharacteristics(Spliterator.IMMUTABLE
+				| Spliterator.DISTINCT | Spliterator.SIZED));
+		assertEquals(0, Collique.<String> emptySet().spliterator()
+				.getExactSizeIfKnown());
+		assertEquals(1, Collique.listOf("a string").stream().count());
+	}
+
+	@Test
+	public void testImmutableRemoveIf() {
+		thrown.expect(UnsupportedOperationException.class);
+		Collique.setOf("a string").removeIf(null);
+	}
+
+}
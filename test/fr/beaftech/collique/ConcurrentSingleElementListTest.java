@@ -0,0 +1,94 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class ConcurrentSingleElementListTest {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void testBasics() {
+		ConcurrentSingleElementList<String> list = new ConcurrentSingleElementList<String>();
+		assertTrue(list.isEmpty());
+		assertTrue(list.add(null));
+		assertTrue(list.contains(null));
+		assertNull(list.set(0, "a"));
+		assertEquals("a", list.get(0));
+		assertEquals(0, list.indexOf("a"));
+		List<String> other = new ArrayList<String>();
+		other.add("a");
+		assertEquals(other, list);
+		assertEquals(list, other);
+		assertEquals(other.hashCode(), list.hashCode());
+		assertSame(list, list.subList(0, 1));
+		assertTrue(list.subList(1, 1).isEmpty());
+
+		Iterator<String> it = list.iterator();
+		assertEquals("a", it.next());
+		it.remove();
+		assertTrue(list.isEmpty());
+		assertEquals(new ArrayList<String>(), list);
+	}
+
+	@Test
+	public void testAddWhenFull() {
+		ConcurrentSingleElementList<String> list = new ConcurrentSingleElementList<String>(
+				"a");
+		thrown.expect(UnsupportedOperationException.class);
+		list.add("b");
+	}
+
+	@Test
+	public void testConcurrentAddHasSingleWinner() throws Exception {
+		for (int round = 0; round < 200; round++) {
+			final ConcurrentSingleElementList<Integer> list = new ConcurrentSingleElementList<Integer>();
+			final AtomicInteger winners = new AtomicInteger();
+			ConcurrentSingleElementMapTest
+					.runConcurrently(new ConcurrentSingleElementMapTest.Task() {
+						@Override
+						public void run(int thread) {
+							try {
+								list.add(thread);
+								winners.incrementAndGet();
+							} catch (UnsupportedOperationException e) {
+								// lost the race
+							}
+						}
+					});
+			assertEquals(1, winners.get());
+			assertEquals(1, list.size());
+		}
+	}
+
+}
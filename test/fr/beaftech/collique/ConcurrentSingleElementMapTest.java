@@ -0,0 +1,234 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class ConcurrentSingleElementMapTest {
+
+	private static final int THREADS = 8;
+
+	private static final int ROUNDS = 2000;
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void testPutGetRemove() {
+		ConcurrentSingleElementMap<String, Integer> map = new ConcurrentSingleElementMap<String, Integer>();
+		assertTrue(map.isEmpty());
+		assertNull(map.put("a", 1));
+		assertEquals(Integer.valueOf(1), map.get("a"));
+		assertEquals(Integer.valueOf(1), map.put("a", 2));
+		assertEquals(1, map.size());
+		assertTrue(map.containsKey("a"));
+		assertTrue(map.containsValue(2));
+		assertNull(map.get("b"));
+		assertFalse(map.remove("a", 1));
+		assertTrue(map.remove("a", 2));
+		assertTrue(map.isEmpty());
+
+		map.put("b", 3);
+		thrown.expect(UnsupportedOperationException.class);
+		map.put("c", 4);
+	}
+
+	@Test
+	public void testNullsRejected() {
+		ConcurrentSingleElementMap<String, Integer> map = new ConcurrentSingleElementMap<String, Integer>();
+		thrown.expect(NullPointerException.class);
+		map.put(null, 1);
+	}
+
+	@Test
+	public void testConditionalOperations() {
+		ConcurrentSingleElementMap<String, Integer> map = new ConcurrentSingleElementMap<String, Integer>();
+		assertNull(map.putIfAbsent("a", 1));
+		assertEquals(Integer.valueOf(1), map.putIfAbsent("a", 2));
+		assertFalse(map.replace("a", 2, 3));
+		assertTrue(map.replace("a", 1, 3));
+		assertEquals(Integer.valueOf(3), map.replace("a", 4));
+		assertNull(map.replace("b", 5));
+		assertEquals(Integer.valueOf(4), map.get("a"));
+	}
+
+	@Test
+	public void testCompute() {
+		ConcurrentSingleElementMap<String, Integer> map = new ConcurrentSingleElementMap<String, Integer>();
+		assertEquals(Integer.valueOf(1), map.computeIfAbsent("a",
+				new Function<String, Integer>() {
+					@Override
+					public Integer apply(String k) {
+						return 1;
+					}
+				}));
+		BiFunction<String, Integer, Integer> increment = new BiFunction<String, Integer, Integer>() {
+			@Override
+			public Integer apply(String k, Integer v) {
+				return v == null ? 1 : v + 1;
+			}
+		};
+		assertEquals(Integer.valueOf(2), map.computeIfPresent("a", increment));
+		assertEquals(Integer.valueOf(3), map.compute("a", increment));
+		assertNull(map.computeIfPresent("b", increment));
+		assertEquals(Integer.valueOf(13), map.merge("a", 10,
+				new BiFunction<Integer, Integer, Integer>() {
+					@Override
+					public Integer apply(Integer a, Integer b) {
+						return a + b;
+					}
+				}));
+		assertNull(map.compute("a", new BiFunction<String, Integer, Integer>() {
+			@Override
+			public Integer apply(String k, Integer v) {
+				return null;
+			}
+		}));
+		assertTrue(map.isEmpty());
+	}
+
+	@Test
+	public void testViewsAndEquality() {
+		ConcurrentSingleElementMap<String, Integer> map = new ConcurrentSingleElementMap<String, Integer>();
+		map.put("a", 1);
+		Map<String, Integer> other = new HashMap<String, Integer>();
+		other.put("a", 1);
+		assertEquals(other, map);
+		assertEquals(map, other);
+		assertEquals(other.hashCode(), map.hashCode());
+		assertEquals(other.entrySet(), map.entrySet());
+		assertEquals("{a=1}", map.toString());
+
+		Iterator<String> it = map.keySet().iterator();
+		assertEquals("a", it.next());
+		it.remove();
+		assertTrue(map.isEmpty());
+		assertFalse(map.values().iterator().hasNext());
+	}
+
+	@Test
+	public void testPutIfAbsentHasSingleWinner() throws Exception {
+		for (int round = 0; round < ROUNDS / 10; round++) {
+			final ConcurrentSingleElementMap<String, Integer> map = new ConcurrentSingleElementMap<String, Integer>();
+			final AtomicInteger winners = new AtomicInteger();
+			runConcurrently(new Task() {
+				@Override
+				public void run(int thread) {
+					if (map.putIfAbsent("key", thread) == null)
+						winners.incrementAndGet();
+				}
+			});
+			assertEquals(1, winners.get());
+			assertEquals(1, map.size());
+		}
+	}
+
+	@Test
+	public void testMergeIsAtomic() throws Exception {
+		final ConcurrentSingleElementMap<String, Integer> map = new ConcurrentSingleElementMap<String, Integer>();
+		final BiFunction<Integer, Integer, Integer> sum = new BiFunction<Integer, Integer, Integer>() {
+			@Override
+			public Integer apply(Integer a, Integer b) {
+				return a + b;
+			}
+		};
+		runConcurrently(new Task() {
+			@Override
+			public void run(int thread) {
+				for (int i = 0; i < ROUNDS; i++)
+					map.merge("counter", 1, sum);
+			}
+		});
+		assertEquals(Integer.valueOf(THREADS * ROUNDS), map.get("counter"));
+	}
+
+	@Test
+	public void testRemoveIsLinearizable() throws Exception {
+		final ConcurrentSingleElementMap<String, Integer> map = new ConcurrentSingleElementMap<String, Integer>();
+		final AtomicInteger inserted = new AtomicInteger();
+		final AtomicInteger removed = new AtomicInteger();
+		runConcurrently(new Task() {
+			@Override
+			public void run(int thread) {
+				for (int i = 0; i < ROUNDS; i++) {
+					if (map.putIfAbsent("key", thread) == null)
+						inserted.incrementAndGet();
+					if (map.remove("key", thread))
+						removed.incrementAndGet();
+				}
+			}
+		});
+		// every successful removal matches exactly one successful insertion
+		assertTrue(removed.get() > 0);
+		assertEquals(inserted.get() - removed.get(), map.size());
+	}
+
+	interface Task {
+		void run(int thread) throws Exception;
+	}
+
+	/**
+	 * Start the task on {@link #THREADS} threads released together by a
+	 * barrier, and rethrow the first failure.
+	 */
+	static void runConcurrently(final Task task) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			final CyclicBarrier barrier = new CyclicBarrier(THREADS);
+			List<Future<Void>> futures = new ArrayList<Future<Void>>();
+			for (int t = 0; t < THREADS; t++) {
+				final int thread = t;
+				futures.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						barrier.await();
+						task.run(thread);
+						return null;
+					}
+				}));
+			}
+			for (Future<Void> future : futures)
+				future.get();
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+}
@@ -0,0 +1,81 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class ConcurrentSingleElementSetTest {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void testBasics() {
+		ConcurrentSingleElementSet<String> set = new ConcurrentSingleElementSet<String>();
+		assertTrue(set.add("a"));
+		assertFalse(set.add("a"));
+		Set<String> other = new HashSet<String>();
+		other.add("a");
+		assertEquals(other, set);
+		assertEquals(set, other);
+		assertEquals(other.hashCode(), set.hashCode());
+		assertFalse(set.remove("b"));
+		assertTrue(set.remove("a"));
+		assertTrue(set.isEmpty());
+		assertEquals(new HashSet<String>(), set);
+	}
+
+	@Test
+	public void testAddDifferentElement() {
+		ConcurrentSingleElementSet<String> set = new ConcurrentSingleElementSet<String>(
+				"a");
+		thrown.expect(UnsupportedOperationException.class);
+		set.add("b");
+	}
+
+	@Test
+	public void testConcurrentAddOfSameElement() throws Exception {
+		for (int round = 0; round < 200; round++) {
+			final ConcurrentSingleElementSet<String> set = new ConcurrentSingleElementSet<String>();
+			final AtomicInteger added = new AtomicInteger();
+			ConcurrentSingleElementMapTest
+					.runConcurrently(new ConcurrentSingleElementMapTest.Task() {
+						@Override
+						public void run(int thread) {
+							if (set.add("shared"))
+								added.incrementAndGet();
+						}
+					});
+			assertEquals(1, added.get());
+			assertTrue(set.contains("shared"));
+		}
+	}
+
+}
@@ -0,0 +1,217 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+/**
+ * Guard the per-instance heap footprint of the single-element collections.
+ * Budgets are expressed for a 64-bit HotSpot JVM with compressed oops (the
+ * default for heaps below 32 GB) and without them; a change adding a field to
+ * one of these classes makes this test fail. The measured JDK equivalents are
+ * only required to be at least as large as their Collique counterpart.
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class FootprintTest {
+
+	private static final ObjectLayout COMPRESSED = ObjectLayout.COMPRESSED_OOPS;
+
+	private static final ObjectLayout UNCOMPRESSED = ObjectLayout.UNCOMPRESSED_OOPS;
+
+	private static final String ELEMENT = "element";
+
+	private static final String KEY = "key";
+
+	private static final String VALUE = "value";
+
+	@Test
+	public void testModelMatchesRunningJvm() {
+		ObjectLayout current = ObjectLayout.current();
+		for (Object o : new Object[] { new SingleElementList<String>(),
+				new SingleElementSet<String>(),
+				new SingleElementMap<String, String>(),
+				new SingleElementMap.DefaultEntry<String, String>(),
+				new ArrayList<String>(), new HashMap<String, String>(),
+				new Object[1], new int[3] }) {
+			assertEquals(o.getClass().getName(),
+					ObjectLayout.measuredShallowSize(o), current.shallowSize(o));
+		}
+	}
+
+	@Test
+	public void testSingleElementList() {
+		assertFootprint(16, 24, new SingleElementList<String>());
+		assertFootprint(16, 24, new SingleElementList<String>(ELEMENT));
+		assertNotLarger(new SingleElementList<String>(ELEMENT),
+				Collections.singletonList(ELEMENT));
+		List<String> arrayList = new ArrayList<String>(1);
+		arrayList.add(ELEMENT);
+		assertNotLarger(new SingleElementList<String>(ELEMENT), arrayList);
+	}
+
+	@Test
+	public void testSingleElementSet() {
+		assertFootprint(16, 24, new SingleElementSet<String>());
+		assertFootprint(16, 24, new SingleElementSet<String>(ELEMENT));
+		assertNotLarger(new SingleElementSet<String>(ELEMENT),
+				Collections.singleton(ELEMENT));
+		Set<String> hashSet = new HashSet<String>();
+		hashSet.add(ELEMENT);
+		assertNotLarger(new SingleElementSet<String>(ELEMENT), hashSet);
+	}
+
+	@Test
+	public void testSingleElementMap() {
+		// the reference to the cached views fills the alignment gap left by
+		// compressed oops
+		assertFootprint(24, 40, new SingleElementMap<String, String>());
+		assertFootprint(24, 40,
+				new SingleElementMap<String, String>(KEY, VALUE));
+		assertNotLarger(new SingleElementMap<String, String>(KEY, VALUE),
+				Collections.singletonMap(KEY, VALUE));
+		Map<String, String> hashMap = new HashMap<String, String>();
+		hashMap.put(KEY, VALUE);
+		assertNotLarger(new SingleElementMap<String, String>(KEY, VALUE),
+				hashMap);
+	}
+
+	@Test
+	public void testImmutableCollections() {
+		// element and hash code in final fields
+		assertFootprint(24, 32, Collique.listOf(ELEMENT));
+		assertFootprint(24, 32, Collique.setOf(ELEMENT));
+		// key, value and hash code in final fields
+		assertFootprint(24, 40, Collique.mapOf(KEY, VALUE));
+		assertNotLarger(Collique.mapOf(KEY, VALUE),
+				Collections.singletonMap(KEY, VALUE));
+	}
+
+	@Test
+	public void testSingleElementNavigableSet() {
+		assertFootprint(24, 32, new SingleElementNavigableSet<String>());
+		assertFootprint(24, 32,
+				new SingleElementNavigableSet<String>(ELEMENT));
+		assertNotLarger(new SingleElementNavigableSet<String>(ELEMENT),
+				new TreeSet<String>(Collections.singleton(ELEMENT)));
+	}
+
+	@Test
+	public void testSingleElementNavigableMap() {
+		assertFootprint(32, 48, new SingleElementNavigableMap<String, String>());
+		assertFootprint(32, 48, new SingleElementNavigableMap<String, String>(
+				KEY, VALUE));
+		assertNotLarger(new SingleElementNavigableMap<String, String>(KEY,
+				VALUE), new TreeMap<String, String>(Collections.singletonMap(
+				KEY, VALUE)));
+	}
+
+	@Test
+	public void testDefaultEntry() {
+		assertFootprint(24, 32, new SingleElementMap.DefaultEntry<String, String>(
+				KEY, VALUE));
+	}
+
+	@Test
+	public void testAdaptiveMultimap() {
+		// an index of 1000 keys, one in ten mapped to a second value
+		List<Object> shared = new ArrayList<Object>();
+		AdaptiveListMultimap<Integer, Integer> listIndex = new AdaptiveListMultimap<Integer, Integer>();
+		Map<Integer, List<Integer>> listMap = new HashMap<Integer, List<Integer>>();
+		AdaptiveSetMultimap<Integer, Integer> setIndex = new AdaptiveSetMultimap<Integer, Integer>();
+		Map<Integer, Set<Integer>> setMap = new HashMap<Integer, Set<Integer>>();
+		// keys and values outside the Integer cache, each its own object
+		for (int i = 0; i < 1000; i++) {
+			Integer key = Integer.valueOf(1000 + i);
+			shared.add(key);
+			List<Integer> values = new ArrayList<Integer>();
+			for (int j = 0; j < (i % 10 == 0 ? 2 : 1); j++) {
+				Integer value = Integer.valueOf(-1000 - i - j);
+				shared.add(value);
+				listIndex.put(key, value);
+				setIndex.put(key, value);
+				values.add(value);
+			}
+			listMap.put(key, values);
+			setMap.put(key, new HashSet<Integer>(values));
+		}
+		Object[] elements = shared.toArray();
+		for (ObjectLayout layout : new ObjectLayout[] { COMPRESSED,
+				UNCOMPRESSED }) {
+			long list = layout.retainedSize(listIndex, elements);
+			long set = layout.retainedSize(setIndex, elements);
+			assertEquals(list, set);
+			assertTrue(list + " bytes against " + layout.retainedSize(listMap,
+					elements), 4 * list <= layout.retainedSize(listMap,
+					elements));
+			assertTrue(set + " bytes against " + layout.retainedSize(setMap,
+					elements), 8 * set <= layout.retainedSize(setMap, elements));
+		}
+	}
+
+	@Test
+	public void testJdkEquivalents() {
+		// documents the figures the budgets above are compared with
+		List<String> arrayList = new ArrayList<String>(1);
+		arrayList.add(ELEMENT);
+		assertEquals(48, COMPRESSED.retainedSize(arrayList, ELEMENT));
+		assertEquals(64, UNCOMPRESSED.retainedSize(arrayList, ELEMENT));
+		Map<String, String> hashMap = new HashMap<String, String>();
+		hashMap.put(KEY, VALUE);
+		assertEquals(160, COMPRESSED.retainedSize(hashMap, KEY, VALUE));
+		assertEquals(264, UNCOMPRESSED.retainedSize(hashMap, KEY, VALUE));
+	}
+
+	private static void assertFootprint(long compressed, long uncompressed,
+			Object o) {
+		String name = o.getClass().getSimpleName();
+		assertEquals(name + " with compressed oops", compressed,
+				COMPRESSED.shallowSize(o));
+		assertEquals(name + " without compressed oops", uncompressed,
+				UNCOMPRESSED.shallowSize(o));
+		assertEquals(name + " retained with compressed oops", compressed,
+				COMPRESSED.retainedSize(o, ELEMENT, KEY, VALUE));
+		assertEquals(name + " retained without compressed oops",
+				uncompressed,
+				UNCOMPRESSED.retainedSize(o, ELEMENT, KEY, VALUE));
+	}
+
+	private static void assertNotLarger(Object collique, Object jdk) {
+		for (ObjectLayout layout : new ObjectLayout[] { COMPRESSED,
+				UNCOMPRESSED }) {
+			long ours = layout.retainedSize(collique, ELEMENT, KEY, VALUE);
+			long theirs = layout.retainedSize(jdk, ELEMENT, KEY, VALUE);
+			assertTrue(collique.getClass().getSimpleName() + " (" + ours
+					+ " bytes) larger than " + jdk.getClass().getName() + " ("
+					+ theirs + " bytes)", ours <= theirs);
+		}
+	}
+
+}
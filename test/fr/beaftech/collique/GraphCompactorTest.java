@@ -0,0 +1,230 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+/**
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class GraphCompactorTest {
+
+	static class Node {
+		String name;
+		List<Node> children = new ArrayList<Node>();
+		Set<String> tags = new HashSet<String>();
+		Map<String, String> attributes = new LinkedHashMap<String, String>();
+		Node parent;
+		ArrayList<String> concrete = new ArrayList<String>();
+		final List<String> fixed = new ArrayList<String>();
+		Collection<String> sorted = new TreeSet<String>();
+		Object[] others;
+
+		Node(String name) {
+			this.name = name;
+		}
+
+		Node add(Node child) {
+			child.parent = this;
+			children.add(child);
+			return child;
+		}
+	}
+
+	static class Wrapped {
+		List<String> raw = new ArrayList<String>();
+		Object wrapper;
+	}
+
+	@Test
+	public void testNull() {
+		assertEquals(0, Collique.compact(null));
+	}
+
+	@Test
+	public void testReplacesSmallCollections() {
+		Node root = new Node("root");
+		root.tags.add("tag");
+		root.attributes.put("key", "value");
+		Node child = root.add(new Node("child"));
+		child.children.add(new Node("grandchild"));
+		child.tags.add("a");
+		child.tags.add("b");
+		root.add(new Node("other"));
+
+		int replaced = Collique.compact(root);
+
+		assertEquals(ArrayList.class, root.children.getClass());
+		assertEquals(SingleElementSet.class, root.tags.getClass());
+		assertEquals(Collections.singleton("tag"), root.tags);
+		assertEquals(SingleElementMap.class, root.attributes.getClass());
+		assertEquals("value", root.attributes.get("key"));
+		assertEquals(SingleElementList.class, child.children.getClass());
+		assertEquals(HashSet.class, child.tags.getClass());
+		assertSame(Collique.emptyMap(), child.attributes);
+		Node grandchild = child.children.get(0);
+		assertSame(Collique.emptyList(), grandchild.children);
+		assertSame(Collique.emptySet(), grandchild.tags);
+		// 4 nodes, 3 collections each, minus root.children and child.tags
+		assertEquals(4 * 3 - 2, replaced);
+	}
+
+	@Test
+	public void testRespectsDeclaredTypesAndFinalFields() {
+		Node root = new Node("root");
+		root.concrete.add("a");
+		root.fixed.add("a");
+		Collique.compact(root);
+		assertEquals(ArrayList.class, root.concrete.getClass());
+		assertEquals(ArrayList.class, root.fixed.getClass());
+		assertEquals(TreeSet.class, root.sorted.getClass());
+	}
+
+	@Test
+	public void testTraversesFinalFieldsCollectionsAndArrays() {
+		Node root = new Node("root");
+		Node inFinal = new Node("in final");
+		Node inArray = new Node("in array");
+		Node inMap = new Node("in map");
+		Map<Node, Node> map = new HashMap<Node, Node>();
+		map.put(new Node("key"), inMap);
+		root.others = new Object[] { inArray, map,
+				Collections.singletonList(inFinal) };
+		Collique.compact(root);
+		assertSame(Collique.emptyList(), inFinal.children);
+		assertSame(Collique.emptyList(), inArray.children);
+		assertSame(Collique.emptyList(), inMap.children);
+		assertSame(Collique.emptyList(), map.keySet().iterator().next().children);
+	}
+
+	@Test
+	public void testSharedCollections() {
+		Node a = new Node("a");
+		Node b = new Node("b");
+		List<Node> shared = new ArrayList<Node>();
+		shared.add(new Node("child"));
+		a.children = shared;
+		b.children = shared;
+		a.others = new Object[] { b };
+		Collique.compact(a);
+		assertEquals(SingleElementList.class, a.children.getClass());
+		assertSame(a.children, b.children);
+		a.children.clear();
+		assertTrue(b.children.isEmpty());
+	}
+
+	@Test
+	public void testKeepsCollectionsWithFixedReferences() {
+		Node a = new Node("a");
+		a.fixed.add("tag");
+		Node b = new Node("b");
+		// referenced from a final field
+		List<String> fixed = a.fixed;
+		b.sorted = fixed;
+		// referenced from another collection
+		Set<String> inList = new HashSet<String>();
+		inList.add("x");
+		b.tags = inList;
+		List<Object> holder = new ArrayList<Object>();
+		holder.add(inList);
+		holder.add(null);
+		a.others = new Object[] { b, holder };
+		// referenced from an array
+		Map<String, String> inArray = new HashMap<String, String>();
+		a.attributes = inArray;
+		b.others = new Object[] { inArray };
+
+		Collique.compact(a);
+		assertSame(fixed, b.sorted);
+		assertSame(inList, b.tags);
+		assertSame(inList, holder.get(0));
+		assertSame(inArray, a.attributes);
+		assertSame(Collique.emptyMap(), b.attributes);
+	}
+
+	@Test
+	public void testKeepsCollectionsReferencedFromJdkObjects() {
+		Wrapped unmodifiable = new Wrapped();
+		unmodifiable.wrapper = Collections.unmodifiableList(unmodifiable.raw);
+		Wrapped synchronizedList = new Wrapped();
+		synchronizedList.wrapper = Collections
+				.synchronizedList(synchronizedList.raw);
+		Wrapped optional = new Wrapped();
+		optional.wrapper = Optional.of(optional.raw);
+		for (Wrapped w : new Wrapped[] { unmodifiable, synchronizedList,
+				optional }) {
+			List<String> raw = w.raw;
+			raw.add("x");
+			Collique.compact(w);
+			assertSame(raw, w.raw);
+			w.raw.set(0, "y");
+		}
+		assertEquals("y", ((List<?>) unmodifiable.wrapper).get(0));
+		assertEquals("y", ((List<?>) synchronizedList.wrapper).get(0));
+		assertEquals("y", ((List<?>) ((Optional<?>) optional.wrapper).get())
+				.get(0));
+	}
+
+	@Test
+	public void testCycles() {
+		Node a = new Node("a");
+		Node b = a.add(new Node("b"));
+		b.children.add(a);
+		assertEquals(2 * 3, Collique.compact(a));
+		assertSame(a, b.children.get(0));
+		assertEquals(0, Collique.compact(a));
+	}
+
+	@Test
+	public void testLargeGraph() {
+		// wide and deep enough for the walk to be split in many tasks
+		Node root = new Node("root");
+		List<Node> leaves = new ArrayList<Node>();
+		for (int i = 0; i < 2000; i++) {
+			Node child = root.add(new Node("child " + i));
+			Node chain = child;
+			for (int j = 0; j < 20; j++)
+				chain = chain.add(new Node("node " + i + "/" + j));
+			chain.tags.add("leaf");
+			leaves.add(chain);
+		}
+		int nodes = 1 + 2000 * 21;
+		assertEquals(nodes * 3 - 1, Collique.compact(root));
+		for (Node leaf : leaves) {
+			assertEquals(SingleElementSet.class, leaf.tags.getClass());
+			assertEquals(SingleElementList.class, leaf.parent.children
+					.getClass());
+		}
+	}
+
+}
@@ -0,0 +1,305 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Test helper estimating the heap footprint of objects on a HotSpot JVM.
+ * <p>
+ * Sizes are computed from an analytic model of the object layout, so that the
+ * footprint can be checked both with and without compressed oops from a single
+ * JVM. The model is: an object header followed by the instance fields of the
+ * whole class hierarchy, the total being padded to 8 bytes. Field values are
+ * read through {@code sun.misc.Unsafe} so that the internals of JDK collections
+ * can be walked without opening {@code java.base}; its methods are bound as
+ * method handles, so that the compiler does not warn about the internal API.
+ * {@link #measuredShallowSize(Object)}
+ * gives the layout actually used by the running JVM, to validate the model.
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+final class ObjectLayout {
+
+	private static final MethodHandle OBJECT_FIELD_OFFSET;
+
+	private static final MethodHandle STATIC_FIELD_OFFSET;
+
+	private static final MethodHandle STATIC_FIELD_BASE;
+
+	private static final MethodHandle GET_OBJECT;
+
+	private static final MethodHandle ARRAY_BASE_OFFSET;
+
+	private static final MethodHandle ARRAY_INDEX_SCALE;
+
+	static {
+		try {
+			Class<?> type = Class.forName("sun.misc.Unsafe");
+			Field f = type.getDeclaredField("theUnsafe");
+			f.setAccessible(true);
+			Object unsafe = f.get(null);
+			MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+			OBJECT_FIELD_OFFSET = lookup.findVirtual(type,
+					"objectFieldOffset",
+					MethodType.methodType(long.class, Field.class)).bindTo(
+					unsafe);
+			STATIC_FIELD_OFFSET = lookup.findVirtual(type,
+					"staticFieldOffset",
+					MethodType.methodType(long.class, Field.class)).bindTo(
+					unsafe);
+			STATIC_FIELD_BASE = lookup.findVirtual(type, "staticFieldBase",
+					MethodType.methodType(Object.class, Field.class)).bindTo(
+					unsafe);
+			GET_OBJECT = lookup.findVirtual(type, "getObject",
+					MethodType.methodType(Object.class, Object.class,
+							long.class)).bindTo(unsafe);
+			ARRAY_BASE_OFFSET = lookup.findVirtual(type, "arrayBaseOffset",
+					MethodType.methodType(int.class, Class.class)).bindTo(
+					unsafe);
+			ARRAY_INDEX_SCALE = lookup.findVirtual(type, "arrayIndexScale",
+					MethodType.methodType(int.class, Class.class)).bindTo(
+					unsafe);
+		} catch (Exception e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	/** 64-bit JVM with compressed oops and class pointers (the default). */
+	static final ObjectLayout COMPRESSED_OOPS = new ObjectLayout(12, 4);
+
+	/**
+	 * 64-bit JVM started with {@code -XX:-UseCompressedOops}, which also
+	 * disables compressed class pointers up to Java 14.
+	 */
+	static final ObjectLayout UNCOMPRESSED_OOPS = new ObjectLayout(16, 8);
+
+	private final int headerSize;
+
+	private final int referenceSize;
+
+	private ObjectLayout(int headerSize, int referenceSize) {
+		this.headerSize = headerSize;
+		this.referenceSize = referenceSize;
+	}
+
+	/**
+	 * @return the model matching the running JVM
+	 */
+	static ObjectLayout current() {
+		try {
+			// the first int field is laid out right after the header
+			long header = objectFieldOffset(HeaderProbe.class
+					.getDeclaredField("value"));
+			return new ObjectLayout((int) header,
+					arrayIndexScale(Object[].class));
+		} catch (NoSuchFieldException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	/**
+	 * @return the size in bytes of the object alone, excluding everything it
+	 *         references
+	 */
+	long shallowSize(Object o) {
+		Class<?> c = o.getClass();
+		if (c.isArray()) {
+			int scale = sizeOf(c.getComponentType());
+			long base = align(headerSize + 4, 8);
+			return align(base + (long) Array.getLength(o) * scale, 8);
+		}
+		long size = headerSize;
+		boolean wide = false;
+		boolean narrow = false;
+		for (Field f : instanceFields(c)) {
+			int s = sizeOf(f.getType());
+			size += s;
+			wide |= s == 8;
+			narrow |= s < 8;
+		}
+		// a long, double or uncompressed reference cannot start at offset 12
+		// and nothing smaller fills the gap
+		if (headerSize % 8 != 0 && wide && !narrow)
+			size += 4;
+		return align(size, 8);
+	}
+
+	/**
+	 * @param shared
+	 *            objects not accounted to {@code root}, typically the stored
+	 *            elements themselves
+	 * @return the size in bytes of {@code root} and of every object it
+	 *         exclusively references, objects reachable from static fields of
+	 *         the visited classes being considered shared
+	 */
+	long retainedSize(Object root, Object... shared) {
+		Set<Object> skip = Collections
+				.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+		for (Object o : shared)
+			skip.add(o);
+		Set<Class<?>> staticsSeen = Collections
+				.newSetFromMap(new IdentityHashMap<Class<?>, Boolean>());
+		Set<Object> seen = Collections
+				.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+		Deque<Object> stack = new ArrayDeque<Object>();
+		stack.push(root);
+		long total = 0;
+		while (!stack.isEmpty()) {
+			Object o = stack.pop();
+			Class<?> c = o.getClass();
+			if (staticsSeen.add(c))
+				skipStatics(c, skip);
+			if (skip.contains(o) || !seen.add(o))
+				continue;
+			total += shallowSize(o);
+			if (c.isArray()) {
+				if (!c.getComponentType().isPrimitive())
+					for (Object e : (Object[]) o)
+						if (e != null)
+							stack.push(e);
+				continue;
+			}
+			for (Field f : instanceFields(c)) {
+				if (f.getType().isPrimitive())
+					continue;
+				Object v = getObject(o, objectFieldOffset(f));
+				if (v != null)
+					stack.push(v);
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * @return the size in bytes of the object as laid out by the running JVM
+	 */
+	static long measuredShallowSize(Object o) {
+		Class<?> c = o.getClass();
+		if (c.isArray())
+			return align(arrayBaseOffset(c) + (long) Array.getLength(o)
+					* arrayIndexScale(c), 8);
+		long end = current().headerSize;
+		for (Field f : instanceFields(c))
+			end = Math.max(end, objectFieldOffset(f)
+					+ current().sizeOf(f.getType()));
+		return align(end, 8);
+	}
+
+	private int sizeOf(Class<?> type) {
+		if (type == long.class || type == double.class)
+			return 8;
+		if (type == int.class || type == float.class)
+			return 4;
+		if (type == short.class || type == char.class)
+			return 2;
+		if (type == byte.class || type == boolean.class)
+			return 1;
+		return referenceSize;
+	}
+
+	private static void skipStatics(Class<?> c, Set<Object> skip) {
+		for (Class<?> k = c; k != null && !k.isArray(); k = k.getSuperclass()) {
+			for (Field f : k.getDeclaredFields()) {
+				if (!Modifier.isStatic(f.getModifiers())
+						|| f.getType().isPrimitive())
+					continue;
+				Object v = getObject(staticFieldBase(f), staticFieldOffset(f));
+				if (v != null)
+					skip.add(v);
+			}
+		}
+	}
+
+	private static Iterable<Field> instanceFields(Class<?> c) {
+		Deque<Field> fields = new ArrayDeque<Field>();
+		for (Class<?> k = c; k != null; k = k.getSuperclass())
+			for (Field f : k.getDeclaredFields())
+				if (!Modifier.isStatic(f.getModifiers()))
+					fields.add(f);
+		return fields;
+	}
+
+	private static long objectFieldOffset(Field f) {
+		try {
+			return (long) OBJECT_FIELD_OFFSET.invokeExact(f);
+		} catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static long staticFieldOffset(Field f) {
+		try {
+			return (long) STATIC_FIELD_OFFSET.invokeExact(f);
+		} catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static Object staticFieldBase(Field f) {
+		try {
+			return (Object) STATIC_FIELD_BASE.invokeExact(f);
+		} catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static Object getObject(Object o, long offset) {
+		try {
+			return (Object) GET_OBJECT.invokeExact(o, offset);
+		} catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static int arrayBaseOffset(Class<?> c) {
+		try {
+			return (int) ARRAY_BASE_OFFSET.invokeExact(c);
+		} catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static int arrayIndexScale(Class<?> c) {
+		try {
+			return (int) ARRAY_INDEX_SCALE.invokeExact(c);
+		} catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static class HeaderProbe {
+		@SuppressWarnings("unused")
+		int value;
+	}
+
+	private static long align(long size, int alignment) {
+		return (size + alignment - 1) / alignment * alignment;
+	}
+
+}
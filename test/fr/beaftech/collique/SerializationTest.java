@@ -0,0 +1,205 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class SerializationTest {
+
+	static byte[] serialize(Object o) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(o);
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	@SuppressWarnings("unchecked")
+	static <T> T roundTrip(T o) throws IOException, ClassNotFoundException {
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(
+				serialize(o)));
+		try {
+			return (T) in.readObject();
+		} finally {
+			in.close();
+		}
+	}
+
+	private static void assertRoundTrip(Object o) throws Exception {
+		Object copy = roundTrip(o);
+		assertNotSame(o, copy);
+		assertEquals(o.getClass(), copy.getClass());
+		assertEquals(o, copy);
+		assertEquals(o.hashCode(), copy.hashCode());
+	}
+
+	@Test
+	public void testSingleElementCollections() throws Exception {
+		assertRoundTrip(new SingleElementList<String>());
+		assertRoundTrip(new SingleElementList<String>("a string"));
+		assertRoundTrip(new SingleElementList<String>(null));
+		assertRoundTrip(new SingleElementSet<String>());
+		assertRoundTrip(new SingleElementSet<String>("a string"));
+		assertRoundTrip(new SingleElementMap<String, String>());
+		assertRoundTrip(new SingleElementMap<String, String>(null, "value"));
+		assertRoundTrip(new SingleElementMap<String, String>("key", "value"));
+		assertRoundTrip(new SingleElementMap.DefaultEntry<String, String>(
+				"key", "value"));
+
+		SingleElementList<String> list = roundTrip(new SingleElementList<String>());
+		assertTrue(list.isEmpty());
+		list.add("a string");
+		assertEquals("a string", list.get(0));
+	}
+
+	@Test
+	public void testPrimitiveCollections() throws Exception {
+		assertRoundTrip(new SingleIntList());
+		assertRoundTrip(new SingleIntList(42));
+		assertRoundTrip(new SingleIntSet(42));
+		assertRoundTrip(new SingleLongList(42L));
+		assertRoundTrip(new SingleLongSet());
+		assertRoundTrip(new SingleDoubleList(Double.NaN));
+		assertRoundTrip(new SingleDoubleSet(-0.0));
+		assertRoundTrip(new SingleIntKeyMap<String>());
+		assertRoundTrip(new SingleIntKeyMap<String>(1, "value"));
+		assertRoundTrip(new SingleLongKeyMap<String>(1L, null));
+		assertRoundTrip(new SingleObjIntMap<String>());
+		assertRoundTrip(new SingleObjIntMap<String>("key", 1));
+	}
+
+	@Test
+	public void testAdaptiveCollections() throws Exception {
+		for (int size : new int[] { 0, 1, 5, 100 }) {
+			AdaptiveList<Integer> list = new AdaptiveList<Integer>();
+			AdaptiveSet<Integer> set = new AdaptiveSet<Integer>();
+			AdaptiveMap<Integer, String> map = new AdaptiveMap<Integer, String>();
+			for (int i = 0; i < size; i++) {
+				list.add(i);
+				set.add(i);
+				map.put(i, "value " + i);
+			}
+			set.add(null);
+			map.put(null, null);
+			assertRoundTrip(list);
+			assertRoundTrip(set);
+			assertRoundTrip(map);
+		}
+	}
+
+	@Test
+	public void testConcurrentCollections() throws Exception {
+		assertRoundTrip(new ConcurrentSingleElementList<String>());
+		assertRoundTrip(new ConcurrentSingleElementList<String>("a string"));
+		assertRoundTrip(new ConcurrentSingleElementSet<String>("a string"));
+		assertRoundTrip(new ConcurrentSingleElementMap<String, String>());
+		assertRoundTrip(new ConcurrentSingleElementMap<String, String>("key",
+				"value"));
+		ConcurrentSingleElementMap<String, String> map = roundTrip(new ConcurrentSingleElementMap<String, String>());
+		assertNull(map.putIfAbsent("key", "value"));
+	}
+
+	@Test
+	public void testImmutableCollections() throws Exception {
+		assertSame(Collique.emptyList(), roundTrip(Collique.emptyList()));
+		assertSame(Collique.emptySet(), roundTrip(Collique.emptySet()));
+		assertSame(Collique.emptyMap(), roundTrip(Collique.emptyMap()));
+		assertRoundTrip(Collique.listOf("a string"));
+		assertRoundTrip(Collique.setOf(null));
+		assertRoundTrip(Collique.mapOf("key", "value"));
+		List<List<String>> nested = roundTrip(Arrays.asList(
+				Collique.<String> emptyList(), Collique.<String> emptyList()));
+		assertSame(nested.get(0), nested.get(1));
+	}
+
+	/**
+	 * Size of the serialized form of 100 distinct instances written to the
+	 * same stream, so that class descriptors, written once per stream, do not
+	 * hide the per-instance cost.
+	 */
+	private static int sizeOf100(Factory factory) throws IOException {
+		List<Object> instances = new ArrayList<Object>();
+		for (int i = 0; i < 100; i++)
+			instances.add(factory.create(i));
+		return serialize(instances).length;
+	}
+
+	interface Factory {
+		Object create(int i);
+	}
+
+	@Test
+	public void testCompactness() throws Exception {
+		assertTrue(sizeOf100(new Factory() {
+			@Override
+			public Object create(int i) {
+				return new SingleElementList<Integer>(i);
+			}
+		}) < sizeOf100(new Factory() {
+			@Override
+			public Object create(int i) {
+				List<Integer> list = new ArrayList<Integer>(1);
+				list.add(i);
+				return list;
+			}
+		}));
+		assertTrue(sizeOf100(new Factory() {
+			@Override
+			public Object create(int i) {
+				return new SingleElementSet<Integer>(i);
+			}
+		}) < sizeOf100(new Factory() {
+			@Override
+			public Object create(int i) {
+				return new HashSet<Integer>(Arrays.asList(i));
+			}
+		}));
+		assertTrue(sizeOf100(new Factory() {
+			@Override
+			public Object create(int i) {
+				return new SingleElementMap<Integer, Integer>(i, i);
+			}
+		}) < sizeOf100(new Factory() {
+			@Override
+			public Object create(int i) {
+				Map<Integer, Integer> map = new HashMap<Integer, Integer>();
+				map.put(i, i);
+				return map;
+			}
+		}));
+	}
+
+}
@@ -0,0 +1,126 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PrimitiveIterator;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class SingleDoubleListTest {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void testAddDouble() {
+		SingleDoubleList sl = new SingleDoubleList();
+		assertTrue(sl.isEmpty());
+		assertTrue(sl.addDouble(0.5));
+		assertEquals(1, sl.size());
+		assertTrue(sl.containsDouble(0.5));
+		assertFalse(sl.containsDouble(-0.5));
+		assertTrue(sl.contains(Double.valueOf(0.5)));
+		assertFalse(sl.contains(Float.valueOf(0.5f)));
+
+		thrown.expect(UnsupportedOperationException.class);
+		sl.addDouble(1.5);
+	}
+
+	@Test
+	public void testGetDouble() {
+		SingleDoubleList sl = new SingleDoubleList(0.5);
+		assertEquals(0.5, sl.getDouble(0), 0.0);
+		assertEquals(Double.valueOf(0.5), sl.get(0));
+		assertEquals(0.5, sl.setDouble(0, Double.NaN), 0.0);
+		assertEquals(Double.valueOf(Double.NaN), sl.get(0));
+
+		thrown.expect(IndexOutOfBoundsException.class);
+		sl.getDouble(1);
+	}
+
+	@Test
+	public void testForEachDouble() {
+		final List<Double> seen = new ArrayList<Double>();
+		SingleDoubleList sl = new SingleDoubleList();
+		sl.forEachDouble(seen::add);
+		assertTrue(seen.isEmpty());
+		sl.addDouble(0.5);
+		sl.forEachDouble(seen::add);
+		assertEquals(Arrays.asList(0.5), seen);
+	}
+
+	@Test
+	public void testIterator() {
+		SingleDoubleList sl = new SingleDoubleList(0.5);
+		PrimitiveIterator.OfDouble it = sl.iterator();
+		assertTrue(it.hasNext());
+		assertEquals(0.5, it.nextDouble(), 0.0);
+		assertFalse(it.hasNext());
+		it.remove();
+		assertTrue(sl.isEmpty());
+	}
+
+	@Test
+	public void testRemoveInt() {
+		SingleDoubleList sl = new SingleDoubleList(0.5);
+		assertEquals(Double.valueOf(0.5), sl.remove(0));
+		assertTrue(sl.isEmpty());
+
+		thrown.expect(IndexOutOfBoundsException.class);
+		sl.remove(0);
+	}
+
+	@Test
+	public void testToArray() {
+		SingleDoubleList sl = new SingleDoubleList();
+		assertEquals(0, sl.toDoubleArray().length);
+		sl.add(0.5);
+		assertArrayEquals(new double[] { 0.5 }, sl.toDoubleArray(), 0.0);
+		assertArrayEquals(new Object[] { 0.5 }, sl.toArray());
+		assertArrayEquals(new Double[] { 0.5 }, sl.toArray(new Double[0]));
+	}
+
+	@Test
+	public void testEqualsObject() {
+		SingleDoubleList sl = new SingleDoubleList();
+		assertTrue(sl.equals(Collections.emptyList()));
+		assertEquals(Collections.emptyList().hashCode(), sl.hashCode());
+		sl.addDouble(0.5);
+		List<Double> other = new ArrayList<Double>();
+		other.add(0.5);
+		assertTrue(sl.equals(other));
+		assertTrue(other.equals(sl));
+		assertEquals(other.hashCode(), sl.hashCode());
+		assertTrue(sl.equals(new SingleDoubleList(0.5)));
+		assertFalse(sl.equals(new SingleDoubleList(1.5)));
+		assertFalse(sl.equals(new SingleDoubleSet(0.5)));
+	}
+
+}
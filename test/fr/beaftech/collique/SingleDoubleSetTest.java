@@ -0,0 +1,89 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class SingleDoubleSetTest {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void testAddDouble() {
+		SingleDoubleSet ss = new SingleDoubleSet();
+		assertTrue(ss.addDouble(0.5));
+		assertFalse(ss.addDouble(0.5));
+		assertTrue(ss.containsDouble(0.5));
+
+		thrown.expect(UnsupportedOperationException.class);
+		ss.addDouble(1.5);
+	}
+
+	@Test
+	public void testRemove() {
+		SingleDoubleSet ss = new SingleDoubleSet(0.5);
+		assertFalse(ss.remove(Float.valueOf(0.5f)));
+		assertFalse(ss.remove(1.5));
+		assertTrue(ss.remove(0.5));
+		assertTrue(ss.isEmpty());
+		assertFalse(ss.containsDouble(0.5));
+	}
+
+	@Test
+	public void testEqualsIncomparableSet() {
+		SingleDoubleSet ss = new SingleDoubleSet(0.5);
+		assertFalse(ss.equals(new TreeSet<String>(Collections.singleton("a"))));
+	}
+
+	@Test
+	public void testEqualsObject() {
+		SingleDoubleSet ss = new SingleDoubleSet();
+		assertTrue(ss.equals(Collections.emptySet()));
+		ss.addDouble(0.5);
+		Set<Double> other = new HashSet<Double>();
+		other.add(0.5);
+		assertTrue(ss.equals(other));
+		assertTrue(other.equals(ss));
+		assertEquals(other.hashCode(), ss.hashCode());
+		assertFalse(ss.equals(new SingleDoubleSet(1.5)));
+	}
+
+	@Test
+	public void testNaNAndSignedZero() {
+		SingleDoubleSet ss = new SingleDoubleSet(Double.NaN);
+		assertTrue(ss.containsDouble(Double.NaN));
+		assertTrue(ss.contains(Double.NaN));
+		ss = new SingleDoubleSet(0.0);
+		assertFalse(ss.containsDouble(-0.0));
+	}
+
+}
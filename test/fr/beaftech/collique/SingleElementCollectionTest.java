@@ -19,13 +19,24 @@ package fr.beaftech.collique;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 import org.junit.Rule;
 import org.junit.Test;
@@ -44,6 +55,12 @@ public abstract class SingleElementCollectionTest {
 	
 	public abstract SingleElementCollection<String> getInstance();
 
+	/**
+	 * @return an empty JDK collection implementing the same interface as the
+	 *         tested collection
+	 */
+	public abstract Collection<String> getJdkInstance();
+
 	@Test
 	public void testSize() {
 		SingleElementCollection<String> sec = getInstance();
@@ -75,6 +92,22 @@ public abstract class SingleElementCollectionTest {
 		assertFalse(sec.contains("a string"));
 	}
 
+	@Test
+	public void testNullElement() {
+		SingleElementCollection<String> sec = getInstance();
+		assertFalse(sec.contains(null));
+		sec.add(null);
+		assertEquals(1, sec.size());
+		assertTrue(sec.contains(null));
+		assertFalse(sec.contains("a string"));
+		Iterator<String> it = sec.iterator();
+		assertTrue(it.hasNext());
+		assertEquals(null, it.next());
+		it.remove();
+		assertTrue(sec.isEmpty());
+		assertFalse(sec.contains(null));
+	}
+
 	@Test
 	public void testIterator() {
 		SingleElementCollection<String> sec = getInstance();
@@ -172,6 +205,94 @@ public abstract class SingleElementCollectionTest {
 		assertFalse(sec.containsAll(test_list));
 	}
 
+	@Test
+	public void testContainsAll_Copies() {
+		SingleElementCollection<String> sec = getInstance();
+		sec.add("a string");
+		List<String> copies = new ArrayList<String>();
+		copies.add("a string");
+		copies.add(new String("a string"));
+		assertTrue(sec.containsAll(copies));
+		assertTrue(sec.containsAll(new LinkedList<String>(copies)));
+		copies.add("another string");
+		assertFalse(sec.containsAll(copies));
+		assertFalse(sec.containsAll(new LinkedList<String>(copies)));
+	}
+
+	@Test
+	public void testContainsAll_Set() {
+		SingleElementCollection<String> sec = getInstance();
+		Set<String> set = new HashSet<String>();
+		set.add("a string");
+		assertFalse(sec.containsAll(set));
+		sec.add("a string");
+		assertTrue(sec.containsAll(set));
+		set.add("another string");
+		assertFalse(sec.containsAll(set));
+		set.remove("a string");
+		assertFalse(sec.containsAll(set));
+	}
+
+	@Test
+	public void testContainsAll_Collique() {
+		SingleElementCollection<String> sec = getInstance();
+		SingleElementCollection<String> other = getInstance();
+		assertTrue(sec.containsAll(other));
+		other.add(null);
+		assertFalse(sec.containsAll(other));
+		sec.add(null);
+		assertTrue(sec.containsAll(other));
+		assertTrue(sec.containsAll(Collique.listOf(null)));
+		assertFalse(sec.containsAll(Collique.setOf("a string")));
+		ConcurrentSingleElementSet<String> concurrent = new ConcurrentSingleElementSet<String>();
+		assertTrue(sec.containsAll(concurrent));
+		concurrent.add("a string");
+		assertFalse(sec.containsAll(concurrent));
+	}
+
+	@Test
+	public void testAddAll_Collique() {
+		SingleElementCollection<String> sec = getInstance();
+		assertFalse(sec.addAll(getInstance()));
+		assertTrue(sec.isEmpty());
+		assertTrue(sec.addAll(Collique.listOf("a string")));
+		assertEquals(1, sec.size());
+		assertTrue(sec.contains("a string"));
+	}
+
+	@Test
+	public void testBulkOperations_ConcurrentlyEmptied() {
+		// stands for a concurrent collection emptied right after its size
+		// has been read
+		ConcurrentSingleElementSet<String> emptied = new ConcurrentSingleElementSet<String>() {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public boolean isEmpty() {
+				return false;
+			}
+
+		};
+		SingleElementCollection<String> sec = getInstance();
+		assertFalse(sec.addAll(emptied));
+		assertTrue(sec.isEmpty());
+		assertTrue(sec.containsAll(emptied));
+		sec.add("a string");
+		assertFalse(sec.addAll(emptied));
+		assertTrue(sec.containsAll(emptied));
+		assertEquals(1, sec.size());
+	}
+
+	@Test
+	public void testAddAll_Empty() {
+		SingleElementCollection<String> sec = getInstance();
+		sec.add("a string");
+		assertFalse(sec.addAll(Collections.<String> emptySet()));
+		assertFalse(sec.addAll(new ArrayList<String>()));
+		assertTrue(sec.contains("a string"));
+	}
+
 	
 
 	@Test
@@ -187,6 +308,37 @@ public abstract class SingleElementCollectionTest {
 		assertFalse(sec.contains("a string"));
 	}
 
+	@Test
+	public void testRemoveAll_Set() {
+		SingleElementCollection<String> sec = getInstance();
+		Set<String> set = new HashSet<String>();
+		for (int i = 0; i < 1000; i++) {
+			set.add(Integer.toString(i));
+		}
+		assertFalse(sec.removeAll(set));
+		sec.add("a string");
+		assertFalse(sec.removeAll(set));
+		assertTrue(sec.contains("a string"));
+		sec.clear();
+		sec.add("500");
+		assertTrue(sec.removeAll(set));
+		assertTrue(sec.isEmpty());
+	}
+
+	@Test
+	public void testRemoveAll_Null() {
+		SingleElementCollection<String> sec = getInstance();
+		thrown.expect(NullPointerException.class);
+		sec.removeAll(null);
+	}
+
+	@Test
+	public void testRetainAll_Null() {
+		SingleElementCollection<String> sec = getInstance();
+		thrown.expect(NullPointerException.class);
+		sec.retainAll(null);
+	}
+
 	@Test
 	public void testRetainAll() {
 		SingleElementCollection<String> sec = getInstance();
@@ -212,11 +364,21 @@ public abstract class SingleElementCollectionTest {
 	@Test
 	public void testEqualsObject() {
 		SingleElementCollection<String> sec = getInstance();
-		assertFalse(sec.equals(Collections.emptyList()));
+		Collection<String> jdk = getJdkInstance();
+		assertTrue(sec.equals(jdk));
+		assertTrue(jdk.equals(sec));
+		assertEquals(jdk.hashCode(), sec.hashCode());
 		sec.add("a string");
-		List<String> test_list = new ArrayList<String>();
-		test_list.add("a string");
-		assertFalse(sec.equals(test_list));
+		assertFalse(sec.equals(jdk));
+		jdk.add("a string");
+		assertTrue(sec.equals(jdk));
+		assertTrue(jdk.equals(sec));
+		assertEquals(jdk.hashCode(), sec.hashCode());
+		jdk.add("another string");
+		assertFalse(sec.equals(jdk));
+		assertFalse(jdk.equals(sec));
+		assertFalse(sec.equals(Collections.singletonMap("a string", "")));
+
 		SingleElementCollection<String> other = getInstance();
 		assertFalse(sec.equals(other));
 		other.add("another string");
@@ -224,6 +386,102 @@ public abstract class SingleElementCollectionTest {
 		other.clear();
 		other.add("a string");
 		assertTrue(sec.equals(other));
+		assertEquals(other.hashCode(), sec.hashCode());
+	}
+
+	@Test
+	public void testNullElementEquality() {
+		SingleElementCollection<String> sec = getInstance();
+		sec.add(null);
+		Collection<String> jdk = getJdkInstance();
+		jdk.add(null);
+		assertTrue(sec.equals(jdk));
+		assertTrue(jdk.equals(sec));
+		assertEquals(jdk.hashCode(), sec.hashCode());
+	}
+
+	@Test
+	public void testHashKey() {
+		SingleElementCollection<String> sec = getInstance();
+		sec.add("a string");
+		Map<Collection<String>, String> cache = new HashMap<Collection<String>, String>();
+		Collection<String> jdk = getJdkInstance();
+		jdk.add("a string");
+		cache.put(jdk, "value");
+		assertEquals("value", cache.get(sec));
+		cache.put(sec, "another value");
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void testSpliterator() {
+		SingleElementCollection<String> sec = getInstance();
+		Spliterator<String> empty = sec.spliterator();
+		assertTrue(empty.hasCharacteristics(Spliterator.SIZED
+				| Spliterator.SUBSIZED));
+		assertEquals(0, empty.getExactSizeIfKnown());
+
+		sec.add("a string");
+		Spliterator<String> spliterator = sec.spliterator();
+		assertEquals(1, spliterator.getExactSizeIfKnown());
+		assertNull(spliterator.trySplit());
+		final List<String> seen = new ArrayList<String>();
+		Consumer<String> collect = new Consumer<String>() {
+			@Override
+			public void accept(String s) {
+				seen.add(s);
+			}
+		};
+		assertTrue(spliterator.tryAdvance(collect));
+		assertFalse(spliterator.tryAdvance(collect));
+		assertEquals(0, spliterator.estimateSize());
+		assertEquals(Collections.singletonList("a string"), seen);
+	}
+
+	@Test
+	public void testStream() {
+		SingleElementCollection<String> sec = getInstance();
+		assertEquals(0, sec.stream().count());
+		sec.add("a string");
+		assertEquals(1, sec.stream().count());
+		assertEquals(Collections.singletonList("a string"), sec.stream()
+				.collect(Collectors.toList()));
+	}
+
+	@Test
+	public void testForEach() {
+		SingleElementCollection<String> sec = getInstance();
+		final List<String> seen = new ArrayList<String>();
+		Consumer<String> collect = new Consumer<String>() {
+			@Override
+			public void accept(String s) {
+				seen.add(s);
+			}
+		};
+		sec.forEach(collect);
+		assertTrue(seen.isEmpty());
+		sec.add(null);
+		sec.forEach(collect);
+		assertEquals(Collections.singletonList(null), seen);
+	}
+
+	@Test
+	public void testRemoveIf() {
+		SingleElementCollection<String> sec = getInstance();
+		Predicate<String> isString = new Predicate<String>() {
+			@Override
+			public boolean test(String s) {
+				return "a string".equals(s);
+			}
+		};
+		assertFalse(sec.removeIf(isString));
+		sec.add("another string");
+		assertFalse(sec.removeIf(isString));
+		assertEquals(1, sec.size());
+		sec.clear();
+		sec.add("a string");
+		assertTrue(sec.removeIf(isString));
+		assertTrue(sec.isEmpty());
 	}
 
 }
@@ -19,8 +19,13 @@ package fr.beaftech.collique;
 import static org.junit.Assert.*;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.function.UnaryOperator;
 
 import org.junit.Test;
 
@@ -37,6 +42,20 @@ public class SingleElementListTest extends SingleElementCollectionTest {
 		return new SingleElementList<String>();
 	}
 
+	@Override
+	public Collection<String> getJdkInstance() {
+		return new ArrayList<String>();
+	}
+
+	@Test
+	public void testNotEqualToSet() {
+		SingleElementList<String> list = new SingleElementList<String>(
+				"a string");
+		assertFalse(list.equals(Collections.singleton("a string")));
+		assertFalse(new SingleElementList<String>().equals(Collections
+				.emptySet()));
+	}
+
 	@Test
 	public void testAddE() {
 		SingleElementCollection<String> sec = getInstance();
@@ -243,6 +262,39 @@ public class SingleElementListTest extends SingleElementCollectionTest {
 		sec.addAll(test_list);
 	}
 
+	@Test
+	public void testSpliteratorCharacteristics() {
+		SingleElementList<String> sec = new SingleElementList<String>(
+				"a string");
+		assertTrue(sec instanceof RandomAccess);
+		Spliterator<String> spliterator = sec.spliterator();
+		assertTrue(spliterator.hasCharacteristics(Spliterator.ORDERED));
+		assertFalse(spliterator.hasCharacteristics(Spliterator.IMMUTABLE));
+	}
+
+	@Test
+	public void testReplaceAll() {
+		SingleElementList<String> sec = new SingleElementList<String>();
+		UnaryOperator<String> upper = new UnaryOperator<String>() {
+			@Override
+			public String apply(String s) {
+				return s.toUpperCase();
+			}
+		};
+		sec.replaceAll(upper);
+		assertTrue(sec.isEmpty());
+		sec.add("a string");
+		sec.replaceAll(upper);
+		assertEquals("A STRING", sec.get(0));
+	}
 
+	@Test
+	public void testSort() {
+		SingleElementList<String> sec = new SingleElementList<String>(
+				"a string");
+		sec.sort(null);
+		sec.sort(Collections.<String> reverseOrder());
+		assertEquals("a string", sec.get(0));
+	}
 
 }
@@ -0,0 +1,237 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class SingleElementMapTableTest {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	private static SingleElementMapTable<String, Integer> table() {
+		SingleElementMapTable<String, Integer> table = new SingleElementMapTable<String, Integer>(
+				1);
+		table.add("a", 1);
+		table.addEmpty();
+		table.add(null, 3);
+		table.add("a", 4);
+		return table;
+	}
+
+	@Test
+	public void testRows() {
+		SingleElementMapTable<String, Integer> table = table();
+		assertEquals(4, table.size());
+		assertFalse(table.isEmpty(0));
+		assertTrue(table.isEmpty(1));
+		assertEquals("a", table.getKey(0));
+		assertEquals(Integer.valueOf(1), table.getValue(0));
+		assertNull(table.getKey(1));
+		assertNull(table.getValue(1));
+		assertNull(table.getKey(2));
+		assertFalse(table.isEmpty(2));
+
+		table.set(1, "b", 2);
+		assertEquals("b", table.getKey(1));
+		table.clear(0);
+		assertTrue(table.isEmpty(0));
+		assertNull(table.getValue(0));
+
+		assertEquals(4, table.add(new SingleElementMap<String, Integer>("c",
+				5)));
+		assertEquals(5, table.add(Collections.<String, Integer> emptyMap()));
+		assertTrue(table.isEmpty(5));
+	}
+
+	@Test
+	public void testAddLargeMap() {
+		Map<String, Integer> map = new HashMap<String, Integer>();
+		map.put("a", 1);
+		map.put("b", 2);
+		thrown.expect(IllegalArgumentException.class);
+		table().add(map);
+	}
+
+	@Test
+	public void testRowOutOfBounds() {
+		thrown.expect(IndexOutOfBoundsException.class);
+		table().getValue(4);
+	}
+
+	@Test
+	public void testIndexOf() {
+		SingleElementMapTable<String, Integer> table = table();
+		assertEquals(0, table.indexOf("a"));
+		assertEquals(3, table.indexOf("a", 1));
+		assertEquals(-1, table.indexOf("a", 4));
+		assertEquals(2, table.indexOf(null));
+		assertEquals(-1, table.indexOf("b"));
+		table.clear(2);
+		assertEquals(-1, table.indexOf(null));
+	}
+
+	@Test
+	public void testValues() {
+		SingleElementMapTable<String, Integer> table = table();
+		List<Integer> values = table.values();
+		assertEquals(Arrays.asList(1, null, 3, 4), values);
+		table.add("d", 5);
+		assertEquals(5, values.size());
+		assertEquals(Integer.valueOf(5), values.get(4));
+	}
+
+	@Test
+	public void testValuesReadOnly() {
+		thrown.expect(UnsupportedOperationException.class);
+		table().values().set(0, 7);
+	}
+
+	@Test
+	public void testMapView() {
+		SingleElementMapTable<String, Integer> table = table();
+		Map<String, Integer> row = table.map(0);
+		assertEquals(1, row.size());
+		assertEquals(Integer.valueOf(1), row.get("a"));
+		assertTrue(row.containsKey("a"));
+		assertFalse(row.containsKey("b"));
+		assertTrue(row.containsValue(1));
+		assertEquals(new SingleElementMap<String, Integer>("a", 1).entrySet(),
+				row.entrySet());
+		Map<String, Integer> expected = new HashMap<String, Integer>();
+		expected.put("a", 1);
+		assertEquals(expected, row);
+		assertEquals(row, expected);
+		assertEquals(expected.hashCode(), row.hashCode());
+		assertEquals("{a=1}", row.toString());
+
+		assertEquals(Integer.valueOf(1), row.put("a", 2));
+		assertEquals(Integer.valueOf(2), table.getValue(0));
+		Entry<String, Integer> e = row.entrySet().iterator().next();
+		e.setValue(3);
+		assertEquals(Integer.valueOf(3), table.getValue(0));
+		assertEquals(Integer.valueOf(3), row.remove("a"));
+		assertTrue(table.isEmpty(0));
+		assertTrue(row.isEmpty());
+		assertEquals(Collections.emptyMap(), row);
+
+		Map<String, Integer> empty = table.map(1);
+		assertNull(empty.put("b", 2));
+		assertEquals("b", table.getKey(1));
+		thrown.expect(UnsupportedOperationException.class);
+		empty.put("c", 3);
+	}
+
+	@Test
+	public void testMapViewCollections() {
+		SingleElementMapTable<String, Integer> table = table();
+		Map<String, Integer> row = table.map(0);
+		Set<String> keys = row.keySet();
+		Collection<Integer> values = row.values();
+		Set<Entry<String, Integer>> entries = row.entrySet();
+		assertEquals(Collections.singleton("a"), keys);
+		assertTrue(values.contains(1));
+
+		table.set(0, "z", 26);
+		assertEquals(Collections.singleton("z"), keys);
+		assertEquals(Arrays.asList(26), new ArrayList<Integer>(values));
+		assertTrue(entries.contains(new SimpleEntry<String, Integer>("z", 26)));
+
+		Iterator<String> it = keys.iterator();
+		assertEquals("z", it.next());
+		it.remove();
+		assertTrue(table.isEmpty(0));
+		assertTrue(keys.isEmpty());
+		assertTrue(values.isEmpty());
+		assertTrue(entries.isEmpty());
+		assertFalse(entries.iterator().hasNext());
+
+		row.put("a", 1);
+		assertTrue(values.remove(1));
+		assertTrue(table.isEmpty(0));
+	}
+
+	@Test
+	public void testMapViewFollowsGrowth() {
+		SingleElementMapTable<String, Integer> table = new SingleElementMapTable<String, Integer>(
+				0);
+		Map<String, Integer> row = table.map(table.add("a", 1));
+		for (int i = 0; i < 100; i++)
+			table.add("k" + i, i);
+		table.set(0, "z", 26);
+		assertEquals(Integer.valueOf(26), row.get("z"));
+		table.trimToSize();
+		assertEquals(101, table.size());
+		assertEquals(Integer.valueOf(26), row.get("z"));
+	}
+
+	@Test
+	public void testIllegalCapacity() {
+		thrown.expect(IllegalArgumentException.class);
+		new SingleElementMapTable<String, Integer>(-1);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testSerialization() throws IOException, ClassNotFoundException {
+		SingleElementMapTable<String, Integer> table = table();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(table);
+		}
+		SingleElementMapTable<String, Integer> read;
+		try (ObjectInputStream in = new ObjectInputStream(
+				new ByteArrayInputStream(bytes.toByteArray()))) {
+			read = (SingleElementMapTable<String, Integer>) in.readObject();
+		}
+		assertEquals(4, read.size());
+		assertEquals(table.values(), read.values());
+		assertTrue(read.isEmpty(1));
+		assertNull(read.getKey(2));
+		assertFalse(read.isEmpty(2));
+		assertEquals(3, read.indexOf("a", 1));
+		read.add("e", 6);
+		assertEquals(5, read.size());
+	}
+
+}
@@ -18,12 +18,21 @@ package fr.beaftech.collique;
 
 import static org.junit.Assert.*;
 
+import java.util.AbstractMap;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Random;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 import org.junit.Rule;
 import org.junit.Test;
@@ -215,22 +224,390 @@ public class SingleElementMapTest {
 		}
 	}
 
+	@Test
+	public void testEntrySetWriteThrough() {
+		SingleElementMap<String, String> sem = new SingleElementMap<String, String>();
+		sem.put("key", "value");
+		Entry<String, String> e = sem.entrySet().iterator().next();
+		assertEquals("value", e.setValue("another value"));
+		assertEquals("another value", sem.get("key"));
+		
+		sem.put("key", "value");
+		assertEquals("value", e.getValue());
+	}
+
+	@Test
+	public void testEntryReadAfterIteratorRemove() {
+		SingleElementMap<String, String> sem = new SingleElementMap<String, String>(
+				"key", "value");
+		Iterator<Entry<String, String>> it = sem.entrySet().iterator();
+		Entry<String, String> e = it.next();
+		it.remove();
+		assertTrue(sem.isEmpty());
+		assertEquals("key", e.getKey());
+		assertEquals("value", e.getValue());
+		assertEquals("value", e.setValue("another value"));
+		assertTrue(sem.isEmpty());
+	}
+
+	@Test
+	public void testEntryKeepsItsPairAfterClear() {
+		SingleElementMap<String, String> sem = new SingleElementMap<String, String>(
+				"key", "value");
+		Entry<String, String> e = sem.entrySet().iterator().next();
+		Set<Entry<String, String>> copies = new HashSet<Entry<String, String>>();
+		copies.add(e);
+		sem.clear();
+		sem.put("another key", "another value");
+		assertEquals("key", e.getKey());
+		assertEquals("value", e.getValue());
+		assertTrue(copies.contains(new AbstractMap.SimpleEntry<String, String>(
+				"key", "value")));
+		assertFalse(e.equals(sem.entrySet().iterator().next()));
+		assertEquals("another value", sem.get("another key"));
+	}
+
+	@Test
+	public void testViewsAreCached() {
+		SingleElementMap<String, String> sem = new SingleElementMap<String, String>();
+		assertSame(sem.keySet(), sem.keySet());
+		assertSame(sem.values(), sem.values());
+		assertSame(sem.entrySet(), sem.entrySet());
+	}
+
+	@Test
+	public void testViewsAreLive() {
+		SingleElementMap<String, String> sem = new SingleElementMap<String, String>();
+		Set<String> ks = sem.keySet();
+		Collection<String> v = sem.values();
+		Set<Entry<String, String>> es = sem.entrySet();
+		sem.put("key", "value");
+		assertEquals(Collections.singleton("key"), ks);
+		assertTrue(v.contains("value"));
+		assertEquals(Collections.singletonMap("key", "value").entrySet(), es);
+		sem.remove("key");
+		assertTrue(ks.isEmpty());
+		assertTrue(v.isEmpty());
+		assertTrue(es.isEmpty());
+		assertFalse(es.iterator().hasNext());
+	}
+
+	@Test
+	public void testKeySetWriteThrough() {
+		SingleElementMap<String, String> sem = new SingleElementMap<String, String>(
+				"key", "value");
+		assertFalse(sem.keySet().remove("another key"));
+		assertTrue(sem.keySet().remove("key"));
+		assertTrue(sem.isEmpty());
+		sem.put("key", "value");
+		Iterator<String> it = sem.keySet().iterator();
+		assertEquals("key", it.next());
+		it.remove();
+		assertTrue(sem.isEmpty());
+		sem.put("key", "value");
+		assertTrue(sem.keySet().retainAll(Collections.singleton("another key")));
+		assertTrue(sem.isEmpty());
+	}
+
+	@Test
+	public void testValuesWriteThrough() {
+		SingleElementMap<String, String> sem = new SingleElementMap<String, String>(
+				"key", "value");
+		assertFalse(sem.values().remove("another value"));
+		assertTrue(sem.values().remove("value"));
+		assertTrue(sem.isEmpty());
+		sem.put("key", "value");
+		sem.values().clear();
+		assertTrue(sem.isEmpty());
+	}
+
+	@Test
+	public void testEntrySetRemove() {
+		SingleElementMap<String, String> sem = new SingleElementMap<String, String>(
+				"key", "value");
+		assertFalse(sem.entrySet().remove(
+				new SingleElementMap.DefaultEntry<String, String>("key",
+						"another value")));
+		assertTrue(sem.entrySet().contains(
+				new SingleElementMap.DefaultEntry<String, String>("key",
+						"value")));
+		assertTrue(sem.entrySet().remove(
+				new SingleElementMap.DefaultEntry<String, String>("key",
+						"value")));
+		assertTrue(sem.isEmpty());
+	}
+
+	@Test
+	public void testViewIterator_IllegalStateException() {
+		SingleElementMap<String, String> sem = new SingleElementMap<String, String>(
+				"key", "value");
+		Iterator<Entry<String, String>> it = sem.entrySet().iterator();
+		it.next();
+		it.remove();
+		thrown.expect(IllegalStateException.class);
+		it.remove();
+	}
+
+	@Test
+	public void testViewIterator_NoSuchElementException() {
+		SingleElementMap<String, String> sem = new SingleElementMap<String, String>(
+				"key", "value");
+		Iterator<String> it = sem.values().iterator();
+		it.next();
+		thrown.expect(NoSuchElementException.class);
+		it.next();
+	}
+
+	@Test
+	public void testViewAdd() {
+		SingleElementMap<String, String> sem = new SingleElementMap<String, String>();
+		thrown.expect(UnsupportedOperationException.class);
+		sem.keySet().add("key");
+	}
+
+	@Test
+	public void testNullKeyAndValue() {
+		SingleElementMap<String, String> sem = new SingleElementMap<String, String>();
+		assertFalse(sem.containsKey(null));
+		
+		sem.put(null, null);
+		assertEquals(1, sem.size());
+		assertTrue(sem.containsKey(null));
+		assertTrue(sem.containsValue(null));
+		assertFalse(sem.containsKey("key"));
+		
+		sem.remove(null);
+		assertTrue(sem.isEmpty());
+		assertFalse(sem.containsKey(null));
+	}
+
 	@Test
 	public void testEqualsObject() {
 		SingleElementMap<String, String> sem = new SingleElementMap<String, String>();
-		assertFalse(sem.equals(Collections.emptyMap()));
+		assertTrue(sem.equals(Collections.emptyMap()));
+		assertEquals(0, sem.hashCode());
 		
 		sem.put("key", "value");
 		Map<String, String> other = new HashMap<String, String>();
+		assertFalse(sem.equals(other));
 		other.put("key", "value");
+		assertTrue(sem.equals(other));
+		assertTrue(other.equals(sem));
+		assertEquals(other.hashCode(), sem.hashCode());
+		other.put("key", null);
+		assertFalse(sem.equals(other));
+		other.put("another key", "value");
 		assertFalse(sem.equals(other));
+		assertFalse(sem.equals(Collections.singleton("key")));
 		
 		other = new SingleElementMap<String, String>();
 		assertFalse(sem.equals(other));
 		
 		other.put("key", "value");
 		assertTrue(sem.equals(other));
+		assertEquals(other.hashCode(), sem.hashCode());
 		
 	}
 
+	@Test
+	public void testNullEquality() {
+		SingleElementMap<String, String> sem = new SingleElementMap<String, String>(
+				null, null);
+		Map<String, String> other = new HashMap<String, String>();
+		other.put(null, null);
+		assertTrue(sem.equals(other));
+		assertTrue(other.equals(sem));
+		assertEquals(other.hashCode(), sem.hashCode());
+		assertFalse(sem.equals(Collections.singletonMap("key", null)));
+		assertFalse(sem.equals(new TreeMap<String, String>(Collections
+				.singletonMap("key", "value"))));
+	}
+
+	@Test
+	public void testEntryContract() {
+		SingleElementMap.DefaultEntry<String, String> entry = new SingleElementMap.DefaultEntry<String, String>(
+				"key", "value");
+		Map.Entry<String, String> jdk = new AbstractMap.SimpleEntry<String, String>(
+				"key", "value");
+		assertTrue(entry.equals(jdk));
+		assertTrue(jdk.equals(entry));
+		assertEquals(jdk.hashCode(), entry.hashCode());
+		SingleElementMap<String, String> sem = new SingleElementMap<String, String>(
+				"key", "value");
+		Map.Entry<String, String> view = sem.entrySet().iterator().next();
+		assertEquals(jdk.hashCode(), view.hashCode());
+		assertTrue(view.equals(entry));
+		assertTrue(entry.equals(view));
+	}
+
+	@Test
+	public void testHashKey() {
+		Map<Map<String, String>, String> cache = new HashMap<Map<String, String>, String>();
+		cache.put(Collections.singletonMap("key", "value"), "cached");
+		assertEquals("cached", cache.get(new SingleElementMap<String, String>(
+				"key", "value")));
+		cache.put(new SingleElementMap<String, String>("key", "value"),
+				"replaced");
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void testGetOrDefault() {
+		SingleElementMap<String, String> sem = new SingleElementMap<String, String>();
+		assertEquals("default", sem.getOrDefault("key", "default"));
+		sem.put("key", null);
+		assertNull(sem.getOrDefault("key", "default"));
+		assertEquals("default", sem.getOrDefault("other", "default"));
+	}
+
+	@Test
+	public void testForEach() {
+		SingleElementMap<String, String> sem = new SingleElementMap<String, String>();
+		final Map<String, String> seen = new HashMap<String, String>();
+		BiConsumer<String, String> collect = new BiConsumer<String, String>() {
+			@Override
+			public void accept(String k, String v) {
+				seen.put(k, v);
+			}
+		};
+		sem.forEach(collect);
+		assertTrue(seen.isEmpty());
+		sem.put("key", "value");
+		sem.forEach(collect);
+		assertEquals(Collections.singletonMap("key", "value"), seen);
+	}
+
+	@Test
+	public void testConditionalOperations() {
+		SingleElementMap<String, String> sem = new SingleElementMap<String, String>();
+		assertNull(sem.putIfAbsent("key", "value"));
+		assertEquals("value", sem.putIfAbsent("key", "other"));
+		assertFalse(sem.replace("key", "other", "new"));
+		assertTrue(sem.replace("key", "value", "new"));
+		assertEquals("new", sem.replace("key", "newer"));
+		assertNull(sem.replace("other", "value"));
+		assertFalse(sem.remove("key", "new"));
+		assertTrue(sem.remove("key", "newer"));
+		assertTrue(sem.isEmpty());
+	}
+
+	@Test
+	public void testComputeKeepsStoredKey() {
+		String key = new String("key");
+		SingleElementMap<String, String> sem = new SingleElementMap<String, String>(
+				key, "value");
+		sem.compute(new String("key"),
+				new BiFunction<String, String, String>() {
+					@Override
+					public String apply(String k, String v) {
+						return "computed";
+					}
+				});
+		sem.merge(new String("key"), "merged",
+				new BiFunction<String, String, String>() {
+					@Override
+					public String apply(String v1, String v2) {
+						return v2;
+					}
+				});
+		assertSame(key, sem.keySet().iterator().next());
+		assertEquals("merged", sem.get("key"));
+	}
+
+	@Test
+	public void testComputeOnOtherKey() {
+		SingleElementMap<String, String> sem = new SingleElementMap<String, String>(
+				"key", "value");
+		Function<String, String> nothing = new Function<String, String>() {
+			@Override
+			public String apply(String k) {
+				return null;
+			}
+		};
+		assertNull(sem.computeIfAbsent("other", nothing));
+		assertEquals(1, sem.size());
+
+		thrown.expect(UnsupportedOperationException.class);
+		sem.merge("other", "value", new BiFunction<String, String, String>() {
+			@Override
+			public String apply(String v1, String v2) {
+				return v1 + v2;
+			}
+		});
+	}
+
+	/**
+	 * Apply random sequences of the default methods on a single key to both a
+	 * {@code SingleElementMap} and a {@code HashMap}, checking that they always
+	 * agree.
+	 */
+	@Test
+	public void testDefaultMethodsAgainstHashMap() {
+		final Random random = new Random(42);
+		final String[] values = { null, "a", "b" };
+		Function<String, String> mapping = new Function<String, String>() {
+			@Override
+			public String apply(String k) {
+				return values[random.nextInt(values.length)];
+			}
+		};
+		BiFunction<Object, String, String> remapping = new BiFunction<Object, String, String>() {
+			@Override
+			public String apply(Object k, String v) {
+				return values[random.nextInt(values.length)];
+			}
+		};
+		for (int run = 0; run < 200; run++) {
+			Map<String, String> expected = new HashMap<String, String>();
+			Map<String, String> actual = new SingleElementMap<String, String>();
+			for (int op = 0; op < 20; op++) {
+				String key = random.nextBoolean() ? "key" : null;
+				// make room for the key used by this operation
+				String otherKey = key == null ? "key" : null;
+				expected.remove(otherKey);
+				actual.remove(otherKey);
+				String value = values[random.nextInt(values.length)];
+				String other = values[random.nextInt(values.length)];
+				long seed = random.nextLong();
+				Object[] results = new Object[2];
+				Map<?, ?>[] maps = { expected, actual };
+				for (int m = 0; m < 2; m++) {
+					random.setSeed(seed);
+					@SuppressWarnings("unchecked")
+					Map<String, String> map = (Map<String, String>) maps[m];
+					switch (op % 8) {
+					case 0:
+						results[m] = map.putIfAbsent(key, value);
+						break;
+					case 1:
+						results[m] = map.remove(key, value);
+						break;
+					case 2:
+						results[m] = map.replace(key, value, other);
+						break;
+					case 3:
+						results[m] = map.replace(key, value);
+						break;
+					case 4:
+						results[m] = map.computeIfAbsent(key, mapping);
+						break;
+					case 5:
+						results[m] = map.computeIfPresent(key, remapping);
+						break;
+					case 6:
+						results[m] = map.compute(key, remapping);
+						break;
+					default:
+						results[m] = value == null ? map.getOrDefault(key,
+								other) : map.merge(key, value, remapping);
+					}
+				}
+				assertEquals(results[0], results[1]);
+				assertEquals(expected.size(), actual.size());
+				assertEquals(expected.containsKey(key), actual.containsKey(key));
+				assertEquals(expected.get(key), actual.get(key));
+			}
+		}
+	}
+
 }
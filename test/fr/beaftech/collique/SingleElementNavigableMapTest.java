@@ -0,0 +1,263 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * Check {@link SingleElementNavigableMap} against {@code TreeMap}.
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class SingleElementNavigableMapTest {
+
+	private static final String[] PROBES = { "a", "m", "z" };
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void testNavigationMatchesTreeMap() {
+		TreeMap<String, String> expected = new TreeMap<String, String>();
+		SingleElementNavigableMap<String, String> actual = new SingleElementNavigableMap<String, String>();
+		assertSameNavigation(expected, actual, 2);
+		expected.put("m", "value");
+		actual.put("m", "value");
+		assertSameNavigation(expected, actual, 2);
+	}
+
+	@Test
+	public void testFirstKey_NoSuchElementException() {
+		thrown.expect(NoSuchElementException.class);
+		new SingleElementNavigableMap<String, String>().firstKey();
+	}
+
+	@Test
+	public void testComparatorEquality() {
+		SingleElementNavigableMap<String, String> map = new SingleElementNavigableMap<String, String>(
+				"Key", "value", String.CASE_INSENSITIVE_ORDER);
+		assertSame(String.CASE_INSENSITIVE_ORDER, map.comparator());
+		assertTrue(map.containsKey("KEY"));
+		assertEquals("value", map.get("key"));
+		assertEquals("value", map.put("kEY", "another value"));
+		assertEquals("Key", map.firstKey());
+		assertEquals("another value", map.remove("KEY"));
+		assertTrue(map.isEmpty());
+	}
+
+	@Test
+	public void testComputeKeepsStoredKey() {
+		SingleElementNavigableMap<String, String> map = new SingleElementNavigableMap<String, String>(
+				"a", "value", String.CASE_INSENSITIVE_ORDER);
+		map.compute("A", (k, v) -> v + "1");
+		map.merge("A", "2", (v1, v2) -> v1 + v2);
+		map.put("A", null);
+		map.computeIfAbsent("A", k -> "3");
+		TreeMap<String, String> tree = new TreeMap<String, String>(
+				String.CASE_INSENSITIVE_ORDER);
+		tree.put("a", "value");
+		tree.compute("A", (k, v) -> v + "1");
+		tree.merge("A", "2", (v1, v2) -> v1 + v2);
+		tree.put("A", null);
+		tree.computeIfAbsent("A", k -> "3");
+		assertEquals("a", map.firstKey());
+		assertEquals(tree.firstKey(), map.firstKey());
+		assertEquals("3", map.get("a"));
+		assertEquals(tree, map);
+	}
+
+	@Test
+	public void testNaturalOrderingRejectsNull() {
+		SingleElementNavigableMap<String, String> map = new SingleElementNavigableMap<String, String>();
+		thrown.expect(NullPointerException.class);
+		map.put(null, "value");
+	}
+
+	@Test
+	public void testComputeChecksKey() {
+		SingleElementNavigableMap<Object, String> map = new SingleElementNavigableMap<Object, String>();
+		thrown.expect(ClassCastException.class);
+		map.computeIfAbsent(new Object(), k -> "value");
+	}
+
+	@Test
+	public void testPutAnother() {
+		SingleElementNavigableMap<String, String> map = new SingleElementNavigableMap<String, String>(
+				"m", "value");
+		thrown.expect(UnsupportedOperationException.class);
+		map.put("n", "value");
+	}
+
+	@Test
+	public void testSnapshotEntries() {
+		SingleElementNavigableMap<String, String> map = new SingleElementNavigableMap<String, String>(
+				"m", "value");
+		Map.Entry<String, String> first = map.firstEntry();
+		assertEquals("m", first.getKey());
+		assertEquals("value", first.getValue());
+		assertEquals(first, map.pollLastEntry());
+		assertTrue(map.isEmpty());
+		assertNull(map.pollFirstEntry());
+		thrown.expect(UnsupportedOperationException.class);
+		first.setValue("another value");
+	}
+
+	@Test
+	public void testKeySet() {
+		SingleElementNavigableMap<String, String> map = new SingleElementNavigableMap<String, String>(
+				"m", "value");
+		assertSame(map.keySet(), map.navigableKeySet());
+		assertEquals("m", map.navigableKeySet().pollFirst());
+		assertTrue(map.isEmpty());
+		map.put("m", "value");
+		assertTrue(map.descendingKeySet().remove("m"));
+		assertTrue(map.isEmpty());
+	}
+
+	@Test
+	public void testViewsWriteThrough() {
+		SingleElementNavigableMap<String, String> map = new SingleElementNavigableMap<String, String>();
+		NavigableMap<String, String> head = map.headMap("m", true);
+		NavigableMap<String, String> tail = map.tailMap("m", false);
+		assertNull(head.put("k", "value"));
+		assertEquals("k", map.firstKey());
+		assertTrue(tail.isEmpty());
+		assertEquals("value", head.descendingMap().remove("k"));
+		assertTrue(map.isEmpty());
+		map.put("n", "value");
+		assertTrue(head.isEmpty());
+		assertNull(head.remove("n"));
+		head.clear();
+		assertEquals("value", tail.get("n"));
+		tail.entrySet().iterator().next().setValue("another value");
+		assertEquals("another value", map.get("n"));
+		tail.clear();
+		assertTrue(map.isEmpty());
+	}
+
+	@Test
+	public void testViewPutOutOfRange() {
+		SingleElementNavigableMap<String, String> map = new SingleElementNavigableMap<String, String>();
+		thrown.expect(IllegalArgumentException.class);
+		map.tailMap("m").put("a", "value");
+	}
+
+	@Test
+	public void testSerialization() throws Exception {
+		SingleElementNavigableMap<String, String> map = SerializationTest
+				.roundTrip(new SingleElementNavigableMap<String, String>(
+						"Key", "value", String.CASE_INSENSITIVE_ORDER));
+		assertEquals("value", map.get("KEY"));
+	}
+
+	/**
+	 * Compare the navigation methods of two maps for every probe, then
+	 * compare their key sets and their views up to the given depth.
+	 */
+	private static void assertSameNavigation(
+			final NavigableMap<String, String> expected,
+			final NavigableMap<String, String> actual, int depth) {
+		assertEquals(new ArrayList<Map.Entry<String, String>>(
+				expected.entrySet()), new ArrayList<Map.Entry<String, String>>(
+				actual.entrySet()));
+		assertEquals(expected.size(), actual.size());
+		assertEquals(expected.isEmpty(), actual.isEmpty());
+		assertEquals(expected, actual);
+		assertEquals(expected.hashCode(), actual.hashCode());
+		assertEquals(expected.firstEntry(), actual.firstEntry());
+		assertEquals(expected.lastEntry(), actual.lastEntry());
+		assertEquals(expected.containsValue("value"),
+				actual.containsValue("value"));
+		for (String p : PROBES) {
+			assertEquals(p, expected.containsKey(p), actual.containsKey(p));
+			assertEquals(p, expected.get(p), actual.get(p));
+			assertEquals(p, expected.lowerEntry(p), actual.lowerEntry(p));
+			assertEquals(p, expected.lowerKey(p), actual.lowerKey(p));
+			assertEquals(p, expected.floorEntry(p), actual.floorEntry(p));
+			assertEquals(p, expected.floorKey(p), actual.floorKey(p));
+			assertEquals(p, expected.ceilingEntry(p), actual.ceilingEntry(p));
+			assertEquals(p, expected.ceilingKey(p), actual.ceilingKey(p));
+			assertEquals(p, expected.higherEntry(p), actual.higherEntry(p));
+			assertEquals(p, expected.higherKey(p), actual.higherKey(p));
+		}
+		SingleElementNavigableSetTest.assertSameNavigation(
+				expected.navigableKeySet(), actual.navigableKeySet(), 0);
+		SingleElementNavigableSetTest.assertSameNavigation(
+				expected.descendingKeySet(), actual.descendingKeySet(), 0);
+		if (depth == 0)
+			return;
+		assertSameNavigation(expected.descendingMap(), actual.descendingMap(),
+				depth - 1);
+		for (final String p : PROBES) {
+			for (final boolean inclusive : new boolean[] { true, false }) {
+				assertSameView(() -> expected.headMap(p, inclusive),
+						() -> actual.headMap(p, inclusive), depth - 1);
+				assertSameView(() -> expected.tailMap(p, inclusive),
+						() -> actual.tailMap(p, inclusive), depth - 1);
+				for (final String q : PROBES) {
+					for (final boolean toInclusive : new boolean[] { true,
+							false }) {
+						assertSameView(
+								() -> expected.subMap(p, inclusive, q,
+										toInclusive),
+								() -> actual.subMap(p, inclusive, q,
+										toInclusive), depth - 1);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Compare two views, which must either both be created or both be
+	 * rejected with an {@code IllegalArgumentException}.
+	 */
+	private static void assertSameView(
+			Supplier<NavigableMap<String, String>> expected,
+			Supplier<NavigableMap<String, String>> actual, int depth) {
+		NavigableMap<String, String> e = view(expected);
+		NavigableMap<String, String> a = view(actual);
+		assertEquals(e == null, a == null);
+		if (e != null)
+			assertSameNavigation(e, a, depth);
+	}
+
+	private static NavigableMap<String, String> view(
+			Supplier<NavigableMap<String, String>> supplier) {
+		try {
+			return supplier.get();
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,261 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+/**
+ * Run the collection tests against a set whose comparator permits
+ * {@code null}, and check the navigation methods and views against
+ * {@code TreeSet}.
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class SingleElementNavigableSetTest extends SingleElementCollectionTest {
+
+	private static final Comparator<String> NULLS_FIRST = Comparator
+			.nullsFirst(Comparator.<String> naturalOrder());
+
+	private static final String[] PROBES = { "a", "m", "z" };
+
+	@Override
+	public SingleElementCollection<String> getInstance() {
+		return new SingleElementNavigableSet<String>(NULLS_FIRST);
+	}
+
+	@Override
+	public Collection<String> getJdkInstance() {
+		return new TreeSet<String>(NULLS_FIRST);
+	}
+
+	@Test
+	public void testNavigationMatchesTreeSet() {
+		TreeSet<String> expected = new TreeSet<String>();
+		SingleElementNavigableSet<String> actual = new SingleElementNavigableSet<String>();
+		assertSameNavigation(expected, actual, 2);
+		expected.add("m");
+		actual.add("m");
+		assertSameNavigation(expected, actual, 2);
+	}
+
+	@Test
+	public void testFirst_NoSuchElementException() {
+		thrown.expect(NoSuchElementException.class);
+		new SingleElementNavigableSet<String>().first();
+	}
+
+	@Test
+	public void testComparatorEquality() {
+		SingleElementNavigableSet<String> set = new SingleElementNavigableSet<String>(
+				"Key", String.CASE_INSENSITIVE_ORDER);
+		assertSame(String.CASE_INSENSITIVE_ORDER, set.comparator());
+		assertTrue(set.contains("KEY"));
+		assertFalse(set.add("key"));
+		assertEquals("Key", set.first());
+		assertTrue(set.remove("kEy"));
+		assertTrue(set.isEmpty());
+	}
+
+	@Test
+	public void testNaturalOrderingRejectsNull() {
+		SingleElementNavigableSet<String> set = new SingleElementNavigableSet<String>();
+		thrown.expect(NullPointerException.class);
+		set.add(null);
+	}
+
+	@Test
+	public void testNotComparable() {
+		SingleElementNavigableSet<Object> set = new SingleElementNavigableSet<Object>();
+		thrown.expect(ClassCastException.class);
+		set.add(new Object());
+	}
+
+	@Test
+	public void testAddAnother() {
+		SingleElementNavigableSet<String> set = new SingleElementNavigableSet<String>(
+				"m");
+		thrown.expect(UnsupportedOperationException.class);
+		set.add("n");
+	}
+
+	@Test
+	public void testViewsWriteThrough() {
+		SingleElementNavigableSet<String> set = new SingleElementNavigableSet<String>();
+		NavigableSet<String> head = set.headSet("m", true);
+		NavigableSet<String> tail = set.tailSet("m", false);
+		assertTrue(head.add("k"));
+		assertEquals("k", set.first());
+		assertTrue(tail.isEmpty());
+		assertTrue(head.descendingSet().remove("k"));
+		assertTrue(set.isEmpty());
+		set.add("n");
+		assertTrue(head.isEmpty());
+		assertEquals("n", tail.pollFirst());
+		assertTrue(set.isEmpty());
+	}
+
+	@Test
+	public void testViewAddOutOfRange() {
+		SingleElementNavigableSet<String> set = new SingleElementNavigableSet<String>();
+		thrown.expect(IllegalArgumentException.class);
+		set.headSet("m").add("m");
+	}
+
+	@Test
+	public void testSubSetOutOfRange() {
+		SingleElementNavigableSet<String> set = new SingleElementNavigableSet<String>();
+		thrown.expect(IllegalArgumentException.class);
+		set.headSet("m").tailSet("n");
+	}
+
+	@Test
+	public void testSubSetInvertedBounds() {
+		SingleElementNavigableSet<String> set = new SingleElementNavigableSet<String>();
+		thrown.expect(IllegalArgumentException.class);
+		set.subSet("n", "m");
+	}
+
+	@Test
+	public void testSortedSpliterator() {
+		SingleElementNavigableSet<String> set = new SingleElementNavigableSet<String>(
+				"m", String.CASE_INSENSITIVE_ORDER);
+		Spliterator<String> s = set.spliterator();
+		assertTrue(s.hasCharacteristics(Spliterator.SORTED));
+		assertTrue(s.hasCharacteristics(Spliterator.ORDERED));
+		assertSame(String.CASE_INSENSITIVE_ORDER, s.getComparator());
+		assertNull(new SingleElementNavigableSet<String>("m").spliterator()
+				.getComparator());
+	}
+
+	@Test
+	public void testSerialization() throws Exception {
+		SingleElementNavigableSet<String> set = SerializationTest
+				.roundTrip(new SingleElementNavigableSet<String>("Key",
+						String.CASE_INSENSITIVE_ORDER));
+		assertEquals("Key", set.first());
+		assertTrue(set.contains("KEY"));
+	}
+
+	/**
+	 * Compare the navigation methods of two sets for every probe, then
+	 * compare their views up to the given depth.
+	 */
+	static void assertSameNavigation(final NavigableSet<String> expected,
+			final NavigableSet<String> actual, int depth) {
+		assertEquals(new ArrayList<String>(expected), new ArrayList<String>(
+				actual));
+		assertEquals(expected.size(), actual.size());
+		assertEquals(expected.isEmpty(), actual.isEmpty());
+		assertEquals(expected, actual);
+		assertEquals(expected.hashCode(), actual.hashCode());
+		assertEquals(toList(expected.descendingIterator()),
+				toList(actual.descendingIterator()));
+		assertEquals(first(expected), first(actual));
+		if (!expected.isEmpty())
+			assertEquals(expected.last(), actual.last());
+		assertEquals(Integer.signum(expected.comparator() == null ? -1
+				: expected.comparator().compare("a", "z")),
+				Integer.signum(actual.comparator() == null ? -1 : actual
+						.comparator().compare("a", "z")));
+		for (String p : PROBES) {
+			assertEquals(p, expected.contains(p), actual.contains(p));
+			assertEquals(p, expected.lower(p), actual.lower(p));
+			assertEquals(p, expected.floor(p), actual.floor(p));
+			assertEquals(p, expected.ceiling(p), actual.ceiling(p));
+			assertEquals(p, expected.higher(p), actual.higher(p));
+		}
+		if (depth == 0)
+			return;
+		assertSameNavigation(expected.descendingSet(), actual.descendingSet(),
+				depth - 1);
+		for (final String p : PROBES) {
+			for (final boolean inclusive : new boolean[] { true, false }) {
+				assertSameView(() -> expected.headSet(p, inclusive),
+						() -> actual.headSet(p, inclusive), depth - 1);
+				assertSameView(() -> expected.tailSet(p, inclusive),
+						() -> actual.tailSet(p, inclusive), depth - 1);
+				for (final String q : PROBES) {
+					for (final boolean toInclusive : new boolean[] { true,
+							false }) {
+						assertSameView(
+								() -> expected.subSet(p, inclusive, q,
+										toInclusive),
+								() -> actual.subSet(p, inclusive, q,
+										toInclusive), depth - 1);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Compare two views, which must either both be created or both be
+	 * rejected with an {@code IllegalArgumentException}.
+	 */
+	private static void assertSameView(
+			Supplier<NavigableSet<String>> expected,
+			Supplier<NavigableSet<String>> actual, int depth) {
+		NavigableSet<String> e = view(expected);
+		NavigableSet<String> a = view(actual);
+		assertEquals(e == null, a == null);
+		if (e != null)
+			assertSameNavigation(e, a, depth);
+	}
+
+	private static NavigableSet<String> view(
+			Supplier<NavigableSet<String>> supplier) {
+		try {
+			return supplier.get();
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	private static String first(NavigableSet<String> set) {
+		try {
+			return set.first();
+		} catch (NoSuchElementException e) {
+			return "<none>";
+		}
+	}
+
+	private static List<String> toList(Iterator<String> it) {
+		List<String> list = new ArrayList<String>();
+		while (it.hasNext())
+			list.add(it.next());
+		return list;
+	}
+
+}
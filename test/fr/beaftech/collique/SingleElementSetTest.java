@@ -20,7 +20,12 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.TreeSet;
 
 import org.junit.Test;
 
@@ -39,6 +44,19 @@ public class SingleElementSetTest extends SingleElementCollectionTest {
 		return new SingleElementSet<String>();
 	}
 
+	@Override
+	public Collection<String> getJdkInstance() {
+		return new HashSet<String>();
+	}
+
+	@Test
+	public void testNotEqualToList() {
+		SingleElementSet<String> set = new SingleElementSet<String>("a string");
+		assertFalse(set.equals(Collections.singletonList("a string")));
+		assertTrue(set.equals(Collections.singleton("a string")));
+		assertFalse(set.equals(new TreeSet<Integer>(Collections.singleton(1))));
+	}
+
 	@Test
 	public void testAdd() {
 		SingleElementCollection<String> sec = getInstance();
@@ -68,4 +86,12 @@ public class SingleElementSetTest extends SingleElementCollectionTest {
 
 	}
 
+	@Test
+	public void testSpliteratorCharacteristics() {
+		Spliterator<String> spliterator = new SingleElementSet<String>(
+				"a string").spliterator();
+		assertTrue(spliterator.hasCharacteristics(Spliterator.DISTINCT));
+		assertFalse(spliterator.hasCharacteristics(Spliterator.ORDERED));
+	}
+
 }
@@ -0,0 +1,165 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class SingleIntKeyMapTableTest {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	private static SingleIntKeyMapTable<String> table() {
+		SingleIntKeyMapTable<String> table = new SingleIntKeyMapTable<String>(1);
+		table.add(42, "a");
+		table.addEmpty();
+		table.add(0, "c");
+		table.add(42, "d");
+		return table;
+	}
+
+	@Test
+	public void testRows() {
+		SingleIntKeyMapTable<String> table = table();
+		assertEquals(4, table.size());
+		assertFalse(table.isEmpty(0));
+		assertTrue(table.isEmpty(1));
+		assertEquals(42, table.getIntKey(0));
+		assertEquals("a", table.getValue(0));
+		assertNull(table.getValue(1));
+
+		table.set(1, 7, "b");
+		assertEquals(7, table.getIntKey(1));
+		table.clear(0);
+		assertTrue(table.isEmpty(0));
+		assertNull(table.getValue(0));
+		thrown.expect(NoSuchElementException.class);
+		table.getIntKey(0);
+	}
+
+	@Test
+	public void testRowOutOfBounds() {
+		thrown.expect(IndexOutOfBoundsException.class);
+		table().isEmpty(-1);
+	}
+
+	@Test
+	public void testIndexOf() {
+		SingleIntKeyMapTable<String> table = table();
+		assertEquals(0, table.indexOf(42));
+		assertEquals(3, table.indexOf(42, 1));
+		assertEquals(-1, table.indexOf(42, 4));
+		assertEquals(2, table.indexOf(0));
+		// the empty row keeps a zero key which must not match
+		table.clear(2);
+		assertEquals(-1, table.indexOf(0));
+	}
+
+	@Test
+	public void testValues() {
+		SingleIntKeyMapTable<String> table = table();
+		assertEquals(Arrays.asList("a", null, "c", "d"), table.values());
+	}
+
+	@Test
+	public void testMapView() {
+		SingleIntKeyMapTable<String> table = table();
+		Map<Integer, String> row = table.map(0);
+		assertEquals(1, row.size());
+		assertEquals("a", row.get(Integer.valueOf(42)));
+		assertFalse(row.containsKey("42"));
+		assertFalse(row.containsKey(Integer.valueOf(7)));
+		assertEquals(new SingleIntKeyMap<String>(42, "a"), row);
+		assertEquals(row, new SingleIntKeyMap<String>(42, "a"));
+		Map<Integer, String> expected = new HashMap<Integer, String>();
+		expected.put(42, "a");
+		assertEquals(expected.hashCode(), row.hashCode());
+		assertEquals(expected.entrySet(), row.entrySet());
+
+		Entry<Integer, String> e = row.entrySet().iterator().next();
+		e.setValue("b");
+		assertEquals("b", table.getValue(0));
+		assertEquals("b", row.remove(42));
+		assertTrue(table.isEmpty(0));
+		assertEquals(Collections.emptyMap(), row);
+
+		Map<Integer, String> empty = table.map(1);
+		assertNull(empty.put(7, "b"));
+		assertEquals(7, table.getIntKey(1));
+		thrown.expect(UnsupportedOperationException.class);
+		empty.put(8, "c");
+	}
+
+	@Test
+	public void testMapViewNullKey() {
+		thrown.expect(NullPointerException.class);
+		table().map(1).put(null, "a");
+	}
+
+	@Test
+	public void testGrowth() {
+		SingleIntKeyMapTable<String> table = new SingleIntKeyMapTable<String>(0);
+		for (int i = 0; i < 100; i++)
+			table.add(i, "v" + i);
+		table.trimToSize();
+		assertEquals(100, table.size());
+		assertEquals(99, table.indexOf(99));
+		assertEquals(100, table.addEmpty());
+		assertTrue(table.isEmpty(100));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testSerialization() throws IOException, ClassNotFoundException {
+		SingleIntKeyMapTable<String> table = table();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(table);
+		}
+		SingleIntKeyMapTable<String> read;
+		try (ObjectInputStream in = new ObjectInputStream(
+				new ByteArrayInputStream(bytes.toByteArray()))) {
+			read = (SingleIntKeyMapTable<String>) in.readObject();
+		}
+		assertEquals(table.values(), read.values());
+		assertTrue(read.isEmpty(1));
+		assertEquals(0, read.getIntKey(2));
+		assertEquals(3, read.indexOf(42, 1));
+	}
+
+}
@@ -0,0 +1,111 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class SingleIntKeyMapTest {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void testPut() {
+		SingleIntKeyMap<String> sm = new SingleIntKeyMap<String>();
+		assertFalse(sm.containsKey(42));
+		assertNull(sm.put(42, "value"));
+		assertTrue(sm.containsKey(42));
+		assertTrue(sm.containsKey(Integer.valueOf(42)));
+		assertFalse(sm.containsKey("42"));
+		assertEquals("value", sm.get(42));
+		assertEquals("value", sm.get(Integer.valueOf(42)));
+		assertNull(sm.get(7));
+		assertEquals(42, sm.getIntKey());
+		assertEquals("value", sm.put(42, "another value"));
+		assertEquals("another value", sm.get(42));
+
+		thrown.expect(UnsupportedOperationException.class);
+		sm.put(7, "value");
+	}
+
+	@Test
+	public void testRemove() {
+		SingleIntKeyMap<String> sm = new SingleIntKeyMap<String>(42, "value");
+		assertNull(sm.remove(7));
+		assertEquals("value", sm.remove(42));
+		assertTrue(sm.isEmpty());
+		assertNull(sm.remove(Integer.valueOf(42)));
+	}
+
+	@Test
+	public void testViews() {
+		SingleIntKeyMap<String> sm = new SingleIntKeyMap<String>();
+		assertTrue(sm.keySet().isEmpty());
+		assertTrue(sm.entrySet().isEmpty());
+		sm.put(42, "value");
+		assertTrue(sm.keySet().contains(Integer.valueOf(42)));
+		assertTrue(sm.values().contains("value"));
+		Entry<Integer, String> e = sm.entrySet().iterator().next();
+		assertEquals(Integer.valueOf(42), e.getKey());
+		e.setValue("another value");
+		assertEquals("another value", sm.get(42));
+	}
+
+	@Test
+	public void testEntryKeepsItsPairAfterClear() {
+		SingleIntKeyMap<String> sm = new SingleIntKeyMap<String>(1, "x");
+		Entry<Integer, String> e = sm.entrySet().iterator().next();
+		sm.clear();
+		assertEquals(Integer.valueOf(1), e.getKey());
+		assertEquals("x", e.getValue());
+		sm.put(2, "y");
+		assertEquals(Integer.valueOf(1), e.getKey());
+		assertEquals("x", e.getValue());
+		assertEquals("x", e.setValue("z"));
+		assertEquals("y", sm.get(2));
+		assertEquals("1=z", e.toString());
+	}
+
+	@Test
+	public void testEqualsObject() {
+		SingleIntKeyMap<String> sm = new SingleIntKeyMap<String>();
+		assertTrue(sm.equals(Collections.emptyMap()));
+		sm.put(42, "value");
+		Map<Integer, String> other = new HashMap<Integer, String>();
+		other.put(42, "value");
+		assertTrue(sm.equals(other));
+		assertTrue(other.equals(sm));
+		assertEquals(other.hashCode(), sm.hashCode());
+		other.put(42, "another value");
+		assertFalse(sm.equals(other));
+	}
+
+}
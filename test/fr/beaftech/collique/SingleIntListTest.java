@@ -0,0 +1,126 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PrimitiveIterator;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class SingleIntListTest {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void testAddInt() {
+		SingleIntList sl = new SingleIntList();
+		assertTrue(sl.isEmpty());
+		assertTrue(sl.addInt(42));
+		assertEquals(1, sl.size());
+		assertTrue(sl.containsInt(42));
+		assertFalse(sl.containsInt(7));
+		assertTrue(sl.contains(Integer.valueOf(42)));
+		assertFalse(sl.contains("42"));
+
+		thrown.expect(UnsupportedOperationException.class);
+		sl.addInt(7);
+	}
+
+	@Test
+	public void testGetInt() {
+		SingleIntList sl = new SingleIntList(42);
+		assertEquals(42, sl.getInt(0));
+		assertEquals(Integer.valueOf(42), sl.get(0));
+		assertEquals(42, sl.setInt(0, -1));
+		assertEquals(Integer.valueOf(-1), sl.get(0));
+
+		thrown.expect(IndexOutOfBoundsException.class);
+		sl.getInt(1);
+	}
+
+	@Test
+	public void testForEachInt() {
+		final List<Integer> seen = new ArrayList<Integer>();
+		SingleIntList sl = new SingleIntList();
+		sl.forEachInt(seen::add);
+		assertTrue(seen.isEmpty());
+		sl.addInt(42);
+		sl.forEachInt(seen::add);
+		assertEquals(Arrays.asList(42), seen);
+	}
+
+	@Test
+	public void testIterator() {
+		SingleIntList sl = new SingleIntList(42);
+		PrimitiveIterator.OfInt it = sl.iterator();
+		assertTrue(it.hasNext());
+		assertEquals(42, it.nextInt());
+		assertFalse(it.hasNext());
+		it.remove();
+		assertTrue(sl.isEmpty());
+	}
+
+	@Test
+	public void testRemoveInt() {
+		SingleIntList sl = new SingleIntList(42);
+		assertEquals(Integer.valueOf(42), sl.remove(0));
+		assertTrue(sl.isEmpty());
+
+		thrown.expect(IndexOutOfBoundsException.class);
+		sl.remove(0);
+	}
+
+	@Test
+	public void testToArray() {
+		SingleIntList sl = new SingleIntList();
+		assertEquals(0, sl.toIntArray().length);
+		sl.add(42);
+		assertArrayEquals(new int[] { 42 }, sl.toIntArray());
+		assertArrayEquals(new Object[] { 42 }, sl.toArray());
+		assertArrayEquals(new Integer[] { 42 }, sl.toArray(new Integer[0]));
+	}
+
+	@Test
+	public void testEqualsObject() {
+		SingleIntList sl = new SingleIntList();
+		assertTrue(sl.equals(Collections.emptyList()));
+		assertEquals(Collections.emptyList().hashCode(), sl.hashCode());
+		sl.addInt(42);
+		List<Integer> other = new ArrayList<Integer>();
+		other.add(42);
+		assertTrue(sl.equals(other));
+		assertTrue(other.equals(sl));
+		assertEquals(other.hashCode(), sl.hashCode());
+		assertTrue(sl.equals(new SingleIntList(42)));
+		assertFalse(sl.equals(new SingleIntList(7)));
+		assertFalse(sl.equals(new SingleIntSet(42)));
+	}
+
+}
@@ -0,0 +1,80 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class SingleIntSetTest {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void testAddInt() {
+		SingleIntSet ss = new SingleIntSet();
+		assertTrue(ss.addInt(42));
+		assertFalse(ss.addInt(42));
+		assertTrue(ss.containsInt(42));
+
+		thrown.expect(UnsupportedOperationException.class);
+		ss.addInt(7);
+	}
+
+	@Test
+	public void testRemove() {
+		SingleIntSet ss = new SingleIntSet(42);
+		assertFalse(ss.remove(Long.valueOf(42L)));
+		assertFalse(ss.remove(7));
+		assertTrue(ss.remove(42));
+		assertTrue(ss.isEmpty());
+		assertFalse(ss.containsInt(42));
+	}
+
+	@Test
+	public void testEqualsIncomparableSet() {
+		SingleIntSet ss = new SingleIntSet(1);
+		assertFalse(ss.equals(new TreeSet<String>(Collections.singleton("a"))));
+	}
+
+	@Test
+	public void testEqualsObject() {
+		SingleIntSet ss = new SingleIntSet();
+		assertTrue(ss.equals(Collections.emptySet()));
+		ss.addInt(42);
+		Set<Integer> other = new HashSet<Integer>();
+		other.add(42);
+		assertTrue(ss.equals(other));
+		assertTrue(other.equals(ss));
+		assertEquals(other.hashCode(), ss.hashCode());
+		assertFalse(ss.equals(new SingleIntSet(7)));
+	}
+
+}
@@ -0,0 +1,170 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class SingleLongKeyMapTableTest {
+
+	/**
+	 * A key beyond the int range.
+	 */
+	private static final long KEY = 1L << 40;
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	private static SingleLongKeyMapTable<String> table() {
+		SingleLongKeyMapTable<String> table = new SingleLongKeyMapTable<String>(1);
+		table.add(KEY, "a");
+		table.addEmpty();
+		table.add(0L, "c");
+		table.add(KEY, "d");
+		return table;
+	}
+
+	@Test
+	public void testRows() {
+		SingleLongKeyMapTable<String> table = table();
+		assertEquals(4, table.size());
+		assertFalse(table.isEmpty(0));
+		assertTrue(table.isEmpty(1));
+		assertEquals(KEY, table.getLongKey(0));
+		assertEquals("a", table.getValue(0));
+		assertNull(table.getValue(1));
+
+		table.set(1, 7L, "b");
+		assertEquals(7L, table.getLongKey(1));
+		table.clear(0);
+		assertTrue(table.isEmpty(0));
+		assertNull(table.getValue(0));
+		thrown.expect(NoSuchElementException.class);
+		table.getLongKey(0);
+	}
+
+	@Test
+	public void testRowOutOfBounds() {
+		thrown.expect(IndexOutOfBoundsException.class);
+		table().isEmpty(-1);
+	}
+
+	@Test
+	public void testIndexOf() {
+		SingleLongKeyMapTable<String> table = table();
+		assertEquals(0, table.indexOf(KEY));
+		assertEquals(3, table.indexOf(KEY, 1));
+		assertEquals(-1, table.indexOf(KEY, 4));
+		assertEquals(2, table.indexOf(0L));
+		// the empty row keeps a zero key which must not match
+		table.clear(2);
+		assertEquals(-1, table.indexOf(0L));
+	}
+
+	@Test
+	public void testValues() {
+		SingleLongKeyMapTable<String> table = table();
+		assertEquals(Arrays.asList("a", null, "c", "d"), table.values());
+	}
+
+	@Test
+	public void testMapView() {
+		SingleLongKeyMapTable<String> table = table();
+		Map<Long, String> row = table.map(0);
+		assertEquals(1, row.size());
+		assertEquals("a", row.get(Long.valueOf(KEY)));
+		assertFalse(row.containsKey(Integer.valueOf(42)));
+		assertFalse(row.containsKey(Long.valueOf(7L)));
+		assertEquals(new SingleLongKeyMap<String>(KEY, "a"), row);
+		assertEquals(row, new SingleLongKeyMap<String>(KEY, "a"));
+		Map<Long, String> expected = new HashMap<Long, String>();
+		expected.put(KEY, "a");
+		assertEquals(expected.hashCode(), row.hashCode());
+		assertEquals(expected.entrySet(), row.entrySet());
+
+		Entry<Long, String> e = row.entrySet().iterator().next();
+		e.setValue("b");
+		assertEquals("b", table.getValue(0));
+		assertEquals("b", row.remove(KEY));
+		assertTrue(table.isEmpty(0));
+		assertEquals(Collections.emptyMap(), row);
+
+		Map<Long, String> empty = table.map(1);
+		assertNull(empty.put(7L, "b"));
+		assertEquals(7L, table.getLongKey(1));
+		thrown.expect(UnsupportedOperationException.class);
+		empty.put(8L, "c");
+	}
+
+	@Test
+	public void testMapViewNullKey() {
+		thrown.expect(NullPointerException.class);
+		table().map(1).put(null, "a");
+	}
+
+	@Test
+	public void testGrowth() {
+		SingleLongKeyMapTable<String> table = new SingleLongKeyMapTable<String>(0);
+		for (int i = 0; i < 100; i++)
+			table.add(i, "v" + i);
+		table.trimToSize();
+		assertEquals(100, table.size());
+		assertEquals(99, table.indexOf(99L));
+		assertEquals(100, table.addEmpty());
+		assertTrue(table.isEmpty(100));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testSerialization() throws IOException, ClassNotFoundException {
+		SingleLongKeyMapTable<String> table = table();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(table);
+		}
+		SingleLongKeyMapTable<String> read;
+		try (ObjectInputStream in = new ObjectInputStream(
+				new ByteArrayInputStream(bytes.toByteArray()))) {
+			read = (SingleLongKeyMapTable<String>) in.readObject();
+		}
+		assertEquals(table.values(), read.values());
+		assertTrue(read.isEmpty(1));
+		assertEquals(0L, read.getLongKey(2));
+		assertEquals(3, read.indexOf(KEY, 1));
+	}
+
+}
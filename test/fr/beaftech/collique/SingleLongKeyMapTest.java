@@ -0,0 +1,118 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class SingleLongKeyMapTest {
+
+	/**
+	 * A key beyond the int range.
+	 */
+	private static final long KEY = 1L << 40;
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void testPut() {
+		SingleLongKeyMap<String> sm = new SingleLongKeyMap<String>();
+		assertFalse(sm.containsKey(KEY));
+		assertNull(sm.put(KEY, "value"));
+		assertTrue(sm.containsKey(KEY));
+		assertTrue(sm.containsKey(Long.valueOf(KEY)));
+		assertFalse(sm.containsKey(Integer.valueOf(42)));
+		assertEquals("value", sm.get(KEY));
+		assertEquals("value", sm.get(Long.valueOf(KEY)));
+		assertNull(sm.get(7L));
+		assertNull(sm.get(42L));
+		assertEquals(KEY, sm.getLongKey());
+		assertEquals("value", sm.put(KEY, "another value"));
+		assertEquals("another value", sm.get(KEY));
+
+		thrown.expect(UnsupportedOperationException.class);
+		sm.put(7L, "value");
+	}
+
+	@Test
+	public void testRemove() {
+		SingleLongKeyMap<String> sm = new SingleLongKeyMap<String>(KEY, "value");
+		assertNull(sm.remove(7L));
+		assertEquals("value", sm.remove(KEY));
+		assertTrue(sm.isEmpty());
+		assertNull(sm.remove(Long.valueOf(KEY)));
+	}
+
+	@Test
+	public void testViews() {
+		SingleLongKeyMap<String> sm = new SingleLongKeyMap<String>();
+		assertTrue(sm.keySet().isEmpty());
+		assertTrue(sm.entrySet().isEmpty());
+		sm.put(KEY, "value");
+		assertTrue(sm.keySet().contains(Long.valueOf(KEY)));
+		assertTrue(sm.values().contains("value"));
+		Entry<Long, String> e = sm.entrySet().iterator().next();
+		assertEquals(Long.valueOf(KEY), e.getKey());
+		e.setValue("another value");
+		assertEquals("another value", sm.get(KEY));
+	}
+
+	@Test
+	public void testEntryKeepsItsPairAfterClear() {
+		SingleLongKeyMap<String> sm = new SingleLongKeyMap<String>(KEY, "x");
+		Entry<Long, String> e = sm.entrySet().iterator().next();
+		sm.clear();
+		assertEquals(Long.valueOf(KEY), e.getKey());
+		assertEquals("x", e.getValue());
+		sm.put(2L, "y");
+		assertEquals(Long.valueOf(KEY), e.getKey());
+		assertEquals("x", e.getValue());
+		assertEquals("x", e.setValue("z"));
+		assertEquals("y", sm.get(2L));
+		assertEquals(new SingleElementMap.DefaultEntry<Long, String>(KEY, "z"),
+				e);
+	}
+
+	@Test
+	public void testEqualsObject() {
+		SingleLongKeyMap<String> sm = new SingleLongKeyMap<String>();
+		assertTrue(sm.equals(Collections.emptyMap()));
+		sm.put(KEY, "value");
+		Map<Long, String> other = new HashMap<Long, String>();
+		other.put(KEY, "value");
+		assertTrue(sm.equals(other));
+		assertTrue(other.equals(sm));
+		assertEquals(other.hashCode(), sm.hashCode());
+		other.put(KEY, "another value");
+		assertFalse(sm.equals(other));
+	}
+
+}
@@ -0,0 +1,127 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PrimitiveIterator;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class SingleLongListTest {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void testAddLong() {
+		SingleLongList sl = new SingleLongList();
+		assertTrue(sl.isEmpty());
+		assertTrue(sl.addLong(42L));
+		assertEquals(1, sl.size());
+		assertTrue(sl.containsLong(42L));
+		assertFalse(sl.containsLong(42L + (1L << 32)));
+		assertTrue(sl.contains(Long.valueOf(42L)));
+		assertFalse(sl.contains(Integer.valueOf(42)));
+
+		thrown.expect(UnsupportedOperationException.class);
+		sl.addLong(7L);
+	}
+
+	@Test
+	public void testGetLong() {
+		SingleLongList sl = new SingleLongList(42L);
+		assertEquals(42L, sl.getLong(0));
+		assertEquals(Long.valueOf(42L), sl.get(0));
+		assertEquals(42L, sl.setLong(0, Long.MIN_VALUE));
+		assertEquals(Long.valueOf(Long.MIN_VALUE), sl.get(0));
+
+		thrown.expect(IndexOutOfBoundsException.class);
+		sl.getLong(1);
+	}
+
+	@Test
+	public void testForEachLong() {
+		final List<Long> seen = new ArrayList<Long>();
+		SingleLongList sl = new SingleLongList();
+		sl.forEachLong(seen::add);
+		assertTrue(seen.isEmpty());
+		sl.addLong(42L);
+		sl.forEachLong(seen::add);
+		assertEquals(Arrays.asList(42L), seen);
+	}
+
+	@Test
+	public void testIterator() {
+		SingleLongList sl = new SingleLongList(42L);
+		PrimitiveIterator.OfLong it = sl.iterator();
+		assertTrue(it.hasNext());
+		assertEquals(42L, it.nextLong());
+		assertFalse(it.hasNext());
+		it.remove();
+		assertTrue(sl.isEmpty());
+	}
+
+	@Test
+	public void testRemoveInt() {
+		SingleLongList sl = new SingleLongList(42L);
+		assertEquals(Long.valueOf(42L), sl.remove(0));
+		assertTrue(sl.isEmpty());
+
+		thrown.expect(IndexOutOfBoundsException.class);
+		sl.remove(0);
+	}
+
+	@Test
+	public void testToArray() {
+		SingleLongList sl = new SingleLongList();
+		assertEquals(0, sl.toLongArray().length);
+		sl.add(42L);
+		assertArrayEquals(new long[] { 42L }, sl.toLongArray());
+		assertArrayEquals(new Object[] { 42L }, sl.toArray());
+		assertArrayEquals(new Long[] { 42L }, sl.toArray(new Long[0]));
+	}
+
+	@Test
+	public void testEqualsObject() {
+		SingleLongList sl = new SingleLongList();
+		assertTrue(sl.equals(Collections.emptyList()));
+		assertEquals(Collections.emptyList().hashCode(), sl.hashCode());
+		sl.addLong(42L);
+		List<Long> other = new ArrayList<Long>();
+		other.add(42L);
+		assertTrue(sl.equals(other));
+		assertTrue(other.equals(sl));
+		assertEquals(other.hashCode(), sl.hashCode());
+		assertTrue(sl.equals(new SingleLongList(42L)));
+		assertFalse(sl.equals(new SingleLongList(7L)));
+		assertFalse(sl.equals(new SingleLongSet(42L)));
+		assertFalse(sl.equals(new SingleIntList(42)));
+	}
+
+}
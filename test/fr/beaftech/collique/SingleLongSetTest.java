@@ -0,0 +1,81 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class SingleLongSetTest {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void testAddLong() {
+		SingleLongSet ss = new SingleLongSet();
+		assertTrue(ss.addLong(1L << 40));
+		assertFalse(ss.addLong(1L << 40));
+		assertTrue(ss.containsLong(1L << 40));
+		assertFalse(ss.containsLong(0L));
+
+		thrown.expect(UnsupportedOperationException.class);
+		ss.addLong(7L);
+	}
+
+	@Test
+	public void testRemove() {
+		SingleLongSet ss = new SingleLongSet(42L);
+		assertFalse(ss.remove(Integer.valueOf(42)));
+		assertFalse(ss.remove(7L));
+		assertTrue(ss.remove(42L));
+		assertTrue(ss.isEmpty());
+		assertFalse(ss.containsLong(42L));
+	}
+
+	@Test
+	public void testEqualsIncomparableSet() {
+		SingleLongSet ss = new SingleLongSet(1L);
+		assertFalse(ss.equals(new TreeSet<String>(Collections.singleton("a"))));
+	}
+
+	@Test
+	public void testEqualsObject() {
+		SingleLongSet ss = new SingleLongSet();
+		assertTrue(ss.equals(Collections.emptySet()));
+		ss.addLong(42L);
+		Set<Long> other = new HashSet<Long>();
+		other.add(42L);
+		assertTrue(ss.equals(other));
+		assertTrue(other.equals(ss));
+		assertEquals(other.hashCode(), ss.hashCode());
+		assertFalse(ss.equals(new SingleLongSet(7L)));
+	}
+
+}
@@ -0,0 +1,107 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class SingleObjIntMapTest {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void testPut() {
+		SingleObjIntMap<String> sm = new SingleObjIntMap<String>();
+		assertEquals(0, sm.put("key", 42));
+		assertTrue(sm.containsKey("key"));
+		assertTrue(sm.containsValue(42));
+		assertTrue(sm.containsValue(Integer.valueOf(42)));
+		assertEquals(42, sm.getInt("key"));
+		assertEquals(0, sm.getInt("another key"));
+		assertEquals(-1, sm.getInt("another key", -1));
+		assertEquals(Integer.valueOf(42), sm.get("key"));
+		assertEquals(Integer.valueOf(42), sm.put("key", Integer.valueOf(7)));
+		assertEquals(7, sm.getInt("key"));
+
+		thrown.expect(UnsupportedOperationException.class);
+		sm.put("another key", 42);
+	}
+
+	@Test
+	public void testNullKey() {
+		SingleObjIntMap<String> sm = new SingleObjIntMap<String>();
+		assertFalse(sm.containsKey(null));
+		sm.put(null, 42);
+		assertEquals(42, sm.getInt(null));
+		assertEquals(Integer.valueOf(42), sm.remove(null));
+		assertTrue(sm.isEmpty());
+	}
+
+	@Test
+	public void testViews() {
+		SingleObjIntMap<String> sm = new SingleObjIntMap<String>("key", 42);
+		assertTrue(sm.keySet().contains("key"));
+		assertTrue(sm.values().contains(42));
+		Entry<String, Integer> e = sm.entrySet().iterator().next();
+		assertEquals(Integer.valueOf(42), e.setValue(7));
+		assertEquals(7, sm.getInt("key"));
+	}
+
+	@Test
+	public void testEntryKeepsItsPairAfterClear() {
+		SingleObjIntMap<String> sm = new SingleObjIntMap<String>("a", 1);
+		Entry<String, Integer> e = sm.entrySet().iterator().next();
+		e.setValue(2);
+		assertEquals(2, sm.getInt("a"));
+		sm.clear();
+		assertEquals("a", e.getKey());
+		assertEquals(Integer.valueOf(2), e.getValue());
+		sm.put("b", 3);
+		assertEquals("a", e.getKey());
+		assertEquals(Integer.valueOf(2), e.getValue());
+		assertEquals(Integer.valueOf(2), e.setValue(4));
+		assertEquals(3, sm.getInt("b"));
+		assertEquals("a=4", e.toString());
+	}
+
+	@Test
+	public void testEqualsObject() {
+		SingleObjIntMap<String> sm = new SingleObjIntMap<String>();
+		assertTrue(sm.equals(Collections.emptyMap()));
+		sm.put("key", 42);
+		Map<String, Integer> other = new HashMap<String, Integer>();
+		other.put("key", 42);
+		assertTrue(sm.equals(other));
+		assertTrue(other.equals(sm));
+		assertEquals(other.hashCode(), sm.hashCode());
+	}
+
+}
@@ -0,0 +1,259 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class SingleSlotBlockingQueueTest {
+
+	private static final int HANDOFFS = 20000;
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void testBasics() {
+		SingleSlotBlockingQueue<String> queue = new SingleSlotBlockingQueue<String>();
+		assertNull(queue.poll());
+		assertNull(queue.peek());
+		assertEquals(1, queue.remainingCapacity());
+		assertTrue(queue.offer("a"));
+		assertFalse(queue.offer("b"));
+		assertEquals(0, queue.remainingCapacity());
+		assertEquals("a", queue.peek());
+		assertEquals("a", queue.element());
+		assertTrue(queue.contains("a"));
+		assertEquals(1, queue.size());
+		assertEquals("a", queue.poll());
+		assertTrue(queue.isEmpty());
+		assertTrue(queue.add("c"));
+		assertEquals("c", queue.remove());
+	}
+
+	@Test
+	public void testOfferNull() {
+		thrown.expect(NullPointerException.class);
+		new SingleSlotBlockingQueue<String>().offer(null);
+	}
+
+	@Test
+	public void testAddFull() {
+		SingleSlotBlockingQueue<String> queue = new SingleSlotBlockingQueue<String>();
+		queue.add("a");
+		thrown.expect(IllegalStateException.class);
+		queue.add("b");
+	}
+
+	@Test
+	public void testRemoveEmpty() {
+		thrown.expect(NoSuchElementException.class);
+		new SingleSlotBlockingQueue<String>().remove();
+	}
+
+	@Test
+	public void testDrainTo() {
+		SingleSlotBlockingQueue<String> queue = new SingleSlotBlockingQueue<String>();
+		List<String> sink = new ArrayList<String>();
+		assertEquals(0, queue.drainTo(sink));
+		queue.offer("a");
+		assertEquals(0, queue.drainTo(sink, 0));
+		assertEquals(1, queue.drainTo(sink));
+		assertEquals(1, sink.size());
+		assertTrue(queue.isEmpty());
+	}
+
+	@Test
+	public void testDrainToSelf() {
+		SingleSlotBlockingQueue<String> queue = new SingleSlotBlockingQueue<String>();
+		thrown.expect(IllegalArgumentException.class);
+		queue.drainTo(queue);
+	}
+
+	@Test
+	public void testTimedOperations() throws InterruptedException {
+		SingleSlotBlockingQueue<String> queue = new SingleSlotBlockingQueue<String>();
+		assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+		assertTrue(queue.offer("a", 10, TimeUnit.MILLISECONDS));
+		long start = System.nanoTime();
+		assertFalse(queue.offer("b", 20, TimeUnit.MILLISECONDS));
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS
+				.toNanos(20));
+		assertEquals("a", queue.poll(0, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	public void testTimedOutWaitersAreUnlinked() throws InterruptedException {
+		SingleSlotBlockingQueue<String> queue = new SingleSlotBlockingQueue<String>(
+				WaitStrategy.park());
+		long empty = ObjectLayout.COMPRESSED_OOPS.retainedSize(queue);
+		for (int i = 0; i < 1000; i++)
+			assertNull(queue.poll(10, TimeUnit.MICROSECONDS));
+		assertEquals(empty, ObjectLayout.COMPRESSED_OOPS.retainedSize(queue));
+		queue.offer("a");
+		long full = ObjectLayout.COMPRESSED_OOPS.retainedSize(queue, "a");
+		for (int i = 0; i < 1000; i++)
+			assertFalse(queue.offer("b", 10, TimeUnit.MICROSECONDS));
+		assertEquals(full, ObjectLayout.COMPRESSED_OOPS.retainedSize(queue,
+				"a"));
+	}
+
+	@Test
+	public void testHandoffSpinYieldPark() throws Exception {
+		assertHandoffs(WaitStrategy.spinYieldPark(), HANDOFFS);
+	}
+
+	@Test
+	public void testHandoffPark() throws Exception {
+		assertHandoffs(WaitStrategy.park(), HANDOFFS);
+	}
+
+	@Test
+	public void testHandoffBusySpin() throws Exception {
+		// spinning threads only hand over when they run on distinct cores,
+		// so keep this short on machines with fewer cores than threads
+		assertHandoffs(WaitStrategy.busySpin(), 100);
+	}
+
+	@Test
+	public void testTakeInterrupted() throws Exception {
+		final SingleSlotBlockingQueue<String> queue = new SingleSlotBlockingQueue<String>(
+				WaitStrategy.park());
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		Thread taker = new Thread() {
+			@Override
+			public void run() {
+				try {
+					queue.take();
+				} catch (Throwable t) {
+					failure.set(t);
+				}
+			}
+		};
+		long empty = ObjectLayout.COMPRESSED_OOPS.retainedSize(queue);
+		taker.start();
+		taker.interrupt();
+		taker.join(10000);
+		assertTrue(failure.get() instanceof InterruptedException);
+		assertEquals(empty, ObjectLayout.COMPRESSED_OOPS.retainedSize(queue));
+	}
+
+	@Test
+	public void testRemovalWakesPutter() throws Exception {
+		final SingleSlotBlockingQueue<String> queue = new SingleSlotBlockingQueue<String>(
+				WaitStrategy.park());
+		queue.offer("a");
+		final CountDownLatch done = new CountDownLatch(3);
+		Thread putter = new Thread() {
+			@Override
+			public void run() {
+				try {
+					for (String e : new String[] { "b", "c", "d" }) {
+						queue.put(e);
+						done.countDown();
+					}
+				} catch (InterruptedException e) {
+					// ends the test with a failure on the latch
+				}
+			}
+		};
+		putter.start();
+		// every kind of removal must wake the parked producer up
+		assertTrue(queue.remove("a"));
+		waitUntilFull(queue);
+		queue.clear();
+		waitUntilFull(queue);
+		Iterator<String> it = queue.iterator();
+		it.next();
+		it.remove();
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		assertEquals("d", queue.poll());
+		putter.join();
+	}
+
+	@Test
+	public void testSerialization() throws Exception {
+		SingleSlotBlockingQueue<String> queue = new SingleSlotBlockingQueue<String>(
+				WaitStrategy.busySpin());
+		queue.offer("a");
+		SingleSlotBlockingQueue<String> copy = SerializationTest
+				.roundTrip(queue);
+		assertEquals("a", copy.poll());
+		assertSame(WaitStrategy.busySpin(), copy.getWaitStrategy());
+	}
+
+	@Test
+	public void testNegativeRounds() {
+		thrown.expect(IllegalArgumentException.class);
+		WaitStrategy.spinYieldPark(-1, 0);
+	}
+
+	private static void waitUntilFull(SingleSlotBlockingQueue<String> queue)
+			throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (queue.isEmpty() && System.nanoTime() < deadline)
+			Thread.sleep(1);
+		assertFalse(queue.isEmpty());
+	}
+
+	/**
+	 * Hand a sequence of integers over from a producer to a consumer, which
+	 * must receive them all in order.
+	 */
+	private static void assertHandoffs(WaitStrategy waitStrategy,
+			final int handoffs) throws Exception {
+		final SingleSlotBlockingQueue<Integer> queue = new SingleSlotBlockingQueue<Integer>(
+				waitStrategy);
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		Thread producer = new Thread() {
+			@Override
+			public void run() {
+				try {
+					for (int i = 0; i < handoffs; i++)
+						queue.put(i);
+				} catch (Throwable t) {
+					failure.set(t);
+				}
+			}
+		};
+		producer.start();
+		for (int i = 0; i < handoffs; i++) {
+			Integer received = queue.poll(10, TimeUnit.SECONDS);
+			assertEquals(Integer.valueOf(i), received);
+		}
+		producer.join(10000);
+		assertNull(failure.get());
+		assertTrue(queue.isEmpty());
+	}
+
+}
@@ -0,0 +1,167 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique.agent;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class AllocationTrackerTest {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Before
+	public void sampleAll() {
+		AllocationTracker.reset();
+		AllocationTracker.setSampleRate(1);
+	}
+
+	@After
+	public void restore() {
+		AllocationTracker.reset();
+		AllocationTracker.setSampleRate(64);
+	}
+
+	private static String report() {
+		StringWriter out = new StringWriter();
+		AllocationTracker.writeReport(out);
+		return out.toString();
+	}
+
+	private static String line(String report, String site) {
+		for (String line : report.split("\\R"))
+			if (line.contains(site))
+				return line;
+		fail("No line for " + site + " in\n" + report);
+		return null;
+	}
+
+	private static List<String> newList() {
+		return new TrackedArrayList<String>();
+	}
+
+	@Test
+	public void testSiteStatistics() {
+		for (int i = 0; i < 10; i++) {
+			List<String> list = newList();
+			if (i < 5)
+				list.add("a");
+			if (i < 2)
+				list.add(0, "b");
+		}
+		String line = line(report(), ".newList(");
+		assertTrue(line, line.startsWith("ArrayList"));
+		assertTrue(line, line.contains(" 10 "));
+		// 5 empty, 3 with one element, 2 with two
+		assertTrue(line, line.contains("50.0%   30.0%   80.0%"));
+		// 5 * 8 + 3 * 64 bytes
+		assertTrue(line, line.contains("232 B"));
+		assertTrue(line, line.contains("SingleElementList"));
+	}
+
+	@Test
+	public void testSitesAreSeparated() {
+		Map<String, String> first = new TrackedHashMap<String, String>();
+		first.put("a", "b");
+		Map<String, String> second = new TrackedHashMap<String, String>(4);
+		second.put("a", "b");
+		second.putIfAbsent("c", "d");
+		Set<String> set = new TrackedHashSet<String>(Arrays.asList("a"));
+		set.addAll(Arrays.asList("a"));
+		String[] lines = report().split("\\R");
+		// header, then the sites sorted by saved bytes
+		assertEquals(5, lines.length);
+		assertTrue(lines[2], lines[2].startsWith("HashSet"));
+		assertTrue(lines[2], lines[2].contains("160 B"));
+		assertTrue(lines[3], lines[3].startsWith("HashMap"));
+		assertTrue(lines[3], lines[3].contains("0.0%  100.0%  100.0%"));
+		assertTrue(lines[4], lines[4].startsWith("HashMap"));
+		assertTrue(lines[4], lines[4].contains("0.0%    0.0%    0.0%"));
+	}
+
+	@Test
+	public void testMapMutators() {
+		Map<String, Integer> map = new TrackedHashMap<String, Integer>();
+		map.computeIfAbsent("a", k -> 1);
+		map.merge("b", 1, Integer::sum);
+		Map<String, Integer> other = new TrackedHashMap<String, Integer>();
+		other.compute("a", (k, v) -> 1);
+		String report = report();
+		assertTrue(report, report.contains("0.0%    0.0%    0.0%"));
+		assertTrue(report, report.contains("0.0%  100.0%  100.0%"));
+	}
+
+	@Test
+	public void testUnsampled() {
+		AllocationTracker.setSampleRate(Integer.MAX_VALUE);
+		for (int i = 0; i < 100; i++)
+			new TrackedArrayList<String>(Arrays.asList("a", "b"));
+		assertFalse(report().contains("ArrayList "));
+	}
+
+	@Test
+	public void testSerializedAsJdkCollection() throws Exception {
+		List<String> list = new TrackedArrayList<String>(Arrays.asList("a"));
+		Set<String> set = new TrackedHashSet<String>(Arrays.asList("a"));
+		Map<String, String> map = new TrackedHashMap<String, String>();
+		map.put("a", "b");
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(list);
+			out.writeObject(set);
+			out.writeObject(map);
+		}
+		try (ObjectInputStream in = new ObjectInputStream(
+				new ByteArrayInputStream(bytes.toByteArray()))) {
+			assertEquals(ArrayList.class, in.readObject().getClass());
+			assertEquals(HashSet.class, in.readObject().getClass());
+			Object read = in.readObject();
+			assertEquals(HashMap.class, read.getClass());
+			assertEquals(map, read);
+		}
+	}
+
+	@Test
+	public void testIllegalSampleRate() {
+		thrown.expect(IllegalArgumentException.class);
+		AllocationTracker.setSampleRate(0);
+	}
+
+}
@@ -0,0 +1,242 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique.agent;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class ClassRewriterTest {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	public static class Allocations {
+
+		static final long BIG = 0x123456789abcdefL;
+
+		public static List<String> list() {
+			return new ArrayList<String>();
+		}
+
+		public static List<String> sizedList(int capacity) {
+			List<String> list = new ArrayList<String>(capacity);
+			list.add("a" + capacity);
+			return list;
+		}
+
+		public static Set<Integer> set(Collection<Integer> c) {
+			return new HashSet<Integer>(c);
+		}
+
+		public static Map<String, Long> map(int kind) {
+			Map<String, Long> map;
+			switch (kind) {
+			case 0:
+				map = new HashMap<String, Long>();
+				break;
+			case 1:
+				map = new HashMap<String, Long>(4, 0.5f);
+				break;
+			default:
+				map = new HashMap<String, Long>(Math.abs(kind));
+			}
+			long total = 0;
+			for (int i = 0; i < 3; i++)
+				total += i * BIG;
+			map.put("total", total);
+			return map;
+		}
+
+		public static Map<String, Long> sparse(int key) {
+			switch (key) {
+			case 1:
+			case 1000:
+			case 1000000:
+				return new HashMap<String, Long>();
+			default:
+				return null;
+			}
+		}
+
+		public static Supplier<List<Object>> lambda() {
+			return () -> new ArrayList<Object>();
+		}
+
+		public static Supplier<List<Object>> constructorReference() {
+			return ArrayList::new;
+		}
+
+		public static boolean isArrayList(Object o) {
+			return o instanceof ArrayList && o.getClass() != ArrayList.class;
+		}
+
+	}
+
+	@SuppressWarnings("serial")
+	public static class Extension extends ArrayList<String> {
+
+		public Extension() {
+			super();
+		}
+
+		public List<String> copy() {
+			return new ArrayList<String>(this);
+		}
+
+	}
+
+	public static class NoCollection {
+
+		public static Object object() {
+			return new Object();
+		}
+
+	}
+
+	private static byte[] bytes(Class<?> c) throws IOException {
+		String name = c.getName();
+		try (InputStream in = c.getResourceAsStream(name.substring(name
+				.lastIndexOf('.') + 1) + ".class")) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int read;
+			while ((read = in.read(buffer)) > 0)
+				out.write(buffer, 0, read);
+			return out.toByteArray();
+		}
+	}
+
+	/**
+	 * Load the rewritten class in its own class loader, which makes the JVM
+	 * verify the rewritten code.
+	 */
+	private static Class<?> rewritten(Class<?> c) throws Exception {
+		final String name = c.getName();
+		final byte[] rewritten = ClassRewriter.rewrite(bytes(c));
+		assertNotNull(rewritten);
+		ClassLoader loader = new ClassLoader(c.getClassLoader()) {
+
+			@Override
+			protected Class<?> loadClass(String n, boolean resolve)
+					throws ClassNotFoundException {
+				if (!n.equals(name))
+					return super.loadClass(n, resolve);
+				synchronized (getClassLoadingLock(n)) {
+					Class<?> loaded = findLoadedClass(n);
+					if (loaded == null)
+						loaded = defineClass(n, rewritten, 0, rewritten.length);
+					return loaded;
+				}
+			}
+
+		};
+		return Class.forName(name, true, loader);
+	}
+
+	private static Object call(Class<?> c, String method, Object... args)
+			throws Exception {
+		for (Method m : c.getMethods())
+			if (m.getName().equals(method))
+				return m.invoke(null, args);
+		throw new NoSuchMethodException(method);
+	}
+
+	@Test
+	public void testAllocationsAreRedirected() throws Exception {
+		Class<?> c = rewritten(Allocations.class);
+		assertNotSame(Allocations.class, c);
+		assertEquals(TrackedArrayList.class, call(c, "list").getClass());
+		Object list = call(c, "sizedList", 3);
+		assertEquals(TrackedArrayList.class, list.getClass());
+		assertEquals(Arrays.asList("a3"), list);
+		Object set = call(c, "set", Arrays.asList(1, 2, 2));
+		assertEquals(TrackedHashSet.class, set.getClass());
+		assertEquals(new HashSet<Integer>(Arrays.asList(1, 2)), set);
+		for (int kind = -1; kind < 3; kind++) {
+			Object map = call(c, "map", kind);
+			assertEquals(TrackedHashMap.class, map.getClass());
+			assertEquals(3 * Allocations.BIG, ((Map<?, ?>) map).get("total"));
+		}
+		assertEquals(TrackedHashMap.class, call(c, "sparse", 1000).getClass());
+		assertNull(call(c, "sparse", 2));
+	}
+
+	@Test
+	public void testOtherUsesAreKept() throws Exception {
+		Class<?> c = rewritten(Allocations.class);
+		assertEquals(true, call(c, "isArrayList", call(c, "list")));
+		assertEquals(false, call(c, "isArrayList", new ArrayList<Object>()));
+		Supplier<?> lambda = (Supplier<?>) call(c, "lambda");
+		assertEquals(TrackedArrayList.class, lambda.get().getClass());
+		// constructor references are not rewritten
+		Supplier<?> reference = (Supplier<?>) call(c, "constructorReference");
+		assertEquals(ArrayList.class, reference.get().getClass());
+	}
+
+	@Test
+	public void testSubclassesAreNotRewritten() throws Exception {
+		assertNull(ClassRewriter.rewrite(bytes(Extension.class)));
+	}
+
+	@Test
+	public void testClassesWithoutAllocationAreNotRewritten() throws Exception {
+		assertNull(ClassRewriter.rewrite(bytes(NoCollection.class)));
+	}
+
+	@Test
+	public void testMalformedClass() throws Exception {
+		byte[] b = bytes(Allocations.class);
+		thrown.expect(IllegalArgumentException.class);
+		ClassRewriter.rewrite(Arrays.copyOf(b, b.length / 2));
+	}
+
+	@Test
+	public void testTransformerFilter() {
+		ClassLoader app = getClass().getClassLoader();
+		AllocationTransformer all = new AllocationTransformer();
+		assertTrue(all.instruments(app, "com/example/Foo"));
+		assertFalse(all.instruments(null, "com/example/Foo"));
+		assertFalse(all.instruments(app, "java/util/Collections"));
+		assertFalse(all.instruments(app, "fr/beaftech/collique/Collique"));
+		AllocationTransformer some = new AllocationTransformer("com.example.");
+		assertTrue(some.instruments(app, "com/example/Foo"));
+		assertFalse(some.instruments(app, "org/example/Foo"));
+	}
+
+}
@@ -0,0 +1,369 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique.hprof;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.TreeMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+import fr.beaftech.collique.hprof.HeapDumpReport.Kind;
+
+/**
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class HeapDumpAnalyzerTest {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	private Path dump;
+
+	/**
+	 * Writer of synthetic heap dumps with 4 bytes identifiers.
+	 */
+	private static class HprofWriter {
+
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		private final DataOutputStream out = new DataOutputStream(bytes);
+
+		private final ByteArrayOutputStream heap = new ByteArrayOutputStream();
+
+		private final DataOutputStream heapOut = new DataOutputStream(heap);
+
+		private int nextId = 1;
+
+		HprofWriter() throws IOException {
+			out.write("JAVA PROFILE 1.0.2\0".getBytes(StandardCharsets.US_ASCII));
+			out.writeInt(4);
+			out.writeLong(0);
+		}
+
+		private void record(int tag, byte[] body) throws IOException {
+			out.writeByte(tag);
+			out.writeInt(0);
+			out.writeInt(body.length);
+			out.write(body);
+		}
+
+		int string(String s) throws IOException {
+			int id = nextId++;
+			ByteArrayOutputStream body = new ByteArrayOutputStream();
+			new DataOutputStream(body).writeInt(id);
+			body.write(s.getBytes(StandardCharsets.UTF_8));
+			record(0x01, body.toByteArray());
+			return id;
+		}
+
+		/**
+		 * Declare a class with reference ({@code L}) and int ({@code I})
+		 * fields, e.g. {@code "Lmap"}.
+		 */
+		int declareClass(String name, int superId, String... fields)
+				throws IOException {
+			int id = nextId++;
+			ByteArrayOutputStream body = new ByteArrayOutputStream();
+			DataOutputStream b = new DataOutputStream(body);
+			b.writeInt(1);
+			b.writeInt(id);
+			b.writeInt(0);
+			b.writeInt(string(name));
+			record(0x02, body.toByteArray());
+			heapOut.writeByte(0x20);
+			heapOut.writeInt(id);
+			heapOut.writeInt(0);
+			heapOut.writeInt(superId);
+			for (int i = 0; i < 5; i++)
+				heapOut.writeInt(0);
+			heapOut.writeInt(0);
+			heapOut.writeShort(0);
+			heapOut.writeShort(1);
+			heapOut.writeInt(string("SERIAL"));
+			heapOut.writeByte(11);
+			heapOut.writeLong(42);
+			heapOut.writeShort(fields.length);
+			for (String field : fields) {
+				heapOut.writeInt(string(field.substring(1)));
+				heapOut.writeByte(field.charAt(0) == 'L' ? 2 : 10);
+			}
+			return id;
+		}
+
+		/**
+		 * Dump an instance with the given field values, references and ints
+		 * being both written on 4 bytes.
+		 */
+		int instance(int classId, int... values) throws IOException {
+			int id = nextId++;
+			heapOut.writeByte(0x05); // sticky class root
+			heapOut.writeInt(classId);
+			heapOut.writeByte(0x21);
+			heapOut.writeInt(id);
+			heapOut.writeInt(0);
+			heapOut.writeInt(classId);
+			heapOut.writeInt(4 * values.length);
+			for (int value : values)
+				heapOut.writeInt(value);
+			return id;
+		}
+
+		int objectArray(int length) throws IOException {
+			int id = nextId++;
+			heapOut.writeByte(0x22);
+			heapOut.writeInt(id);
+			heapOut.writeInt(0);
+			heapOut.writeInt(length);
+			heapOut.writeInt(0);
+			for (int i = 0; i < length; i++)
+				heapOut.writeInt(0);
+			heapOut.writeByte(0x23);
+			heapOut.writeInt(nextId++);
+			heapOut.writeInt(0);
+			heapOut.writeInt(3);
+			heapOut.writeByte(5); // char
+			heapOut.writeShort('a');
+			heapOut.writeShort('b');
+			heapOut.writeShort('c');
+			return id;
+		}
+
+		byte[] toByteArray() throws IOException {
+			record(0x1c, heap.toByteArray());
+			record(0x2c, new byte[0]);
+			return bytes.toByteArray();
+		}
+
+	}
+
+	@Before
+	public void createDump() throws IOException {
+		dump = Files.createTempFile("collique", ".hprof");
+	}
+
+	@After
+	public void deleteDump() throws IOException {
+		Files.deleteIfExists(dump);
+	}
+
+	private HeapDumpReport analyzeSynthetic(int maxPending, int window)
+			throws IOException {
+		return analyzeSynthetic(true, maxPending, window);
+	}
+
+	private HeapDumpReport analyzeSynthetic(boolean compressedOops,
+			int maxPending, int window) throws IOException {
+		HprofWriter w = new HprofWriter();
+		// 24 bytes lists
+		int arrayList = w.declareClass("java/util/ArrayList", 0,
+				"LelementData", "Isize");
+		// 16 bytes sets and 24 bytes maps
+		int hashSet = w.declareClass("java/util/HashSet", 0, "Lmap");
+		int hashMap = w.declareClass("java/util/HashMap", 0, "Ltable",
+				"Isize");
+		// 32 bytes nodes
+		w.declareClass("java/util/HashMap$Node", 0, "Ihash", "Lkey",
+				"Lvalue", "Lnext");
+		// 32 bytes lists and nodes
+		int linkedList = w.declareClass("java/util/LinkedList", 0, "Ifirst",
+				"Ilast", "Isize", "ImodCount", "Iother");
+		w.declareClass("java/util/LinkedList$Node", 0, "Litem", "Lnext",
+				"Lprev", "Lpad");
+
+		// one element list: 24 + 56 - 16 = 64 bytes
+		w.instance(arrayList, w.objectArray(10), 1);
+		// empty list on the shared empty array: 24 - 16 = 8 bytes
+		int empty = w.objectArray(0);
+		w.instance(arrayList, empty, 0);
+		w.instance(arrayList, empty, 0);
+		// large list: nothing
+		w.instance(arrayList, w.objectArray(10), 7);
+		// set of one: 16 + 24 + 32 + 80 - 16 = 136 bytes
+		int setMap = w.instance(hashMap, w.objectArray(16), 1);
+		w.instance(hashSet, setMap);
+		// empty map without table: 24 - 24 = 0 bytes
+		w.instance(hashMap, 0, 0);
+		// map of two: nothing
+		w.instance(hashMap, w.objectArray(16), 2);
+		// set backed by a map declared after it, of three
+		int lateMap = w.nextId + 1;
+		w.instance(hashSet, lateMap);
+		assertEquals(lateMap, w.instance(hashMap, 0, 3));
+		// one element linked list: 32 + 32 - 16 = 48 bytes
+		w.instance(linkedList, 0, 0, 1, 0, 0);
+		Files.write(dump, w.toByteArray());
+		return new HeapDumpAnalyzer(compressedOops, maxPending).windowSize(
+				window).analyze(dump);
+	}
+
+	private static void assertSynthetic(HeapDumpReport report) {
+		assertEquals(4, report.instances(Kind.ARRAY_LIST));
+		assertEquals(2, report.instances(Kind.ARRAY_LIST, 0));
+		assertEquals(1, report.instances(Kind.ARRAY_LIST, 1));
+		assertEquals(1, report.instances(Kind.ARRAY_LIST, 6));
+		assertEquals(80, report.reclaimableBytes(Kind.ARRAY_LIST));
+		assertEquals(2, report.instances(Kind.HASH_SET));
+		assertEquals(1, report.instances(Kind.HASH_SET, 1));
+		assertEquals(1, report.instances(Kind.HASH_SET, 3));
+		assertEquals(136, report.reclaimableBytes(Kind.HASH_SET));
+		assertEquals(2, report.instances(Kind.HASH_MAP));
+		assertEquals(1, report.instances(Kind.HASH_MAP, 0));
+		assertEquals(1, report.instances(Kind.HASH_MAP, 2));
+		assertEquals(0, report.reclaimableBytes(Kind.HASH_MAP));
+		assertEquals(1, report.instances(Kind.LINKED_LIST, 1));
+		assertEquals(48, report.reclaimableBytes(Kind.LINKED_LIST));
+		assertEquals(0, report.instances(Kind.TREE_MAP));
+		assertEquals(80 + 136 + 48, report.reclaimableBytes());
+	}
+
+	@Test
+	public void testSyntheticDump() throws IOException {
+		HeapDumpReport report = analyzeSynthetic(1 << 20,
+				HprofInput.DEFAULT_WINDOW);
+		assertSynthetic(report);
+		assertEquals(4, report.passes());
+		String text = report.toString();
+		assertTrue(text, text.contains("Total reclaimable: 264 B"));
+	}
+
+	@Test
+	public void testSyntheticDumpUncompressedOops() throws IOException {
+		// 16 bytes headers, 8 bytes references, arrays elements from 24
+		HeapDumpReport report = analyzeSynthetic(false, 1 << 20,
+				HprofInput.DEFAULT_WINDOW);
+		assertEquals(4, report.instances(Kind.ARRAY_LIST));
+		// 32 - 24 bytes for each list, and 24 + 80 for the array of ten
+		assertEquals(8 + 112 + 8, report.reclaimableBytes(Kind.ARRAY_LIST));
+		// 24 - 24 + 32 bytes for the set and its map, a 48 bytes node and
+		// 24 + 128 for the table
+		assertEquals(32 + 48 + 152, report.reclaimableBytes(Kind.HASH_SET));
+		assertEquals(0, report.reclaimableBytes(Kind.HASH_MAP));
+		// 40 - 24 bytes for the list and a 48 bytes node
+		assertEquals(16 + 48, report.reclaimableBytes(Kind.LINKED_LIST));
+		assertEquals(424, report.reclaimableBytes());
+	}
+
+	@Test
+	public void testSyntheticDumpByPartitions() throws IOException {
+		HeapDumpReport report = analyzeSynthetic(2, 16);
+		assertSynthetic(report);
+		assertTrue(report.passes() > 4);
+	}
+
+	@Test
+	public void testBucket() {
+		int[] sizes = { 0, 1, 2, 3, 4, 5, 8, 9, 16, 17, 32, 33, 1 << 30 };
+		int[] buckets = { 0, 1, 2, 3, 3, 4, 4, 5, 5, 6, 6, 7, 7 };
+		for (int i = 0; i < sizes.length; i++)
+			assertEquals(buckets[i], HeapDumpReport.bucket(sizes[i]));
+	}
+
+	static List<Object> retained;
+
+	@Test
+	public void testRealDump() throws IOException {
+		int n = 2000;
+		List<Object> objects = new ArrayList<Object>();
+		for (int i = 0; i < n; i++) {
+			List<Integer> list = new ArrayList<Integer>();
+			list.add(i);
+			objects.add(list);
+			objects.add(new HashSet<Integer>());
+			HashMap<Integer, Integer> map = new HashMap<Integer, Integer>();
+			map.put(i, i);
+			objects.add(map);
+			objects.add(new LinkedList<Integer>(Arrays.asList(i)));
+			objects.add(new TreeMap<Integer, Integer>(map));
+		}
+		retained = objects;
+		Files.delete(dump);
+		ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class)
+				.dumpHeap(dump.toString(), true);
+		retained = null;
+
+		HeapDumpReport report = new HeapDumpAnalyzer().analyze(dump);
+		assertTrue(report.instances(Kind.ARRAY_LIST, 1) >= n);
+		assertTrue(report.instances(Kind.HASH_SET, 0) >= n);
+		assertTrue(report.instances(Kind.HASH_MAP, 1) >= n);
+		assertTrue(report.instances(Kind.LINKED_LIST, 1) >= n);
+		assertTrue(report.instances(Kind.TREE_MAP, 1) >= n);
+		// 24 + 56 - 16 bytes for each list of one
+		assertTrue(report.reclaimableBytes(Kind.ARRAY_LIST) >= 64 * n);
+		// 16 + 48 - 16 bytes for each empty set
+		assertTrue(report.reclaimableBytes(Kind.HASH_SET) >= 48 * n);
+		// 48 + 32 + 80 - 24 bytes for each map of one
+		assertTrue(report.reclaimableBytes(Kind.HASH_MAP) >= 136 * n);
+
+		HeapDumpReport partitioned = new HeapDumpAnalyzer(true, 1000)
+				.windowSize(1 << 16).analyze(dump);
+		assertTrue(partitioned.passes() > report.passes());
+		for (Kind kind : Kind.values()) {
+			for (int size = 0; size < 64; size++)
+				assertEquals(report.instances(kind, size),
+						partitioned.instances(kind, size));
+			assertEquals(report.reclaimableBytes(kind),
+					partitioned.reclaimableBytes(kind));
+		}
+	}
+
+	@Test
+	public void testTruncatedDump() throws IOException {
+		HprofWriter w = new HprofWriter();
+		w.declareClass("java/util/ArrayList", 0, "LelementData", "Isize");
+		byte[] bytes = w.toByteArray();
+		Files.write(dump, Arrays.copyOf(bytes, bytes.length - 3));
+		thrown.expect(EOFException.class);
+		new HeapDumpAnalyzer().analyze(dump);
+	}
+
+	@Test
+	public void testNotADump() throws IOException {
+		Files.write(dump, "JAVA PROFILE".getBytes(StandardCharsets.US_ASCII));
+		thrown.expect(IOException.class);
+		new HeapDumpAnalyzer().analyze(dump);
+	}
+
+	@Test
+	public void testIllegalMaxPending() {
+		thrown.expect(IllegalArgumentException.class);
+		new HeapDumpAnalyzer(true, 0);
+	}
+
+}
@@ -0,0 +1,238 @@
+/*
+Copyright (C) 2015  Arnould GUIDAT
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU Lesser General Public License as published by
+the Free Software Foundation; version 3 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU Lesser General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package fr.beaftech.collique.xml;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import fr.beaftech.collique.Collique;
+import fr.beaftech.collique.SingleElementList;
+import fr.beaftech.collique.SingleElementMap;
+import fr.beaftech.collique.SingleElementSet;
+
+/**
+ * 
+ * @version 1.1
+ * @since 1.1
+ */
+public class ConfigReaderTest {
+
+	enum Mode {
+		ACTIVE, PASSIVE
+	}
+
+	static class Store {
+		String path;
+	}
+
+	static class FileStore extends Store {
+		long maxSize;
+	}
+
+	static class Locked {
+		String path;
+
+		private Locked() {
+		}
+	}
+
+	static class Server {
+		String name;
+		int port;
+		boolean secure;
+		Mode mode;
+		List<String> aliases;
+		Set<Integer> ports;
+		Map<String, String> headers;
+		Collection<Store> stores;
+		Map<String, List<String>> routes;
+		ArrayList<String> concrete;
+		Store store;
+		Map<String, Store> storesByName;
+		Locked locked;
+		transient String ignored;
+	}
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	private final ConfigReader reader = new ConfigReader(FileStore.class,
+			Thread.class);
+
+	private Server read(String xml) throws XMLStreamException {
+		return reader.read(new StringReader(xml), Server.class);
+	}
+
+	@Test
+	public void testScalars() throws XMLStreamException {
+		Server server = read("<server port='8080' mode='PASSIVE'>"
+				+ "<name>main</name><secure> true </secure></server>");
+		assertEquals("main", server.name);
+		assertEquals(8080, server.port);
+		assertTrue(server.secure);
+		assertEquals(Mode.PASSIVE, server.mode);
+		assertNull(server.aliases);
+	}
+
+	@Test
+	public void testEmptyCollections() throws XMLStreamException {
+		Server server = read("<server><aliases/><ports></ports>"
+				+ "<headers>\n</headers></server>");
+		assertSame(Collique.emptyList(), server.aliases);
+		assertSame(Collique.emptySet(), server.ports);
+		assertSame(Collique.emptyMap(), server.headers);
+	}
+
+	@Test
+	public void testSingleElementCollections() throws XMLStreamException {
+		Server server = read("<server><aliases><alias>www</alias></aliases>"
+				+ "<ports><port>80</port><port>80</port></ports>"
+				+ "<headers><h key='Cache-Control'>no-cache</h></headers>"
+				+ "</server>");
+		assertTrue(server.aliases instanceof SingleElementList);
+		assertEquals(Arrays.asList("www"), server.aliases);
+		assertTrue(server.ports instanceof SingleElementSet);
+		assertTrue(server.ports.contains(80));
+		assertTrue(server.headers instanceof SingleElementMap);
+		assertEquals("no-cache", server.headers.get("Cache-Control"));
+	}
+
+	@Test
+	public void testLargerCollections() throws XMLStreamException {
+		Server server = read("<server><aliases><a>www</a><a>web</a><a>w</a>"
+				+ "</aliases><ports><p>80</p><p>443</p></ports>"
+				+ "<headers><h key='a'>1</h><h key='b'>2</h></headers>"
+				+ "<concrete><c>x</c></concrete></server>");
+		assertEquals(Arrays.asList("www", "web", "w"), server.aliases);
+		assertEquals(ArrayList.class, server.aliases.getClass());
+		assertEquals(new HashSet<Integer>(Arrays.asList(80, 443)),
+				server.ports);
+		Map<String, String> headers = new HashMap<String, String>();
+		headers.put("a", "1");
+		headers.put("b", "2");
+		assertEquals(headers, server.headers);
+		assertEquals(HashMap.class, server.headers.getClass());
+		assertEquals(ArrayList.class, server.concrete.getClass());
+	}
+
+	@Test
+	public void testNestedObjects() throws XMLStreamException {
+		Server server = read("<server><store class='"
+				+ FileStore.class.getName() + "' maxSize='10'>"
+				+ "<path>/var/data</path></store><stores><s><path>a</path></s>"
+				+ "</stores><routes><r key='/'><t>index</t></r></routes>"
+				+ "</server>");
+		assertEquals(FileStore.class, server.store.getClass());
+		assertEquals("/var/data", server.store.path);
+		assertEquals(10, ((FileStore) server.store).maxSize);
+		assertEquals(1, server.stores.size());
+		assertEquals("a", server.stores.iterator().next().path);
+		assertEquals(Arrays.asList("index"), server.routes.get("/"));
+	}
+
+	@Test
+	public void testObjectMapValues() throws XMLStreamException {
+		Server server = read("<server><storesByName>"
+				+ "<s key='main' class='" + FileStore.class.getName()
+				+ "' maxSize='10'><path>/var/data</path></s>"
+				+ "<s key='logs' path='/var/log'/></storesByName></server>");
+		assertEquals(2, server.storesByName.size());
+		Store main = server.storesByName.get("main");
+		assertEquals(FileStore.class, main.getClass());
+		assertEquals("/var/data", main.path);
+		assertEquals(10, ((FileStore) main).maxSize);
+		assertEquals("/var/log", server.storesByName.get("logs").path);
+	}
+
+	@Test
+	public void testInputStream() throws XMLStreamException {
+		byte[] xml = ("<?xml version='1.0' encoding='UTF-8'?>"
+				+ "<server><name>caf\u00e9</name></server>")
+				.getBytes(StandardCharsets.UTF_8);
+		Server server = reader.read(new ByteArrayInputStream(xml),
+				Server.class);
+		assertEquals("caf\u00e9", server.name);
+	}
+
+	@Test
+	public void testUnknownField() throws XMLStreamException {
+		thrown.expect(XMLStreamException.class);
+		thrown.expectMessage("Unknown field unknown");
+		read("<server><unknown/></server>");
+	}
+
+	@Test
+	public void testTransientFieldNotBound() throws XMLStreamException {
+		thrown.expect(XMLStreamException.class);
+		read("<server><ignored>x</ignored></server>");
+	}
+
+	@Test
+	public void testInvalidValue() throws XMLStreamException {
+		thrown.expect(XMLStreamException.class);
+		thrown.expectMessage("Invalid int");
+		read("<server port='http'/>");
+	}
+
+	@Test
+	public void testClassAttributeMustMatchDeclaredType()
+			throws XMLStreamException {
+		thrown.expect(XMLStreamException.class);
+		thrown.expectMessage("is not a");
+		read("<server><store class='java.lang.Thread'/></server>");
+	}
+
+	@Test
+	public void testClassAttributeMustBeRegistered() throws XMLStreamException {
+		thrown.expect(XMLStreamException.class);
+		thrown.expectMessage("is not registered");
+		new ConfigReader().read(new StringReader("<server><store class='"
+				+ FileStore.class.getName() + "'/></server>"), Server.class);
+	}
+
+	@Test
+	public void testPrivateConstructorNotForced() throws XMLStreamException {
+		thrown.expect(XMLStreamException.class);
+		thrown.expectMessage("Cannot instantiate");
+		read("<server><locked><path>a</path></locked></server>");
+	}
+
+	@Test
+	public void testExternalEntitiesRejected() throws XMLStreamException {
+		thrown.expect(XMLStreamException.class);
+		read("<?xml version='1.0'?><!DOCTYPE server [<!ENTITY xxe SYSTEM "
+				+ "'file:///etc/passwd'>]><server><name>&xxe;</name></server>");
+	}
+
+}